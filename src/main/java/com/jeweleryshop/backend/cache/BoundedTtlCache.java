@@ -0,0 +1,155 @@
+package com.jeweleryshop.backend.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import com.jeweleryshop.backend.dto.CacheStatsDTO;
+
+/**
+ * 🧠 Cache trong bộ nhớ có giới hạn kích thước (LRU) và thời gian sống (TTL).
+ *
+ * <ul>
+ * <li>Vượt quá {@code maxSize} → bỏ phần tử ít được dùng nhất.</li>
+ * <li>Phần tử quá {@code ttl} bị coi như không tồn tại và bị xóa khi đọc.</li>
+ * <li>Đếm hit / miss / eviction / invalidation để định cỡ cache.</li>
+ * </ul>
+ *
+ * {@link #getOrLoad} không giữ khóa trong lúc nạp dữ liệu; nếu có
+ * {@link #invalidate} xảy ra trong lúc nạp thì giá trị vừa nạp bị bỏ qua để
+ * không ghi đè dữ liệu cũ lên cache vừa được làm mới.
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    // Tăng mỗi lần invalidate → dùng để phát hiện giá trị nạp về đã lỗi thời
+    private final AtomicLong generation = new AtomicLong();
+
+    public BoundedTtlCache(String name, int maxSize, Duration ttl) {
+        this(name, maxSize, ttl, System::nanoTime);
+    }
+
+    BoundedTtlCache(String name, int maxSize, Duration ttl, LongSupplier nanoClock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        // accessOrder = true → thứ tự LRU
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedTtlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return giá trị còn hạn trong cache, hoặc null nếu không có
+     */
+    public V get(K key) {
+        long now = nanoClock.getAsLong();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.createdAt < ttlNanos) {
+                    hits.increment();
+                    return entry.value;
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Read-through: trả về giá trị trong cache, nếu không có thì gọi
+     * {@code loader} và lưu kết quả (trừ khi kết quả là null).
+     * Exception từ {@code loader} được ném thẳng ra ngoài và không được cache.
+     */
+    public V getOrLoad(K key, Supplier<V> loader) {
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long startGeneration = generation.get();
+        V value = loader.get();
+        if (value != null) {
+            synchronized (entries) {
+                if (generation.get() == startGeneration) {
+                    entries.put(key, new Entry<>(value, nanoClock.getAsLong()));
+                }
+            }
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, nanoClock.getAsLong()));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+        invalidations.increment();
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+        invalidations.increment();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public CacheStatsDTO stats() {
+        return new CacheStatsDTO(name, size(), maxSize,
+                hits.sum(), misses.sum(), evictions.sum(), invalidations.sum());
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long createdAt;
+
+        private Entry(V value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.jeweleryshop.backend.cache;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.jeweleryshop.backend.dto.CategoryDTO;
+
+/**
+ * 🌳 Ảnh chụp bất biến của toàn bộ cây danh mục.
+ *
+ * Được dựng một lần từ danh sách phẳng (id, parentId, ...) rồi chỉ đọc:
+ * danh sách con và tập hậu duệ của mỗi nút được tính sẵn, nên việc trả danh
+ * mục hay lọc "danh mục + tất cả danh mục con" không cần truy vấn DB hay đệ
+ * quy. Khi danh mục thay đổi, cả snapshot được thay thế bằng bản mới.
+ */
+public final class CategoryTreeSnapshot {
+
+    private final LocalDateTime builtAt;
+    private final List<Node> nodes;
+    private final Map<Long, Node> byId;
+    private final List<Long> rootIds;
+
+    private CategoryTreeSnapshot(List<Node> nodes, List<Long> rootIds) {
+        this.builtAt = LocalDateTime.now();
+        this.nodes = nodes;
+        this.rootIds = rootIds;
+        Map<Long, Node> index = new HashMap<>();
+        for (Node node : nodes) {
+            index.put(node.id, node);
+        }
+        this.byId = Map.copyOf(index);
+    }
+
+    public static CategoryTreeSnapshot empty() {
+        return new CategoryTreeSnapshot(List.of(), List.of());
+    }
+
+    /**
+     * Dựng cây từ danh sách phẳng. Danh mục có parentId không tồn tại được
+     * coi là gốc; chu trình (dữ liệu lỗi) không làm vòng lặp vô hạn.
+     */
+    public static CategoryTreeSnapshot build(Collection<CategoryDTO> categories) {
+        List<CategoryDTO> sorted = new ArrayList<>(categories);
+        sorted.sort(Comparator.comparing(CategoryDTO::getId));
+
+        Map<Long, List<Long>> childrenOf = new HashMap<>();
+        Set<Long> knownIds = new LinkedHashSet<>();
+        sorted.forEach(c -> knownIds.add(c.getId()));
+
+        List<Long> rootIds = new ArrayList<>();
+        for (CategoryDTO category : sorted) {
+            Long parentId = category.getParentId();
+            if (parentId == null || !knownIds.contains(parentId)) {
+                rootIds.add(category.getId());
+            } else {
+                childrenOf.computeIfAbsent(parentId, k -> new ArrayList<>()).add(category.getId());
+            }
+        }
+
+        List<Node> nodes = new ArrayList<>(sorted.size());
+        for (CategoryDTO category : sorted) {
+            List<Long> children = List.copyOf(childrenOf.getOrDefault(category.getId(), List.of()));
+            Set<Long> descendants = collectDescendants(category.getId(), childrenOf);
+            nodes.add(new Node(category, children, descendants));
+        }
+        return new CategoryTreeSnapshot(List.copyOf(nodes), List.copyOf(rootIds));
+    }
+
+    // Duyệt BFS từ một nút; tập kết quả bao gồm chính nút đó
+    private static Set<Long> collectDescendants(Long id, Map<Long, List<Long>> childrenOf) {
+        Set<Long> visited = new LinkedHashSet<>();
+        Deque<Long> queue = new ArrayDeque<>();
+        queue.add(id);
+        while (!queue.isEmpty()) {
+            Long current = queue.poll();
+            if (visited.add(current)) {
+                queue.addAll(childrenOf.getOrDefault(current, List.of()));
+            }
+        }
+        return Set.copyOf(visited);
+    }
+
+    public LocalDateTime getBuiltAt() {
+        return builtAt;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    // Danh sách DTO mới (sắp theo id) — caller có thể sửa mà không ảnh hưởng snapshot
+    public List<CategoryDTO> toDTOs() {
+        List<CategoryDTO> result = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            result.add(node.toDTO());
+        }
+        return result;
+    }
+
+    public Optional<CategoryDTO> find(Long id) {
+        Node node = byId.get(id);
+        return node != null ? Optional.of(node.toDTO()) : Optional.empty();
+    }
+
+    public boolean contains(Long id) {
+        return byId.containsKey(id);
+    }
+
+    public List<Long> getRootIds() {
+        return rootIds;
+    }
+
+    public List<Long> getChildIds(Long id) {
+        Node node = byId.get(id);
+        return node != null ? node.childIds : List.of();
+    }
+
+    /**
+     * @return id của danh mục cùng toàn bộ danh mục con cháu; tập rỗng nếu id
+     * không tồn tại
+     */
+    public Set<Long> getDescendantIds(Long id) {
+        Node node = byId.get(id);
+        return node != null ? node.descendantIds : Set.of();
+    }
+
+    private static final class Node {
+
+        private final Long id;
+        private final String name;
+        private final String description;
+        private final Long parentId;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime updatedAt;
+        private final List<Long> childIds;
+        private final Set<Long> descendantIds;
+
+        private Node(CategoryDTO source, List<Long> childIds, Set<Long> descendantIds) {
+            this.id = source.getId();
+            this.name = source.getName();
+            this.description = source.getDescription();
+            this.parentId = source.getParentId();
+            this.createdAt = source.getCreatedAt();
+            this.updatedAt = source.getUpdatedAt();
+            this.childIds = childIds;
+            this.descendantIds = descendantIds;
+        }
+
+        private CategoryDTO toDTO() {
+            return new CategoryDTO(id, name, description, parentId, createdAt, updatedAt);
+        }
+    }
+}
@@ -65,7 +65,7 @@ public class ApplicationSecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                 // ✅ Public routes (không cần JWT)
                 .requestMatchers("/", "/favicon.ico").permitAll()
-                .requestMatchers("/images/**", "/uploads/**").permitAll()
+                .requestMatchers("/images/**", "/uploads/**", "/media/**").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/public/**").permitAll()
                 .requestMatchers("/api/banners/**").permitAll()
@@ -110,6 +110,7 @@ public class ApplicationSecurityConfig {
         ));
         config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         config.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "Accept"));
+        config.setExposedHeaders(Arrays.asList("X-Next-Cursor")); // ✅ Cursor phân trang sản phẩm public
         config.setAllowCredentials(true);
         config.setMaxAge(3600L);
 
@@ -0,0 +1,51 @@
+package com.jeweleryshop.backend.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
+import com.jeweleryshop.backend.dto.CartResponseDTO;
+import com.jeweleryshop.backend.dto.ProductResponseDTO;
+import com.jeweleryshop.backend.dto.PromotionDTO;
+import com.jeweleryshop.backend.security.AuthenticatedUser;
+
+@Configuration
+public class CacheConfig {
+
+    // ✅ Chi tiết sản phẩm đã dựng sẵn DTO — bị xóa qua ProductChangedEvent
+    @Bean
+    public BoundedTtlCache<Long, ProductResponseDTO> productCache(
+            @Value("${app.cache.product.max-size:1000}") int maxSize,
+            @Value("${app.cache.product.ttl-seconds:600}") long ttlSeconds) {
+        return new BoundedTtlCache<>("products", maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    // ✅ Định nghĩa khuyến mãi theo mã — bị xóa khi admin sửa/xóa hoặc khi hết lượt
+    @Bean
+    public BoundedTtlCache<String, PromotionDTO> promotionCache(
+            @Value("${app.cache.promotion.max-size:500}") int maxSize,
+            @Value("${app.cache.promotion.ttl-seconds:60}") long ttlSeconds) {
+        return new BoundedTtlCache<>("promotions", maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    // ✅ DTO giỏ hàng theo userId — bị xóa khi giỏ đổi (CartChangedEvent) hoặc khi
+    // sản phẩm / khuyến mãi đổi
+    @Bean
+    public BoundedTtlCache<Long, CartResponseDTO> cartCache(
+            @Value("${app.cache.cart.max-size:10000}") int maxSize,
+            @Value("${app.cache.cart.ttl-seconds:300}") long ttlSeconds) {
+        return new BoundedTtlCache<>("carts", maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    // ✅ Principal của người dùng đã đăng nhập theo username — TTL ngắn, bị xóa
+    // khi admin sửa / khóa / xóa người dùng (UserChangedEvent)
+    @Bean
+    public BoundedTtlCache<String, AuthenticatedUser> principalCache(
+            @Value("${app.cache.principal.max-size:10000}") int maxSize,
+            @Value("${app.cache.principal.ttl-seconds:30}") long ttlSeconds) {
+        return new BoundedTtlCache<>("principals", maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+}
@@ -0,0 +1,10 @@
+package com.jeweleryshop.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// ✅ Bật các job @Scheduled (dọn lượt giữ hàng hết hạn...)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
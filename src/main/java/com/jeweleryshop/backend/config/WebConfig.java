@@ -1,10 +1,15 @@
 package com.jeweleryshop.backend.config;
 
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.jeweleryshop.backend.service.FileStorageService;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
@@ -21,6 +26,12 @@ public class WebConfig implements WebMvcConfigurer {
                 )
                 .setCachePeriod(3600); // cache ảnh 1 giờ
 
+        // ✅ Ảnh upload đặt tên theo SHA-256 nội dung → một URL không bao giờ đổi
+        // nội dung, trình duyệt / CDN cache hẳn 1 năm không cần hỏi lại
+        registry.addResourceHandler("/" + FileStorageService.MEDIA_DIR + "/**")
+                .addResourceLocations("file:" + uploadDir + FileStorageService.MEDIA_DIR + "/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+
         // ✅ Nếu bạn muốn giữ map /uploads/** riêng biệt
         registry.addResourceHandler("/uploads/**")
                 .addResourceLocations("file:" + uploadDir)
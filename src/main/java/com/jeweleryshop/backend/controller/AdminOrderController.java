@@ -5,13 +5,16 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.jeweleryshop.backend.dto.OrderCursorPageDTO;
 import com.jeweleryshop.backend.dto.OrderDetailResponseDTO;
+import com.jeweleryshop.backend.dto.OrderSearchFilterDTO;
 import com.jeweleryshop.backend.dto.UpdateOrderStatusRequestDTO;
 import com.jeweleryshop.backend.service.OrderService;
 
@@ -38,6 +41,17 @@ public class AdminOrderController {
         return ResponseEntity.ok(orders);
     }
 
+    /**
+     * Search orders with filters and keyset (cursor) paging, newest first. Example:
+     * /api/admin/orders/search?status=PENDING&paymentStatus=PAID&from=2024-01-01T00:00:00&limit=50
+     * To load the next page, send back {@code nextCursor} as {@code ?cursor=...}
+     * together with the same filters.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<OrderCursorPageDTO> searchOrders(@ModelAttribute OrderSearchFilterDTO filter) {
+        return ResponseEntity.ok(orderService.searchOrders(filter));
+    }
+
     /**
      * Update the status of a specific order.
      */
@@ -0,0 +1,34 @@
+package com.jeweleryshop.backend.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.jeweleryshop.backend.dto.SalesAnalyticsDTO;
+import com.jeweleryshop.backend.dto.SalesAnalyticsQueryDTO;
+import com.jeweleryshop.backend.service.SalesAnalyticsService;
+
+@RestController
+@RequestMapping("/api/admin/analytics")
+@PreAuthorize("hasRole('ADMIN')")
+public class AnalyticsController {
+
+    private final SalesAnalyticsService salesAnalyticsService;
+
+    public AnalyticsController(SalesAnalyticsService salesAnalyticsService) {
+        this.salesAnalyticsService = salesAnalyticsService;
+    }
+
+    /**
+     * Revenue, order count, average order value and units sold per time bucket. Example:
+     * /api/admin/analytics/sales?from=2024-01-01T00:00:00&to=2025-01-01T00:00:00&bucket=MONTH&groupBy=CATEGORY&top=5
+     * Buckets: HOUR, DAY, WEEK, MONTH. groupBy: TOTAL (default), CATEGORY, VARIANT.
+     */
+    @GetMapping("/sales")
+    public ResponseEntity<SalesAnalyticsDTO> getSales(@ModelAttribute SalesAnalyticsQueryDTO query) {
+        return ResponseEntity.ok(salesAnalyticsService.getSales(query));
+    }
+}
@@ -75,7 +75,7 @@ public class AuthController {
     // ============================================================
     @PostMapping("/verify-otp")
     public ResponseEntity<AuthResponse> verifyOtp(@RequestBody OtpVerifyRequest request) {
-        AuthResponse response = authService.verifyOtp(request.getUsername(), request.getOtp());
+        AuthResponse response = authService.verifyOtp(request.getUsername(), request.getOtp(), request.getDeviceId());
 
         // ✅ Tự tạo giỏ hàng sau khi xác thực thành công
         if (response.getUser() != null && response.getUser().getId() != null) {
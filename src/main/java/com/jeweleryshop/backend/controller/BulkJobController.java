@@ -0,0 +1,112 @@
+package com.jeweleryshop.backend.controller;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.jeweleryshop.backend.dto.BulkJobDTO;
+import com.jeweleryshop.backend.entity.CatalogFeed;
+import com.jeweleryshop.backend.entity.FeedFormat;
+import com.jeweleryshop.backend.service.BulkJobService;
+import com.jeweleryshop.backend.utils.ExcelHelper;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Background bulk jobs. Submitting returns 202 with the job id right away; poll
+ * GET /api/admin/jobs/{id} for status/progress, then fetch the result from
+ * downloadUrl (export) or read the report in result (import).
+ */
+@RestController
+@RequestMapping("/api/admin/jobs")
+@PreAuthorize("hasRole('ADMIN')")
+public class BulkJobController {
+
+    private final BulkJobService bulkJobService;
+
+    public BulkJobController(BulkJobService bulkJobService) {
+        this.bulkJobService = bulkJobService;
+    }
+
+    @PostMapping("/product-import")
+    public ResponseEntity<BulkJobDTO> importProducts(@RequestParam("file") MultipartFile file,
+            Authentication authentication) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(bulkJobService.submitProductImport(file, authentication.getName()));
+    }
+
+    @PostMapping("/product-export")
+    public ResponseEntity<BulkJobDTO> exportProducts(Authentication authentication) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(bulkJobService.submitProductExport(authentication.getName()));
+    }
+
+    // feed: products | variants | inventory | categories; format: csv | ndjson.
+    // The file is the raw request body (curl --data-binary @inventory.csv), so
+    // the multipart size limit does not apply.
+    @PostMapping("/feed-import")
+    public ResponseEntity<BulkJobDTO> importFeed(@RequestParam String feed,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(bulkJobService.submitFeedImport(
+                CatalogFeed.from(feed), FeedFormat.from(format), request.getInputStream(), authentication.getName()));
+    }
+
+    @PostMapping("/feed-export")
+    public ResponseEntity<BulkJobDTO> exportFeed(@RequestParam String feed,
+            @RequestParam(defaultValue = "csv") String format,
+            Authentication authentication) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(bulkJobService.submitFeedExport(
+                CatalogFeed.from(feed), FeedFormat.from(format), authentication.getName()));
+    }
+
+    @GetMapping
+    public ResponseEntity<Page<BulkJobDTO>> getJobs(Pageable pageable) {
+        return ResponseEntity.ok(bulkJobService.getJobs(pageable));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<BulkJobDTO> getJob(@PathVariable Long id) {
+        return ResponseEntity.ok(bulkJobService.getJob(id));
+    }
+
+    @GetMapping("/{id}/download")
+    public ResponseEntity<Resource> download(@PathVariable Long id) {
+        Path file = bulkJobService.getResultFile(id);
+        String filename = "danh-sach-san-pham-job-" + id + ".xlsx";
+        MediaType contentType = MediaType.parseMediaType(ExcelHelper.TYPE);
+
+        // Kết quả export feed: đuôi file là định dạng
+        String extension = StringUtils.getFilenameExtension(file.getFileName().toString());
+        for (FeedFormat format : FeedFormat.values()) {
+            if (format.getExtension().equals(extension)) {
+                filename = "feed-job-" + id + "." + extension;
+                contentType = MediaType.parseMediaType(format.getContentType());
+            }
+        }
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .contentType(contentType)
+                .body(new FileSystemResource(file));
+    }
+}
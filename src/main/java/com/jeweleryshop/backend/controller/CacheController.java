@@ -0,0 +1,45 @@
+package com.jeweleryshop.backend.controller;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
+import com.jeweleryshop.backend.dto.CacheStatsDTO;
+import com.jeweleryshop.backend.exception.ResourceNotFoundException;
+
+@RestController
+@RequestMapping("/api/admin/caches")
+@PreAuthorize("hasRole('ADMIN')")
+public class CacheController {
+
+    private final List<BoundedTtlCache<?, ?>> caches;
+
+    public CacheController(List<BoundedTtlCache<?, ?>> caches) {
+        this.caches = caches;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return ResponseEntity.ok(caches.stream()
+                .map(BoundedTtlCache::stats)
+                .collect(Collectors.toList()));
+    }
+
+    @DeleteMapping("/{name}")
+    public ResponseEntity<Void> clearCache(@PathVariable String name) {
+        BoundedTtlCache<?, ?> cache = caches.stream()
+                .filter(c -> c.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Cache not found with name: " + name));
+        cache.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -7,7 +7,9 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import com.jeweleryshop.backend.dto.AddItemToCartRequest;
+import com.jeweleryshop.backend.dto.ApplyPromotionRequestDTO;
 import com.jeweleryshop.backend.dto.CartResponseDTO;
+import com.jeweleryshop.backend.dto.StockHoldDTO;
 import com.jeweleryshop.backend.service.CartService;
 
 import jakarta.validation.Valid;
@@ -60,6 +62,31 @@ public class CartController {
         return ResponseEntity.ok(updatedCart);
     }
 
+    // ✅ Áp dụng mã khuyến mãi cho giỏ hàng
+    @PostMapping("/promotion")
+    public ResponseEntity<CartResponseDTO> applyPromotion(@Valid @RequestBody ApplyPromotionRequestDTO request) {
+        return ResponseEntity.ok(cartService.applyPromotion(request.getCode()));
+    }
+
+    // ✅ Bỏ mã khuyến mãi khỏi giỏ hàng
+    @DeleteMapping("/promotion")
+    public ResponseEntity<CartResponseDTO> removePromotion() {
+        return ResponseEntity.ok(cartService.removePromotion());
+    }
+
+    // ✅ Bắt đầu thanh toán → giữ hàng trong giỏ tới expiresAt
+    @PostMapping("/checkout/hold")
+    public ResponseEntity<StockHoldDTO> startCheckout() {
+        return ResponseEntity.ok(cartService.startCheckout());
+    }
+
+    // ✅ Rời trang thanh toán → trả lại hàng đang giữ
+    @DeleteMapping("/checkout/hold")
+    public ResponseEntity<Void> cancelCheckout() {
+        cartService.cancelCheckout();
+        return ResponseEntity.noContent().build();
+    }
+
     // ✅ Xóa toàn bộ giỏ hàng
     @DeleteMapping("/clear")
     public ResponseEntity<?> clearCart() {
@@ -0,0 +1,63 @@
+package com.jeweleryshop.backend.controller;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.jeweleryshop.backend.dto.ImportReportDTO;
+import com.jeweleryshop.backend.entity.CatalogFeed;
+import com.jeweleryshop.backend.entity.FeedFormat;
+import com.jeweleryshop.backend.service.CatalogFeedService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * CSV / NDJSON catalog feeds (products | variants | inventory | categories).
+ * Both directions stream: export writes rows while paging the DB, import reads
+ * the raw request body ({@code curl --data-binary @inventory.csv}). For very
+ * large files prefer the background variant under /api/admin/jobs/feed-*.
+ */
+@RestController
+@RequestMapping("/api/admin/feeds")
+@PreAuthorize("hasRole('ADMIN')")
+public class CatalogFeedController {
+
+    private final CatalogFeedService catalogFeedService;
+
+    public CatalogFeedController(CatalogFeedService catalogFeedService) {
+        this.catalogFeedService = catalogFeedService;
+    }
+
+    @GetMapping("/{feed}")
+    public void exportFeed(@PathVariable String feed,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        CatalogFeed catalogFeed = CatalogFeed.from(feed);
+        FeedFormat feedFormat = FeedFormat.from(format);
+        String filename = catalogFeed.name().toLowerCase(Locale.ROOT) + "-" + System.currentTimeMillis() + "." + feedFormat.getExtension();
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        response.setContentType(feedFormat.getContentType() + ";charset=UTF-8");
+        catalogFeedService.export(catalogFeed, feedFormat, response.getOutputStream(), written -> {
+        });
+    }
+
+    @PostMapping("/{feed}")
+    public ResponseEntity<ImportReportDTO> importFeed(@PathVariable String feed,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(catalogFeedService.importFeed(CatalogFeed.from(feed), FeedFormat.from(format),
+                request.getInputStream(), processed -> {
+                }));
+    }
+}
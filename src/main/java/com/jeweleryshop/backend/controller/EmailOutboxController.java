@@ -0,0 +1,27 @@
+package com.jeweleryshop.backend.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.jeweleryshop.backend.dto.EmailStatsDTO;
+import com.jeweleryshop.backend.mail.EmailOutboxDispatcher;
+
+@RestController
+@RequestMapping("/api/admin/emails")
+@PreAuthorize("hasRole('ADMIN')")
+public class EmailOutboxController {
+
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
+
+    public EmailOutboxController(EmailOutboxDispatcher emailOutboxDispatcher) {
+        this.emailOutboxDispatcher = emailOutboxDispatcher;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<EmailStatsDTO> getStats() {
+        return ResponseEntity.ok(emailOutboxDispatcher.stats());
+    }
+}
@@ -1,8 +1,10 @@
 package com.jeweleryshop.backend.controller;
 
+import com.jeweleryshop.backend.dto.ImportReportDTO;
 import com.jeweleryshop.backend.payload.response.ResponseMessage;
 import com.jeweleryshop.backend.service.ExcelService;
 import com.jeweleryshop.backend.utils.ExcelHelper;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
@@ -13,6 +15,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/api/admin/excel")
 @PreAuthorize("hasRole('ADMIN')")
@@ -21,16 +25,16 @@ public class ExcelController {
     @Autowired
     private ExcelService excelService;
 
+    // Đọc file một lượt; trả về số dòng thêm / cập nhật và lỗi từng dòng
     @PostMapping("/import-products")
-    public ResponseEntity<ResponseMessage> importProducts(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> importProducts(@RequestParam("file") MultipartFile file) {
         String message = "";
 
         if (ExcelHelper.hasExcelFormat(file)) {
             try {
-                int importedCount = excelService.getImportedCount(file);
-                excelService.importProductsFromExcel(file);
-                message = "Import thành công " + importedCount + " sản phẩm từ file: " + file.getOriginalFilename();
-                return ResponseEntity.ok(new ResponseMessage(message));
+                ImportReportDTO report = excelService.importProductsFromExcel(file);
+                report.setMessage(report.getMessage() + " từ file: " + file.getOriginalFilename());
+                return ResponseEntity.ok(report);
             } catch (Exception e) {
                 message = "Lỗi khi import file: " + file.getOriginalFilename() + "! " + e.getMessage();
                 return ResponseEntity.badRequest().body(new ResponseMessage(message));
@@ -41,15 +45,14 @@ public class ExcelController {
         return ResponseEntity.badRequest().body(new ResponseMessage(message));
     }
 
+    // Ghi thẳng vào response khi đang đọc DB — không dựng cả file trong bộ nhớ
     @GetMapping("/export-products")
-    public ResponseEntity<Resource> exportProducts() {
+    public void exportProducts(HttpServletResponse response) throws IOException {
         String filename = "danh-sach-san-pham-" + System.currentTimeMillis() + ".xlsx";
-        InputStreamResource file = new InputStreamResource(excelService.exportProductsToExcel());
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .body(file);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        response.setContentType(ExcelHelper.TYPE);
+        excelService.exportProductsToExcel(response.getOutputStream());
     }
 
     @GetMapping("/download-template")
@@ -8,12 +8,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -21,7 +24,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.jeweleryshop.backend.dto.FacetedProductPageDTO;
+import com.jeweleryshop.backend.dto.ProductCursorPageDTO;
+import com.jeweleryshop.backend.dto.ProductFacetFilterDTO;
 import com.jeweleryshop.backend.dto.ProductRequestDTO;
 import com.jeweleryshop.backend.dto.ProductResponseDTO;
 import com.jeweleryshop.backend.service.ProductService;
@@ -36,10 +47,18 @@ import jakarta.validation.Valid;
 @CrossOrigin(origins = "*")
 public class ProductController {
 
+    // ✅ Header chứa cursor của trang kế tiếp (không có header = hết dữ liệu)
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Số sản phẩm đọc từ DB mỗi lượt khi stream toàn bộ catalog
+    private static final int STREAM_CHUNK_SIZE = 100;
+
     private final ProductService productService;
+    private final ObjectMapper objectMapper;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ObjectMapper objectMapper) {
         this.productService = productService;
+        this.objectMapper = objectMapper;
     }
 
     // ============================================================
@@ -48,19 +67,95 @@ public class ProductController {
     /**
      * ✅ Trả về mảng JSON thuần — React gọi fetch(...).then(r => r.json()) dùng
      * được ngay .slice(), .map() mà KHÔNG cần .data
+     *
+     * ✅ Phân trang keyset: tối đa {@code limit} sản phẩm (server chặn ở
+     * {@link ProductService#MAX_PUBLIC_PAGE_SIZE}). Nếu còn dữ liệu, cursor của
+     * trang sau nằm trong header {@value #NEXT_CURSOR_HEADER} → gửi lại qua
+     * {@code ?cursor=...}.
      */
     @GetMapping("/public/products")
-    public List<ProductResponseDTO> getPublicProducts(
+    public ResponseEntity<List<ProductResponseDTO>> getPublicProducts(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String size,
+            @RequestParam(required = false) String material,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ProductService.DEFAULT_PUBLIC_PAGE_SIZE) int limit
+    ) {
+        ProductCursorPageDTO page = productService
+                .getProductsAfter(cursor, limit, categoryId, minPrice, maxPrice, name, size, material,
+                        includeSubcategories);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems()); // ✅ Trả mảng trực tiếp
+    }
+
+    /**
+     * ✅ Tìm kiếm toàn văn theo tên, mô tả, SKU, danh mục, chất liệu / đá / màu.
+     * Không phân biệt dấu ("nhan vang" khớp "Nhẫn vàng"), khớp cả tiền tố,
+     * kết quả xếp theo độ liên quan.
+     */
+    @GetMapping("/public/products/search")
+    public ResponseEntity<List<ProductResponseDTO>> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "" + ProductService.DEFAULT_PUBLIC_PAGE_SIZE) int limit
+    ) {
+        return ResponseEntity.ok(productService.searchProducts(query, limit));
+    }
+
+    /**
+     * ✅ Danh sách sản phẩm lọc theo facet (danh mục, chất liệu, size, đá, màu,
+     * khoảng giá) kèm số lượng cho từng giá trị facet để FE hiển thị bộ lọc.
+     */
+    @GetMapping("/public/products/facets")
+    public ResponseEntity<FacetedProductPageDTO> getFacetedProducts(@ModelAttribute ProductFacetFilterDTO filter) {
+        return ResponseEntity.ok(productService.getFacetedProducts(filter));
+    }
+
+    /**
+     * ✅ Stream toàn bộ catalog dưới dạng một mảng JSON. Sản phẩm được đọc theo
+     * từng nhóm keyset (mỗi nhóm một transaction ngắn) và ghi thẳng ra
+     * response → bộ nhớ không tăng theo kích thước catalog.
+     */
+    @GetMapping(value = "/public/products/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPublicProducts(
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String size,
-            @RequestParam(required = false) String material
+            @RequestParam(required = false) String material,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories
     ) {
-        return productService
-                .getAllProducts(Pageable.unpaged(), categoryId, minPrice, maxPrice, name, size, material)
-                .getContent(); // ✅ Trả mảng trực tiếp
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                String cursor = null;
+                do {
+                    ProductCursorPageDTO page = productService.getProductsAfter(
+                            cursor, STREAM_CHUNK_SIZE, categoryId, minPrice, maxPrice, name, size, material,
+                            includeSubcategories);
+                    for (ProductResponseDTO product : page.getItems()) {
+                        writer.writeValue(generator, product);
+                    }
+                    generator.flush();
+                    cursor = page.getNextCursor();
+                } while (cursor != null);
+                generator.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     // ============================================================
@@ -74,22 +169,24 @@ public class ProductController {
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String size,
-            @RequestParam(required = false) String material
+            @RequestParam(required = false) String material,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories
     ) {
-        Page<ProductResponseDTO> page = productService.getAllProducts(pageable, categoryId, minPrice, maxPrice, name, size, material);
+        Page<ProductResponseDTO> page = productService.getAllProducts(pageable, categoryId, minPrice, maxPrice,
+                name, size, material, includeSubcategories);
 
         List<EntityModel<ProductResponseDTO>> models = page.stream()
                 .map(p -> EntityModel.of(p,
                 linkTo(methodOn(ProductController.class).getProductById(p.getId())).withSelfRel(),
                 linkTo(methodOn(ProductController.class)
-                        .getAllProducts(pageable, null, null, null, null, null, null)).withRel("all-products"),
+                        .getAllProducts(pageable, null, null, null, null, null, null, false)).withRel("all-products"),
                 linkTo(methodOn(CategoryController.class)
                         .getCategoryById(p.getCategoryId())).withRel("category")))
                 .collect(Collectors.toList());
 
         return CollectionModel.of(models,
                 linkTo(methodOn(ProductController.class)
-                        .getAllProducts(pageable, null, null, null, null, null, null)).withSelfRel());
+                        .getAllProducts(pageable, null, null, null, null, null, null, false)).withSelfRel());
     }
 
     // ============================================================
@@ -102,7 +199,7 @@ public class ProductController {
         return EntityModel.of(product,
                 linkTo(methodOn(ProductController.class).getProductById(id)).withSelfRel(),
                 linkTo(methodOn(ProductController.class)
-                        .getAllProducts(Pageable.unpaged(), null, null, null, null, null, null)).withRel("all-products"),
+                        .getAllProducts(Pageable.unpaged(), null, null, null, null, null, null, false)).withRel("all-products"),
                 linkTo(methodOn(CategoryController.class)
                         .getCategoryById(product.getCategoryId())).withRel("category"));
     }
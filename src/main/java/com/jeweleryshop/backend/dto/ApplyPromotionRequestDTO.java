@@ -0,0 +1,17 @@
+package com.jeweleryshop.backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class ApplyPromotionRequestDTO {
+
+    @NotBlank(message = "Promotion code cannot be blank")
+    private String code;
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+}
@@ -0,0 +1,138 @@
+package com.jeweleryshop.backend.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.jeweleryshop.backend.entity.BulkJobStatus;
+import com.jeweleryshop.backend.entity.BulkJobType;
+import com.jeweleryshop.backend.entity.CatalogFeed;
+import com.jeweleryshop.backend.entity.FeedFormat;
+
+/**
+ * 🗂️ Trạng thái một job chạy nền. {@code result} là báo cáo JSON (import),
+ * {@code downloadUrl} có khi job đã xong và có file kết quả (export).
+ */
+public class BulkJobDTO {
+
+    private Long id;
+    private BulkJobType type;
+    private BulkJobStatus status;
+    private CatalogFeed feed;
+    private FeedFormat format;
+    private int processed;
+    private String message;
+    private String result;
+    private String downloadUrl;
+    private String createdBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public BulkJobDTO() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public BulkJobType getType() {
+        return type;
+    }
+
+    public void setType(BulkJobType type) {
+        this.type = type;
+    }
+
+    public BulkJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(BulkJobStatus status) {
+        this.status = status;
+    }
+
+    public CatalogFeed getFeed() {
+        return feed;
+    }
+
+    public void setFeed(CatalogFeed feed) {
+        this.feed = feed;
+    }
+
+    public FeedFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(FeedFormat format) {
+        this.format = format;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(int processed) {
+        this.processed = processed;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @JsonRawValue
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public String getDownloadUrl() {
+        return downloadUrl;
+    }
+
+    public void setDownloadUrl(String downloadUrl) {
+        this.downloadUrl = downloadUrl;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
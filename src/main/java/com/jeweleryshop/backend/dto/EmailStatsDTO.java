@@ -0,0 +1,128 @@
+package com.jeweleryshop.backend.dto;
+
+/**
+ * 📊 Số liệu hàng đợi gửi thư — độ sâu hàng đợi, kết quả gửi và độ trễ SMTP.
+ */
+public class EmailStatsDTO {
+
+    private int queueDepth;
+    private int queueCapacity;
+    private long outboxPending;
+    private long outboxFailed;
+    private long sent;
+    private long retried;
+    private long failed;
+    private long overflowed;
+    private long batches;
+    private double avgBatchMillis;
+    private double maxBatchMillis;
+
+    public EmailStatsDTO() {
+    }
+
+    public EmailStatsDTO(int queueDepth, int queueCapacity, long outboxPending, long outboxFailed,
+            long sent, long retried, long failed, long overflowed, long batches,
+            double avgBatchMillis, double maxBatchMillis) {
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.outboxPending = outboxPending;
+        this.outboxFailed = outboxFailed;
+        this.sent = sent;
+        this.retried = retried;
+        this.failed = failed;
+        this.overflowed = overflowed;
+        this.batches = batches;
+        this.avgBatchMillis = avgBatchMillis;
+        this.maxBatchMillis = maxBatchMillis;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    // Thư trong outbox chưa gửi xong (kể cả đang chờ thử lại)
+    public long getOutboxPending() {
+        return outboxPending;
+    }
+
+    public void setOutboxPending(long outboxPending) {
+        this.outboxPending = outboxPending;
+    }
+
+    public long getOutboxFailed() {
+        return outboxFailed;
+    }
+
+    public void setOutboxFailed(long outboxFailed) {
+        this.outboxFailed = outboxFailed;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public void setSent(long sent) {
+        this.sent = sent;
+    }
+
+    public long getRetried() {
+        return retried;
+    }
+
+    public void setRetried(long retried) {
+        this.retried = retried;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    // Số lần hàng đợi đầy — thư phải chờ job quét nhặt lại
+    public long getOverflowed() {
+        return overflowed;
+    }
+
+    public void setOverflowed(long overflowed) {
+        this.overflowed = overflowed;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public void setBatches(long batches) {
+        this.batches = batches;
+    }
+
+    public double getAvgBatchMillis() {
+        return avgBatchMillis;
+    }
+
+    public void setAvgBatchMillis(double avgBatchMillis) {
+        this.avgBatchMillis = avgBatchMillis;
+    }
+
+    public double getMaxBatchMillis() {
+        return maxBatchMillis;
+    }
+
+    public void setMaxBatchMillis(double maxBatchMillis) {
+        this.maxBatchMillis = maxBatchMillis;
+    }
+}
@@ -0,0 +1,69 @@
+package com.jeweleryshop.backend.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🧩 Một trang sản phẩm đã lọc theo facet, kèm số lượng sản phẩm cho từng giá
+ * trị facet (vd: facets.material["Vàng 18K"] = 12).
+ */
+public class FacetedProductPageDTO {
+
+    private List<ProductResponseDTO> items;
+    private long totalElements;
+    private int page;
+    private int limit;
+    private Map<String, Map<String, Integer>> facets;
+
+    public FacetedProductPageDTO() {
+    }
+
+    public FacetedProductPageDTO(List<ProductResponseDTO> items, long totalElements, int page, int limit,
+            Map<String, Map<String, Integer>> facets) {
+        this.items = items;
+        this.totalElements = totalElements;
+        this.page = page;
+        this.limit = limit;
+        this.facets = facets;
+    }
+
+    public List<ProductResponseDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProductResponseDTO> items) {
+        this.items = items;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(long totalElements) {
+        this.totalElements = totalElements;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public Map<String, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Integer>> facets) {
+        this.facets = facets;
+    }
+}
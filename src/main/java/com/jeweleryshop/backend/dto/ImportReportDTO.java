@@ -0,0 +1,124 @@
+package com.jeweleryshop.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 📥 Kết quả import hàng loạt (Excel, CSV, NDJSON): số dòng thêm mới / cập
+ * nhật / lỗi và lý do của từng dòng lỗi (tối đa {@code MAX_ERRORS} dòng đầu
+ * tiên).
+ */
+public class ImportReportDTO {
+
+    public static final int MAX_ERRORS = 500;
+
+    private String message;
+    private int totalRows;
+    private int inserted;
+    private int updated;
+    private int failed;
+    private List<RowErrorDTO> errors = new ArrayList<>();
+    // Còn lỗi khác ngoài danh sách trên
+    private boolean errorsTruncated;
+
+    public ImportReportDTO() {
+    }
+
+    public void addError(int row, String message) {
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RowErrorDTO(row, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(int totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(int inserted) {
+        this.inserted = inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<RowErrorDTO> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowErrorDTO> errors) {
+        this.errors = errors;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    // ==============================================================
+    // ❌ Một dòng lỗi (số dòng như trong Excel, header = 1)
+    // ==============================================================
+    public static class RowErrorDTO {
+
+        private int row;
+        private String message;
+
+        public RowErrorDTO() {
+        }
+
+        public RowErrorDTO(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public void setRow(int row) {
+            this.row = row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
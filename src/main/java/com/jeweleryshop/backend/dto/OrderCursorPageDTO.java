@@ -0,0 +1,47 @@
+package com.jeweleryshop.backend.dto;
+
+import java.util.List;
+
+/**
+ * 🧩 Một "trang" đơn hàng theo keyset (cursor) — dùng cho tìm kiếm admin.
+ * nextCursor = null nghĩa là đã hết dữ liệu.
+ */
+public class OrderCursorPageDTO {
+
+    private List<OrderDetailResponseDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public OrderCursorPageDTO() {
+    }
+
+    public OrderCursorPageDTO(List<OrderDetailResponseDTO> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<OrderDetailResponseDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderDetailResponseDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
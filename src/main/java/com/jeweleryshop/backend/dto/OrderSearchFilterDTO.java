@@ -0,0 +1,94 @@
+package com.jeweleryshop.backend.dto;
+
+import java.time.LocalDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import com.jeweleryshop.backend.entity.OrderStatus;
+import com.jeweleryshop.backend.entity.PaymentStatus;
+
+/**
+ * 🧩 Bộ lọc tìm kiếm đơn hàng (admin) — bind trực tiếp từ query string, vd:
+ * {@code ?status=PENDING&from=2024-01-01T00:00:00&limit=50&cursor=...}.
+ * Mọi điều kiện đều tùy chọn; {@code from} tính cả mốc, {@code to} không tính.
+ */
+public class OrderSearchFilterDTO {
+
+    private OrderStatus status;
+    private PaymentStatus paymentStatus;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    private Long userId;
+    private String orderNumber;
+    private String cursor;
+    private int limit = 20;
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public PaymentStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public void setPaymentStatus(PaymentStatus paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    public void setOrderNumber(String orderNumber) {
+        this.orderNumber = orderNumber;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -13,6 +13,9 @@ public class OtpVerifyRequest {
     @NotBlank(message = "Mã OTP không được để trống")
     private String otp;
 
+    // Không bắt buộc — mỗi thiết bị giữ một refresh token riêng
+    private String deviceId;
+
     public OtpVerifyRequest() {
     }
 
@@ -36,4 +39,12 @@ public class OtpVerifyRequest {
     public void setOtp(String otp) {
         this.otp = otp;
     }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
 }
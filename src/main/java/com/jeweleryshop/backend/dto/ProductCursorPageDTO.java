@@ -0,0 +1,47 @@
+package com.jeweleryshop.backend.dto;
+
+import java.util.List;
+
+/**
+ * 🧩 Một "trang" sản phẩm theo keyset (cursor) — dùng cho API public.
+ * nextCursor = null nghĩa là đã hết dữ liệu.
+ */
+public class ProductCursorPageDTO {
+
+    private List<ProductResponseDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public ProductCursorPageDTO() {
+    }
+
+    public ProductCursorPageDTO(List<ProductResponseDTO> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<ProductResponseDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProductResponseDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,112 @@
+package com.jeweleryshop.backend.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 🧩 Bộ lọc facet cho danh sách sản phẩm — bind trực tiếp từ query string,
+ * vd: {@code ?material=Vàng&material=Bạc&priceRange=1000000-5000000&page=0}.
+ * Các giá trị trong cùng một facet là OR, giữa các facet là AND.
+ */
+public class ProductFacetFilterDTO {
+
+    private Long categoryId;
+    private boolean includeSubcategories;
+    private List<String> material;
+    private List<String> size;
+    private List<String> gemstone;
+    private List<String> color;
+    private List<String> priceRange;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private int page = 0;
+    private int limit = 24;
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public boolean isIncludeSubcategories() {
+        return includeSubcategories;
+    }
+
+    public void setIncludeSubcategories(boolean includeSubcategories) {
+        this.includeSubcategories = includeSubcategories;
+    }
+
+    public List<String> getMaterial() {
+        return material;
+    }
+
+    public void setMaterial(List<String> material) {
+        this.material = material;
+    }
+
+    public List<String> getSize() {
+        return size;
+    }
+
+    public void setSize(List<String> size) {
+        this.size = size;
+    }
+
+    public List<String> getGemstone() {
+        return gemstone;
+    }
+
+    public void setGemstone(List<String> gemstone) {
+        this.gemstone = gemstone;
+    }
+
+    public List<String> getColor() {
+        return color;
+    }
+
+    public void setColor(List<String> color) {
+        this.color = color;
+    }
+
+    public List<String> getPriceRange() {
+        return priceRange;
+    }
+
+    public void setPriceRange(List<String> priceRange) {
+        this.priceRange = priceRange;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -6,6 +6,10 @@ public class ProductImageDTO {
 
     private Long id;
     private String imageUrl;
+    // Cỡ thu nhỏ cho trang danh sách / chi tiết; bằng imageUrl khi chưa sinh xong
+    private String thumbnailUrl;
+    private String mediumUrl;
+    private String largeUrl;
 
     public ProductImageDTO() {
     }
@@ -19,6 +23,13 @@ public class ProductImageDTO {
     public ProductImageDTO(ProductImage image) {
         this.id = image.getId();
         this.imageUrl = image.getImageUrl();
+        this.thumbnailUrl = orOriginal(image.getThumbnailUrl());
+        this.mediumUrl = orOriginal(image.getMediumUrl());
+        this.largeUrl = orOriginal(image.getLargeUrl());
+    }
+
+    private String orOriginal(String renditionUrl) {
+        return renditionUrl != null ? renditionUrl : imageUrl;
     }
 
     public Long getId() {
@@ -36,4 +47,28 @@ public class ProductImageDTO {
     public void setImageUrl(String imageUrl) {
         this.imageUrl = imageUrl;
     }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getMediumUrl() {
+        return mediumUrl;
+    }
+
+    public void setMediumUrl(String mediumUrl) {
+        this.mediumUrl = mediumUrl;
+    }
+
+    public String getLargeUrl() {
+        return largeUrl;
+    }
+
+    public void setLargeUrl(String largeUrl) {
+        this.largeUrl = largeUrl;
+    }
 }
@@ -87,7 +87,7 @@ public class ProductResponseDTO {
         this.updatedAt = product.getUpdatedAt();
 
         this.images = product.getImages().stream()
-                .map(img -> new ProductImageDTO(img.getId(), img.getImageUrl()))
+                .map(ProductImageDTO::new)
                 .collect(Collectors.toList());
 
         this.variants = product.getVariants().stream()
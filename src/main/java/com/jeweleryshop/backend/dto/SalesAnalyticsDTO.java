@@ -0,0 +1,191 @@
+package com.jeweleryshop.backend.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.jeweleryshop.backend.dto.SalesAnalyticsQueryDTO.Bucket;
+import com.jeweleryshop.backend.entity.RollupDimension;
+
+/**
+ * 📈 Doanh số theo thời gian: mỗi chuỗi (toàn shop / một danh mục / một biến
+ * thể) có đủ mọi khung trong khoảng, khung không có đơn mang giá trị 0.
+ */
+public class SalesAnalyticsDTO {
+
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Bucket bucket;
+    private RollupDimension groupBy;
+    // Lần tổng hợp gần nhất — đơn giao sau mốc này chưa có trong số liệu
+    private LocalDateTime refreshedAt;
+    private List<SeriesDTO> series;
+
+    public SalesAnalyticsDTO() {
+    }
+
+    public SalesAnalyticsDTO(LocalDateTime from, LocalDateTime to, Bucket bucket, RollupDimension groupBy,
+            LocalDateTime refreshedAt, List<SeriesDTO> series) {
+        this.from = from;
+        this.to = to;
+        this.bucket = bucket;
+        this.groupBy = groupBy;
+        this.refreshedAt = refreshedAt;
+        this.series = series;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public Bucket getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(Bucket bucket) {
+        this.bucket = bucket;
+    }
+
+    public RollupDimension getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(RollupDimension groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public LocalDateTime getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    public void setRefreshedAt(LocalDateTime refreshedAt) {
+        this.refreshedAt = refreshedAt;
+    }
+
+    public List<SeriesDTO> getSeries() {
+        return series;
+    }
+
+    public void setSeries(List<SeriesDTO> series) {
+        this.series = series;
+    }
+
+    // === Inner DTO ===
+    public static class SeriesDTO {
+
+        // null khi groupBy = TOTAL
+        private Long dimensionId;
+        private String label;
+        private PointDTO total;
+        private List<PointDTO> points;
+
+        public SeriesDTO(Long dimensionId, String label, PointDTO total, List<PointDTO> points) {
+            this.dimensionId = dimensionId;
+            this.label = label;
+            this.total = total;
+            this.points = points;
+        }
+
+        public Long getDimensionId() {
+            return dimensionId;
+        }
+
+        public void setDimensionId(Long dimensionId) {
+            this.dimensionId = dimensionId;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public void setLabel(String label) {
+            this.label = label;
+        }
+
+        public PointDTO getTotal() {
+            return total;
+        }
+
+        public void setTotal(PointDTO total) {
+            this.total = total;
+        }
+
+        public List<PointDTO> getPoints() {
+            return points;
+        }
+
+        public void setPoints(List<PointDTO> points) {
+            this.points = points;
+        }
+    }
+
+    public static class PointDTO {
+
+        private LocalDateTime bucketStart;
+        private BigDecimal revenue;
+        private long orders;
+        private BigDecimal averageOrderValue;
+        private long unitsSold;
+
+        public PointDTO(LocalDateTime bucketStart, BigDecimal revenue, long orders,
+                BigDecimal averageOrderValue, long unitsSold) {
+            this.bucketStart = bucketStart;
+            this.revenue = revenue;
+            this.orders = orders;
+            this.averageOrderValue = averageOrderValue;
+            this.unitsSold = unitsSold;
+        }
+
+        public LocalDateTime getBucketStart() {
+            return bucketStart;
+        }
+
+        public void setBucketStart(LocalDateTime bucketStart) {
+            this.bucketStart = bucketStart;
+        }
+
+        public BigDecimal getRevenue() {
+            return revenue;
+        }
+
+        public void setRevenue(BigDecimal revenue) {
+            this.revenue = revenue;
+        }
+
+        public long getOrders() {
+            return orders;
+        }
+
+        public void setOrders(long orders) {
+            this.orders = orders;
+        }
+
+        public BigDecimal getAverageOrderValue() {
+            return averageOrderValue;
+        }
+
+        public void setAverageOrderValue(BigDecimal averageOrderValue) {
+            this.averageOrderValue = averageOrderValue;
+        }
+
+        public long getUnitsSold() {
+            return unitsSold;
+        }
+
+        public void setUnitsSold(long unitsSold) {
+            this.unitsSold = unitsSold;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.jeweleryshop.backend.dto;
+
+import java.time.LocalDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import com.jeweleryshop.backend.entity.RollupDimension;
+
+/**
+ * 🧩 Tham số truy vấn doanh số theo thời gian (admin) — bind từ query string, vd:
+ * {@code ?from=2024-01-01T00:00:00&to=2024-07-01T00:00:00&bucket=MONTH&groupBy=CATEGORY}.
+ * {@code from} tính cả mốc, {@code to} không tính; {@code top} giới hạn số
+ * chuỗi khi tách theo danh mục / biến thể (lấy các chuỗi doanh thu cao nhất).
+ */
+public class SalesAnalyticsQueryDTO {
+
+    public enum Bucket {
+        HOUR,
+        DAY,
+        WEEK,
+        MONTH
+    }
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    private Bucket bucket = Bucket.DAY;
+    private RollupDimension groupBy = RollupDimension.TOTAL;
+    private int top = 10;
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public Bucket getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(Bucket bucket) {
+        this.bucket = bucket;
+    }
+
+    public RollupDimension getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(RollupDimension groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public void setTop(int top) {
+        this.top = top;
+    }
+}
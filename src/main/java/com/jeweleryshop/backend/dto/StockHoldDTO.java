@@ -0,0 +1,47 @@
+package com.jeweleryshop.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 🧩 Kết quả giữ hàng khi bắt đầu thanh toán: hàng trong giỏ được giữ riêng
+ * cho người dùng tới {@code expiresAt}.
+ */
+public class StockHoldDTO {
+
+    private Long cartId;
+    private int itemCount;
+    private LocalDateTime expiresAt;
+
+    public StockHoldDTO() {
+    }
+
+    public StockHoldDTO(Long cartId, int itemCount, LocalDateTime expiresAt) {
+        this.cartId = cartId;
+        this.itemCount = itemCount;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getCartId() {
+        return cartId;
+    }
+
+    public void setCartId(Long cartId) {
+        this.cartId = cartId;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
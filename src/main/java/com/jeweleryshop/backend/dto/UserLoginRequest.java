@@ -11,6 +11,9 @@ public class UserLoginRequest {
     @NotBlank(message = "Mật khẩu không được để trống")
     private String password;
 
+    // Không bắt buộc — mỗi thiết bị giữ một refresh token riêng
+    private String deviceId;
+
     // Cần thay đổi getter/setter từ getEmail/setEmail sang getUsername/setUsername
     public String getUsername() {
         return username;
@@ -27,4 +30,12 @@ public class UserLoginRequest {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
 }
@@ -0,0 +1,204 @@
+package com.jeweleryshop.backend.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * 🗂️ Job chạy nền của admin (import / export sản phẩm, feed CSV / NDJSON).
+ * File đầu vào và file kết quả nằm trong thư mục upload ({@code jobs/}), ở
+ * đây chỉ lưu tên file.
+ */
+@Entity
+@Table(name = "bulk_jobs", indexes = {
+        @Index(name = "idx_bulk_jobs_status", columnList = "status, id")
+})
+public class BulkJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private BulkJobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BulkJobStatus status = BulkJobStatus.QUEUED;
+
+    // Chỉ có ở job feed
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private CatalogFeed feed;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "feed_format", length = 10)
+    private FeedFormat format;
+
+    // Số dòng đã xử lý
+    @Column(nullable = false)
+    private int processed;
+
+    @Column(length = 500)
+    private String message;
+
+    @Column(name = "input_file")
+    private String inputFile;
+
+    @Column(name = "result_file")
+    private String resultFile;
+
+    // Báo cáo dạng JSON (vd. kết quả import từng dòng)
+    @Column(name = "result_summary", columnDefinition = "TEXT")
+    private String resultSummary;
+
+    @Column(name = "created_by", length = 100)
+    private String createdBy;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public BulkJob() {
+    }
+
+    public BulkJob(BulkJobType type, String createdBy) {
+        this.type = type;
+        this.createdBy = createdBy;
+    }
+
+    public BulkJob(BulkJobType type, CatalogFeed feed, FeedFormat format, String createdBy) {
+        this(type, createdBy);
+        this.feed = feed;
+        this.format = format;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public BulkJobType getType() {
+        return type;
+    }
+
+    public void setType(BulkJobType type) {
+        this.type = type;
+    }
+
+    public BulkJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(BulkJobStatus status) {
+        this.status = status;
+    }
+
+    public CatalogFeed getFeed() {
+        return feed;
+    }
+
+    public void setFeed(CatalogFeed feed) {
+        this.feed = feed;
+    }
+
+    public FeedFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(FeedFormat format) {
+        this.format = format;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(int processed) {
+        this.processed = processed;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getInputFile() {
+        return inputFile;
+    }
+
+    public void setInputFile(String inputFile) {
+        this.inputFile = inputFile;
+    }
+
+    public String getResultFile() {
+        return resultFile;
+    }
+
+    public void setResultFile(String resultFile) {
+        this.resultFile = resultFile;
+    }
+
+    public String getResultSummary() {
+        return resultSummary;
+    }
+
+    public void setResultSummary(String resultSummary) {
+        this.resultSummary = resultSummary;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,8 @@
+package com.jeweleryshop.backend.entity;
+
+public enum BulkJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.jeweleryshop.backend.entity;
+
+public enum BulkJobType {
+    PRODUCT_IMPORT,
+    PRODUCT_EXPORT,
+    FEED_IMPORT,
+    FEED_EXPORT
+}
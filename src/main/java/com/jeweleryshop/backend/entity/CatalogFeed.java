@@ -0,0 +1,26 @@
+package com.jeweleryshop.backend.entity;
+
+import java.util.Locale;
+
+import com.jeweleryshop.backend.exception.AppException;
+
+/**
+ * Loại dữ liệu trao đổi qua feed CSV / NDJSON (đồng bộ với ERP).
+ */
+public enum CatalogFeed {
+    PRODUCTS,
+    VARIANTS,
+    INVENTORY,
+    CATEGORIES;
+
+    /**
+     * @throws AppException tên feed không hỗ trợ
+     */
+    public static CatalogFeed from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new AppException("Feed không hỗ trợ: " + value + " (products | variants | inventory | categories)");
+        }
+    }
+}
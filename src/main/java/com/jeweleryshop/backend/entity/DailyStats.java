@@ -0,0 +1,75 @@
+package com.jeweleryshop.backend.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * 📈 Số liệu dashboard gộp theo ngày — cộng dồn khi đặt đơn / đổi trạng thái
+ * đơn / đăng ký người dùng, đối soát lại từ bảng gốc mỗi đêm.
+ */
+@Entity
+@Table(name = "daily_stats")
+public class DailyStats {
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    // Tổng totalAmount của các đơn DELIVERED đặt trong ngày
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    // Số đơn đặt trong ngày (mọi trạng thái)
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "new_user_count", nullable = false)
+    private long newUserCount;
+
+    public DailyStats() {
+    }
+
+    public DailyStats(LocalDate statDate, BigDecimal revenue, long orderCount, long newUserCount) {
+        this.statDate = statDate;
+        this.revenue = revenue;
+        this.orderCount = orderCount;
+        this.newUserCount = newUserCount;
+    }
+
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+
+    public void setStatDate(LocalDate statDate) {
+        this.statDate = statDate;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public long getNewUserCount() {
+        return newUserCount;
+    }
+
+    public void setNewUserCount(long newUserCount) {
+        this.newUserCount = newUserCount;
+    }
+}
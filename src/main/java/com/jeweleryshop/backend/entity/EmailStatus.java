@@ -0,0 +1,8 @@
+package com.jeweleryshop.backend.entity;
+
+public enum EmailStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
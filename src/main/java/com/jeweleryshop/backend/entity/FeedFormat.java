@@ -0,0 +1,41 @@
+package com.jeweleryshop.backend.entity;
+
+import java.util.Locale;
+
+import com.jeweleryshop.backend.exception.AppException;
+
+/**
+ * Định dạng file feed: CSV (RFC 4180, UTF-8, dòng đầu là header) hoặc NDJSON
+ * (mỗi dòng một JSON object).
+ */
+public enum FeedFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    FeedFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @throws AppException định dạng không hỗ trợ
+     */
+    public static FeedFormat from(String value) {
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "csv" -> CSV;
+            case "ndjson", "jsonl" -> NDJSON;
+            default -> throw new AppException("Định dạng không hỗ trợ: " + value + " (csv | ndjson)");
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.jeweleryshop.backend.entity;
+
+/**
+ * Các cỡ ảnh sinh sẵn từ ảnh gốc upload: ảnh được thu nhỏ giữ tỉ lệ sao cho
+ * cạnh dài nhất không vượt {@code maxSize} (ảnh nhỏ hơn thì giữ nguyên cỡ),
+ * lưu JPEG cạnh ảnh gốc với tên {@code <hash>-<suffix>.jpg}.
+ *
+ * Khai báo từ lớn đến nhỏ: cỡ sau được thu nhỏ từ cỡ trước.
+ */
+public enum ImageRendition {
+    LARGE("large", 1200),
+    MEDIUM("medium", 600),
+    THUMBNAIL("thumb", 200);
+
+    private final String suffix;
+    private final int maxSize;
+
+    ImageRendition(String suffix, int maxSize) {
+        this.suffix = suffix;
+        this.maxSize = maxSize;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public String fileName(String contentHash) {
+        return contentHash + "-" + suffix + ".jpg";
+    }
+
+    /**
+     * URL của cỡ này, cùng thư mục với URL ảnh gốc
+     * ({@code .../media/<hash>.png} → {@code .../media/<hash>-thumb.jpg}).
+     */
+    public String urlFrom(String originalUrl, String contentHash) {
+        return originalUrl.substring(0, originalUrl.lastIndexOf('/') + 1) + fileName(contentHash);
+    }
+}
@@ -18,13 +18,21 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "orders")
+// ✅ Index ghép kết thúc bằng (order_date, id) → lọc + keyset phân trang
+// đều đi theo index, không cần sắp xếp lại (filesort)
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_date_id", columnList = "order_date, id"),
+        @Index(name = "idx_orders_status_date_id", columnList = "status, order_date, id"),
+        @Index(name = "idx_orders_payment_status_date_id", columnList = "payment_status, order_date, id"),
+        @Index(name = "idx_orders_user_date_id", columnList = "user_id, order_date, id")
+})
 public class Order {
 
     @Id
@@ -2,26 +2,44 @@ package com.jeweleryshop.backend.entity;
 
 import java.time.LocalDateTime;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "otp_tokens")
+// ✅ Mỗi người dùng một OTP; index theo hạn dùng cho job dọn bản ghi hết hạn
+@Table(name = "otp_tokens", indexes = {
+        @Index(name = "idx_otp_tokens_expiry_time", columnList = "expiry_time")
+})
 public class OtpToken {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(unique = true, nullable = false)
     private String username;
 
+    // Hash SHA-256 của mã, không lưu mã gốc
+    @Column(length = 64)
     private String otpCode;
 
+    private LocalDateTime issuedAt;
+
     private LocalDateTime expiryTime;
 
+    // Số lượt đã thử mã hiện tại (giữ lượt trước khi so mã)
+    private int failedAttempts;
+
+    // Số lần gửi mã trong cửa sổ giới hạn bắt đầu từ windowStart
+    private int sendCount;
+
+    private LocalDateTime windowStart;
+
     // getters/setters
     public Long getId() {
         return id;
@@ -47,6 +65,14 @@ public class OtpToken {
         this.otpCode = otpCode;
     }
 
+    public LocalDateTime getIssuedAt() {
+        return issuedAt;
+    }
+
+    public void setIssuedAt(LocalDateTime issuedAt) {
+        this.issuedAt = issuedAt;
+    }
+
     public LocalDateTime getExpiryTime() {
         return expiryTime;
     }
@@ -54,4 +80,28 @@ public class OtpToken {
     public void setExpiryTime(LocalDateTime expiryTime) {
         this.expiryTime = expiryTime;
     }
+
+    public int getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    public void setFailedAttempts(int failedAttempts) {
+        this.failedAttempts = failedAttempts;
+    }
+
+    public int getSendCount() {
+        return sendCount;
+    }
+
+    public void setSendCount(int sendCount) {
+        this.sendCount = sendCount;
+    }
+
+    public LocalDateTime getWindowStart() {
+        return windowStart;
+    }
+
+    public void setWindowStart(LocalDateTime windowStart) {
+        this.windowStart = windowStart;
+    }
 }
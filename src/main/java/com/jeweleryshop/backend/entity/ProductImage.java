@@ -8,12 +8,15 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "product_images")
+@Table(name = "product_images", indexes = {
+        @Index(name = "idx_product_images_hash", columnList = "content_hash")
+})
 public class ProductImage {
 
     @Id
@@ -28,6 +31,20 @@ public class ProductImage {
     @Column(name = "image_url", nullable = false)
     private String imageUrl;
 
+    // SHA-256 nội dung ảnh gốc; null với ảnh cũ lưu theo UUID
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Các cỡ thu nhỏ — null khi chưa sinh xong (hiển thị ảnh gốc thay thế)
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
+    @Column(name = "medium_url")
+    private String mediumUrl;
+
+    @Column(name = "large_url")
+    private String largeUrl;
+
     public ProductImage() {
     }
 
@@ -54,4 +71,36 @@ public class ProductImage {
     public void setImageUrl(String imageUrl) {
         this.imageUrl = imageUrl;
     }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getMediumUrl() {
+        return mediumUrl;
+    }
+
+    public void setMediumUrl(String mediumUrl) {
+        this.mediumUrl = mediumUrl;
+    }
+
+    public String getLargeUrl() {
+        return largeUrl;
+    }
+
+    public void setLargeUrl(String largeUrl) {
+        this.largeUrl = largeUrl;
+    }
 }
@@ -4,31 +4,47 @@ import java.time.Instant;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.OneToOne;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.UniqueConstraint;
 
 @Entity
-@Table(name = "refresh_tokens")
+// ✅ Mỗi (user, thiết bị) một token → đăng nhập lại chỉ là một câu upsert;
+// index theo hạn dùng cho job dọn token hết hạn
+@Table(name = "refresh_tokens",
+        uniqueConstraints = @UniqueConstraint(name = "uk_refresh_tokens_user_device", columnNames = {"user_id", "device_id"}),
+        indexes = @Index(name = "idx_refresh_tokens_expiry_date", columnList = "expiry_date"))
 public class RefreshToken {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToOne
-    @JoinColumn(name = "user_id", referencedColumnName = "id")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @Column(nullable = false, unique = true)
-    private String token;
+    @Column(name = "device_id", nullable = false, length = 100)
+    private String deviceId;
+
+    // Hash SHA-256 của token (unique → tra cứu theo index), không lưu token gốc
+    @Column(name = "token", nullable = false, unique = true, length = 64)
+    private String tokenHash;
 
-    @Column(nullable = false)
+    @Column(name = "expiry_date", nullable = false)
     private Instant expiryDate;
 
+    // Token gốc — chỉ có ở token vừa cấp, để trả cho client
+    @Transient
+    private String token;
+
     public RefreshToken() {
     }
 
@@ -48,6 +64,22 @@ public class RefreshToken {
         this.user = user;
     }
 
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
     public String getToken() {
         return token;
     }
@@ -0,0 +1,7 @@
+package com.jeweleryshop.backend.entity;
+
+public enum RollupDimension {
+    TOTAL,
+    CATEGORY,
+    VARIANT
+}
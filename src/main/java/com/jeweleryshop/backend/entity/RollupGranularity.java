@@ -0,0 +1,6 @@
+package com.jeweleryshop.backend.entity;
+
+public enum RollupGranularity {
+    HOUR,
+    DAY
+}
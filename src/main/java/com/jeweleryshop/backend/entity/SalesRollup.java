@@ -0,0 +1,137 @@
+package com.jeweleryshop.backend.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * 📈 Doanh số đã gộp sẵn của một khung giờ / ngày, cho toàn shop
+ * ({@code dimensionId} = 0), một danh mục hoặc một biến thể. Chỉ tính đơn
+ * DELIVERED, theo ngày đặt — do job tổng hợp ghi lại từ orders / order_details.
+ */
+@Entity
+@Table(name = "sales_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_rollup_bucket",
+                columnNames = {"granularity", "dimension", "bucket_start", "dimension_id"})
+})
+public class SalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupDimension dimension;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "dimension_id", nullable = false)
+    private long dimensionId;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    // Số đơn (khác nhau) có ít nhất một dòng thuộc chiều này
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "units_sold", nullable = false)
+    private long unitsSold;
+
+    public SalesRollup() {
+    }
+
+    public SalesRollup(RollupGranularity granularity, RollupDimension dimension, LocalDateTime bucketStart,
+            long dimensionId) {
+        this.granularity = granularity;
+        this.dimension = dimension;
+        this.bucketStart = bucketStart;
+        this.dimensionId = dimensionId;
+    }
+
+    // Cộng dồn một khung nhỏ hơn (giờ → ngày)
+    public void add(BigDecimal revenue, long orderCount, long unitsSold) {
+        this.revenue = this.revenue.add(revenue);
+        this.orderCount += orderCount;
+        this.unitsSold += unitsSold;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(RollupGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public RollupDimension getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(RollupDimension dimension) {
+        this.dimension = dimension;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public long getDimensionId() {
+        return dimensionId;
+    }
+
+    public void setDimensionId(long dimensionId) {
+        this.dimensionId = dimensionId;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public long getUnitsSold() {
+        return unitsSold;
+    }
+
+    public void setUnitsSold(long unitsSold) {
+        this.unitsSold = unitsSold;
+    }
+}
@@ -0,0 +1,18 @@
+package com.jeweleryshop.backend.event;
+
+/**
+ * 📣 Phát ra khi giỏ hàng của một người dùng thay đổi (thêm / sửa / xóa món,
+ * gắn mã khuyến mãi, đặt hàng) — DTO giỏ hàng trong cache cần bỏ đi.
+ */
+public class CartChangedEvent {
+
+    private final Long userId;
+
+    public CartChangedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,18 @@
+package com.jeweleryshop.backend.event;
+
+/**
+ * 📣 Phát ra khi giỏ hàng vừa được đặt thành đơn — lượt giữ hàng của giỏ chỉ
+ * được trả lại sau khi đơn (và phần kho đã trừ) commit xong.
+ */
+public class CartCheckedOutEvent {
+
+    private final Long cartId;
+
+    public CartCheckedOutEvent(Long cartId) {
+        this.cartId = cartId;
+    }
+
+    public Long getCartId() {
+        return cartId;
+    }
+}
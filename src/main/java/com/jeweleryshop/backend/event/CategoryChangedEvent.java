@@ -0,0 +1,18 @@
+package com.jeweleryshop.backend.event;
+
+/**
+ * 📣 Phát ra khi danh mục được tạo / sửa / xóa — cây danh mục trong bộ nhớ
+ * cần dựng lại.
+ */
+public class CategoryChangedEvent {
+
+    private final Long categoryId;
+
+    public CategoryChangedEvent(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+}
@@ -0,0 +1,18 @@
+package com.jeweleryshop.backend.event;
+
+/**
+ * 📣 Phát ra khi một thư được ghi vào outbox — sau commit, thư được đưa vào
+ * hàng đợi gửi trong bộ nhớ.
+ */
+public class EmailQueuedEvent {
+
+    private final Long emailId;
+
+    public EmailQueuedEvent(Long emailId) {
+        this.emailId = emailId;
+    }
+
+    public Long getEmailId() {
+        return emailId;
+    }
+}
@@ -0,0 +1,47 @@
+package com.jeweleryshop.backend.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.jeweleryshop.backend.entity.OrderStatus;
+
+/**
+ * 📣 Phát ra khi đơn hàng được tạo ({@code previousStatus} = null) hoặc đổi
+ * trạng thái — số liệu dashboard theo ngày cộng dồn từ đây.
+ */
+public class OrderStatusChangedEvent {
+
+    private final LocalDate orderDay;
+    private final BigDecimal totalAmount;
+    private final OrderStatus previousStatus;
+    private final OrderStatus newStatus;
+
+    public OrderStatusChangedEvent(LocalDateTime orderDate, BigDecimal totalAmount,
+            OrderStatus previousStatus, OrderStatus newStatus) {
+        this.orderDay = orderDate != null ? orderDate.toLocalDate() : LocalDate.now();
+        this.totalAmount = totalAmount != null ? totalAmount : BigDecimal.ZERO;
+        this.previousStatus = previousStatus;
+        this.newStatus = newStatus;
+    }
+
+    public static OrderStatusChangedEvent created(LocalDateTime orderDate, BigDecimal totalAmount, OrderStatus status) {
+        return new OrderStatusChangedEvent(orderDate, totalAmount, null, status);
+    }
+
+    public LocalDate getOrderDay() {
+        return orderDay;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public OrderStatus getNewStatus() {
+        return newStatus;
+    }
+}
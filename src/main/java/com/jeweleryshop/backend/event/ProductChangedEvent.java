@@ -0,0 +1,45 @@
+package com.jeweleryshop.backend.event;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 📣 Phát ra khi dữ liệu hiển thị của sản phẩm thay đổi: thông tin sản phẩm,
+ * biến thể, ảnh hoặc tồn kho. Listener tự nạp lại trạng thái mới từ DB theo
+ * danh sách ID.
+ */
+public class ProductChangedEvent {
+
+    private final Set<Long> productIds;
+    private final boolean stockOnly;
+
+    public ProductChangedEvent(Collection<Long> productIds) {
+        this(productIds, false);
+    }
+
+    private ProductChangedEvent(Collection<Long> productIds, boolean stockOnly) {
+        this.productIds = productIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+        this.stockOnly = stockOnly;
+    }
+
+    public static ProductChangedEvent of(Long productId) {
+        return new ProductChangedEvent(Set.of(productId));
+    }
+
+    // Chỉ tồn kho đổi (đặt / hủy đơn) — giá, tên, ảnh giữ nguyên
+    public static ProductChangedEvent stockChanged(Collection<Long> productIds) {
+        return new ProductChangedEvent(productIds, true);
+    }
+
+    public Set<Long> getProductIds() {
+        return productIds;
+    }
+
+    public boolean isStockOnly() {
+        return stockOnly;
+    }
+}
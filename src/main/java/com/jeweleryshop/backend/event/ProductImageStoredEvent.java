@@ -0,0 +1,24 @@
+package com.jeweleryshop.backend.event;
+
+/**
+ * 📣 Phát ra khi ảnh sản phẩm mới được lưu mà chưa có đủ các cỡ thu nhỏ —
+ * xử lý sau commit để job nền thấy được dòng ảnh vừa thêm.
+ */
+public class ProductImageStoredEvent {
+
+    private final String contentHash;
+    private final String fileName;
+
+    public ProductImageStoredEvent(String contentHash, String fileName) {
+        this.contentHash = contentHash;
+        this.fileName = fileName;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+}
@@ -0,0 +1,32 @@
+package com.jeweleryshop.backend.event;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 📣 Phát ra khi khuyến mãi được tạo / sửa / xóa — tập luật tính giá trong bộ
+ * nhớ cần dựng lại, cache theo mã cần xóa các mã liên quan (sửa mã → cả mã
+ * cũ lẫn mã mới).
+ */
+public class PromotionChangedEvent {
+
+    private final Long promotionId;
+    private final Set<String> codes;
+
+    public PromotionChangedEvent(Long promotionId, String... codes) {
+        this.promotionId = promotionId;
+        this.codes = Arrays.stream(codes)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public Long getPromotionId() {
+        return promotionId;
+    }
+
+    public Set<String> getCodes() {
+        return codes;
+    }
+}
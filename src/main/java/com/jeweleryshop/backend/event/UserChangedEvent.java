@@ -0,0 +1,29 @@
+package com.jeweleryshop.backend.event;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 📣 Phát ra khi thông tin xác thực của người dùng đổi (username, trạng thái,
+ * vai trò) hoặc người dùng bị xóa — principal trong cache cần bỏ đi.
+ */
+public class UserChangedEvent {
+
+    private final Set<String> usernames;
+
+    public UserChangedEvent(Collection<String> usernames) {
+        this.usernames = usernames.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public static UserChangedEvent of(String username) {
+        return new UserChangedEvent(Set.of(username));
+    }
+
+    public Set<String> getUsernames() {
+        return usernames;
+    }
+}
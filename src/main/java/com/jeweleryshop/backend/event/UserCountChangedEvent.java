@@ -0,0 +1,35 @@
+package com.jeweleryshop.backend.event;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 📣 Phát ra khi có người dùng đăng ký (+1) hoặc bị xóa (-1), theo ngày
+ * đăng ký — số người dùng mới trên dashboard cộng dồn từ đây.
+ */
+public class UserCountChangedEvent {
+
+    private final LocalDate registeredDay;
+    private final int delta;
+
+    private UserCountChangedEvent(LocalDateTime createdAt, int delta) {
+        this.registeredDay = createdAt != null ? createdAt.toLocalDate() : LocalDate.now();
+        this.delta = delta;
+    }
+
+    public static UserCountChangedEvent registered(LocalDateTime createdAt) {
+        return new UserCountChangedEvent(createdAt, 1);
+    }
+
+    public static UserCountChangedEvent deleted(LocalDateTime createdAt) {
+        return new UserCountChangedEvent(createdAt, -1);
+    }
+
+    public LocalDate getRegisteredDay() {
+        return registeredDay;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+}
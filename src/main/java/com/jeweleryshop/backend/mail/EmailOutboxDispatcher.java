@@ -0,0 +1,310 @@
+package com.jeweleryshop.backend.mail;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.jeweleryshop.backend.dto.EmailStatsDTO;
+import com.jeweleryshop.backend.entity.EmailOutbox;
+import com.jeweleryshop.backend.entity.EmailStatus;
+import com.jeweleryshop.backend.event.EmailQueuedEvent;
+import com.jeweleryshop.backend.repository.EmailOutboxRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 📬 Gửi thư từ bảng outbox, ngoài luồng request.
+ *
+ * <ul>
+ * <li>Sau commit, id thư được đưa vào hàng đợi trong bộ nhớ có giới hạn; hàng
+ * đợi đầy thì thư vẫn nằm trong outbox và được job quét nhặt lại.</li>
+ * <li>Mỗi worker lấy tối đa {@code batchSize} thư, nhận gửi từng thư bằng câu
+ * UPDATE có điều kiện rồi gửi cả lô qua một kết nối SMTP.</li>
+ * <li>Gửi lỗi → thử lại với thời gian chờ tăng gấp đôi; quá
+ * {@code maxAttempts} lần thì đánh dấu FAILED.</li>
+ * <li>Job quét định kỳ nhặt thư đến hạn thử lại, thư còn sót sau restart và
+ * thư SENDING mà worker đã chết giữa chừng (quá hạn thuê).</li>
+ * <li>Thư đã SENT / FAILED bị xóa nội dung ngay (thư OTP chứa mã đăng nhập) và
+ * quá {@code retention-days} ngày thì xóa hẳn khỏi outbox.</li>
+ * </ul>
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+    // Thời gian chờ tối đa giữa hai lần thử
+    static final Duration MAX_BACKOFF = Duration.ofHours(1);
+    // Nội dung thư đã gửi xong / bỏ cuộc — cột body NOT NULL nên ghi chuỗi rỗng
+    static final String REDACTED_BODY = "";
+    private static final int PURGE_BATCH_SIZE = 500;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBase;
+    private final Duration lease;
+    private final int retentionDays;
+
+    private final BlockingQueue<Long> queue;
+    // Id đang nằm trong hàng đợi — job quét không đưa vào lần nữa
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private ExecutorService executor;
+
+    // 📊 Số liệu
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private final AtomicLong maxBatchNanos = new AtomicLong();
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+            JavaMailSender mailSender,
+            @Value("${app.mail.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.mail.workers:2}") int workers,
+            @Value("${app.mail.batch-size:20}") int batchSize,
+            @Value("${app.mail.max-attempts:5}") int maxAttempts,
+            @Value("${app.mail.retry-base-seconds:30}") long retryBaseSeconds,
+            @Value("${app.mail.lease-seconds:300}") long leaseSeconds,
+            @Value("${app.mail.retention-days:30}") int retentionDays) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBase = Duration.ofSeconds(retryBaseSeconds);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.retentionDays = retentionDays;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newFixedThreadPool(workers,
+                Thread.ofPlatform().name("mail-sender-", 1).daemon(true).factory());
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::runWorker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    // ==============================================================
+    // 📥 Đưa vào hàng đợi
+    // ==============================================================
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent event) {
+        enqueue(event.getEmailId());
+    }
+
+    boolean enqueue(Long emailId) {
+        if (!queued.add(emailId)) {
+            return true;
+        }
+        if (!queue.offer(emailId)) {
+            // Đầy → để job quét nhặt lại từ outbox
+            queued.remove(emailId);
+            overflowed.increment();
+            return false;
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.poll-interval-ms:30000}")
+    public int requeueDue() {
+        int free = queue.remainingCapacity();
+        if (free == 0) {
+            return 0;
+        }
+        int added = 0;
+        for (Long id : emailOutboxRepository.findDueIds(LocalDateTime.now(), PageRequest.of(0, free))) {
+            if (!queued.contains(id) && enqueue(id)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    // ==============================================================
+    // 📤 Gửi
+    // ==============================================================
+    private void runWorker() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                batch.forEach(queued::remove);
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // Lỗi DB... → thư vẫn trong outbox, job quét sẽ thử lại
+                System.out.println("❌ Email dispatch failed: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Nhận gửi và gửi một lô thư.
+     *
+     * @return số thư gửi thành công
+     */
+    public int dispatch(List<Long> emailIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> claimed = new ArrayList<>(emailIds.size());
+        for (Long id : emailIds) {
+            if (emailOutboxRepository.claim(id, now, now.plus(lease)) == 1) {
+                claimed.add(id);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<EmailOutbox> emails = emailOutboxRepository.findAllById(claimed);
+        Map<SimpleMailMessage, EmailOutbox> byMessage = new IdentityHashMap<>();
+        for (EmailOutbox email : emails) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            byMessage.put(message, email);
+        }
+
+        // Cả lô qua một kết nối SMTP; lỗi từng thư nằm trong failedMessages,
+        // lỗi chung (mất kết nối, sai mật khẩu...) áp cho cả lô
+        Map<Object, Exception> failures = Map.of();
+        Exception batchError = null;
+        long start = System.nanoTime();
+        try {
+            mailSender.send(byMessage.keySet().toArray(SimpleMailMessage[]::new));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                batchError = e;
+            }
+        } catch (MailException e) {
+            batchError = e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            batches.increment();
+            sendNanos.add(elapsed);
+            maxBatchNanos.accumulateAndGet(elapsed, Math::max);
+        }
+
+        LocalDateTime finishedAt = LocalDateTime.now();
+        int delivered = 0;
+        for (Map.Entry<SimpleMailMessage, EmailOutbox> entry : byMessage.entrySet()) {
+            EmailOutbox email = entry.getValue();
+            Exception error = batchError != null ? batchError : failures.get(entry.getKey());
+            if (error == null) {
+                email.setStatus(EmailStatus.SENT);
+                email.setSentAt(finishedAt);
+                email.setLastError(null);
+                email.setBody(REDACTED_BODY);
+                sent.increment();
+                delivered++;
+            } else {
+                markFailedAttempt(email, error, finishedAt);
+            }
+        }
+        emailOutboxRepository.saveAll(emails);
+        return delivered;
+    }
+
+    private void markFailedAttempt(EmailOutbox email, Exception error, LocalDateTime now) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(truncate(String.valueOf(error.getMessage())));
+        if (attempts >= maxAttempts) {
+            email.setStatus(EmailStatus.FAILED);
+            email.setBody(REDACTED_BODY);
+            failed.increment();
+            System.out.println("❌ Email " + email.getId() + " failed after " + attempts + " attempts");
+        } else {
+            email.setStatus(EmailStatus.PENDING);
+            email.setNextAttemptAt(now.plus(backoff(attempts)));
+            retried.increment();
+        }
+    }
+
+    // 30s, 60s, 120s... tối đa MAX_BACKOFF
+    Duration backoff(int attempts) {
+        Duration delay = retryBase.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    // ==============================================================
+    // 🧹 Dọn outbox
+    // ==============================================================
+    // Xóa theo lô thư đã SENT / FAILED quá hạn giữ để không khóa bảng lâu
+    @Scheduled(cron = "${app.mail.purge-cron:0 30 4 * * *}")
+    public int purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int purged = 0;
+        int batch;
+        do {
+            batch = emailOutboxRepository.deleteFinishedBatch(cutoff, PURGE_BATCH_SIZE);
+            purged += batch;
+        } while (batch == PURGE_BATCH_SIZE);
+        return purged;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    // ==============================================================
+    // 📊 Số liệu
+    // ==============================================================
+    public EmailStatsDTO stats() {
+        long batchCount = batches.sum();
+        return new EmailStatsDTO(
+                queue.size(),
+                queue.size() + queue.remainingCapacity(),
+                emailOutboxRepository.countByStatus(EmailStatus.PENDING),
+                emailOutboxRepository.countByStatus(EmailStatus.FAILED),
+                sent.sum(),
+                retried.sum(),
+                failed.sum(),
+                overflowed.sum(),
+                batchCount,
+                batchCount == 0 ? 0.0 : sendNanos.sum() / 1e6 / batchCount,
+                maxBatchNanos.get() / 1e6);
+    }
+}
@@ -0,0 +1,83 @@
+package com.jeweleryshop.backend.otp;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.jeweleryshop.backend.exception.AppException;
+
+/**
+ * 🧠 OTP trong bộ nhớ, có giới hạn số bản ghi: khi đầy thì dọn bản ghi hết
+ * hạn ngay, vẫn đầy thì từ chối cấp mã mới thay vì để bộ nhớ tăng không giới
+ * hạn khi có đợt đăng nhập dồn dập.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private final Map<String, OtpRecord> records = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public InMemoryOtpStore(@Value("${app.otp.memory.max-entries:100000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Optional<OtpRecord> find(String username) {
+        return Optional.ofNullable(records.get(username));
+    }
+
+    @Override
+    public void save(String username, OtpRecord record) {
+        if (records.size() >= maxEntries && !records.containsKey(username)) {
+            // Đầy → bỏ các mã đã hết hạn (tính theo thời điểm cấp mã mới)
+            purgeExpiredBefore(record.getIssuedAt());
+            if (records.size() >= maxEntries) {
+                throw new AppException("Hệ thống đang bận, vui lòng thử lại sau!");
+            }
+        }
+        records.put(username, record);
+    }
+
+    @Override
+    public boolean reserveAttempt(String username, String codeHash, int maxAttempts) {
+        // computeIfPresent chạy nguyên tử trên từng khóa: kiểm tra và tăng cùng một bước
+        boolean[] reserved = {false};
+        records.computeIfPresent(username, (key, record) -> {
+            if (!record.getCodeHash().equals(codeHash) || record.getFailedAttempts() >= maxAttempts) {
+                return record;
+            }
+            reserved[0] = true;
+            return record.withFailedAttempt();
+        });
+        return reserved[0];
+    }
+
+    @Override
+    public void delete(String username) {
+        records.remove(username);
+    }
+
+    @Override
+    public int purgeExpiredBefore(LocalDateTime cutoff) {
+        AtomicInteger purged = new AtomicInteger();
+        records.entrySet().removeIf(entry -> {
+            boolean expired = entry.getValue().getExpiresAt().isBefore(cutoff);
+            if (expired) {
+                purged.incrementAndGet();
+            }
+            return expired;
+        });
+        return purged.get();
+    }
+
+    public int size() {
+        return records.size();
+    }
+}
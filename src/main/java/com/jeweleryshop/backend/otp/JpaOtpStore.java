@@ -0,0 +1,73 @@
+package com.jeweleryshop.backend.otp;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.jeweleryshop.backend.entity.OtpToken;
+import com.jeweleryshop.backend.repository.OtpTokenRepository;
+
+/**
+ * 🗃️ OTP trong bảng otp_tokens — instance nào cấp mã thì instance khác vẫn
+ * xác minh được. Giữ lượt thử bằng câu UPDATE có điều kiện nên nhiều request
+ * đoán mã cùng lúc không vượt quá số lượt cho phép.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "database")
+public class JpaOtpStore implements OtpStore {
+
+    private final OtpTokenRepository otpTokenRepository;
+
+    public JpaOtpStore(OtpTokenRepository otpTokenRepository) {
+        this.otpTokenRepository = otpTokenRepository;
+    }
+
+    @Override
+    public Optional<OtpRecord> find(String username) {
+        return otpTokenRepository.findByUsername(username).map(token -> new OtpRecord(
+                token.getOtpCode(),
+                token.getIssuedAt(),
+                token.getExpiryTime(),
+                token.getFailedAttempts(),
+                token.getSendCount(),
+                token.getWindowStart()));
+    }
+
+    @Override
+    @Transactional
+    public void save(String username, OtpRecord record) {
+        OtpToken token = otpTokenRepository.findByUsername(username).orElseGet(OtpToken::new);
+        token.setUsername(username);
+        token.setOtpCode(record.getCodeHash());
+        token.setIssuedAt(record.getIssuedAt());
+        token.setExpiryTime(record.getExpiresAt());
+        token.setFailedAttempts(record.getFailedAttempts());
+        token.setSendCount(record.getSendCount());
+        token.setWindowStart(record.getWindowStart());
+        otpTokenRepository.save(token);
+    }
+
+    // Transaction riêng: mã sai làm transaction của AuthService rollback, lượt
+    // đã giữ vẫn phải được ghi lại
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean reserveAttempt(String username, String codeHash, int maxAttempts) {
+        return otpTokenRepository.reserveAttempt(username, codeHash, maxAttempts) == 1;
+    }
+
+    @Override
+    @Transactional
+    public void delete(String username) {
+        otpTokenRepository.deleteByUsername(username);
+    }
+
+    @Override
+    @Transactional
+    public int purgeExpiredBefore(LocalDateTime cutoff) {
+        return otpTokenRepository.deleteExpiredBefore(cutoff);
+    }
+}
@@ -0,0 +1,61 @@
+package com.jeweleryshop.backend.otp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 🔢 OTP đang chờ xác minh của một người dùng (bất biến).
+ *
+ * Chỉ lưu hash của mã; {@code sendCount} / {@code windowStart} đếm số lần gửi
+ * trong cửa sổ giới hạn, nên bản ghi được giữ thêm một cửa sổ sau khi hết hạn.
+ */
+public final class OtpRecord {
+
+    private final String codeHash;
+    private final LocalDateTime issuedAt;
+    private final LocalDateTime expiresAt;
+    private final int failedAttempts;
+    private final int sendCount;
+    private final LocalDateTime windowStart;
+
+    public OtpRecord(String codeHash, LocalDateTime issuedAt, LocalDateTime expiresAt,
+            int failedAttempts, int sendCount, LocalDateTime windowStart) {
+        this.codeHash = codeHash;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.failedAttempts = failedAttempts;
+        this.sendCount = sendCount;
+        this.windowStart = windowStart;
+    }
+
+    public OtpRecord withFailedAttempt() {
+        return new OtpRecord(codeHash, issuedAt, expiresAt, failedAttempts + 1, sendCount, windowStart);
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt.isBefore(now);
+    }
+
+    public String getCodeHash() {
+        return codeHash;
+    }
+
+    public LocalDateTime getIssuedAt() {
+        return issuedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public int getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    public int getSendCount() {
+        return sendCount;
+    }
+
+    public LocalDateTime getWindowStart() {
+        return windowStart;
+    }
+}
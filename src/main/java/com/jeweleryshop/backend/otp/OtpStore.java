@@ -0,0 +1,35 @@
+package com.jeweleryshop.backend.otp;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * 🗄️ Nơi lưu OTP theo username. Chọn bằng {@code app.otp.store}:
+ * <ul>
+ * <li>{@code memory} (mặc định) — {@link InMemoryOtpStore}, một instance.</li>
+ * <li>{@code database} — {@link JpaOtpStore}, bảng otp_tokens dùng chung
+ * giữa các instance.</li>
+ * </ul>
+ */
+public interface OtpStore {
+
+    Optional<OtpRecord> find(String username);
+
+    // Thay OTP cũ (nếu có) của người dùng
+    void save(String username, OtpRecord record);
+
+    /**
+     * Giữ một lượt xác minh trước khi so mã: tăng số lần thử một cách nguyên tử,
+     * chỉ khi OTP vẫn là mã {@code codeHash} và chưa dùng hết
+     * {@code maxAttempts} lượt. Nhiều request đoán song song không thể cùng lọt
+     * qua lượt cuối.
+     *
+     * @return false nếu đã hết lượt hoặc OTP đã bị thay / xóa
+     */
+    boolean reserveAttempt(String username, String codeHash, int maxAttempts);
+
+    void delete(String username);
+
+    // Xóa bản ghi hết hạn trước mốc cutoff
+    int purgeExpiredBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,228 @@
+package com.jeweleryshop.backend.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.jeweleryshop.backend.entity.Promotion;
+import com.jeweleryshop.backend.entity.PromotionType;
+
+/**
+ * 🏷️ Tập luật khuyến mãi đã "biên dịch" từ bảng promotions — bất biến, dựng
+ * một lần rồi dùng chung cho mọi request tính giá (giỏ hàng, đặt hàng).
+ *
+ * <ul>
+ * <li>Chỉ giữ khuyến mãi chưa kết thúc và còn lượt tại thời điểm dựng; khuyến
+ * mãi sắp bắt đầu vẫn được giữ, khung thời gian kiểm tra lại lúc tính.</li>
+ * <li>Tra theo mã (không phân biệt hoa thường) hoặc theo id — giỏ hàng chỉ giữ
+ * id nên không phải nạp entity Promotion.</li>
+ * <li>currentUsage chỉ là ảnh chụp: giới hạn thật vẫn do câu UPDATE có điều
+ * kiện khi đặt hàng quyết định.</li>
+ * </ul>
+ */
+public final class PromotionRuleSet {
+
+    public static final PromotionRuleSet EMPTY = new PromotionRuleSet(Map.of(), Map.of(), null);
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final Map<String, Rule> byCode;
+    private final Map<Long, Rule> byId;
+    private final LocalDateTime compiledAt;
+
+    private PromotionRuleSet(Map<String, Rule> byCode, Map<Long, Rule> byId, LocalDateTime compiledAt) {
+        this.byCode = byCode;
+        this.byId = byId;
+        this.compiledAt = compiledAt;
+    }
+
+    public static PromotionRuleSet compile(Collection<Promotion> promotions, LocalDateTime now) {
+        Map<String, Rule> byCode = new HashMap<>();
+        Map<Long, Rule> byId = new HashMap<>();
+        for (Promotion promotion : promotions) {
+            if (promotion.getCode() == null || promotion.getDiscountType() == null
+                    || promotion.getDiscountValue() == null
+                    || promotion.getEndDate() == null || promotion.getEndDate().isBefore(now)
+                    || promotion.getCurrentUsage() >= promotion.getMaxUsage()) {
+                continue;
+            }
+            Rule rule = new Rule(promotion);
+            byCode.put(normalize(rule.code), rule);
+            if (rule.promotionId != null) {
+                byId.put(rule.promotionId, rule);
+            }
+        }
+        return new PromotionRuleSet(Map.copyOf(byCode), Map.copyOf(byId), now);
+    }
+
+    public Rule findByCode(String code) {
+        return code != null ? byCode.get(normalize(code)) : null;
+    }
+
+    public Rule findById(Long promotionId) {
+        return promotionId != null ? byId.get(promotionId) : null;
+    }
+
+    public int size() {
+        return byCode.size();
+    }
+
+    public LocalDateTime getCompiledAt() {
+        return compiledAt;
+    }
+
+    private static String normalize(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // ==============================================================
+    // 💰 Tính giá
+    // ==============================================================
+    /**
+     * Tính tổng cho danh sách dòng hàng với một luật (có thể null). Luật không
+     * áp dụng được thì không giảm giá, lý do nằm trong
+     * {@link Quote#getRejectionReason()}.
+     */
+    public static Quote evaluate(List<Line> lines, Rule rule, LocalDateTime now, BigDecimal shippingFee) {
+        BigDecimal subTotal = BigDecimal.ZERO;
+        for (Line line : lines) {
+            subTotal = subTotal.add(line.unitPrice.multiply(BigDecimal.valueOf(line.quantity)));
+        }
+        if (rule == null) {
+            return new Quote(subTotal, BigDecimal.ZERO, shippingFee, null, null, null);
+        }
+        String rejection = rule.rejectionReason(subTotal, now);
+        if (rejection != null) {
+            return new Quote(subTotal, BigDecimal.ZERO, shippingFee, null, null, rejection);
+        }
+        return new Quote(subTotal, rule.discountFor(subTotal), shippingFee, rule.code, rule.promotionId, null);
+    }
+
+    // ==============================================================
+    // 🧩 Kiểu dữ liệu
+    // ==============================================================
+    public static final class Rule {
+
+        private final Long promotionId;
+        private final String code;
+        private final PromotionType type;
+        private final BigDecimal amount;
+        private final BigDecimal minOrderAmount;
+        private final LocalDateTime startDate;
+        private final LocalDateTime endDate;
+
+        private Rule(Promotion promotion) {
+            this.promotionId = promotion.getId();
+            this.code = promotion.getCode();
+            this.type = promotion.getDiscountType();
+            // Phần trăm đổi sẵn thành hệ số (10 → 0.10) để lúc tính chỉ còn một phép nhân
+            this.amount = type == PromotionType.PERCENTAGE
+                    ? promotion.getDiscountValue().divide(HUNDRED)
+                    : promotion.getDiscountValue();
+            this.minOrderAmount = promotion.getMinOrderAmount() != null
+                    ? promotion.getMinOrderAmount()
+                    : BigDecimal.ZERO;
+            this.startDate = promotion.getStartDate();
+            this.endDate = promotion.getEndDate();
+        }
+
+        public String rejectionReason(BigDecimal subTotal, LocalDateTime now) {
+            if (startDate != null && startDate.isAfter(now)) {
+                return "This promotion has not started yet.";
+            }
+            if (endDate.isBefore(now)) {
+                return "This promotion has expired.";
+            }
+            if (subTotal.compareTo(minOrderAmount) < 0) {
+                return "Order amount must be at least " + minOrderAmount.toPlainString() + " to use this promotion.";
+            }
+            return null;
+        }
+
+        // Không bao giờ giảm quá tạm tính
+        public BigDecimal discountFor(BigDecimal subTotal) {
+            BigDecimal discount = type == PromotionType.PERCENTAGE
+                    ? subTotal.multiply(amount).setScale(2, RoundingMode.HALF_UP)
+                    : amount;
+            return discount.min(subTotal);
+        }
+
+        public Long getPromotionId() {
+            return promotionId;
+        }
+
+        public String getCode() {
+            return code;
+        }
+    }
+
+    public static final class Line {
+
+        private final BigDecimal unitPrice;
+        private final int quantity;
+
+        public Line(BigDecimal unitPrice, int quantity) {
+            this.unitPrice = unitPrice != null ? unitPrice : BigDecimal.ZERO;
+            this.quantity = quantity;
+        }
+    }
+
+    public static final class Quote {
+
+        private final BigDecimal subTotal;
+        private final BigDecimal discountAmount;
+        private final BigDecimal shippingFee;
+        private final String appliedCode;
+        private final Long appliedPromotionId;
+        private final String rejectionReason;
+
+        public Quote(BigDecimal subTotal, BigDecimal discountAmount, BigDecimal shippingFee,
+                String appliedCode, Long appliedPromotionId, String rejectionReason) {
+            this.subTotal = subTotal;
+            this.discountAmount = discountAmount;
+            this.shippingFee = shippingFee;
+            this.appliedCode = appliedCode;
+            this.appliedPromotionId = appliedPromotionId;
+            this.rejectionReason = rejectionReason;
+        }
+
+        public BigDecimal getSubTotal() {
+            return subTotal;
+        }
+
+        public BigDecimal getDiscountAmount() {
+            return discountAmount;
+        }
+
+        public BigDecimal getShippingFee() {
+            return shippingFee;
+        }
+
+        // Tạm tính sau giảm giá, chưa gồm phí vận chuyển (hiển thị ở giỏ hàng)
+        public BigDecimal getTotalAfterDiscount() {
+            return subTotal.subtract(discountAmount);
+        }
+
+        public BigDecimal getFinalTotal() {
+            return getTotalAfterDiscount().add(shippingFee);
+        }
+
+        // Mã đã thực sự được áp dụng — null nếu không có giảm giá
+        public String getAppliedCode() {
+            return appliedCode;
+        }
+
+        public Long getAppliedPromotionId() {
+            return appliedPromotionId;
+        }
+
+        public String getRejectionReason() {
+            return rejectionReason;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.jeweleryshop.backend.repository;
 
+import java.util.List;
+
 import com.jeweleryshop.backend.entity.Address;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface AddressRepository extends JpaRepository<Address, Long> {
+
+    // ✅ Địa chỉ của người dùng theo id — không cần nạp entity User
+    List<Address> findByUserId(Long userId);
 }
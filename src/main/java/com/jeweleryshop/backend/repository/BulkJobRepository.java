@@ -0,0 +1,42 @@
+package com.jeweleryshop.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.jeweleryshop.backend.entity.BulkJob;
+
+public interface BulkJobRepository extends JpaRepository<BulkJob, Long> {
+
+    Page<BulkJob> findAllByOrderByIdDesc(Pageable pageable);
+
+    // ✅ Tiến độ: chỉ cập nhật một cột, không ghi lại cả dòng
+    @Transactional
+    @Modifying
+    @Query("UPDATE BulkJob j SET j.processed = :processed WHERE j.id = :id")
+    int updateProgress(@Param("id") Long id, @Param("processed") int processed);
+
+    // ✅ Job chưa xong từ trước lần khởi động này — worker đã mất cùng tiến trình cũ
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE BulkJob j
+        SET j.status = com.jeweleryshop.backend.entity.BulkJobStatus.FAILED,
+            j.message = :message, j.finishedAt = :now
+        WHERE j.status IN (com.jeweleryshop.backend.entity.BulkJobStatus.QUEUED,
+                           com.jeweleryshop.backend.entity.BulkJobStatus.RUNNING)
+          AND j.createdAt < :before
+    """)
+    int failUnfinished(@Param("before") LocalDateTime before, @Param("message") String message,
+            @Param("now") LocalDateTime now);
+
+    // ✅ Job đã xong quá hạn giữ, cũ nhất trước
+    List<BulkJob> findByFinishedAtBeforeOrderById(LocalDateTime cutoff, Pageable pageable);
+}
@@ -1,12 +1,16 @@
 package com.jeweleryshop.backend.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.jeweleryshop.backend.entity.Cart;
 import com.jeweleryshop.backend.entity.User;
+import com.jeweleryshop.backend.repository.projection.CartLineRow;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
@@ -16,4 +20,16 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
 
     // ✅ Thêm mới: Lấy giỏ hàng theo entity User
     Optional<Cart> findByUser(User user);
+
+    // ✅ Toàn bộ dữ liệu hiển thị giỏ hàng trong một câu truy vấn (thay vì duyệt
+    // lazy item → variant → product → images cho từng món)
+    @Query("SELECT c.id AS cartId, c.appliedPromotion.id AS promotionId, ci.id AS cartItemId, "
+            + "v.id AS variantId, p.name AS productName, p.basePrice AS basePrice, "
+            + "p.discountPrice AS discountPrice, v.priceModifier AS priceModifier, "
+            + "ci.quantity AS quantity, COALESCE(img.thumbnailUrl, img.imageUrl) AS imageUrl "
+            + "FROM Cart c LEFT JOIN c.items ci LEFT JOIN ci.variant v LEFT JOIN v.product p "
+            + "LEFT JOIN ProductImage img ON img.id = "
+            + "(SELECT MIN(i2.id) FROM ProductImage i2 WHERE i2.product = p) "
+            + "WHERE c.user.id = :userId ORDER BY ci.id")
+    List<CartLineRow> findLinesByUserId(@Param("userId") Long userId);
 }
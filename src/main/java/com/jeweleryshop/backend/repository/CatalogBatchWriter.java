@@ -0,0 +1,269 @@
+package com.jeweleryshop.backend.repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.jeweleryshop.backend.repository.JdbcBatchSupport.setNullableDecimal;
+import static com.jeweleryshop.backend.repository.JdbcBatchSupport.setNullableInt;
+
+/**
+ * 📦 Ghi biến thể / tồn kho / danh mục hàng loạt bằng JDBC batch (import feed
+ * CSV / NDJSON), mỗi khúc một transaction — cùng cách với
+ * {@link ProductBatchWriter}.
+ */
+@Repository
+public class CatalogBatchWriter {
+
+    private static final String INSERT_VARIANT_SQL = """
+        INSERT INTO product_variants (product_id, sku, name, material, gemstone, size, color,
+                                      weight, price_modifier, image_url)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
+    private static final String UPDATE_VARIANT_SQL = """
+        UPDATE product_variants
+        SET product_id = ?, sku = ?, name = ?, material = ?, gemstone = ?, size = ?, color = ?,
+            weight = ?, price_modifier = ?, image_url = ?
+        WHERE id = ?
+    """;
+
+    private static final String INSERT_INVENTORY_SQL = """
+        INSERT INTO inventories (variant_id, quantity, low_stock_threshold, last_restock_date)
+        VALUES (?, ?, ?, ?)
+    """;
+
+    // last_restock_date gán trước quantity: MySQL tính các phép gán từ trái sang
+    // phải nên vế so sánh vẫn thấy số lượng cũ
+    private static final String UPDATE_INVENTORY_SQL = """
+        UPDATE inventories
+        SET last_restock_date = CASE WHEN ? > quantity THEN ? ELSE last_restock_date END,
+            quantity = ?,
+            low_stock_threshold = COALESCE(?, low_stock_threshold)
+        WHERE variant_id = ?
+    """;
+
+    private static final String INSERT_CATEGORY_SQL = """
+        INSERT INTO categories (name, description, created_at, updated_at)
+        VALUES (?, ?, ?, ?)
+    """;
+
+    private static final String UPDATE_CATEGORY_SQL = """
+        UPDATE categories
+        SET name = ?, description = ?, parent_id = ?, updated_at = ?
+        WHERE id = ?
+    """;
+
+    /** Một biến thể cần ghi; {@code id} null = thêm mới. */
+    public record VariantRow(Long id, Long productId, String sku, String name, String material, String gemstone,
+            String size, String color, BigDecimal weight, BigDecimal priceModifier, String imageUrl) {
+    }
+
+    /**
+     * Số lượng tồn mới của một biến thể; {@code exists} false = biến thể chưa
+     * có dòng tồn kho. {@code lowStockThreshold} null = giữ ngưỡng cũ.
+     */
+    public record InventoryRow(long variantId, boolean exists, int quantity, Integer lowStockThreshold) {
+    }
+
+    /**
+     * Một danh mục cần ghi; {@code id} null = thêm mới. Cha là {@code parentId}
+     * (đã có trong DB) hoặc {@code parentKey} — khóa của một dòng khác trong
+     * cùng lượt ghi.
+     */
+    public record CategoryRow(Long id, String key, String name, String description, Long parentId,
+            String parentKey) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CatalogBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // ==============================================================
+    // 💎 Biến thể
+    // ==============================================================
+    /**
+     * Ghi một khúc biến thể; biến thể mới kèm dòng tồn kho số lượng 0.
+     *
+     * @return id sinh ra cho {@code inserts}, cùng thứ tự
+     */
+    @Transactional
+    public List<Long> writeVariants(List<VariantRow> inserts, List<VariantRow> updates) {
+        List<Long> ids = List.of();
+        if (!inserts.isEmpty()) {
+            ids = insertVariants(inserts);
+            List<InventoryRow> inventories = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                inventories.add(new InventoryRow(id, false, 0, null));
+            }
+            insertInventories(inventories, Timestamp.valueOf(LocalDateTime.now()));
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_VARIANT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    VariantRow row = updates.get(i);
+                    setVariant(ps, row);
+                    ps.setLong(11, row.id());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return updates.size();
+                }
+            });
+        }
+        return ids;
+    }
+
+    private List<Long> insertVariants(List<VariantRow> rows) {
+        return JdbcBatchSupport.insert(jdbcTemplate, INSERT_VARIANT_SQL, rows.size(),
+                (ps, i) -> setVariant(ps, rows.get(i)));
+    }
+
+    private static void setVariant(PreparedStatement ps, VariantRow row) throws SQLException {
+        ps.setLong(1, row.productId());
+        ps.setString(2, row.sku());
+        ps.setString(3, row.name());
+        ps.setString(4, row.material());
+        ps.setString(5, row.gemstone());
+        ps.setString(6, row.size());
+        ps.setString(7, row.color());
+        setNullableDecimal(ps, 8, row.weight());
+        setNullableDecimal(ps, 9, row.priceModifier());
+        ps.setString(10, row.imageUrl());
+    }
+
+    // ==============================================================
+    // 📦 Tồn kho
+    // ==============================================================
+    /**
+     * Đặt số lượng tồn tuyệt đối (ghi đè, không cộng dồn). Khóa dòng theo
+     * variant id tăng dần như {@code InventoryRepository} để không deadlock với
+     * đơn hàng đang trừ kho cùng lúc.
+     */
+    @Transactional
+    public void writeInventory(List<InventoryRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<InventoryRow> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparingLong(InventoryRow::variantId));
+
+        List<InventoryRow> updates = sorted.stream().filter(InventoryRow::exists).toList();
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_INVENTORY_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    InventoryRow row = updates.get(i);
+                    ps.setInt(1, row.quantity());
+                    ps.setTimestamp(2, now);
+                    ps.setInt(3, row.quantity());
+                    setNullableInt(ps, 4, row.lowStockThreshold());
+                    ps.setLong(5, row.variantId());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return updates.size();
+                }
+            });
+        }
+        insertInventories(sorted.stream().filter(row -> !row.exists()).toList(), now);
+    }
+
+    private void insertInventories(List<InventoryRow> rows, Timestamp now) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_INVENTORY_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                InventoryRow row = rows.get(i);
+                ps.setLong(1, row.variantId());
+                ps.setInt(2, row.quantity());
+                setNullableInt(ps, 3, row.lowStockThreshold());
+                if (row.quantity() > 0) {
+                    ps.setTimestamp(4, now);
+                } else {
+                    ps.setNull(4, Types.TIMESTAMP);
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    // ==============================================================
+    // 🗂️ Danh mục
+    // ==============================================================
+    /**
+     * Ghi toàn bộ danh mục của file trong một transaction: thêm danh mục mới
+     * trước để có id, rồi cập nhật tên / mô tả / cha cho mọi dòng.
+     *
+     * @return id của từng dòng, cùng thứ tự {@code rows}
+     */
+    @Transactional
+    public List<Long> writeCategories(List<CategoryRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<CategoryRow> inserts = rows.stream().filter(row -> row.id() == null).toList();
+        List<Long> newIds = inserts.isEmpty() ? List.of()
+                : JdbcBatchSupport.insert(jdbcTemplate, INSERT_CATEGORY_SQL, inserts.size(), (ps, i) -> {
+                    ps.setString(1, inserts.get(i).name());
+                    ps.setString(2, inserts.get(i).description());
+                    ps.setTimestamp(3, now);
+                    ps.setTimestamp(4, now);
+                });
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        Map<String, Long> idsByKey = new HashMap<>();
+        int next = 0;
+        for (CategoryRow row : rows) {
+            Long id = row.id() != null ? row.id() : newIds.get(next++);
+            ids.add(id);
+            idsByKey.put(row.key(), id);
+        }
+        Function<CategoryRow, Long> parentId = row -> row.parentKey() != null
+                ? idsByKey.get(row.parentKey()) : row.parentId();
+
+        jdbcTemplate.batchUpdate(UPDATE_CATEGORY_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                CategoryRow row = rows.get(i);
+                ps.setString(1, row.name());
+                ps.setString(2, row.description());
+                Long parent = parentId.apply(row);
+                if (parent == null) {
+                    ps.setNull(3, Types.BIGINT);
+                } else {
+                    ps.setLong(3, parent);
+                }
+                ps.setTimestamp(4, now);
+                ps.setLong(5, ids.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+        return ids;
+    }
+}
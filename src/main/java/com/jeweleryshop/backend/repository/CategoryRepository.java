@@ -1,11 +1,18 @@
 package com.jeweleryshop.backend.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.jeweleryshop.backend.dto.CategoryDTO;
 import com.jeweleryshop.backend.entity.Category;
+import com.jeweleryshop.backend.repository.projection.CategoryProductCountRow;
+import com.jeweleryshop.backend.repository.projection.IdLabelRow;
 
 /**
  * Repository dùng để thao tác với bảng 'categories'. Kế thừa JpaRepository cung
@@ -21,4 +28,28 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @return Optional<Category>
      */
     Optional<Category> findByName(String name);
+
+    /**
+     * Lấy toàn bộ danh mục dạng phẳng trong một câu SELECT (parent chỉ lấy id,
+     * không sinh proxy lazy) — dùng để dựng cây danh mục trong bộ nhớ.
+     *
+     * @return danh sách CategoryDTO kèm parentId
+     */
+    @Query("SELECT new com.jeweleryshop.backend.dto.CategoryDTO(c.id, c.name, c.description, p.id, c.createdAt, c.updatedAt) "
+            + "FROM Category c LEFT JOIN c.parent p")
+    List<CategoryDTO> findAllFlat();
+
+    // ✅ Số sản phẩm / sản phẩm đang bán của từng danh mục trong một câu GROUP BY
+    // (không khởi tạo collection products của từng danh mục)
+    @Query("""
+        SELECT c.name AS categoryName,
+               COUNT(p.id) AS productCount,
+               COALESCE(SUM(CASE WHEN p.isActive = true THEN 1 ELSE 0 END), 0) AS activeCount
+        FROM Category c LEFT JOIN c.products p
+        GROUP BY c.id, c.name
+    """)
+    List<CategoryProductCountRow> countProductsByCategory();
+
+    @Query("SELECT c.id AS id, c.name AS label FROM Category c WHERE c.id IN :ids")
+    List<IdLabelRow> findLabelsByIdIn(@Param("ids") Collection<Long> ids);
 }
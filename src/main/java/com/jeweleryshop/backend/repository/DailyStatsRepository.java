@@ -0,0 +1,46 @@
+package com.jeweleryshop.backend.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.jeweleryshop.backend.entity.DailyStats;
+import com.jeweleryshop.backend.repository.projection.DashboardTotalsRow;
+
+public interface DailyStatsRepository extends JpaRepository<DailyStats, LocalDate> {
+
+    // ✅ Cộng dồn vào dòng của ngày (tạo mới nếu chưa có) trong một câu lệnh
+    @Modifying
+    @Query(value = """
+        INSERT INTO daily_stats (stat_date, revenue, order_count, new_user_count)
+        VALUES (:day, :revenue, :orders, :users)
+        ON DUPLICATE KEY UPDATE
+            revenue = revenue + VALUES(revenue),
+            order_count = order_count + VALUES(order_count),
+            new_user_count = new_user_count + VALUES(new_user_count)
+    """, nativeQuery = true)
+    int add(@Param("day") LocalDate day, @Param("revenue") BigDecimal revenue,
+            @Param("orders") long orders, @Param("users") long users);
+
+    // ✅ Mọi con số thời gian của dashboard trong một lần quét bảng nhỏ (một dòng / ngày)
+    @Query("""
+        SELECT COALESCE(SUM(d.revenue), 0) AS totalRevenue,
+               COALESCE(SUM(CASE WHEN d.statDate >= :monthStart THEN d.revenue ELSE 0 END), 0) AS revenueThisMonth,
+               COALESCE(SUM(CASE WHEN d.statDate >= :last7DaysStart THEN d.revenue ELSE 0 END), 0) AS revenueLast7Days,
+               COALESCE(SUM(d.orderCount), 0) AS totalOrders,
+               COALESCE(SUM(CASE WHEN d.statDate >= :monthStart THEN d.orderCount ELSE 0 END), 0) AS ordersThisMonth,
+               COALESCE(SUM(CASE WHEN d.statDate >= :lastMonthStart AND d.statDate < :monthStart
+                                 THEN d.orderCount ELSE 0 END), 0) AS ordersLastMonth,
+               COALESCE(SUM(CASE WHEN d.statDate >= :monthStart THEN d.newUserCount ELSE 0 END), 0) AS usersThisMonth,
+               COALESCE(SUM(CASE WHEN d.statDate >= :lastMonthStart AND d.statDate < :monthStart
+                                 THEN d.newUserCount ELSE 0 END), 0) AS usersLastMonth
+        FROM DailyStats d
+    """)
+    DashboardTotalsRow findTotals(@Param("monthStart") LocalDate monthStart,
+            @Param("lastMonthStart") LocalDate lastMonthStart,
+            @Param("last7DaysStart") LocalDate last7DaysStart);
+}
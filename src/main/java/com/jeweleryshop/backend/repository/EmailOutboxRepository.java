@@ -0,0 +1,52 @@
+package com.jeweleryshop.backend.repository;
+
+import com.jeweleryshop.backend.entity.EmailOutbox;
+import com.jeweleryshop.backend.entity.EmailStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // ✅ Thư đến hạn gửi: chờ gửi / chờ thử lại, hoặc SENDING mà worker đã quá hạn thuê
+    @Query("""
+        SELECT e.id FROM EmailOutbox e
+        WHERE e.status IN (com.jeweleryshop.backend.entity.EmailStatus.PENDING,
+                           com.jeweleryshop.backend.entity.EmailStatus.SENDING)
+          AND e.nextAttemptAt <= :now
+        ORDER BY e.id
+    """)
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // ✅ Nhận gửi một thư: điều kiện nằm trong câu UPDATE nên hai worker (hay hai
+    // instance) không thể cùng gửi một thư. Trả về 0 nếu đã có worker khác nhận.
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE EmailOutbox e
+        SET e.status = com.jeweleryshop.backend.entity.EmailStatus.SENDING, e.nextAttemptAt = :leaseUntil
+        WHERE e.id = :id
+          AND e.status IN (com.jeweleryshop.backend.entity.EmailStatus.PENDING,
+                           com.jeweleryshop.backend.entity.EmailStatus.SENDING)
+          AND e.nextAttemptAt <= :now
+    """)
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // 🔹 Dọn thư đã gửi xong / bỏ cuộc theo lô
+    @Transactional
+    @Modifying
+    @Query(value = """
+        DELETE FROM email_outbox
+        WHERE status IN ('SENT', 'FAILED') AND created_at < :cutoff
+        LIMIT :batchSize
+    """, nativeQuery = true)
+    int deleteFinishedBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+
+    long countByStatus(EmailStatus status);
+}
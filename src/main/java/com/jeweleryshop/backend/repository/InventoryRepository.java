@@ -0,0 +1,10 @@
+package com.jeweleryshop.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.jeweleryshop.backend.entity.Inventory;
+
+@Repository
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, InventoryRepositoryCustom {
+}
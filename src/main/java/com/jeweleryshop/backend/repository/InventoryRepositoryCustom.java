@@ -0,0 +1,34 @@
+package com.jeweleryshop.backend.repository;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Cập nhật tồn kho hàng loạt bằng câu UPDATE có điều kiện, không nạp entity
+ * Inventory và không khóa bi quan (SELECT ... FOR UPDATE).
+ */
+public interface InventoryRepositoryCustom {
+
+    /**
+     * Trừ kho cho mọi dòng trong một JDBC batch:
+     * {@code UPDATE ... SET quantity = quantity - ? WHERE variant_id = ? AND quantity >= ?}.
+     * Các dòng được gửi theo thứ tự variant id tăng dần → mọi giao dịch khóa
+     * dòng theo cùng một thứ tự, không thể deadlock lẫn nhau.
+     *
+     * @param quantitiesByVariantId variant id → số lượng cần trừ
+     * @param reservedByVariantId variant id → số lượng phải còn lại sau khi trừ
+     *        (đang được giỏ khác giữ); thiếu khóa = 0
+     * @return variant id không đủ hàng, không có tồn kho hoặc driver không xác
+     *         nhận đã trừ (update count khác 1) — rỗng nếu trừ được tất cả
+     */
+    Set<Long> decrementIfAvailable(SortedMap<Long, Integer> quantitiesByVariantId,
+            Map<Long, Integer> reservedByVariantId);
+
+    /**
+     * Cộng lại kho (hủy đơn, hết hạn giữ hàng) trong một JDBC batch.
+     *
+     * @param quantitiesByVariantId variant id → số lượng cần cộng
+     */
+    void increment(SortedMap<Long, Integer> quantitiesByVariantId);
+}
@@ -0,0 +1,73 @@
+package com.jeweleryshop.backend.repository;
+
+import java.sql.PreparedStatement;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+import org.hibernate.Session;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class InventoryRepositoryCustomImpl implements InventoryRepositoryCustom {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE inventories SET quantity = quantity - ? WHERE variant_id = ? AND quantity >= ?";
+    private static final String INCREMENT_SQL =
+            "UPDATE inventories SET quantity = quantity + ? WHERE variant_id = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Set<Long> decrementIfAvailable(SortedMap<Long, Integer> quantitiesByVariantId,
+            Map<Long, Integer> reservedByVariantId) {
+        if (quantitiesByVariantId.isEmpty()) {
+            return Set.of();
+        }
+        // Chạy trên chính connection của transaction JPA hiện tại → rollback cùng đơn hàng
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(DECREMENT_SQL)) {
+                for (Map.Entry<Long, Integer> line : quantitiesByVariantId.entrySet()) {
+                    statement.setInt(1, line.getValue());
+                    statement.setLong(2, line.getKey());
+                    statement.setInt(3, line.getValue() + reservedByVariantId.getOrDefault(line.getKey(), 0));
+                    statement.addBatch();
+                }
+                int[] updateCounts = statement.executeBatch();
+
+                // updateCounts theo đúng thứ tự addBatch (variant id tăng dần). Chỉ 1
+                // mới chắc chắn đã trừ: SUCCESS_NO_INFO (driver gộp batch, vd
+                // rewriteBatchedStatements) hay EXECUTE_FAILED đều coi như thiếu hàng
+                // → caller rollback, không bao giờ bán vượt tồn kho
+                Set<Long> unavailable = new HashSet<>();
+                int i = 0;
+                for (Long variantId : quantitiesByVariantId.keySet()) {
+                    if (i >= updateCounts.length || updateCounts[i++] != 1) {
+                        unavailable.add(variantId);
+                    }
+                }
+                return unavailable;
+            }
+        });
+    }
+
+    @Override
+    public void increment(SortedMap<Long, Integer> quantitiesByVariantId) {
+        if (quantitiesByVariantId.isEmpty()) {
+            return;
+        }
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INCREMENT_SQL)) {
+                for (Map.Entry<Long, Integer> line : quantitiesByVariantId.entrySet()) {
+                    statement.setInt(1, line.getValue());
+                    statement.setLong(2, line.getKey());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package com.jeweleryshop.backend.repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+/**
+ * 🔧 Tiện ích JDBC batch dùng chung cho {@link ProductBatchWriter} và
+ * {@link CatalogBatchWriter}.
+ */
+final class JdbcBatchSupport {
+
+    /** Gán tham số cho dòng thứ {@code i} của lô. */
+    @FunctionalInterface
+    interface RowSetter {
+        void setValues(PreparedStatement ps, int i) throws SQLException;
+    }
+
+    private JdbcBatchSupport() {
+    }
+
+    /**
+     * Batch INSERT bảng có id IDENTITY.
+     *
+     * @return id sinh ra cho {@code size} dòng, cùng thứ tự
+     */
+    static List<Long> insert(JdbcTemplate jdbcTemplate, String sql, int size, RowSetter setter) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setter.setValues(ps, i);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return size;
+                    }
+                },
+                keys);
+
+        List<Long> ids = new ArrayList<>(size);
+        for (Map<String, Object> key : keys.getKeyList()) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    static void setNullableDecimal(PreparedStatement ps, int index, BigDecimal value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DECIMAL);
+        } else {
+            ps.setBigDecimal(index, value);
+        }
+    }
+
+    static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+}
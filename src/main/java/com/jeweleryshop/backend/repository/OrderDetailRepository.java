@@ -1,13 +1,18 @@
 package com.jeweleryshop.backend.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.jeweleryshop.backend.dto.DashboardStatsDTO.TopSellingProductDTO;
 import com.jeweleryshop.backend.entity.OrderDetail;
+import com.jeweleryshop.backend.repository.projection.OrderItemRow;
+import com.jeweleryshop.backend.repository.projection.SalesBucketRow;
 
 public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long> {
 
@@ -16,4 +21,50 @@ public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long>
             + "WHERE o.status = 'DELIVERED' "
             + "GROUP BY od.variant.id, od.variant.product.name, od.variant.name ORDER BY SUM(od.quantity) DESC")
     List<TopSellingProductDTO> findTopSellingProducts(Pageable pageable);
+
+    // ✅ Toàn bộ dòng sản phẩm của một trang đơn hàng trong MỘT câu query
+    @Query("SELECT o.id AS orderId, p.id AS productId, v.id AS variantId, p.name AS productName, "
+            + "v.size AS size, v.material AS material, od.quantity AS quantity, od.priceAtPurchase AS priceAtPurchase "
+            + "FROM OrderDetail od JOIN od.order o JOIN od.variant v JOIN v.product p "
+            + "WHERE o.id IN :orderIds ORDER BY od.id")
+    List<OrderItemRow> findItemRowsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    // ==============================================================
+    // 📈 Nguồn của sales_rollups: doanh số đơn DELIVERED theo giờ đặt
+    // ==============================================================
+    @Query("""
+        SELECT CAST(o.orderDate AS LocalDate) AS day, EXTRACT(HOUR FROM o.orderDate) AS hour,
+               0L AS dimensionId,
+               SUM(od.priceAtPurchase * od.quantity) AS revenue,
+               COUNT(DISTINCT o.id) AS orders, SUM(od.quantity) AS units
+        FROM OrderDetail od JOIN od.order o
+        WHERE o.status = com.jeweleryshop.backend.entity.OrderStatus.DELIVERED
+          AND o.orderDate >= :from AND o.orderDate < :to
+        GROUP BY CAST(o.orderDate AS LocalDate), EXTRACT(HOUR FROM o.orderDate)
+    """)
+    List<SalesBucketRow> sumSalesByHour(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("""
+        SELECT CAST(o.orderDate AS LocalDate) AS day, EXTRACT(HOUR FROM o.orderDate) AS hour,
+               p.category.id AS dimensionId,
+               SUM(od.priceAtPurchase * od.quantity) AS revenue,
+               COUNT(DISTINCT o.id) AS orders, SUM(od.quantity) AS units
+        FROM OrderDetail od JOIN od.order o JOIN od.variant v JOIN v.product p
+        WHERE o.status = com.jeweleryshop.backend.entity.OrderStatus.DELIVERED
+          AND o.orderDate >= :from AND o.orderDate < :to
+        GROUP BY CAST(o.orderDate AS LocalDate), EXTRACT(HOUR FROM o.orderDate), p.category.id
+    """)
+    List<SalesBucketRow> sumSalesByHourAndCategory(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("""
+        SELECT CAST(o.orderDate AS LocalDate) AS day, EXTRACT(HOUR FROM o.orderDate) AS hour,
+               od.variant.id AS dimensionId,
+               SUM(od.priceAtPurchase * od.quantity) AS revenue,
+               COUNT(DISTINCT o.id) AS orders, SUM(od.quantity) AS units
+        FROM OrderDetail od JOIN od.order o
+        WHERE o.status = com.jeweleryshop.backend.entity.OrderStatus.DELIVERED
+          AND o.orderDate >= :from AND o.orderDate < :to
+        GROUP BY CAST(o.orderDate AS LocalDate), EXTRACT(HOUR FROM o.orderDate), od.variant.id
+    """)
+    List<SalesBucketRow> sumSalesByHourAndVariant(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -2,20 +2,36 @@ package com.jeweleryshop.backend.repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.jeweleryshop.backend.entity.Order;
 import com.jeweleryshop.backend.entity.OrderStatus;
+import com.jeweleryshop.backend.repository.projection.DailyCountRow;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
 
+    // ✅ Địa chỉ là quan hệ ToOne → JOIN FETCH không ảnh hưởng phân trang.
+    // User không fetch ở đây: nạp entity User kéo theo query Cart cho từng người
+    @EntityGraph(attributePaths = {"shippingAddress"})
     List<Order> findByUserIdOrderByOrderDateDesc(Long userId);
 
+    @Override
+    @EntityGraph(attributePaths = {"shippingAddress"})
+    Page<Order> findAll(Pageable pageable);
+
+    // Nạp đơn theo danh sách ID (bước 2 của tìm kiếm admin) — thứ tự do service sắp lại
+    @EntityGraph(attributePaths = {"shippingAddress"})
+    List<Order> findWithShippingAddressByIdIn(Collection<Long> ids);
+
     List<Order> findByUserIdAndStatus(Long userId, OrderStatus status);
 
     long countByOrderDateBetween(LocalDateTime start, LocalDateTime end);
@@ -35,4 +51,19 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
         WHERE o.id = :orderId
     """)
     Optional<Order> findByIdWithDetails(@Param("orderId") Long orderId);
+
+    // ✅ Đối soát dashboard: số đơn + doanh thu (đơn DELIVERED) theo ngày đặt
+    @Query("""
+        SELECT CAST(o.orderDate AS LocalDate) AS day,
+               COUNT(o) AS count,
+               SUM(CASE WHEN o.status = com.jeweleryshop.backend.entity.OrderStatus.DELIVERED
+                        THEN o.totalAmount ELSE 0 END) AS revenue
+        FROM Order o
+        GROUP BY CAST(o.orderDate AS LocalDate)
+    """)
+    List<DailyCountRow> countDaily();
+
+    // Ngày đặt của đơn đầu tiên — mốc bắt đầu khi dựng sales_rollups lần đầu
+    @Query("SELECT MIN(o.orderDate) FROM Order o")
+    Optional<LocalDateTime> findFirstOrderDate();
 }
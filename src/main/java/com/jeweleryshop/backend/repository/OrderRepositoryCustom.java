@@ -0,0 +1,29 @@
+package com.jeweleryshop.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.jeweleryshop.backend.entity.Order;
+
+/**
+ * Truy vấn đơn hàng viết tay (Criteria API) cho trang quản trị. Giống
+ * {@link ProductRepositoryCustom}: chỉ trả về ID, việc nạp entity do
+ * {@link OrderRepository#findWithShippingAddressByIdIn} đảm nhiệm.
+ */
+public interface OrderRepositoryCustom {
+
+    /**
+     * Keyset pagination trên (order_date, id) giảm dần: lấy tối đa
+     * {@code limit} ID đơn hàng khớp {@code spec} và đứng sau cặp
+     * ({@code afterDate}, {@code afterId}) — tức mới nhất trước.
+     *
+     * @param spec bộ lọc (có thể null)
+     * @param afterDate ngày đặt của đơn cuối trang trước (null = trang đầu)
+     * @param afterId id của đơn cuối trang trước (null = trang đầu)
+     * @param limit số ID tối đa
+     * @return danh sách ID theo thứ tự (order_date, id) giảm dần
+     */
+    List<Long> findIdsBefore(Specification<Order> spec, LocalDateTime afterDate, Long afterId, int limit);
+}
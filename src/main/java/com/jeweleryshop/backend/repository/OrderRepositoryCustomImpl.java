@@ -0,0 +1,55 @@
+package com.jeweleryshop.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.jeweleryshop.backend.entity.Order;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findIdsBefore(Specification<Order> spec, LocalDateTime afterDate, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Order> root = query.from(Order.class);
+        Path<LocalDateTime> orderDate = root.get("orderDate");
+        Path<Long> id = root.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        // ✅ Keyset: (order_date, id) < (afterDate, afterId) → không OFFSET,
+        // trang sâu cũng chỉ đọc đúng "limit" dòng theo index
+        if (afterDate != null && afterId != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(orderDate, afterDate),
+                    cb.and(cb.equal(orderDate, afterDate), cb.lessThan(id, afterId))));
+        }
+
+        query.select(id)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(orderDate), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
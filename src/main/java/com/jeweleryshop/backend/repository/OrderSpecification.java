@@ -0,0 +1,64 @@
+package com.jeweleryshop.backend.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.jeweleryshop.backend.entity.Order;
+import com.jeweleryshop.backend.entity.OrderStatus;
+import com.jeweleryshop.backend.entity.PaymentStatus;
+
+/**
+ * Bộ lọc đơn hàng cho trang quản trị. Mọi điều kiện so sánh trực tiếp cột
+ * của bảng orders (không JOIN) để khớp với các index ghép trên {@link Order}.
+ */
+public class OrderSpecification {
+
+    public static Specification<Order> hasStatus(OrderStatus status) {
+        if (status == null) {
+            return null;
+        }
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("status"), status);
+    }
+
+    public static Specification<Order> hasPaymentStatus(PaymentStatus paymentStatus) {
+        if (paymentStatus == null) {
+            return null;
+        }
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("paymentStatus"), paymentStatus);
+    }
+
+    public static Specification<Order> hasUser(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Order> placedFrom(LocalDateTime from) {
+        if (from == null) {
+            return null;
+        }
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get("orderDate"), from);
+    }
+
+    public static Specification<Order> placedBefore(LocalDateTime to) {
+        if (to == null) {
+            return null;
+        }
+        return (root, query, criteriaBuilder) -> criteriaBuilder.lessThan(root.get("orderDate"), to);
+    }
+
+    // Tìm theo đầu mã đơn (LIKE 'abc%') → vẫn dùng được index unique của order_number
+    public static Specification<Order> hasOrderNumberPrefix(String orderNumber) {
+        if (orderNumber == null || orderNumber.isBlank()) {
+            return null;
+        }
+        String escaped = orderNumber.trim()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return (root, query, criteriaBuilder)
+                -> criteriaBuilder.like(root.get("orderNumber"), escaped + "%", '\\');
+    }
+}
@@ -1,8 +1,12 @@
 package com.jeweleryshop.backend.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.jeweleryshop.backend.entity.OtpToken;
 
@@ -10,5 +14,22 @@ public interface OtpTokenRepository extends JpaRepository<OtpToken, Long> {
 
     Optional<OtpToken> findByUsername(String username);
 
-    void deleteByUsername(String username);
+    @Modifying
+    @Query("DELETE FROM OtpToken t WHERE t.username = :username")
+    void deleteByUsername(@Param("username") String username);
+
+    // ✅ Giữ một lượt thử: điều kiện nằm trong câu UPDATE nên hai request đoán
+    // song song không thể cùng lấy lượt cuối. Trả về 0 nếu đã hết lượt / mã đã đổi.
+    @Modifying
+    @Query("""
+        UPDATE OtpToken t SET t.failedAttempts = t.failedAttempts + 1
+        WHERE t.username = :username AND t.otpCode = :codeHash AND t.failedAttempts < :maxAttempts
+    """)
+    int reserveAttempt(@Param("username") String username, @Param("codeHash") String codeHash,
+            @Param("maxAttempts") int maxAttempts);
+
+    // ✅ Dọn hàng loạt bằng một câu DELETE, không nạp entity
+    @Modifying
+    @Query("DELETE FROM OtpToken t WHERE t.expiryTime < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") LocalDateTime cutoff);
 }
@@ -0,0 +1,105 @@
+package com.jeweleryshop.backend.repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.jeweleryshop.backend.repository.JdbcBatchSupport.setNullableDecimal;
+
+/**
+ * 📦 Ghi sản phẩm hàng loạt bằng JDBC batch (import Excel).
+ *
+ * Product dùng id IDENTITY nên Hibernate không gom được câu INSERT; ở đây mỗi
+ * khúc chỉ tốn một lượt batch INSERT + một lượt batch UPDATE. Với MySQL nên
+ * bật {@code rewriteBatchedStatements=true} trong DB_URL để driver gộp thành
+ * INSERT nhiều dòng.
+ */
+@Repository
+public class ProductBatchWriter {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO products (name, description, base_price, discount_price, sku_prefix,
+                              category_id, is_active, image_url, created_at, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
+    private static final String UPDATE_SQL = """
+        UPDATE products
+        SET description = ?, base_price = ?, discount_price = ?, sku_prefix = ?,
+            category_id = ?, is_active = ?, image_url = ?, updated_at = ?
+        WHERE id = ?
+    """;
+
+    /** Một dòng cần ghi; {@code id} null = thêm mới. */
+    public record ProductRow(Long id, String name, String description, BigDecimal basePrice,
+            BigDecimal discountPrice, String skuPrefix, Long categoryId, boolean active, String imageUrl) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Ghi một khúc trong một transaction.
+     *
+     * @return id sinh ra cho {@code inserts}, cùng thứ tự
+     */
+    @Transactional
+    public List<Long> write(List<ProductRow> inserts, List<ProductRow> updates) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> ids = inserts.isEmpty() ? List.of() : insert(inserts, now);
+        if (!updates.isEmpty()) {
+            update(updates, now);
+        }
+        return ids;
+    }
+
+    private List<Long> insert(List<ProductRow> rows, Timestamp now) {
+        return JdbcBatchSupport.insert(jdbcTemplate, INSERT_SQL, rows.size(), (ps, i) -> {
+            ProductRow row = rows.get(i);
+            ps.setString(1, row.name());
+            ps.setString(2, row.description());
+            ps.setBigDecimal(3, row.basePrice());
+            setNullableDecimal(ps, 4, row.discountPrice());
+            ps.setString(5, row.skuPrefix());
+            ps.setLong(6, row.categoryId());
+            ps.setBoolean(7, row.active());
+            ps.setString(8, row.imageUrl());
+            ps.setTimestamp(9, now);
+            ps.setTimestamp(10, now);
+        });
+    }
+
+    private void update(List<ProductRow> rows, Timestamp now) {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ProductRow row = rows.get(i);
+                ps.setString(1, row.description());
+                ps.setBigDecimal(2, row.basePrice());
+                setNullableDecimal(ps, 3, row.discountPrice());
+                ps.setString(4, row.skuPrefix());
+                ps.setLong(5, row.categoryId());
+                ps.setBoolean(6, row.active());
+                ps.setString(7, row.imageUrl());
+                ps.setTimestamp(8, now);
+                ps.setLong(9, row.id());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+}
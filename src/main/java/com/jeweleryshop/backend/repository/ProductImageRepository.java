@@ -1,9 +1,27 @@
 package com.jeweleryshop.backend.repository;
 
-import com.jeweleryshop.backend.entity.ProductImage;
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.jeweleryshop.backend.entity.ProductImage;
+import com.jeweleryshop.backend.repository.projection.ProductThumbnailRow;
+
 @Repository
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
+
+    // ✅ Ảnh đầu tiên của nhiều sản phẩm cùng lúc (thay vì product.getImages() từng cái),
+    // ưu tiên cỡ thu nhỏ
+    @Query("SELECT i.product.id AS productId, COALESCE(i.thumbnailUrl, i.imageUrl) AS imageUrl "
+            + "FROM ProductImage i "
+            + "WHERE i.id IN (SELECT MIN(i2.id) FROM ProductImage i2 "
+            + "WHERE i2.product.id IN :productIds GROUP BY i2.product.id)")
+    List<ProductThumbnailRow> findThumbnailsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    // Mọi dòng ảnh dùng chung một file gốc (upload trùng nội dung)
+    List<ProductImage> findByContentHash(String contentHash);
 }
@@ -1,11 +1,10 @@
 package com.jeweleryshop.backend.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
@@ -14,28 +13,43 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.jeweleryshop.backend.entity.Product;
+import com.jeweleryshop.backend.repository.projection.IdLabelRow;
+import com.jeweleryshop.backend.repository.projection.ProductExportRow;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
-
-    // ✅ Dùng EntityGraph để tránh lỗi N+1 khi lấy danh sách sản phẩm
-    @Override
-    @EntityGraph(attributePaths = {"category", "images", "variants", "variants.inventory"})
-    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
 
     // ✅ Lấy chi tiết sản phẩm kèm các quan hệ (category, images, variants)
     @Override
     @EntityGraph(attributePaths = {"category", "images", "variants", "variants.inventory"})
     Optional<Product> findById(Long id);
 
-    // 🆕 Thêm phương thức cho Excel import
-    Optional<Product> findByName(String name);
+    // ✅ Bước 2 của danh sách sản phẩm: nạp một trang ID đã biết.
+    // Tách images ra query riêng → không sinh tích Đề-các images × variants.
+    @EntityGraph(attributePaths = {"category", "variants", "variants.inventory"})
+    List<Product> findWithVariantsByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"images"})
+    List<Product> findWithImagesByIdIn(Collection<Long> ids);
+
+    // 🆕 Excel import: nạp sẵn tên → id một lần thay vì tìm theo tên từng dòng
+    @Query("SELECT p.id AS id, p.name AS label FROM Product p ORDER BY p.id")
+    List<IdLabelRow> findAllNameIds();
 
     // Các phương thức tìm kiếm khác (nếu có)
     List<Product> findByCategoryId(Long categoryId);
 
     List<Product> findByIsActiveTrue();
 
-    @Query("SELECT p FROM Product p WHERE p.name LIKE %:keyword% OR p.description LIKE %:keyword% OR p.skuPrefix LIKE %:keyword%")
-    List<Product> searchProducts(@Param("keyword") String keyword);
+    // ✅ Xuất file: keyset theo id (trang đầu: afterId = 0) — trang sâu nhanh như
+    // trang đầu, chỉ lấy cột phẳng
+    @Query("""
+        SELECT p.id AS id, p.name AS name, p.description AS description,
+               p.basePrice AS basePrice, p.discountPrice AS discountPrice, p.skuPrefix AS skuPrefix,
+               c.name AS categoryName, p.isActive AS isActive, p.imageUrl AS imageUrl
+        FROM Product p JOIN p.category c
+        WHERE p.id > :afterId
+        ORDER BY p.id
+    """)
+    List<ProductExportRow> findExportRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,38 @@
+package com.jeweleryshop.backend.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.jeweleryshop.backend.entity.Product;
+
+/**
+ * Các truy vấn sản phẩm viết tay (Criteria API) mà Spring Data không sinh sẵn.
+ * Chỉ trả về ID — việc nạp entity đầy đủ do các query EntityGraph trong
+ * {@link ProductRepository} đảm nhiệm.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Phân trang theo OFFSET nhưng chỉ trên cột ID (không fetch collection),
+     * sắp xếp theo {@code pageable.getSort()} rồi tới id để thứ tự ổn định.
+     *
+     * @param spec bộ lọc (có thể null)
+     * @param pageable trang + sắp xếp
+     * @return trang ID kèm tổng số phần tử
+     */
+    Page<Long> findIds(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Keyset pagination: lấy tối đa {@code limit} ID sản phẩm khớp với
+     * {@code spec} và có id > {@code afterId}, sắp xếp tăng dần theo id.
+     *
+     * @param spec bộ lọc (có thể null)
+     * @param afterId id cuối cùng của trang trước (null = trang đầu)
+     * @param limit số ID tối đa
+     * @return danh sách ID theo thứ tự tăng dần
+     */
+    List<Long> findIdsAfter(Specification<Product> spec, Long afterId, int limit);
+}
@@ -1,6 +1,7 @@
 package com.jeweleryshop.backend.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 
 import org.springframework.data.jpa.domain.Specification;
 
@@ -8,7 +9,12 @@ import com.jeweleryshop.backend.entity.Category;
 import com.jeweleryshop.backend.entity.Product;
 import com.jeweleryshop.backend.entity.ProductVariant;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 
 public class ProductSpecification {
 
@@ -22,6 +28,17 @@ public class ProductSpecification {
         };
     }
 
+    // Lọc theo nhiều danh mục (vd: danh mục + toàn bộ danh mục con) — so sánh
+    // trực tiếp cột category_id, không cần JOIN
+    public static Specification<Product> hasCategoryIn(Collection<Long> categoryIds) {
+        if (categoryIds == null) {
+            return null;
+        }
+        return (root, query, criteriaBuilder) -> categoryIds.isEmpty()
+                ? criteriaBuilder.disjunction()
+                : root.get("category").get("id").in(categoryIds);
+    }
+
     public static Specification<Product> hasPriceGreaterThanOrEqual(BigDecimal minPrice) {
         if (minPrice == null) {
             return null;
@@ -50,22 +67,26 @@ public class ProductSpecification {
         if (size == null || size.trim().isEmpty()) {
             return null;
         }
-        return (root, query, criteriaBuilder) -> {
-            // Use a subquery to avoid duplicate products in the result
-            query.distinct(true);
-            Join<Product, ProductVariant> variants = root.join("variants");
-            return criteriaBuilder.equal(variants.get("size"), size);
-        };
+        // Use a subquery to avoid duplicate products in the result
+        return (root, query, criteriaBuilder) -> hasVariantWhere(root, query, criteriaBuilder, "size", size);
     }
 
     public static Specification<Product> hasVariantWithMaterial(String material) {
         if (material == null || material.trim().isEmpty()) {
             return null;
         }
-        return (root, query, criteriaBuilder) -> {
-            query.distinct(true);
-            Join<Product, ProductVariant> variants = root.join("variants");
-            return criteriaBuilder.equal(variants.get("material"), material);
-        };
+        return (root, query, criteriaBuilder) -> hasVariantWhere(root, query, criteriaBuilder, "material", material);
+    }
+
+    // EXISTS (SELECT 1 FROM product_variants v WHERE v.product_id = p.id AND v.<field> = :value)
+    // → không cần JOIN + DISTINCT, nên query chỉ lấy ID vẫn ORDER BY được mọi cột
+    private static Predicate hasVariantWhere(Root<Product> root, CriteriaQuery<?> query,
+            CriteriaBuilder criteriaBuilder, String field, String value) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<ProductVariant> variant = subquery.from(ProductVariant.class);
+        subquery.select(variant.get("id"))
+                .where(criteriaBuilder.equal(variant.get("product"), root),
+                        criteriaBuilder.equal(variant.get(field), value));
+        return criteriaBuilder.exists(subquery);
     }
 }
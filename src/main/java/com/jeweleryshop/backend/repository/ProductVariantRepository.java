@@ -1,20 +1,52 @@
 package com.jeweleryshop.backend.repository;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.jeweleryshop.backend.entity.ProductVariant;
-
-import jakarta.persistence.LockModeType;
+import com.jeweleryshop.backend.repository.projection.IdLabelRow;
+import com.jeweleryshop.backend.repository.projection.InventoryExportRow;
+import com.jeweleryshop.backend.repository.projection.VariantExportRow;
+import com.jeweleryshop.backend.repository.projection.VariantKeyRow;
 
 @Repository
 public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {
 
     boolean existsBySku(String sku);
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    Optional<ProductVariant> findWithLockingById(Long id);
+    // ✅ "Tên sản phẩm - tên biến thể" của nhiều biến thể trong một câu
+    @Query("SELECT v.id AS id, CONCAT(p.name, ' - ', COALESCE(v.name, v.sku)) AS label "
+            + "FROM ProductVariant v JOIN v.product p WHERE v.id IN :ids")
+    List<IdLabelRow> findLabelsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // ✅ Tra SKU của cả khúc import trong một câu (kèm sản phẩm và dòng tồn kho)
+    @Query("SELECT v.id AS id, v.sku AS sku, p.id AS productId, i.id AS inventoryId "
+            + "FROM ProductVariant v JOIN v.product p LEFT JOIN v.inventory i WHERE v.sku IN :skus")
+    List<VariantKeyRow> findKeysBySkuIn(@Param("skus") Collection<String> skus);
+
+    // ✅ Xuất feed theo keyset (id > afterId) — trang sau không phải quét lại trang trước
+    @Query("""
+        SELECT v.id AS id, v.sku AS sku, p.name AS productName, v.name AS name, v.material AS material,
+               v.gemstone AS gemstone, v.size AS size, v.color AS color, v.weight AS weight,
+               v.priceModifier AS priceModifier, v.imageUrl AS imageUrl
+        FROM ProductVariant v JOIN v.product p
+        WHERE v.id > :afterId
+        ORDER BY v.id
+    """)
+    List<VariantExportRow> findExportRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("""
+        SELECT v.id AS id, v.sku AS sku, COALESCE(i.quantity, 0) AS quantity,
+               i.lowStockThreshold AS lowStockThreshold
+        FROM ProductVariant v LEFT JOIN v.inventory i
+        WHERE v.id > :afterId
+        ORDER BY v.id
+    """)
+    List<InventoryExportRow> findInventoryRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -2,10 +2,30 @@ package com.jeweleryshop.backend.repository;
 
 import com.jeweleryshop.backend.entity.Promotion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface PromotionRepository extends JpaRepository<Promotion, Long> {
 
     Optional<Promotion> findByCode(String code);
+
+    // ✅ Khuyến mãi chưa kết thúc — nguồn dựng tập luật tính giá
+    List<Promotion> findByEndDateGreaterThanEqual(LocalDateTime now);
+
+    // ✅ Tăng lượt dùng nguyên tử: điều kiện nằm trong chính câu UPDATE nên hai
+    // checkout đồng thời không thể cùng vượt max_usage. Trả về 0 nếu hết lượt / hết hạn.
+    @Modifying
+    @Query("""
+        UPDATE Promotion p SET p.currentUsage = p.currentUsage + 1
+        WHERE p.code = :code
+          AND p.currentUsage < p.maxUsage
+          AND p.startDate <= :now
+          AND p.endDate >= :now
+    """)
+    int incrementUsageIfAvailable(@Param("code") String code, @Param("now") LocalDateTime now);
 }
@@ -1,5 +1,6 @@
 package com.jeweleryshop.backend.repository;
 
+import java.time.Instant;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,20 +11,57 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.jeweleryshop.backend.entity.RefreshToken;
-import com.jeweleryshop.backend.entity.User;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
-    // 🔹 Tìm theo chuỗi token
-    Optional<RefreshToken> findByToken(String token);
+    // 🔹 Tìm theo hash của token (unique index), nạp luôn user + roles cho bước cấp access token
+    @Query("""
+        SELECT t FROM RefreshToken t
+        JOIN FETCH t.user u
+        LEFT JOIN FETCH u.roles
+        WHERE t.tokenHash = :tokenHash
+    """)
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
 
-    // 🔹 Tìm token theo user
-    Optional<RefreshToken> findByUser(User user);
+    // 🔹 Cấp / xoay token của một thiết bị trong một câu lệnh — không DELETE rồi INSERT
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO refresh_tokens (user_id, device_id, token, expiry_date)
+        VALUES (:userId, :deviceId, :tokenHash, :expiryDate)
+        ON DUPLICATE KEY UPDATE token = VALUES(token), expiry_date = VALUES(expiry_date)
+    """, nativeQuery = true)
+    int upsert(@Param("userId") Long userId, @Param("deviceId") String deviceId,
+            @Param("tokenHash") String tokenHash, @Param("expiryDate") Instant expiryDate);
+
+    long countByUserId(Long userId);
+
+    // 🔹 Giữ lại maxDevices token mới nhất của user (bảng dẫn xuất để MySQL cho phép tự tham chiếu)
+    @Modifying
+    @Transactional
+    @Query(value = """
+        DELETE FROM refresh_tokens
+        WHERE user_id = :userId
+          AND id NOT IN (
+              SELECT id FROM (
+                  SELECT id FROM refresh_tokens
+                  WHERE user_id = :userId
+                  ORDER BY expiry_date DESC
+                  LIMIT :maxDevices
+              ) newest
+          )
+    """, nativeQuery = true)
+    int deleteOldestBeyond(@Param("userId") Long userId, @Param("maxDevices") int maxDevices);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
 
-    // 🔹 Xóa token cũ của user (an toàn, chắc chắn xóa khỏi DB)
+    // 🔹 Dọn token hết hạn theo lô để không khóa bảng lâu
     @Modifying
     @Transactional
-    @Query(value = "DELETE FROM refresh_tokens WHERE user_id = :userId", nativeQuery = true)
-    void deleteByUserId(@Param("userId") Long userId);
+    @Query(value = "DELETE FROM refresh_tokens WHERE expiry_date < :now LIMIT :batchSize", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("batchSize") int batchSize);
 }
@@ -0,0 +1,33 @@
+package com.jeweleryshop.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.jeweleryshop.backend.entity.RollupDimension;
+import com.jeweleryshop.backend.entity.RollupGranularity;
+import com.jeweleryshop.backend.entity.SalesRollup;
+
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+
+    // ✅ Một chuỗi thời gian: đi thẳng theo unique key (granularity, dimension, bucket_start, ...)
+    @Query("""
+        SELECT r FROM SalesRollup r
+        WHERE r.granularity = :granularity AND r.dimension = :dimension
+          AND r.bucketStart >= :from AND r.bucketStart < :to
+        ORDER BY r.bucketStart, r.dimensionId
+    """)
+    List<SalesRollup> findSeries(@Param("granularity") RollupGranularity granularity,
+            @Param("dimension") RollupDimension dimension,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    // Xóa mọi dòng (mọi độ mịn / chiều) của khoảng ngày sắp tính lại
+    @Modifying
+    @Query("DELETE FROM SalesRollup r WHERE r.bucketStart >= :from AND r.bucketStart < :to")
+    int deleteWindow(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
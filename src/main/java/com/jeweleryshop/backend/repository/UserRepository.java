@@ -1,6 +1,8 @@
 package com.jeweleryshop.backend.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +11,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.jeweleryshop.backend.entity.User;
+import com.jeweleryshop.backend.repository.projection.DailyCountRow;
+import com.jeweleryshop.backend.repository.projection.UserSummaryRow;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -19,9 +23,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    // ✅ Chỉ lấy cột cần hiển thị, không nạp entity (tránh query Cart theo từng user)
+    List<UserSummaryRow> findSummariesByIdIn(Collection<Long> ids);
+
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
 
     long countByCreatedAtAfter(LocalDateTime date);
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
+
+    // ✅ Đối soát dashboard: số người dùng mới theo ngày đăng ký
+    @Query("""
+        SELECT CAST(u.createdAt AS LocalDate) AS day, COUNT(u) AS count, NULL AS revenue
+        FROM User u
+        GROUP BY CAST(u.createdAt AS LocalDate)
+    """)
+    List<DailyCountRow> countDaily();
 }
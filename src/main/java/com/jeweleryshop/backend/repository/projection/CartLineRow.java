@@ -0,0 +1,30 @@
+package com.jeweleryshop.backend.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Một dòng giỏ hàng đã "làm phẳng" (cart ⨝ cart_items ⨝ variant ⨝ product ⨝
+ * ảnh đầu tiên). Giỏ trống vẫn trả về một dòng với các cột món hàng = null.
+ */
+public interface CartLineRow {
+
+    Long getCartId();
+
+    Long getPromotionId();
+
+    Long getCartItemId();
+
+    Long getVariantId();
+
+    String getProductName();
+
+    BigDecimal getBasePrice();
+
+    BigDecimal getDiscountPrice();
+
+    BigDecimal getPriceModifier();
+
+    Integer getQuantity();
+
+    String getImageUrl();
+}
@@ -0,0 +1,13 @@
+package com.jeweleryshop.backend.repository.projection;
+
+/**
+ * Số sản phẩm (tổng / đang bán) của một danh mục.
+ */
+public interface CategoryProductCountRow {
+
+    String getCategoryName();
+
+    Long getProductCount();
+
+    Long getActiveCount();
+}
@@ -0,0 +1,17 @@
+package com.jeweleryshop.backend.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Số liệu gộp theo ngày tính lại từ bảng gốc — dùng cho đối soát daily_stats.
+ * {@code revenue} = null với các bảng không có doanh thu (users).
+ */
+public interface DailyCountRow {
+
+    LocalDate getDay();
+
+    Long getCount();
+
+    BigDecimal getRevenue();
+}
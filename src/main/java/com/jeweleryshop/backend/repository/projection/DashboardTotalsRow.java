@@ -0,0 +1,26 @@
+package com.jeweleryshop.backend.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Tổng hợp các cửa sổ thời gian của dashboard, đọc từ daily_stats trong một
+ * câu truy vấn.
+ */
+public interface DashboardTotalsRow {
+
+    BigDecimal getTotalRevenue();
+
+    BigDecimal getRevenueThisMonth();
+
+    BigDecimal getRevenueLast7Days();
+
+    Long getTotalOrders();
+
+    Long getOrdersThisMonth();
+
+    Long getOrdersLastMonth();
+
+    Long getUsersThisMonth();
+
+    Long getUsersLastMonth();
+}
@@ -0,0 +1,12 @@
+package com.jeweleryshop.backend.repository.projection;
+
+/**
+ * Id + tên hiển thị — nhãn cho các chuỗi số liệu (danh mục, biến thể), tên
+ * sản phẩm khi import.
+ */
+public interface IdLabelRow {
+
+    Long getId();
+
+    String getLabel();
+}
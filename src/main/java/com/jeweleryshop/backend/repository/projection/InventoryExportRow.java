@@ -0,0 +1,16 @@
+package com.jeweleryshop.backend.repository.projection;
+
+/**
+ * Tồn kho của một biến thể để xuất feed; {@code id} là id biến thể (biến thể
+ * chưa có dòng tồn kho → số lượng 0).
+ */
+public interface InventoryExportRow {
+
+    Long getId();
+
+    String getSku();
+
+    Integer getQuantity();
+
+    Integer getLowStockThreshold();
+}
@@ -0,0 +1,26 @@
+package com.jeweleryshop.backend.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Một dòng chi tiết đơn hàng đã "làm phẳng" (order_details ⨝ variant ⨝
+ * product) — chỉ các cột cần cho danh sách đơn hàng, không nạp entity.
+ */
+public interface OrderItemRow {
+
+    Long getOrderId();
+
+    Long getProductId();
+
+    Long getVariantId();
+
+    String getProductName();
+
+    String getSize();
+
+    String getMaterial();
+
+    int getQuantity();
+
+    BigDecimal getPriceAtPurchase();
+}
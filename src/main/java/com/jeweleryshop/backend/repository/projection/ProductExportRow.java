@@ -0,0 +1,28 @@
+package com.jeweleryshop.backend.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Một dòng sản phẩm để xuất file (Excel...) — chỉ các cột phẳng cùng tên danh
+ * mục, không nạp entity nên không làm phình persistence context.
+ */
+public interface ProductExportRow {
+
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    BigDecimal getBasePrice();
+
+    BigDecimal getDiscountPrice();
+
+    String getSkuPrefix();
+
+    String getCategoryName();
+
+    Boolean getIsActive();
+
+    String getImageUrl();
+}
@@ -0,0 +1,11 @@
+package com.jeweleryshop.backend.repository.projection;
+
+/**
+ * Ảnh đại diện (ảnh có id nhỏ nhất) của một sản phẩm.
+ */
+public interface ProductThumbnailRow {
+
+    Long getProductId();
+
+    String getImageUrl();
+}
@@ -0,0 +1,23 @@
+package com.jeweleryshop.backend.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Doanh số của một giờ (ngày + giờ) cho một chiều gộp, tính từ order_details
+ * — nguồn của bảng sales_rollups. {@code dimensionId} = 0 khi gộp toàn shop.
+ */
+public interface SalesBucketRow {
+
+    LocalDate getDay();
+
+    Integer getHour();
+
+    Long getDimensionId();
+
+    BigDecimal getRevenue();
+
+    Long getOrders();
+
+    Long getUnits();
+}
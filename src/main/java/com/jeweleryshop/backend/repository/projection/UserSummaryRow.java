@@ -0,0 +1,16 @@
+package com.jeweleryshop.backend.repository.projection;
+
+/**
+ * Thông tin người đặt hàng hiển thị trong danh sách đơn hàng. Dùng thay cho
+ * entity User để tránh query phụ nạp Cart (OneToOne phía mappedBy).
+ */
+public interface UserSummaryRow {
+
+    Long getId();
+
+    String getEmail();
+
+    String getFirstName();
+
+    String getLastName();
+}
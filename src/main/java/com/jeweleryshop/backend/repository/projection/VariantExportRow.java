@@ -0,0 +1,31 @@
+package com.jeweleryshop.backend.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Một dòng biến thể để xuất feed — cột phẳng cùng tên sản phẩm.
+ */
+public interface VariantExportRow {
+
+    Long getId();
+
+    String getSku();
+
+    String getProductName();
+
+    String getName();
+
+    String getMaterial();
+
+    String getGemstone();
+
+    String getSize();
+
+    String getColor();
+
+    BigDecimal getWeight();
+
+    BigDecimal getPriceModifier();
+
+    String getImageUrl();
+}
@@ -0,0 +1,16 @@
+package com.jeweleryshop.backend.repository.projection;
+
+/**
+ * Khóa của biến thể theo SKU khi import feed: id biến thể, sản phẩm chứa nó và
+ * dòng tồn kho (null nếu chưa có).
+ */
+public interface VariantKeyRow {
+
+    Long getId();
+
+    String getSku();
+
+    Long getProductId();
+
+    Long getInventoryId();
+}
@@ -0,0 +1,246 @@
+package com.jeweleryshop.backend.search;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 🧮 Chỉ mục facet trong bộ nhớ: mỗi giá trị facet (danh mục, chất liệu,
+ * size, đá, màu, khoảng giá) giữ một BitSet các sản phẩm có giá trị đó.
+ *
+ * Lọc = AND giữa các facet, OR giữa các giá trị trong cùng facet. Số lượng
+ * của mỗi giá trị được tính theo kiểu "disjunctive": bỏ qua bộ lọc của chính
+ * facet đó, nên FE biết chọn thêm giá trị sẽ ra bao nhiêu kết quả.
+ * Sản phẩm được đánh số thứ tự (ordinal) liên tiếp để BitSet luôn dày đặc.
+ */
+public class ProductFacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String MATERIAL = "material";
+    public static final String SIZE = "size";
+    public static final String GEMSTONE = "gemstone";
+    public static final String COLOR = "color";
+    public static final String PRICE = "price";
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinalById = new HashMap<>();
+    private final List<Long> idByOrdinal = new ArrayList<>();
+    private final List<FacetDocument> docByOrdinal = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final Map<String, Map<String, BitSet>> facets = new LinkedHashMap<>();
+
+    // ==============================================================
+    // ✍️ Ghi
+    // ==============================================================
+    public void put(FacetDocument document) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(document.id);
+            if (ordinal == null) {
+                ordinal = idByOrdinal.size();
+                ordinalById.put(document.id, ordinal);
+                idByOrdinal.add(document.id);
+                docByOrdinal.add(null);
+            } else {
+                clearBits(ordinal);
+            }
+            for (Map.Entry<String, Set<String>> facet : document.values.entrySet()) {
+                Map<String, BitSet> valueBits = facets.computeIfAbsent(facet.getKey(), k -> new HashMap<>());
+                for (String value : facet.getValue()) {
+                    valueBits.computeIfAbsent(value, k -> new BitSet()).set(ordinal);
+                }
+            }
+            docByOrdinal.set(ordinal, document);
+            live.set(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(productId);
+            if (ordinal != null) {
+                clearBits(ordinal);
+                docByOrdinal.set(ordinal, null);
+                live.clear(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clearBits(int ordinal) {
+        FacetDocument previous = docByOrdinal.get(ordinal);
+        if (previous == null) {
+            return;
+        }
+        for (Map.Entry<String, Set<String>> facet : previous.values.entrySet()) {
+            Map<String, BitSet> valueBits = facets.get(facet.getKey());
+            for (String value : facet.getValue()) {
+                BitSet bits = valueBits.get(value);
+                bits.clear(ordinal);
+                if (bits.isEmpty()) {
+                    valueBits.remove(value);
+                }
+            }
+        }
+    }
+
+    // ==============================================================
+    // 📖 Truy vấn
+    // ==============================================================
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public FacetResult query(FacetQuery query) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) live.clone();
+            if (query.minPrice != null || query.maxPrice != null) {
+                base.and(priceRange(query.minPrice, query.maxPrice));
+            }
+
+            // OR các giá trị đã chọn trong từng facet
+            Map<String, BitSet> filters = new LinkedHashMap<>();
+            for (Map.Entry<String, Set<String>> selection : query.selected.entrySet()) {
+                Map<String, BitSet> valueBits = facets.getOrDefault(selection.getKey(), Map.of());
+                BitSet union = new BitSet();
+                for (String value : selection.getValue()) {
+                    BitSet bits = valueBits.get(value);
+                    if (bits != null) {
+                        union.or(bits);
+                    }
+                }
+                filters.put(selection.getKey(), union);
+            }
+
+            BitSet matches = (BitSet) base.clone();
+            filters.values().forEach(matches::and);
+
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<String, BitSet>> facet : facets.entrySet()) {
+                BitSet others = (BitSet) base.clone();
+                filters.forEach((name, bits) -> {
+                    if (!name.equals(facet.getKey())) {
+                        others.and(bits);
+                    }
+                });
+                Map<String, Integer> valueCounts = new TreeMap<>();
+                for (Map.Entry<String, BitSet> value : facet.getValue().entrySet()) {
+                    BitSet intersection = (BitSet) others.clone();
+                    intersection.and(value.getValue());
+                    int count = intersection.cardinality();
+                    if (count > 0) {
+                        valueCounts.put(value.getKey(), count);
+                    }
+                }
+                counts.put(facet.getKey(), valueCounts);
+            }
+
+            List<Long> productIds = new ArrayList<>(matches.cardinality());
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                productIds.add(idByOrdinal.get(i));
+            }
+            productIds.sort(null);
+            return new FacetResult(productIds, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        BitSet bits = new BitSet();
+        for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+            BigDecimal price = docByOrdinal.get(i).price;
+            if (price == null) {
+                continue;
+            }
+            if ((minPrice == null || price.compareTo(minPrice) >= 0)
+                    && (maxPrice == null || price.compareTo(maxPrice) <= 0)) {
+                bits.set(i);
+            }
+        }
+        return bits;
+    }
+
+    // ==============================================================
+    // 🧩 Kiểu dữ liệu
+    // ==============================================================
+    public static final class FacetDocument {
+
+        private final Long id;
+        private final BigDecimal price;
+        private final Map<String, Set<String>> values = new HashMap<>();
+
+        public FacetDocument(Long id, BigDecimal price) {
+            this.id = id;
+            this.price = price;
+        }
+
+        public FacetDocument add(String facet, String value) {
+            if (value != null && !value.isBlank()) {
+                values.computeIfAbsent(facet, k -> new TreeSet<>()).add(value.trim());
+            }
+            return this;
+        }
+    }
+
+    public static final class FacetQuery {
+
+        private final Map<String, Set<String>> selected = new LinkedHashMap<>();
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+
+        // Bỏ qua nếu không chọn giá trị nào → facet đó không lọc
+        public FacetQuery select(String facet, Collection<String> values) {
+            if (values != null && !values.isEmpty()) {
+                selected.put(facet, Set.copyOf(values));
+            }
+            return this;
+        }
+
+        public FacetQuery priceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            return this;
+        }
+    }
+
+    public static final class FacetResult {
+
+        private final List<Long> productIds;
+        private final Map<String, Map<String, Integer>> counts;
+
+        public FacetResult(List<Long> productIds, Map<String, Map<String, Integer>> counts) {
+            this.productIds = productIds;
+            this.counts = counts;
+        }
+
+        // ID sản phẩm khớp bộ lọc, tăng dần
+        public List<Long> getProductIds() {
+            return productIds;
+        }
+
+        // facet → (giá trị → số sản phẩm)
+        public Map<String, Map<String, Integer>> getCounts() {
+            return counts;
+        }
+    }
+}
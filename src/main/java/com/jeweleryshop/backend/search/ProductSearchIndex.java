@@ -0,0 +1,248 @@
+package com.jeweleryshop.backend.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 🔎 Chỉ mục đảo ngược (inverted index) trong bộ nhớ cho tìm kiếm sản phẩm.
+ *
+ * <ul>
+ * <li>Mỗi term (đã bỏ dấu) → danh sách sản phẩm chứa nó + tần suất có trọng
+ * số theo trường (tên quan trọng hơn mô tả...).</li>
+ * <li>Term lưu trong TreeMap → từ khóa "nha" khớp cả "nhan", "nhanh"
+ * (prefix), điểm thấp hơn khớp chính xác.</li>
+ * <li>Xếp hạng BM25; mọi từ trong câu truy vấn đều phải khớp (AND).</li>
+ * </ul>
+ *
+ * Đọc/ghi được bảo vệ bởi ReadWriteLock: nhiều truy vấn chạy song song, cập
+ * nhật một sản phẩm chỉ khóa ghi trong thời gian rất ngắn.
+ */
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Khớp prefix được tính điểm thấp hơn khớp nguyên từ
+    private static final double PREFIX_MATCH_FACTOR = 0.7;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, DocStats> docs = new HashMap<>();
+    private double totalLength;
+
+    // ==============================================================
+    // ✍️ Ghi
+    // ==============================================================
+    public void put(SearchDocument document) {
+        Map<String, Float> termFrequencies = new HashMap<>();
+        float length = 0;
+        for (SearchDocument.Field field : document.fields) {
+            for (String token : TextNormalizer.tokenize(field.text)) {
+                termFrequencies.merge(token, field.weight, Float::sum);
+                length += field.weight;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(document.id);
+            for (Map.Entry<String, Float> entry : termFrequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                        .put(document.id, entry.getValue());
+            }
+            docs.put(document.id, new DocStats(length, termFrequencies.keySet()));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long productId) {
+        DocStats stats = docs.remove(productId);
+        if (stats == null) {
+            return;
+        }
+        totalLength -= stats.length;
+        for (String term : stats.terms) {
+            Map<Long, Float> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(productId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    // ==============================================================
+    // 📖 Đọc
+    // ==============================================================
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return tối đa {@code limit} kết quả, điểm giảm dần (bằng điểm → id tăng dần)
+     */
+    public List<SearchHit> search(String query, int limit) {
+        Map<Long, Double> scores = score(query);
+        List<SearchHit> hits = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> hits.add(new SearchHit(id, score)));
+        hits.sort(Comparator.comparingDouble(SearchHit::getScore).reversed()
+                .thenComparing(SearchHit::getProductId));
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    private Map<Long, Double> score(String query) {
+        Set<String> tokens = new LinkedHashSet<>(TextNormalizer.tokenize(query));
+        if (tokens.isEmpty()) {
+            return Map.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = docs.size();
+            double avgLength = docCount == 0 ? 0 : totalLength / docCount;
+
+            Map<Long, Double> total = null;
+            for (String token : tokens) {
+                Map<Long, Double> tokenScores = scoreToken(token, docCount, avgLength);
+                if (total == null) {
+                    total = tokenScores;
+                } else {
+                    // AND: chỉ giữ sản phẩm khớp mọi từ
+                    total.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Double> entry : total.entrySet()) {
+                        entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                    }
+                }
+                if (total.isEmpty()) {
+                    break;
+                }
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Điểm của một từ truy vấn = điểm tốt nhất giữa khớp chính xác và các term có cùng prefix
+    private Map<Long, Double> scoreToken(String token, int docCount, double avgLength) {
+        Map<Long, Double> result = new HashMap<>();
+        addTermScores(result, token, postings.get(token), 1.0, docCount, avgLength);
+
+        if (token.length() >= MIN_PREFIX_LENGTH) {
+            int expansions = 0;
+            for (Map.Entry<String, Map<Long, Float>> entry
+                    : postings.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+                if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                addTermScores(result, entry.getKey(), entry.getValue(), PREFIX_MATCH_FACTOR, docCount, avgLength);
+            }
+        }
+        return result;
+    }
+
+    private void addTermScores(Map<Long, Double> result, String term, Map<Long, Float> postingList,
+            double factor, int docCount, double avgLength) {
+        if (postingList == null || postingList.isEmpty()) {
+            return;
+        }
+        int docFrequency = postingList.size();
+        double idf = Math.log(1 + (docCount - docFrequency + 0.5) / (docFrequency + 0.5));
+        for (Map.Entry<Long, Float> posting : postingList.entrySet()) {
+            double tf = posting.getValue();
+            double docLength = docs.get(posting.getKey()).length;
+            double norm = avgLength == 0 ? 1 : (1 - B + B * docLength / avgLength);
+            double score = factor * idf * (tf * (K1 + 1)) / (tf + K1 * norm);
+            result.merge(posting.getKey(), score, Math::max);
+        }
+    }
+
+    // ==============================================================
+    // 🧩 Kiểu dữ liệu
+    // ==============================================================
+    private static final class DocStats {
+
+        private final float length;
+        private final Set<String> terms;
+
+        private DocStats(float length, Set<String> terms) {
+            this.length = length;
+            this.terms = Set.copyOf(terms);
+        }
+    }
+
+    /**
+     * Tài liệu cần đánh chỉ mục: id sản phẩm + các đoạn văn bản kèm trọng số.
+     */
+    public static final class SearchDocument {
+
+        private final Long id;
+        private final List<Field> fields = new ArrayList<>();
+
+        public SearchDocument(Long id) {
+            this.id = id;
+        }
+
+        public SearchDocument add(String text, float weight) {
+            if (text != null && !text.isBlank()) {
+                fields.add(new Field(text, weight));
+            }
+            return this;
+        }
+
+        private static final class Field {
+
+            private final String text;
+            private final float weight;
+
+            private Field(String text, float weight) {
+                this.text = text;
+                this.weight = weight;
+            }
+        }
+    }
+
+    public static final class SearchHit {
+
+        private final Long productId;
+        private final double score;
+
+        public SearchHit(Long productId, double score) {
+            this.productId = productId;
+            this.score = score;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.jeweleryshop.backend.security;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.jeweleryshop.backend.entity.User;
+
+/**
+ * 🪪 Principal gọn nhẹ cho request đã xác thực bằng JWT: chỉ id, username,
+ * trạng thái và vai trò — không giữ mật khẩu hay entity JPA nên an toàn để
+ * cache và dùng chung giữa các thread.
+ */
+public final class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final boolean enabled;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String username, boolean enabled, Collection<String> roles) {
+        this.id = id;
+        this.username = username;
+        this.enabled = enabled;
+        this.authorities = roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getUsername(),
+                user.getEnabled() != null && user.getEnabled(),
+                user.getRoles().stream().map(role -> role.getName()).toList());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    // JWT đã thay mật khẩu → không giữ
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
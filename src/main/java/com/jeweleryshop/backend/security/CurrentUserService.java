@@ -0,0 +1,71 @@
+package com.jeweleryshop.backend.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
+import com.jeweleryshop.backend.entity.User;
+import com.jeweleryshop.backend.event.UserChangedEvent;
+import com.jeweleryshop.backend.repository.UserRepository;
+
+/**
+ * 🪪 Người dùng đang đăng nhập, đọc không chạm DB.
+ *
+ * <ul>
+ * <li>Trong một request: principal do {@link JwtAuthenticationFilter} gắn vào
+ * SecurityContext — service đọc id trực tiếp từ đó.</li>
+ * <li>Giữa các request: {@link AuthenticatedUser} được cache theo username với
+ * TTL ngắn, bỏ ngay khi admin sửa / khóa / xóa người dùng.</li>
+ * </ul>
+ *
+ * Đăng nhập bằng mật khẩu vẫn đi qua {@link UserDetailsServiceImpl} (đọc DB).
+ */
+@Service
+public class CurrentUserService {
+
+    private final UserRepository userRepository;
+    private final BoundedTtlCache<String, AuthenticatedUser> principalCache;
+
+    public CurrentUserService(UserRepository userRepository,
+            BoundedTtlCache<String, AuthenticatedUser> principalCache) {
+        this.userRepository = userRepository;
+        this.principalCache = principalCache;
+    }
+
+    // ✅ Dùng cho filter JWT — một câu SELECT (user + roles) mỗi TTL thay vì mỗi request
+    public AuthenticatedUser loadByUsername(String username) {
+        return principalCache.getOrLoad(username, () -> userRepository.findByUsername(username)
+                .map(AuthenticatedUser::from)
+                .orElseThrow(() -> new UsernameNotFoundException("Không tìm thấy người dùng với username: " + username)));
+    }
+
+    public AuthenticatedUser get() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new UsernameNotFoundException("Chưa đăng nhập");
+        }
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal;
+        }
+        // Xác thực theo kiểu khác (form login, test) → tra theo tên
+        return loadByUsername(authentication.getName());
+    }
+
+    public Long getId() {
+        return get().getId();
+    }
+
+    // Principal đã có sẵn trong SecurityContext → chỉ lấy tham chiếu, không SELECT user
+    public User getReference() {
+        return userRepository.getReferenceById(getId());
+    }
+
+    // Bỏ sau commit để lần nạp kế tiếp chắc chắn thấy dữ liệu mới
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        event.getUsernames().forEach(principalCache::invalidate);
+    }
+}
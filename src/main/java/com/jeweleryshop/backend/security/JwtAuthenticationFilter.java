@@ -5,8 +5,6 @@ import java.time.LocalDateTime;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -16,6 +14,7 @@ import com.jeweleryshop.backend.dto.ErrorResponse;
 import com.jeweleryshop.backend.service.JwtService;
 
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -25,11 +24,11 @@ import jakarta.servlet.http.HttpServletResponse;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final CurrentUserService currentUserService;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, CurrentUserService currentUserService) {
         this.jwtService = jwtService;
-        this.userDetailsService = userDetailsService;
+        this.currentUserService = currentUserService;
     }
 
     @Override
@@ -51,25 +50,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
 
         try {
-            username = jwtService.extractUsername(jwt);
+            // Parse + kiểm tra chữ ký / hạn dùng đúng một lần
+            VerifiedToken token = jwtService.verify(jwt);
+            username = token.getUsername();
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                // Principal lấy từ cache (TTL ngắn) — chỉ cần id và trạng thái khóa
+                AuthenticatedUser userDetails = currentUserService.loadByUsername(username);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (!userDetails.isEnabled()) {
+                    System.out.println("❌ Account disabled: " + username);
+                } else {
+                    // Phân quyền theo claim "roles" trong token, không đọc lại DB
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(
                                     userDetails,
                                     null,
-                                    userDetails.getAuthorities()
+                                    token.getAuthorities()
                             );
                     authToken.setDetails(
                             new WebAuthenticationDetailsSource().buildDetails(request)
                     );
                     SecurityContextHolder.getContext().setAuthentication(authToken);
-                    System.out.println("✅ Authenticated user: " + username + " with roles " + userDetails.getAuthorities());
-                } else {
-                    System.out.println("❌ Token invalid for user: " + username);
+                    System.out.println("✅ Authenticated user: " + username + " with roles " + token.getAuthorities());
                 }
             }
 
@@ -80,6 +83,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             response.setContentType("application/json");
             response.getWriter().write(new ObjectMapper().writeValueAsString(errorResponse));
             return; // Dừng luồng ở đây nếu token hết hạn
+        } catch (JwtException | IllegalArgumentException e) {
+            // Chữ ký sai / token hỏng → đi tiếp như chưa đăng nhập
+            System.out.println("❌ Token invalid: " + e.getMessage());
         }
 
         // 🔹 Luôn chạy filter tiếp theo sau mọi trường hợp thành công
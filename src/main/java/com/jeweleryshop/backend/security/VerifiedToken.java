@@ -0,0 +1,58 @@
+package com.jeweleryshop.backend.security;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * 🔏 Kết quả xác minh một access token: chữ ký và hạn dùng đã được kiểm tra,
+ * claims chỉ còn là dữ liệu bất biến — đọc bao nhiêu lần cũng không phải
+ * parse lại token.
+ */
+public final class VerifiedToken {
+
+    private final String username;
+    private final List<GrantedAuthority> authorities;
+    private final Date issuedAt;
+    private final Date expiresAt;
+
+    private VerifiedToken(String username, List<GrantedAuthority> authorities, Date issuedAt, Date expiresAt) {
+        this.username = username;
+        this.authorities = authorities;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public static VerifiedToken from(Claims claims) {
+        // Claim "roles" do JwtService.generateToken ghi; refresh token không có → rỗng
+        List<GrantedAuthority> authorities = claims.get("roles") instanceof Collection<?> roles
+                ? roles.stream()
+                        .map(String::valueOf)
+                        .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                        .toList()
+                : List.of();
+        return new VerifiedToken(claims.getSubject(), authorities, claims.getIssuedAt(), claims.getExpiration());
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    // Vai trò tại thời điểm cấp token — đủ để phân quyền mà không cần đọc DB
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    public Date getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+}
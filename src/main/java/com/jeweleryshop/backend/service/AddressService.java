@@ -3,7 +3,6 @@ package com.jeweleryshop.backend.service;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,30 +13,30 @@ import com.jeweleryshop.backend.entity.User;
 import com.jeweleryshop.backend.exception.AppException;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.repository.AddressRepository;
-import com.jeweleryshop.backend.repository.UserRepository;
+import com.jeweleryshop.backend.security.CurrentUserService;
 
 @Service
 public class AddressService {
 
     private final AddressRepository addressRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
 
-    public AddressService(AddressRepository addressRepository, UserRepository userRepository) {
+    public AddressService(AddressRepository addressRepository,
+            CurrentUserService currentUserService) {
         this.addressRepository = addressRepository;
-        this.userRepository = userRepository;
+        this.currentUserService = currentUserService;
     }
 
     @Transactional(readOnly = true)
     public List<AddressDTO> getMyAddresses() {
-        User currentUser = getCurrentUser();
-        return currentUser.getAddresses().stream()
+        return addressRepository.findByUserId(currentUserService.getId()).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
     @Transactional
     public AddressDTO addAddress(AddressRequestDTO requestDTO) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
 
         Address address = new Address();
         address.setUser(currentUser);
@@ -54,7 +53,7 @@ public class AddressService {
 
     @Transactional
     public AddressDTO updateAddress(Long addressId, AddressRequestDTO requestDTO) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address not found with id: " + addressId));
 
@@ -75,7 +74,7 @@ public class AddressService {
 
     @Transactional
     public void deleteAddress(Long addressId) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address not found with id: " + addressId));
 
@@ -86,12 +85,6 @@ public class AddressService {
         addressRepository.delete(address);
     }
 
-    private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
-    }
-
     private AddressDTO convertToDTO(Address address) {
         return new AddressDTO(
                 address.getId(),
@@ -91,7 +91,7 @@ public class AuthService {
         // ✅ Nếu không bật 2FA → xử lý đăng nhập bình thường
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         String jwtToken = jwtService.generateToken(userDetails);
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user.getUsername());
+        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user.getId(), request.getDeviceId());
 
         return new AuthResponse(
                 jwtToken,
@@ -105,7 +105,7 @@ public class AuthService {
     // 🔑 3️⃣ Xác minh OTP để hoàn tất đăng nhập
     // ============================================================
     @Transactional
-    public AuthResponse verifyOtp(String username, String otpInput) {
+    public AuthResponse verifyOtp(String username, String otpInput, String deviceId) {
         // ✅ Gọi trực tiếp — hàm sẽ ném lỗi nếu OTP sai hoặc hết hạn
         otpService.verifyOtp(username, otpInput);
 
@@ -119,7 +119,7 @@ public class AuthService {
         );
 
         String jwtToken = jwtService.generateToken(userDetails);
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user.getUsername());
+        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user.getId(), deviceId);
 
         return new AuthResponse(
                 jwtToken,
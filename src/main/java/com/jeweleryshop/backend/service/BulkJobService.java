@@ -0,0 +1,343 @@
+package com.jeweleryshop.backend.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jeweleryshop.backend.dto.BulkJobDTO;
+import com.jeweleryshop.backend.dto.ImportReportDTO;
+import com.jeweleryshop.backend.entity.BulkJob;
+import com.jeweleryshop.backend.entity.BulkJobStatus;
+import com.jeweleryshop.backend.entity.BulkJobType;
+import com.jeweleryshop.backend.entity.CatalogFeed;
+import com.jeweleryshop.backend.entity.FeedFormat;
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.exception.FileStorageException;
+import com.jeweleryshop.backend.exception.ResourceNotFoundException;
+import com.jeweleryshop.backend.repository.BulkJobRepository;
+import com.jeweleryshop.backend.utils.ExcelHelper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 🗂️ Job chạy nền cho thao tác hàng loạt của admin (import / export sản
+ * phẩm, feed CSV / NDJSON) — request chỉ ghi job rồi trả về ngay, không giữ
+ * luồng Tomcat.
+ *
+ * <ul>
+ * <li>Trạng thái, tiến độ và vị trí file kết quả nằm ở bảng
+ * {@code bulk_jobs}; admin hỏi lại theo id.</li>
+ * <li>{@code workers} luồng chạy job, hàng đợi tối đa {@code queue-capacity}
+ * job — đầy thì từ chối ngay thay vì dồn việc.</li>
+ * <li>File đầu vào / kết quả nằm trong {@code app.jobs.dir} — thư mục riêng,
+ * ngoài thư mục upload được phục vụ công khai — chỉ tải qua endpoint admin; quá {@code retention-days} ngày
+ * thì bị xóa cùng job.</li>
+ * <li>File nằm trên đĩa của instance nhận job nên job không được chuyển sang
+ * instance khác: job chưa xong lúc khởi động lại bị đánh dấu FAILED.</li>
+ * </ul>
+ */
+@Service
+public class BulkJobService {
+
+    static final int MAX_MESSAGE_LENGTH = 500;
+    private static final int PURGE_BATCH_SIZE = 500;
+
+    private final BulkJobRepository bulkJobRepository;
+    private final ExcelService excelService;
+    private final CatalogFeedService catalogFeedService;
+    private final ObjectMapper objectMapper;
+    private final Path jobDir;
+    private final int workers;
+    private final int queueCapacity;
+    private final int retentionDays;
+    private final LocalDateTime bootedAt = LocalDateTime.now();
+    private ThreadPoolExecutor executor;
+
+    @FunctionalInterface
+    interface JobWork {
+        void run(BulkJob job, IntConsumer progress) throws IOException;
+    }
+
+    public BulkJobService(BulkJobRepository bulkJobRepository,
+            ExcelService excelService,
+            CatalogFeedService catalogFeedService,
+            ObjectMapper objectMapper,
+            @Value("${app.jobs.dir}") String jobDir,
+            @Value("${app.jobs.workers:2}") int workers,
+            @Value("${app.jobs.queue-capacity:20}") int queueCapacity,
+            @Value("${app.jobs.retention-days:7}") int retentionDays) {
+        this.bulkJobRepository = bulkJobRepository;
+        this.excelService = excelService;
+        this.catalogFeedService = catalogFeedService;
+        this.objectMapper = objectMapper;
+        this.jobDir = Paths.get(jobDir).toAbsolutePath().normalize();
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.retentionDays = retentionDays;
+        try {
+            Files.createDirectories(this.jobDir);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not create the directory for job files.", ex);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("bulk-job-", 1).daemon(true).factory());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    // ==============================================================
+    // 📥 Nhận job
+    // ==============================================================
+    public BulkJobDTO submitProductImport(MultipartFile file, String username) {
+        if (!ExcelHelper.hasExcelFormat(file)) {
+            throw new AppException("Vui lòng upload file Excel (định dạng .xlsx)!");
+        }
+        String inputFile = UUID.randomUUID() + ".xlsx";
+        try {
+            file.transferTo(jobDir.resolve(inputFile));
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not store file " + file.getOriginalFilename()
+                    + ". Please try again!", ex);
+        }
+        BulkJob job = new BulkJob(BulkJobType.PRODUCT_IMPORT, username);
+        job.setInputFile(inputFile);
+        return submit(job, this::runProductImport);
+    }
+
+    public BulkJobDTO submitProductExport(String username) {
+        return submit(new BulkJob(BulkJobType.PRODUCT_EXPORT, username), this::runProductExport);
+    }
+
+    /**
+     * Ghi thẳng thân request vào file job (không qua multipart nên không bị
+     * giới hạn kích thước upload — feed tồn kho có thể hàng trăm MB).
+     */
+    public BulkJobDTO submitFeedImport(CatalogFeed feed, FeedFormat format, InputStream body, String username) {
+        String inputFile = UUID.randomUUID() + "." + format.getExtension();
+        Path path = jobDir.resolve(inputFile);
+        long size;
+        try {
+            size = Files.copy(body, path);
+        } catch (IOException ex) {
+            deleteQuietly(inputFile);
+            throw new FileStorageException("Could not store the feed file. Please try again!", ex);
+        }
+        if (size == 0) {
+            deleteQuietly(inputFile);
+            throw new AppException("Vui lòng gửi nội dung file " + format.getExtension() + "!");
+        }
+        BulkJob job = new BulkJob(BulkJobType.FEED_IMPORT, feed, format, username);
+        job.setInputFile(inputFile);
+        return submit(job, this::runFeedImport);
+    }
+
+    public BulkJobDTO submitFeedExport(CatalogFeed feed, FeedFormat format, String username) {
+        return submit(new BulkJob(BulkJobType.FEED_EXPORT, feed, format, username), this::runFeedExport);
+    }
+
+    BulkJobDTO submit(BulkJob job, JobWork work) {
+        bulkJobRepository.save(job);
+        // Chụp trạng thái trước khi worker bắt đầu sửa job
+        BulkJobDTO queued = toDTO(job);
+        try {
+            executor.execute(() -> run(job, work));
+        } catch (RejectedExecutionException e) {
+            job.setStatus(BulkJobStatus.FAILED);
+            job.setMessage("Hàng đợi job đầy, vui lòng thử lại sau");
+            job.setFinishedAt(LocalDateTime.now());
+            bulkJobRepository.save(job);
+            deleteQuietly(job.getInputFile());
+            throw new AppException(job.getMessage());
+        }
+        return queued;
+    }
+
+    // ==============================================================
+    // ⚙️ Chạy job
+    // ==============================================================
+    void run(BulkJob job, JobWork work) {
+        job.setStatus(BulkJobStatus.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        bulkJobRepository.save(job);
+        try {
+            work.run(job, processed -> {
+                job.setProcessed(processed);
+                bulkJobRepository.updateProgress(job.getId(), processed);
+            });
+            job.setStatus(BulkJobStatus.SUCCEEDED);
+        } catch (IOException | RuntimeException e) {
+            job.setStatus(BulkJobStatus.FAILED);
+            job.setMessage(truncate(e.getMessage()));
+            deleteQuietly(job.getResultFile());
+            job.setResultFile(null);
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+            deleteQuietly(job.getInputFile());
+            job.setInputFile(null);
+            bulkJobRepository.save(job);
+        }
+    }
+
+    private void runProductImport(BulkJob job, IntConsumer progress) throws JsonProcessingException {
+        ImportReportDTO report = excelService.importProducts(
+                jobDir.resolve(job.getInputFile()).toFile(), progress);
+        job.setMessage(truncate(report.getMessage()));
+        job.setResultSummary(objectMapper.writeValueAsString(report));
+    }
+
+    private void runProductExport(BulkJob job, IntConsumer progress) throws IOException {
+        job.setResultFile(UUID.randomUUID() + ".xlsx");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(jobDir.resolve(job.getResultFile())))) {
+            excelService.exportProductsToExcel(out, progress);
+        }
+        job.setMessage("Export xong " + job.getProcessed() + " sản phẩm");
+    }
+
+    private void runFeedImport(BulkJob job, IntConsumer progress) throws IOException {
+        ImportReportDTO report;
+        try (InputStream in = Files.newInputStream(jobDir.resolve(job.getInputFile()))) {
+            report = catalogFeedService.importFeed(job.getFeed(), job.getFormat(), in, progress);
+        }
+        job.setMessage(truncate(report.getMessage()));
+        job.setResultSummary(objectMapper.writeValueAsString(report));
+    }
+
+    private void runFeedExport(BulkJob job, IntConsumer progress) throws IOException {
+        job.setResultFile(UUID.randomUUID() + "." + job.getFormat().getExtension());
+        catalogFeedService.export(job.getFeed(), job.getFormat(),
+                Files.newOutputStream(jobDir.resolve(job.getResultFile())), progress);
+        job.setMessage("Export xong " + job.getProcessed() + " dòng");
+    }
+
+    // ==============================================================
+    // 🔍 Tra cứu
+    // ==============================================================
+    public BulkJobDTO getJob(Long id) {
+        return toDTO(findJob(id));
+    }
+
+    public Page<BulkJobDTO> getJobs(Pageable pageable) {
+        return bulkJobRepository.findAllByOrderByIdDesc(pageable).map(this::toDTO);
+    }
+
+    /**
+     * File kết quả của job đã xong.
+     *
+     * @throws ResourceNotFoundException job không có file kết quả
+     */
+    public Path getResultFile(Long id) {
+        BulkJob job = findJob(id);
+        if (job.getStatus() != BulkJobStatus.SUCCEEDED || job.getResultFile() == null) {
+            throw new ResourceNotFoundException("Job " + id + " has no result file");
+        }
+        Path file = jobDir.resolve(job.getResultFile());
+        if (!Files.exists(file)) {
+            throw new ResourceNotFoundException("Result file of job " + id + " has expired");
+        }
+        return file;
+    }
+
+    private BulkJob findJob(Long id) {
+        return bulkJobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Job not found with id: " + id));
+    }
+
+    // ==============================================================
+    // 🧹 Dọn dẹp
+    // ==============================================================
+    @EventListener(ApplicationReadyEvent.class)
+    public int failInterrupted() {
+        return bulkJobRepository.failUnfinished(bootedAt, "Bị gián đoạn do ứng dụng khởi động lại",
+                LocalDateTime.now());
+    }
+
+    @Scheduled(cron = "${app.jobs.purge-cron:0 15 4 * * *}")
+    public int purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int purged = 0;
+        List<BulkJob> expired;
+        do {
+            expired = bulkJobRepository.findByFinishedAtBeforeOrderById(cutoff, PageRequest.of(0, PURGE_BATCH_SIZE));
+            expired.forEach(job -> {
+                deleteQuietly(job.getInputFile());
+                deleteQuietly(job.getResultFile());
+            });
+            bulkJobRepository.deleteAllInBatch(expired);
+            purged += expired.size();
+        } while (expired.size() == PURGE_BATCH_SIZE);
+        return purged;
+    }
+
+    private void deleteQuietly(String fileName) {
+        if (fileName == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(jobDir.resolve(fileName));
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not delete job file " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+    }
+
+    private BulkJobDTO toDTO(BulkJob job) {
+        BulkJobDTO dto = new BulkJobDTO();
+        dto.setId(job.getId());
+        dto.setType(job.getType());
+        dto.setStatus(job.getStatus());
+        dto.setFeed(job.getFeed());
+        dto.setFormat(job.getFormat());
+        dto.setProcessed(job.getProcessed());
+        dto.setMessage(job.getMessage());
+        dto.setResult(job.getResultSummary());
+        if (job.getStatus() == BulkJobStatus.SUCCEEDED && job.getResultFile() != null) {
+            dto.setDownloadUrl("/api/admin/jobs/" + job.getId() + "/download");
+        }
+        dto.setCreatedBy(job.getCreatedBy());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        return dto;
+    }
+}
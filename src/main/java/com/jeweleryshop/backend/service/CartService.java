@@ -1,28 +1,47 @@
 package com.jeweleryshop.backend.service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
 
 import com.jeweleryshop.backend.dto.AddItemToCartRequest;
 import com.jeweleryshop.backend.dto.CartResponseDTO;
+import com.jeweleryshop.backend.dto.PromotionDTO;
+import com.jeweleryshop.backend.dto.StockHoldDTO;
 import com.jeweleryshop.backend.entity.Cart;
 import com.jeweleryshop.backend.entity.CartItem;
 import com.jeweleryshop.backend.entity.Product;
 import com.jeweleryshop.backend.entity.ProductImage;
 import com.jeweleryshop.backend.entity.ProductVariant;
 import com.jeweleryshop.backend.entity.User;
+import com.jeweleryshop.backend.event.CartChangedEvent;
+import com.jeweleryshop.backend.event.CategoryChangedEvent;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+import com.jeweleryshop.backend.event.PromotionChangedEvent;
 import com.jeweleryshop.backend.exception.AppException;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
+import com.jeweleryshop.backend.pricing.PromotionRuleSet.Line;
+import com.jeweleryshop.backend.pricing.PromotionRuleSet.Quote;
 import com.jeweleryshop.backend.repository.CartItemRepository;
 import com.jeweleryshop.backend.repository.CartRepository;
 import com.jeweleryshop.backend.repository.ProductVariantRepository;
 import com.jeweleryshop.backend.repository.UserRepository;
+import com.jeweleryshop.backend.security.CurrentUserService;
+import com.jeweleryshop.backend.repository.projection.CartLineRow;
 
 @Service
 public class CartService {
@@ -32,15 +51,27 @@ public class CartService {
     private final ProductVariantRepository variantRepository;
     private final UserRepository userRepository;
     private final PromotionService promotionService;
+    private final StockHoldService stockHoldService;
+    private final PricingService pricingService;
+    private final BoundedTtlCache<Long, CartResponseDTO> cartCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CurrentUserService currentUserService;
 
     public CartService(CartRepository cartRepository, CartItemRepository cartItemRepository,
             ProductVariantRepository variantRepository, UserRepository userRepository,
-            PromotionService promotionService) {
+            PromotionService promotionService, StockHoldService stockHoldService,
+            PricingService pricingService, BoundedTtlCache<Long, CartResponseDTO> cartCache,
+            ApplicationEventPublisher eventPublisher, CurrentUserService currentUserService) {
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.variantRepository = variantRepository;
         this.userRepository = userRepository;
         this.promotionService = promotionService;
+        this.stockHoldService = stockHoldService;
+        this.pricingService = pricingService;
+        this.cartCache = cartCache;
+        this.eventPublisher = eventPublisher;
+        this.currentUserService = currentUserService;
     }
 
     // ✅ Tạo giỏ nếu chưa có
@@ -57,29 +88,21 @@ public class CartService {
     // ✅ Lấy giỏ hàng theo userId
     @Transactional(readOnly = true)
     public CartResponseDTO getOrCreateCartByUserId(Long userId) {
-        Cart cart = cartRepository.findByUserId(userId).orElseGet(() -> {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy user ID: " + userId));
-            Cart newCart = new Cart();
-            newCart.setUser(user);
-            return cartRepository.save(newCart);
-        });
-        return convertToDTO(cart);
+        return cartCache.getOrLoad(userId, () -> loadCartView(userId, () -> userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy user ID: " + userId))));
     }
 
     // ✅ Thêm sản phẩm vào giỏ hàng
     @Transactional
     public CartResponseDTO addItemToCart(AddItemToCartRequest request) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
         Cart cart = getOrCreateCart(currentUser);
 
         ProductVariant variant = variantRepository.findById(request.getProductVariantId())
                 .orElseThrow(() -> new ResourceNotFoundException(
                 "Không tìm thấy Product Variant ID: " + request.getProductVariantId()));
 
-        int currentStock = (variant.getInventory() != null)
-                ? variant.getInventory().getQuantity()
-                : 0;
+        int currentStock = availableStock(variant, cart);
 
         Optional<CartItem> existingItemOpt = cartItemRepository.findByCartAndVariant(cart, variant);
 
@@ -104,21 +127,21 @@ public class CartService {
         }
 
         cartRepository.save(cart);
+        eventPublisher.publishEvent(new CartChangedEvent(currentUser.getId()));
         return convertToDTO(cart);
     }
 
     // ✅ Lấy giỏ hàng hiện tại
     @Transactional(readOnly = true)
     public CartResponseDTO getCart() {
-        User currentUser = getCurrentUser();
-        Cart cart = getOrCreateCart(currentUser);
-        return convertToDTO(cart);
+        User currentUser = currentUserService.getReference();
+        return cartCache.getOrLoad(currentUser.getId(), () -> loadCartView(currentUser.getId(), () -> currentUser));
     }
 
     // ✅ Xóa item khỏi giỏ hàng
     @Transactional
     public void removeItemFromCart(Long cartItemId) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
         Cart cart = getOrCreateCart(currentUser);
         CartItem itemToRemove = cart.getItems().stream()
                 .filter(item -> item.getId().equals(cartItemId))
@@ -126,6 +149,7 @@ public class CartService {
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy sản phẩm trong giỏ hàng"));
         cart.removeItem(itemToRemove);
         cartRepository.save(cart);
+        eventPublisher.publishEvent(new CartChangedEvent(currentUser.getId()));
     }
 
     // ✅ Xóa toàn bộ giỏ hàng
@@ -141,13 +165,14 @@ public class CartService {
             cartItemRepository.deleteAll(cart.getItems());
             cart.getItems().clear();
             cartRepository.save(cart);
+            eventPublisher.publishEvent(new CartChangedEvent(user.getId()));
         }
     }
 
     // ✅ NEW: Cập nhật số lượng sản phẩm trong giỏ hàng
     @Transactional
     public CartResponseDTO updateCartItemQuantity(Long cartItemId, int quantity) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
         Cart cart = getOrCreateCart(currentUser);
 
         CartItem item = cart.getItems().stream()
@@ -159,27 +184,152 @@ public class CartService {
         if (quantity <= 0) {
             cart.removeItem(item);
             cartRepository.save(cart);
+            eventPublisher.publishEvent(new CartChangedEvent(currentUser.getId()));
             return convertToDTO(cart);
         }
 
         // Kiểm tra tồn kho
         ProductVariant variant = item.getVariant();
-        int stock = (variant.getInventory() != null) ? variant.getInventory().getQuantity() : 0;
+        int stock = availableStock(variant, cart);
         if (quantity > stock) {
             throw new AppException("Không đủ hàng trong kho cho sản phẩm: " + variant.getProduct().getName());
         }
 
         item.setQuantity(quantity);
         cartRepository.save(cart);
+        eventPublisher.publishEvent(new CartChangedEvent(currentUser.getId()));
 
         return convertToDTO(cart);
     }
 
+    // ✅ Gắn mã khuyến mãi vào giỏ — giảm giá được tính lại mỗi lần đọc giỏ
+    @Transactional
+    public CartResponseDTO applyPromotion(String code) {
+        User currentUser = currentUserService.getReference();
+        Cart cart = getOrCreateCart(currentUser);
+
+        // Hết hạn / hết lượt / sai mã → báo lỗi cụ thể (đọc qua cache khuyến mãi)
+        PromotionDTO promotion = promotionService.validatePromotionCode(code.trim());
+        Quote quote = pricingService.quote(toPriceLines(cart), promotion.getCode(), null);
+        if (quote.getRejectionReason() != null) {
+            throw new AppException(quote.getRejectionReason());
+        }
+
+        cart.setAppliedPromotion(promotionService.getReference(promotion.getId()));
+        cartRepository.save(cart);
+        eventPublisher.publishEvent(new CartChangedEvent(currentUser.getId()));
+        return convertToDTO(cart);
+    }
+
+    // ✅ Bỏ mã khuyến mãi khỏi giỏ
+    @Transactional
+    public CartResponseDTO removePromotion() {
+        User currentUser = currentUserService.getReference();
+        Cart cart = getOrCreateCart(currentUser);
+        if (cart.getAppliedPromotion() != null) {
+            cart.setAppliedPromotion(null);
+            cartRepository.save(cart);
+            eventPublisher.publishEvent(new CartChangedEvent(currentUser.getId()));
+        }
+        return convertToDTO(cart);
+    }
+
+    // ✅ Bắt đầu thanh toán: giữ hàng trong giỏ trong một khoảng thời gian
+    @Transactional(readOnly = true)
+    public StockHoldDTO startCheckout() {
+        User currentUser = currentUserService.getReference();
+        Cart cart = getOrCreateCart(currentUser);
+        if (cart.getItems().isEmpty()) {
+            throw new AppException("Giỏ hàng trống, không thể thanh toán");
+        }
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, Integer> onHand = new HashMap<>();
+        Map<Long, String> productNames = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            ProductVariant variant = item.getVariant();
+            quantities.merge(variant.getId(), item.getQuantity(), Integer::sum);
+            onHand.put(variant.getId(), variant.getInventory() != null ? variant.getInventory().getQuantity() : 0);
+            productNames.put(variant.getId(), variant.getProduct().getName());
+        }
+
+        Set<Long> unavailable = stockHoldService.hold(cart.getId(), quantities, onHand);
+        if (!unavailable.isEmpty()) {
+            throw new AppException("Không đủ hàng trong kho cho sản phẩm: " + unavailable.stream()
+                    .map(productNames::get)
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        return new StockHoldDTO(cart.getId(), quantities.size(),
+                LocalDateTime.now().plus(stockHoldService.getTtl()));
+    }
+
+    // ✅ Rời trang thanh toán: trả lại hàng đang giữ
+    @Transactional(readOnly = true)
+    public void cancelCheckout() {
+        User currentUser = currentUserService.getReference();
+        cartRepository.findByUserId(currentUser.getId())
+                .ifPresent(cart -> stockHoldService.release(cart.getId()));
+    }
+
+    // =================== CACHE GIỎ HÀNG ===================
+    // Bỏ DTO sau khi transaction commit → lần đọc kế tiếp chắc chắn thấy dữ liệu mới
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartChanged(CartChangedEvent event) {
+        cartCache.invalidate(event.getUserId());
+    }
+
+    // Giá / tên / ảnh sản phẩm đổi → không biết giỏ nào chứa → bỏ hết. Đặt / hủy
+    // đơn chỉ đổi tồn kho (không hiển thị trong giỏ) nên bỏ qua.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.isStockOnly()) {
+            cartCache.invalidateAll();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        cartCache.invalidateAll();
+    }
+
+    // Xóa danh mục → sản phẩm (và món trong giỏ) bị xóa cascade
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        cartCache.invalidateAll();
+    }
+
+    // Dựng DTO từ một câu truy vấn phẳng; chưa có giỏ thì tạo mới cho owner
+    private CartResponseDTO loadCartView(Long userId, Supplier<User> owner) {
+        List<CartLineRow> rows = cartRepository.findLinesByUserId(userId);
+        if (rows.isEmpty()) {
+            Cart newCart = new Cart();
+            newCart.setUser(owner.get());
+            return convertToDTO(cartRepository.save(newCart));
+        }
+
+        List<CartResponseDTO.CartItemResponseDTO> items = new ArrayList<>(rows.size());
+        for (CartLineRow row : rows) {
+            if (row.getCartItemId() != null) {
+                items.add(new CartResponseDTO.CartItemResponseDTO(
+                        row.getCartItemId(),
+                        row.getVariantId(),
+                        row.getProductName(),
+                        unitPrice(row.getBasePrice(), row.getDiscountPrice(), row.getPriceModifier()),
+                        row.getQuantity(),
+                        row.getImageUrl()
+                ));
+            }
+        }
+        return price(rows.get(0).getCartId(), items, rows.get(0).getPromotionId());
+    }
+
     // =================== TIỆN ÍCH ===================
-    private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy người dùng: " + username));
+    // Còn bán được cho giỏ này = tồn kho - phần giỏ khác đang giữ (đọc thường, không khóa)
+    private int availableStock(ProductVariant variant, Cart cart) {
+        int onHand = variant.getInventory() != null ? variant.getInventory().getQuantity() : 0;
+        return stockHoldService.available(variant.getId(), onHand, cart.getId());
     }
 
     private Cart getOrCreateCart(User user) {
@@ -195,11 +345,6 @@ public class CartService {
                 .map(item -> {
                     ProductVariant variant = item.getVariant();
                     Product product = variant.getProduct();
-                    BigDecimal base = (product.getDiscountPrice() != null && product.getDiscountPrice().compareTo(BigDecimal.ZERO) > 0)
-                            ? product.getDiscountPrice()
-                            : product.getBasePrice();
-
-                    BigDecimal price = base.add(variant.getPriceModifier() != null ? variant.getPriceModifier() : BigDecimal.ZERO);
 
                     String imageUrl = product.getImages().stream()
                             .findFirst().map(ProductImage::getImageUrl).orElse(null);
@@ -208,18 +353,42 @@ public class CartService {
                             item.getId(),
                             variant.getId(),
                             product.getName(),
-                            price,
+                            unitPrice(product.getBasePrice(), product.getDiscountPrice(), variant.getPriceModifier()),
                             item.getQuantity(),
                             imageUrl
                     );
                 })
                 .collect(Collectors.toList());
 
-        BigDecimal total = items.stream()
-                .map(i -> i.getUnitPrice().multiply(BigDecimal.valueOf(i.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Chỉ đọc id của khuyến mãi đã gắn → không nạp entity Promotion
+        Long promotionId = cart.getAppliedPromotion() != null ? cart.getAppliedPromotion().getId() : null;
+        return price(cart.getId(), items, promotionId);
+    }
+
+    private CartResponseDTO price(Long cartId, List<CartResponseDTO.CartItemResponseDTO> items, Long promotionId) {
+        List<Line> lines = new ArrayList<>(items.size());
+        items.forEach(i -> lines.add(new Line(i.getUnitPrice(), i.getQuantity())));
+        Quote quote = pricingService.quote(lines, null, promotionId);
+
+        return new CartResponseDTO(cartId, items, items.size(),
+                quote.getSubTotal(), quote.getDiscountAmount(), quote.getTotalAfterDiscount(),
+                quote.getAppliedCode());
+    }
+
+    private List<Line> toPriceLines(Cart cart) {
+        List<Line> lines = new ArrayList<>(cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            Product product = item.getVariant().getProduct();
+            lines.add(new Line(unitPrice(product.getBasePrice(), product.getDiscountPrice(),
+                    item.getVariant().getPriceModifier()), item.getQuantity()));
+        }
+        return lines;
+    }
 
-        return new CartResponseDTO(cart.getId(), items, items.size(),
-                total, BigDecimal.ZERO, total, null);
+    private static BigDecimal unitPrice(BigDecimal basePrice, BigDecimal discountPrice, BigDecimal priceModifier) {
+        BigDecimal base = (discountPrice != null && discountPrice.compareTo(BigDecimal.ZERO) > 0)
+                ? discountPrice
+                : basePrice;
+        return base.add(priceModifier != null ? priceModifier : BigDecimal.ZERO);
     }
 }
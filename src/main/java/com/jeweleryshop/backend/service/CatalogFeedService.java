@@ -0,0 +1,590 @@
+package com.jeweleryshop.backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import com.jeweleryshop.backend.dto.CategoryDTO;
+import com.jeweleryshop.backend.dto.ImportReportDTO;
+import com.jeweleryshop.backend.entity.CatalogFeed;
+import com.jeweleryshop.backend.entity.FeedFormat;
+import com.jeweleryshop.backend.event.CategoryChangedEvent;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.repository.CatalogBatchWriter;
+import com.jeweleryshop.backend.repository.CatalogBatchWriter.CategoryRow;
+import com.jeweleryshop.backend.repository.CatalogBatchWriter.InventoryRow;
+import com.jeweleryshop.backend.repository.CatalogBatchWriter.VariantRow;
+import com.jeweleryshop.backend.repository.CategoryRepository;
+import com.jeweleryshop.backend.repository.ProductRepository;
+import com.jeweleryshop.backend.repository.ProductVariantRepository;
+import com.jeweleryshop.backend.repository.projection.IdLabelRow;
+import com.jeweleryshop.backend.repository.projection.VariantKeyRow;
+import com.jeweleryshop.backend.utils.FeedReader;
+import com.jeweleryshop.backend.utils.FeedWriter;
+import com.jeweleryshop.backend.utils.ProductImportRow;
+
+/**
+ * 🔄 Feed CSV / NDJSON cho sản phẩm, biến thể, tồn kho và danh mục (đồng bộ
+ * catalog với ERP) — nhẹ hơn nhiều so với Excel nên hợp cho hàng triệu dòng.
+ *
+ * <ul>
+ * <li>Export: đọc DB theo keyset từng trang, ghi từng ô thẳng vào stream.</li>
+ * <li>Import: đọc file một lượt, ghi từng khúc {@code chunk-size} dòng bằng
+ * JDBC batch, mỗi khúc một transaction; dòng lỗi được bỏ qua và ghi vào báo
+ * cáo. Sản phẩm đi chung đường với import Excel.</li>
+ * <li>Biến thể và tồn kho khớp theo SKU; tồn kho là số lượng tuyệt đối (ghi
+ * đè), ngưỡng cảnh báo để trống thì giữ nguyên.</li>
+ * <li>Danh mục ít nên được ghi cả file trong một transaction.</li>
+ * </ul>
+ */
+@Service
+public class CatalogFeedService {
+
+    static final int EXPORT_PAGE_SIZE = 1000;
+    static final int MAX_CATEGORY_ROWS = 10_000;
+
+    static final String[] PRODUCT_COLUMNS = {
+        "id", "name", "description", "basePrice", "discountPrice", "skuPrefix", "category", "active", "imageUrl"
+    };
+    static final String[] VARIANT_COLUMNS = {
+        "sku", "product", "name", "material", "gemstone", "size", "color", "weight", "priceModifier", "imageUrl"
+    };
+    static final String[] INVENTORY_COLUMNS = {"sku", "quantity", "lowStockThreshold"};
+    static final String[] CATEGORY_COLUMNS = {"id", "name", "description", "parent"};
+
+    // Giới hạn cột product_variants / categories
+    static final int MAX_SKU_LENGTH = 100;
+    static final int MAX_CATEGORY_NAME_LENGTH = 100;
+    static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private final ExcelService excelService;
+    private final ProductRepository productRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final CategoryRepository categoryRepository;
+    private final CatalogBatchWriter catalogBatchWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int importChunkSize;
+
+    public CatalogFeedService(ExcelService excelService,
+            ProductRepository productRepository,
+            ProductVariantRepository productVariantRepository,
+            CategoryRepository categoryRepository,
+            CatalogBatchWriter catalogBatchWriter,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.feed.import.chunk-size:1000}") int importChunkSize) {
+        this.excelService = excelService;
+        this.productRepository = productRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.categoryRepository = categoryRepository;
+        this.catalogBatchWriter = catalogBatchWriter;
+        this.eventPublisher = eventPublisher;
+        this.importChunkSize = importChunkSize;
+    }
+
+    // ==============================================================
+    // 📤 Export
+    // ==============================================================
+    /**
+     * Ghi toàn bộ feed vào {@code out} rồi đóng stream.
+     *
+     * @param progress nhận số dòng đã ghi sau mỗi trang
+     */
+    public void export(CatalogFeed feed, FeedFormat format, OutputStream out, IntConsumer progress)
+            throws IOException {
+        try (FeedWriter writer = FeedWriter.open(format, out, columns(feed))) {
+            switch (feed) {
+                case PRODUCTS -> writePages(writer, productRepository::findExportRowsAfter, row -> row.getId(),
+                        (w, row) -> {
+                            w.value(row.getId());
+                            w.value(row.getName());
+                            w.value(row.getDescription());
+                            w.value(row.getBasePrice());
+                            w.value(row.getDiscountPrice());
+                            w.value(row.getSkuPrefix());
+                            w.value(row.getCategoryName());
+                            w.value(row.getIsActive());
+                            w.value(row.getImageUrl());
+                        }, progress);
+                case VARIANTS -> writePages(writer, productVariantRepository::findExportRowsAfter,
+                        row -> row.getId(), (w, row) -> {
+                            w.value(row.getSku());
+                            w.value(row.getProductName());
+                            w.value(row.getName());
+                            w.value(row.getMaterial());
+                            w.value(row.getGemstone());
+                            w.value(row.getSize());
+                            w.value(row.getColor());
+                            w.value(row.getWeight());
+                            w.value(row.getPriceModifier());
+                            w.value(row.getImageUrl());
+                        }, progress);
+                case INVENTORY -> writePages(writer, productVariantRepository::findInventoryRowsAfter,
+                        row -> row.getId(), (w, row) -> {
+                            w.value(row.getSku());
+                            w.value(row.getQuantity());
+                            w.value(row.getLowStockThreshold());
+                        }, progress);
+                case CATEGORIES -> writeCategories(writer, progress);
+            }
+        }
+    }
+
+    static String[] columns(CatalogFeed feed) {
+        return switch (feed) {
+            case PRODUCTS -> PRODUCT_COLUMNS;
+            case VARIANTS -> VARIANT_COLUMNS;
+            case INVENTORY -> INVENTORY_COLUMNS;
+            case CATEGORIES -> CATEGORY_COLUMNS;
+        };
+    }
+
+    @FunctionalInterface
+    private interface RowWriter<T> {
+        void write(FeedWriter writer, T row) throws IOException;
+    }
+
+    private <T> void writePages(FeedWriter writer, BiFunction<Long, Pageable, List<T>> query,
+            Function<T, Long> id, RowWriter<T> rowWriter, IntConsumer progress) throws IOException {
+        long afterId = 0;
+        int written = 0;
+        List<T> page;
+        do {
+            page = query.apply(afterId, PageRequest.of(0, EXPORT_PAGE_SIZE));
+            for (T row : page) {
+                writer.startRow();
+                rowWriter.write(writer, row);
+                writer.endRow();
+            }
+            if (!page.isEmpty()) {
+                afterId = id.apply(page.get(page.size() - 1));
+                written += page.size();
+                progress.accept(written);
+            }
+        } while (page.size() == EXPORT_PAGE_SIZE);
+    }
+
+    private void writeCategories(FeedWriter writer, IntConsumer progress) throws IOException {
+        List<CategoryDTO> categories = new ArrayList<>(categoryRepository.findAllFlat());
+        categories.sort(Comparator.comparing(CategoryDTO::getId));
+        Map<Long, String> names = new HashMap<>();
+        categories.forEach(category -> names.put(category.getId(), category.getName()));
+        for (CategoryDTO category : categories) {
+            writer.startRow();
+            writer.value(category.getId());
+            writer.value(category.getName());
+            writer.value(category.getDescription());
+            writer.value(names.get(category.getParentId()));
+            writer.endRow();
+        }
+        progress.accept(categories.size());
+    }
+
+    // ==============================================================
+    // 📥 Import
+    // ==============================================================
+    /**
+     * Đọc {@code in} một lượt và upsert theo loại feed.
+     *
+     * @param progress nhận số dòng đã xử lý sau mỗi khúc
+     * @throws AppException file sai cú pháp hoặc một khúc ghi DB thất bại (các
+     *                      khúc trước đó vẫn giữ nguyên)
+     */
+    public ImportReportDTO importFeed(CatalogFeed feed, FeedFormat format, InputStream in, IntConsumer progress) {
+        ImportReportDTO report = switch (feed) {
+            case PRODUCTS -> excelService.importProductRows(rows -> FeedReader.read(format, in, PRODUCT_COLUMNS,
+                    "name", row -> rows.accept(new ProductImportRow(row.line(), row.get(1), row.get(2), row.get(3),
+                            row.get(4), row.get(5), row.get(6), row.get(7), row.get(8)))), progress);
+            case VARIANTS -> new VariantImport(progress).run(format, in);
+            case INVENTORY -> new InventoryImport(progress).run(format, in);
+            case CATEGORIES -> importCategories(format, in, progress);
+        };
+        report.setMessage("Import xong " + report.getTotalRows() + " dòng: " + report.getInserted() + " thêm mới, "
+                + report.getUpdated() + " cập nhật, " + report.getFailed() + " lỗi");
+        return report;
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String tooLong(String value, int max, String label) {
+        return value != null && value.length() > max ? label + " dài quá " + max + " ký tự" : null;
+    }
+
+    private static AppException writeFailed(int chunkFirstRow, ImportReportDTO report, DataAccessException e) {
+        return new AppException("Lỗi ghi dữ liệu từ dòng " + chunkFirstRow + " (đã lưu "
+                + (report.getInserted() + report.getUpdated()) + " dòng trước đó): "
+                + e.getMostSpecificCause().getMessage());
+    }
+
+    // ==============================================================
+    // 💎 Biến thể — khớp theo SKU, thay toàn bộ cột
+    // ==============================================================
+    private final class VariantImport {
+
+        private final IntConsumer progress;
+        private final ImportReportDTO report = new ImportReportDTO();
+        private final Map<String, Long> productIds = new HashMap<>();
+        // Khúc đang gom; SKU lặp lại trong khúc → dòng sau thay dòng trước
+        private final Map<String, VariantRow> pending = new LinkedHashMap<>();
+        private int pendingRows;
+        private int chunkFirstRow;
+
+        VariantImport(IntConsumer progress) {
+            this.progress = progress;
+            for (IdLabelRow row : productRepository.findAllNameIds()) {
+                productIds.putIfAbsent(key(row.getLabel()), row.getId());
+            }
+        }
+
+        ImportReportDTO run(FeedFormat format, InputStream in) {
+            FeedReader.read(format, in, VARIANT_COLUMNS, "sku", this::accept);
+            flush();
+            return report;
+        }
+
+        private void accept(FeedReader.Row row) {
+            report.setTotalRows(report.getTotalRows() + 1);
+            String error = validate(row);
+            if (error != null) {
+                report.addError(row.line(), error);
+                return;
+            }
+            if (pendingRows == 0) {
+                chunkFirstRow = row.line();
+            }
+            pendingRows++;
+            String weight = row.get(7);
+            String priceModifier = row.get(8);
+            pending.put(key(row.get(0)), new VariantRow(null, productIds.get(key(row.get(1))), row.get(0),
+                    row.get(2), row.get(3), row.get(4), row.get(5), row.get(6),
+                    weight == null ? null : new BigDecimal(weight),
+                    priceModifier == null ? null : new BigDecimal(priceModifier), row.get(9)));
+            if (pendingRows >= importChunkSize) {
+                flush();
+            }
+        }
+
+        private String validate(FeedReader.Row row) {
+            String sku = row.get(0);
+            if (sku == null) {
+                return "Thiếu SKU";
+            }
+            if (row.get(1) == null) {
+                return "Thiếu sản phẩm";
+            }
+            if (!productIds.containsKey(key(row.get(1)))) {
+                return "Không tìm thấy sản phẩm: " + row.get(1);
+            }
+            if (row.get(7) != null && ExcelService.parsePrice(row.get(7)) == null) {
+                return "Khối lượng không hợp lệ: " + row.get(7);
+            }
+            if (row.get(8) != null && !isPriceModifier(row.get(8))) {
+                return "Giá cộng thêm không hợp lệ: " + row.get(8);
+            }
+            String error = tooLong(sku, MAX_SKU_LENGTH, "SKU");
+            if (error == null) {
+                error = tooLong(row.get(2), 255, "Tên biến thể");
+            }
+            if (error == null) {
+                error = tooLong(row.get(3), 100, "Chất liệu");
+            }
+            if (error == null) {
+                error = tooLong(row.get(4), 100, "Đá quý");
+            }
+            if (error == null) {
+                error = tooLong(row.get(5), 50, "Kích cỡ");
+            }
+            if (error == null) {
+                error = tooLong(row.get(6), 50, "Màu sắc");
+            }
+            if (error == null) {
+                error = tooLong(row.get(9), 255, "Image URL");
+            }
+            return error;
+        }
+
+        void flush() {
+            if (pendingRows == 0) {
+                return;
+            }
+            Map<String, VariantKeyRow> existing = new HashMap<>();
+            for (VariantKeyRow row : productVariantRepository.findKeysBySkuIn(
+                    pending.values().stream().map(VariantRow::sku).toList())) {
+                existing.put(key(row.getSku()), row);
+            }
+
+            List<VariantRow> inserts = new ArrayList<>();
+            List<VariantRow> updates = new ArrayList<>();
+            Set<Long> changed = new HashSet<>();
+            for (Map.Entry<String, VariantRow> entry : pending.entrySet()) {
+                VariantRow row = entry.getValue();
+                VariantKeyRow current = existing.get(entry.getKey());
+                changed.add(row.productId());
+                if (current == null) {
+                    inserts.add(row);
+                } else {
+                    // Biến thể chuyển sang sản phẩm khác → sản phẩm cũ cũng đổi
+                    changed.add(current.getProductId());
+                    updates.add(new VariantRow(current.getId(), row.productId(), row.sku(), row.name(),
+                            row.material(), row.gemstone(), row.size(), row.color(), row.weight(),
+                            row.priceModifier(), row.imageUrl()));
+                }
+            }
+            try {
+                catalogBatchWriter.writeVariants(inserts, updates);
+            } catch (DataAccessException e) {
+                throw writeFailed(chunkFirstRow, report, e);
+            }
+            report.setInserted(report.getInserted() + inserts.size());
+            report.setUpdated(report.getUpdated() + pendingRows - inserts.size());
+            eventPublisher.publishEvent(new ProductChangedEvent(changed));
+
+            pending.clear();
+            pendingRows = 0;
+            progress.accept(report.getTotalRows());
+        }
+    }
+
+    private static boolean isPriceModifier(String value) {
+        try {
+            return new BigDecimal(value).abs().compareTo(ExcelService.MAX_PRICE) <= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // ==============================================================
+    // 📦 Tồn kho — khớp theo SKU, số lượng tuyệt đối
+    // ==============================================================
+    private record InventoryLine(int row, String sku, int quantity, Integer lowStockThreshold, int occurrences) {
+    }
+
+    private final class InventoryImport {
+
+        private final IntConsumer progress;
+        private final ImportReportDTO report = new ImportReportDTO();
+        private final Map<String, InventoryLine> pending = new LinkedHashMap<>();
+        private int pendingRows;
+        private int chunkFirstRow;
+
+        InventoryImport(IntConsumer progress) {
+            this.progress = progress;
+        }
+
+        ImportReportDTO run(FeedFormat format, InputStream in) {
+            FeedReader.read(format, in, INVENTORY_COLUMNS, "sku", this::accept);
+            flush();
+            return report;
+        }
+
+        private void accept(FeedReader.Row row) {
+            report.setTotalRows(report.getTotalRows() + 1);
+            String sku = row.get(0);
+            Integer quantity = parseCount(row.get(1));
+            Integer threshold = parseCount(row.get(2));
+            if (sku == null) {
+                report.addError(row.line(), "Thiếu SKU");
+                return;
+            }
+            if (quantity == null) {
+                report.addError(row.line(), row.get(1) == null ? "Thiếu số lượng"
+                        : "Số lượng không hợp lệ: " + row.get(1));
+                return;
+            }
+            if (row.get(2) != null && threshold == null) {
+                report.addError(row.line(), "Ngưỡng cảnh báo không hợp lệ: " + row.get(2));
+                return;
+            }
+            if (pendingRows == 0) {
+                chunkFirstRow = row.line();
+            }
+            pendingRows++;
+            InventoryLine previous = pending.get(key(sku));
+            pending.put(key(sku), new InventoryLine(row.line(), sku, quantity, threshold,
+                    previous == null ? 1 : previous.occurrences() + 1));
+            if (pendingRows >= importChunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pendingRows == 0) {
+                return;
+            }
+            Map<String, VariantKeyRow> variants = new HashMap<>();
+            for (VariantKeyRow row : productVariantRepository.findKeysBySkuIn(
+                    pending.values().stream().map(InventoryLine::sku).toList())) {
+                variants.put(key(row.getSku()), row);
+            }
+
+            List<InventoryRow> rows = new ArrayList<>();
+            Set<Long> changed = new HashSet<>();
+            int inserted = 0;
+            int updated = 0;
+            for (Map.Entry<String, InventoryLine> entry : pending.entrySet()) {
+                InventoryLine line = entry.getValue();
+                VariantKeyRow variant = variants.get(entry.getKey());
+                if (variant == null) {
+                    report.addError(line.row(), "Không tìm thấy SKU: " + line.sku());
+                    report.setFailed(report.getFailed() + line.occurrences() - 1);
+                    continue;
+                }
+                boolean exists = variant.getInventoryId() != null;
+                rows.add(new InventoryRow(variant.getId(), exists, line.quantity(), line.lowStockThreshold()));
+                changed.add(variant.getProductId());
+                inserted += exists ? 0 : 1;
+                updated += line.occurrences() - (exists ? 0 : 1);
+            }
+            if (!rows.isEmpty()) {
+                try {
+                    catalogBatchWriter.writeInventory(rows);
+                } catch (DataAccessException e) {
+                    throw writeFailed(chunkFirstRow, report, e);
+                }
+                eventPublisher.publishEvent(ProductChangedEvent.stockChanged(changed));
+            }
+            report.setInserted(report.getInserted() + inserted);
+            report.setUpdated(report.getUpdated() + updated);
+
+            pending.clear();
+            pendingRows = 0;
+            progress.accept(report.getTotalRows());
+        }
+    }
+
+    // Số nguyên ≥ 0 ("12" hoặc "12.0"); null nếu trống / không hợp lệ
+    static Integer parseCount(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            int count = new BigDecimal(value).intValueExact();
+            return count < 0 ? null : count;
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    // ==============================================================
+    // 🗂️ Danh mục — khớp theo tên, cả file một transaction
+    // ==============================================================
+    private ImportReportDTO importCategories(FeedFormat format, InputStream in, IntConsumer progress) {
+        ImportReportDTO report = new ImportReportDTO();
+        Map<String, CategoryDTO> existing = new HashMap<>();
+        Map<Long, String> existingKeys = new HashMap<>();
+        for (CategoryDTO category : categoryRepository.findAllFlat()) {
+            existing.put(key(category.getName()), category);
+            existingKeys.put(category.getId(), key(category.getName()));
+        }
+
+        // Tên lặp lại trong file → dòng sau thay dòng trước
+        Map<String, FeedReader.Row> rows = new LinkedHashMap<>();
+        int[] duplicates = {0};
+        FeedReader.read(format, in, CATEGORY_COLUMNS, "name", row -> {
+            report.setTotalRows(report.getTotalRows() + 1);
+            if (report.getTotalRows() > MAX_CATEGORY_ROWS) {
+                throw new AppException("File danh mục vượt quá " + MAX_CATEGORY_ROWS + " dòng");
+            }
+            String name = row.get(1);
+            String error = name == null ? "Thiếu tên danh mục"
+                    : tooLong(name, MAX_CATEGORY_NAME_LENGTH, "Tên danh mục");
+            if (error == null) {
+                error = tooLong(row.get(2), MAX_DESCRIPTION_LENGTH, "Mô tả");
+            }
+            if (error != null) {
+                report.addError(row.line(), error);
+            } else if (rows.put(key(name), row) != null) {
+                duplicates[0]++;
+            }
+        });
+
+        // Cha phải có trong DB hoặc là một dòng hợp lệ của file; bỏ một dòng có
+        // thể làm dòng con của nó mất cha → lặp đến khi ổn định
+        boolean removed;
+        do {
+            removed = false;
+            for (Iterator<FeedReader.Row> it = rows.values().iterator(); it.hasNext();) {
+                FeedReader.Row row = it.next();
+                String parent = row.get(3);
+                if (parent != null && !rows.containsKey(key(parent)) && !existing.containsKey(key(parent))) {
+                    report.addError(row.line(), "Không tìm thấy danh mục cha: " + parent);
+                    it.remove();
+                    removed = true;
+                }
+            }
+        } while (removed);
+
+        checkNoCycle(rows, existing, existingKeys);
+
+        List<CategoryRow> writes = new ArrayList<>(rows.size());
+        for (Map.Entry<String, FeedReader.Row> entry : rows.entrySet()) {
+            FeedReader.Row row = entry.getValue();
+            CategoryDTO current = existing.get(entry.getKey());
+            String parent = row.get(3) == null ? null : key(row.get(3));
+            boolean parentInFile = parent != null && rows.containsKey(parent);
+            writes.add(new CategoryRow(current == null ? null : current.getId(), entry.getKey(), row.get(1),
+                    row.get(2), parent == null || parentInFile ? null : existing.get(parent).getId(),
+                    parentInFile ? parent : null));
+            if (current == null) {
+                report.setInserted(report.getInserted() + 1);
+            } else {
+                report.setUpdated(report.getUpdated() + 1);
+            }
+        }
+        report.setUpdated(report.getUpdated() + duplicates[0]);
+
+        if (!writes.isEmpty()) {
+            try {
+                catalogBatchWriter.writeCategories(writes);
+            } catch (DataAccessException e) {
+                throw new AppException("Lỗi ghi danh mục: " + e.getMostSpecificCause().getMessage());
+            }
+            // Nhiều danh mục cùng đổi → listener dựng lại toàn bộ
+            eventPublisher.publishEvent(new CategoryChangedEvent(null));
+        }
+        progress.accept(report.getTotalRows());
+        return report;
+    }
+
+    // Cây sau khi import (DB + file) không được có vòng cha–con
+    private static void checkNoCycle(Map<String, FeedReader.Row> rows, Map<String, CategoryDTO> existing,
+            Map<Long, String> existingKeys) {
+        Map<String, String> parents = new HashMap<>();
+        existing.forEach((key, category) -> parents.put(key, existingKeys.get(category.getParentId())));
+        rows.forEach((key, row) -> parents.put(key, row.get(3) == null ? null : key(row.get(3))));
+
+        for (Map.Entry<String, FeedReader.Row> entry : rows.entrySet()) {
+            String parent = parents.get(entry.getKey());
+            for (int steps = 0; parent != null && steps <= parents.size(); steps++) {
+                if (parent.equals(entry.getKey())) {
+                    throw new AppException("Danh mục cha tạo vòng lặp ở dòng " + entry.getValue().line() + ": "
+                            + entry.getValue().get(1));
+                }
+                parent = parents.get(parent);
+            }
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package com.jeweleryshop.backend.service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.jeweleryshop.backend.dto.CategoryDTO;
 import com.jeweleryshop.backend.entity.Category;
+import com.jeweleryshop.backend.event.CategoryChangedEvent;
 import com.jeweleryshop.backend.exception.DuplicateResourceException;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.repository.CategoryRepository;
@@ -16,51 +17,39 @@ import com.jeweleryshop.backend.repository.CategoryRepository;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final CategoryTreeService categoryTreeService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository,
+            CategoryTreeService categoryTreeService,
+            ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
+        this.categoryTreeService = categoryTreeService;
+        this.eventPublisher = eventPublisher;
     }
 
     // =====================================================
     // 📖 LẤY DANH SÁCH DANH MỤC (Public / Admin)
     // =====================================================
-    @Transactional(readOnly = true)
+    // ✅ Đọc từ snapshot cây danh mục trong bộ nhớ → không truy vấn DB
     public List<CategoryDTO> getAllCategories() {
-        return categoryRepository.findAll()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return categoryTreeService.current().toDTOs();
     }
 
     // =====================================================
     // 🌍 LẤY DANH SÁCH DANH MỤC CHO FE / AI CHATBOX (PUBLIC)
     // =====================================================
-    @Transactional(readOnly = true)
     public List<CategoryDTO> getPublicCategories() {
-        return categoryRepository.findAll()
-                .stream()
-                .map(category -> {
-                    CategoryDTO dto = new CategoryDTO();
-                    dto.setId(category.getId());
-                    dto.setName(category.getName());
-                    dto.setDescription(category.getDescription());
-                    dto.setParentId(category.getParent() != null ? category.getParent().getId() : null);
-                    dto.setCreatedAt(category.getCreatedAt());
-                    dto.setUpdatedAt(category.getUpdatedAt());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        return categoryTreeService.current().toDTOs();
     }
 
     // =====================================================
     // 🔍 LẤY DANH MỤC THEO ID
     // =====================================================
-    @Transactional(readOnly = true)
     public CategoryDTO getCategoryById(Long id) {
-        Category category = categoryRepository.findById(id)
+        return categoryTreeService.current().find(id)
                 .orElseThrow(()
                         -> new ResourceNotFoundException("Category not found with id: " + id));
-        return convertToDTO(category);
     }
 
     // =====================================================
@@ -90,6 +79,7 @@ public class CategoryService {
         }
 
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId()));
         return convertToDTO(savedCategory);
     }
 
@@ -127,6 +117,7 @@ public class CategoryService {
         }
 
         Category updated = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
         return convertToDTO(updated);
     }
 
@@ -139,6 +130,7 @@ public class CategoryService {
                 .orElseThrow(()
                         -> new ResourceNotFoundException("Category not found with id: " + id));
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 
     // =====================================================
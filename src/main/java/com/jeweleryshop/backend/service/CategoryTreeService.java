@@ -0,0 +1,82 @@
+package com.jeweleryshop.backend.service;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.jeweleryshop.backend.cache.CategoryTreeSnapshot;
+import com.jeweleryshop.backend.event.CategoryChangedEvent;
+import com.jeweleryshop.backend.repository.CategoryRepository;
+
+/**
+ * 🌳 Giữ snapshot cây danh mục trong bộ nhớ.
+ *
+ * Người đọc chỉ đọc một tham chiếu volatile → không khóa, không chạm DB.
+ * Snapshot được dựng lại toàn bộ (một câu SELECT) sau khi transaction sửa danh
+ * mục commit, và tự làm mới sau {@code max-age} để các instance khác cũng
+ * nhận được thay đổi.
+ */
+@Service
+public class CategoryTreeService {
+
+    private final CategoryRepository categoryRepository;
+    private final long maxAgeNanos;
+
+    private volatile CategoryTreeSnapshot snapshot;
+    private volatile long builtAtNanos;
+
+    public CategoryTreeService(CategoryRepository categoryRepository,
+            @Value("${app.cache.category-tree.max-age-seconds:300}") long maxAgeSeconds) {
+        this.categoryRepository = categoryRepository;
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+    }
+
+    public CategoryTreeSnapshot current() {
+        CategoryTreeSnapshot current = snapshot;
+        if (current == null || isExpired()) {
+            return refreshIfStale();
+        }
+        return current;
+    }
+
+    /**
+     * @return id danh mục cùng toàn bộ danh mục con cháu (rỗng nếu không tồn tại)
+     */
+    public Set<Long> getDescendantIds(Long categoryId) {
+        return current().getDescendantIds(categoryId);
+    }
+
+    public synchronized CategoryTreeSnapshot refresh() {
+        CategoryTreeSnapshot fresh = CategoryTreeSnapshot.build(categoryRepository.findAllFlat());
+        builtAtNanos = System.nanoTime();
+        snapshot = fresh;
+        return fresh;
+    }
+
+    // ✅ Dựng lại sau commit để snapshot mới chắc chắn thấy dữ liệu đã lưu
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // Không làm hỏng request đã commit — lần đọc kế tiếp sẽ dựng lại
+            snapshot = null;
+        }
+    }
+
+    // Nhiều thread cùng thấy snapshot cũ → chỉ thread đầu tiên truy vấn DB
+    private synchronized CategoryTreeSnapshot refreshIfStale() {
+        CategoryTreeSnapshot current = snapshot;
+        if (current != null && !isExpired()) {
+            return current;
+        }
+        return refresh();
+    }
+
+    private boolean isExpired() {
+        return System.nanoTime() - builtAtNanos > maxAgeNanos;
+    }
+}
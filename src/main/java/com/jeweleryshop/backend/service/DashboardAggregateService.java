@@ -0,0 +1,119 @@
+package com.jeweleryshop.backend.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.jeweleryshop.backend.entity.DailyStats;
+import com.jeweleryshop.backend.entity.OrderStatus;
+import com.jeweleryshop.backend.event.OrderStatusChangedEvent;
+import com.jeweleryshop.backend.event.UserCountChangedEvent;
+import com.jeweleryshop.backend.repository.DailyStatsRepository;
+import com.jeweleryshop.backend.repository.OrderRepository;
+import com.jeweleryshop.backend.repository.UserRepository;
+import com.jeweleryshop.backend.repository.projection.DailyCountRow;
+
+/**
+ * 📈 Duy trì bảng {@code daily_stats} mà dashboard đọc.
+ *
+ * <ul>
+ * <li>Sau khi transaction đặt đơn / đổi trạng thái / đăng ký commit, cộng dồn
+ * phần chênh lệch vào dòng của ngày bằng một câu upsert.</li>
+ * <li>Doanh thu chỉ tính đơn DELIVERED: vào DELIVERED thì cộng, rời DELIVERED
+ * thì trừ.</li>
+ * <li>Mỗi đêm (và lúc khởi động nếu bảng rỗng) dựng lại toàn bộ từ bảng
+ * orders / users — sửa mọi sai lệch do cập nhật bị mất hoặc sửa tay DB.</li>
+ * </ul>
+ */
+@Service
+public class DashboardAggregateService {
+
+    private final DailyStatsRepository dailyStatsRepository;
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+
+    public DashboardAggregateService(DailyStatsRepository dailyStatsRepository,
+            OrderRepository orderRepository,
+            UserRepository userRepository) {
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+    }
+
+    // ==============================================================
+    // ✏️ Cập nhật tăng dần sau commit
+    // ==============================================================
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        long orders = event.getPreviousStatus() == null ? 1 : 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+        if (event.getNewStatus() == OrderStatus.DELIVERED) {
+            revenue = revenue.add(event.getTotalAmount());
+        }
+        if (event.getPreviousStatus() == OrderStatus.DELIVERED) {
+            revenue = revenue.subtract(event.getTotalAmount());
+        }
+        if (orders == 0 && revenue.signum() == 0) {
+            return;
+        }
+        dailyStatsRepository.add(event.getOrderDay(), revenue, orders, 0);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onUserCountChanged(UserCountChangedEvent event) {
+        dailyStatsRepository.add(event.getRegisteredDay(), BigDecimal.ZERO, 0, event.getDelta());
+    }
+
+    // ==============================================================
+    // 🔄 Đối soát toàn bộ
+    // ==============================================================
+    @Scheduled(cron = "${app.dashboard.reconcile-cron:0 30 2 * * *}")
+    @Transactional
+    public int reconcile() {
+        Map<LocalDate, DailyStats> byDay = new TreeMap<>();
+        for (DailyCountRow row : orderRepository.countDaily()) {
+            if (row.getDay() == null) {
+                continue;
+            }
+            DailyStats stats = byDay.computeIfAbsent(row.getDay(), DashboardAggregateService::emptyDay);
+            stats.setOrderCount(row.getCount());
+            stats.setRevenue(row.getRevenue() != null ? row.getRevenue() : BigDecimal.ZERO);
+        }
+        for (DailyCountRow row : userRepository.countDaily()) {
+            if (row.getDay() == null) {
+                continue;
+            }
+            byDay.computeIfAbsent(row.getDay(), DashboardAggregateService::emptyDay)
+                    .setNewUserCount(row.getCount());
+        }
+
+        List<DailyStats> rebuilt = List.copyOf(byDay.values());
+        dailyStatsRepository.deleteAllInBatch();
+        dailyStatsRepository.saveAll(rebuilt);
+        return rebuilt.size();
+    }
+
+    // Lần đầu chạy sau khi thêm bảng → dựng từ dữ liệu có sẵn
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeIfEmpty() {
+        if (dailyStatsRepository.count() == 0) {
+            reconcile();
+        }
+    }
+
+    private static DailyStats emptyDay(LocalDate day) {
+        return new DailyStats(day, BigDecimal.ZERO, 0, 0);
+    }
+}
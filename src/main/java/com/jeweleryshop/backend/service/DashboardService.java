@@ -2,106 +2,160 @@ package com.jeweleryshop.backend.service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import com.jeweleryshop.backend.dto.DashboardStatsDTO;
 import com.jeweleryshop.backend.dto.DashboardStatsDTO.TopSellingProductDTO;
-import com.jeweleryshop.backend.entity.Category;
+import com.jeweleryshop.backend.event.CategoryChangedEvent;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
 import com.jeweleryshop.backend.repository.CategoryRepository;
+import com.jeweleryshop.backend.repository.DailyStatsRepository;
 import com.jeweleryshop.backend.repository.OrderDetailRepository;
-import com.jeweleryshop.backend.repository.OrderRepository;
-import com.jeweleryshop.backend.repository.ProductRepository;
-import com.jeweleryshop.backend.repository.UserRepository;
-
+import com.jeweleryshop.backend.repository.projection.CategoryProductCountRow;
+import com.jeweleryshop.backend.repository.projection.DashboardTotalsRow;
+
+/**
+ * 📊 Số liệu dashboard.
+ *
+ * <ul>
+ * <li>Doanh thu / số đơn / người dùng mới: một câu SELECT trên bảng
+ * {@code daily_stats} (một dòng mỗi ngày, do {@link DashboardAggregateService}
+ * duy trì).</li>
+ * <li>Số sản phẩm theo danh mục: giữ trong bộ nhớ, đếm lại bằng một câu
+ * GROUP BY khi sản phẩm / danh mục thay đổi.</li>
+ * <li>Top sản phẩm bán chạy: nhớ kết quả tối đa {@code max-age} giây.</li>
+ * </ul>
+ */
 @Service
 public class DashboardService {
 
-    private final OrderRepository orderRepository;
-    private final UserRepository userRepository;
+    private static final int TOP_PRODUCTS = 5;
+
+    private final DailyStatsRepository dailyStatsRepository;
     private final OrderDetailRepository orderDetailRepository;
-    private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final long topProductsMaxAgeNanos;
 
-    public DashboardService(OrderRepository orderRepository,
-            UserRepository userRepository,
+    // null = cần đếm lại
+    private volatile ProductCounts productCounts;
+    private volatile List<TopSellingProductDTO> topSellingProducts;
+    private volatile long topProductsBuiltAtNanos;
+
+    public DashboardService(DailyStatsRepository dailyStatsRepository,
             OrderDetailRepository orderDetailRepository,
-            ProductRepository productRepository,
-            CategoryRepository categoryRepository) {
-        this.orderRepository = orderRepository;
-        this.userRepository = userRepository;
+            CategoryRepository categoryRepository,
+            @Value("${app.dashboard.top-products-max-age-seconds:300}") long topProductsMaxAgeSeconds) {
+        this.dailyStatsRepository = dailyStatsRepository;
         this.orderDetailRepository = orderDetailRepository;
-        this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
+        this.topProductsMaxAgeNanos = TimeUnit.SECONDS.toNanos(topProductsMaxAgeSeconds);
     }
 
     @Transactional(readOnly = true)
     public DashboardStatsDTO getDashboardStats() {
-        // --- Time Ranges ---
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startOfMonth = YearMonth.now().atDay(1).atStartOfDay();
-        LocalDateTime startOfLastMonth = startOfMonth.minusMonths(1);
-        LocalDateTime endOfLastMonth = startOfMonth.minusNanos(1);
-        LocalDateTime startOfLast7Days = now.minusDays(7);
-
-        // --- Core Stats ---
-        BigDecimal totalRevenue = orderRepository.findTotalRevenue().orElse(BigDecimal.ZERO);
-        long totalOrders = orderRepository.count();
-        BigDecimal revenueThisMonth = orderRepository.findTotalRevenueSince(startOfMonth).orElse(BigDecimal.ZERO);
-        BigDecimal revenueLast7Days = orderRepository.findTotalRevenueSince(startOfLast7Days).orElse(BigDecimal.ZERO);
-
-        // --- Monthly Stats ---
-        long newUsersThisMonth = userRepository.countByCreatedAtBetween(startOfMonth, now);
-        long newOrdersThisMonth = orderRepository.countByOrderDateBetween(startOfMonth, now);
-
-        // --- Growth Calculation ---
-        long newUsersLastMonth = userRepository.countByCreatedAtBetween(startOfLastMonth, endOfLastMonth);
-        long newOrdersLastMonth = orderRepository.countByOrderDateBetween(startOfLastMonth, endOfLastMonth);
-
-        Double userGrowth = calculateGrowthPercentage(newUsersLastMonth, newUsersThisMonth);
-        Double orderGrowth = calculateGrowthPercentage(newOrdersLastMonth, newOrdersThisMonth);
-
-        // --- Top Selling Products ---
-        List<TopSellingProductDTO> topSellingProducts
-                = orderDetailRepository.findTopSellingProducts(PageRequest.of(0, 5));
+        // --- Time Ranges (theo ngày, khớp độ mịn của daily_stats) ---
+        LocalDate today = LocalDate.now();
+        LocalDate startOfMonth = YearMonth.from(today).atDay(1);
+        LocalDate startOfLastMonth = startOfMonth.minusMonths(1);
+        LocalDate startOfLast7Days = today.minusDays(6);
 
-        // --- Product Statistics ---
-        long totalProducts = productRepository.count();
-        long activeProducts = productRepository.findByIsActiveTrue().size();
+        // --- Core + Monthly Stats: một câu truy vấn ---
+        DashboardTotalsRow totals = dailyStatsRepository.findTotals(startOfMonth, startOfLastMonth, startOfLast7Days);
 
-        Map<String, Long> productsByCategory = new HashMap<>();
-        for (Category category : categoryRepository.findAll()) {
-            long count = category.getProducts() != null ? category.getProducts().size() : 0;
-            productsByCategory.put(category.getName(), count);
-        }
+        // --- Growth Calculation ---
+        Double userGrowth = calculateGrowthPercentage(totals.getUsersLastMonth(), totals.getUsersThisMonth());
+        Double orderGrowth = calculateGrowthPercentage(totals.getOrdersLastMonth(), totals.getOrdersThisMonth());
 
         // --- Build DTO ---
         DashboardStatsDTO dto = new DashboardStatsDTO(
-                totalRevenue,
-                revenueThisMonth,
-                revenueLast7Days,
-                totalOrders,
-                newUsersThisMonth,
-                newOrdersThisMonth,
+                totals.getTotalRevenue(),
+                totals.getRevenueThisMonth(),
+                totals.getRevenueLast7Days(),
+                totals.getTotalOrders(),
+                totals.getUsersThisMonth(),
+                totals.getOrdersThisMonth(),
                 userGrowth,
                 orderGrowth,
-                topSellingProducts
+                topSellingProducts()
         );
 
-        dto.setTotalProducts(totalProducts);
-        dto.setActiveProducts(activeProducts);
-        dto.setProductsByCategory(productsByCategory);
+        // --- Product Statistics ---
+        ProductCounts counts = productCounts();
+        dto.setTotalProducts(counts.total());
+        dto.setActiveProducts(counts.active());
+        dto.setProductsByCategory(new HashMap<>(counts.byCategory()));
 
         return dto;
     }
 
+    // ==============================================================
+    // 📦 Số sản phẩm
+    // ==============================================================
+    private record ProductCounts(long total, long active, Map<String, Long> byCategory) {
+    }
+
+    private ProductCounts productCounts() {
+        ProductCounts current = productCounts;
+        return current != null ? current : recountProducts();
+    }
+
+    // Nhiều request cùng thấy null → chỉ request đầu tiên truy vấn DB
+    private synchronized ProductCounts recountProducts() {
+        ProductCounts current = productCounts;
+        if (current != null) {
+            return current;
+        }
+        long total = 0;
+        long active = 0;
+        Map<String, Long> byCategory = new HashMap<>();
+        for (CategoryProductCountRow row : categoryRepository.countProductsByCategory()) {
+            total += row.getProductCount();
+            active += row.getActiveCount();
+            byCategory.put(row.getCategoryName(), row.getProductCount());
+        }
+        current = new ProductCounts(total, active, Map.copyOf(byCategory));
+        productCounts = current;
+        return current;
+    }
+
+    // Tồn kho không ảnh hưởng số lượng sản phẩm → bỏ qua đặt / hủy đơn
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.isStockOnly()) {
+            productCounts = null;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        productCounts = null;
+    }
+
+    // ==============================================================
+    // 🏆 Top sản phẩm bán chạy
+    // ==============================================================
+    private List<TopSellingProductDTO> topSellingProducts() {
+        List<TopSellingProductDTO> current = topSellingProducts;
+        if (current != null && System.nanoTime() - topProductsBuiltAtNanos <= topProductsMaxAgeNanos) {
+            return current;
+        }
+        current = List.copyOf(orderDetailRepository.findTopSellingProducts(PageRequest.of(0, TOP_PRODUCTS)));
+        topProductsBuiltAtNanos = System.nanoTime();
+        topSellingProducts = current;
+        return current;
+    }
+
     private Double calculateGrowthPercentage(long previous, long current) {
         if (previous == 0) {
             return (current > 0) ? 100.0 : 0.0;
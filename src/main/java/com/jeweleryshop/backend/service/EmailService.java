@@ -1,23 +1,40 @@
 package com.jeweleryshop.backend.service;
 
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import java.time.LocalDateTime;
+
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.jeweleryshop.backend.entity.EmailOutbox;
+import com.jeweleryshop.backend.event.EmailQueuedEvent;
+import com.jeweleryshop.backend.repository.EmailOutboxRepository;
 
+/**
+ * ✉️ Gửi thư qua outbox: chỉ ghi một dòng vào bảng email_outbox trong
+ * transaction hiện tại — request không phải chờ SMTP.
+ * {@link com.jeweleryshop.backend.mail.EmailOutboxDispatcher} gửi sau commit.
+ */
 @Service
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public EmailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public EmailService(EmailOutboxRepository emailOutboxRepository, ApplicationEventPublisher eventPublisher) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public void sendOtpEmail(String to, String otp) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject("Your Jewelry Shop Login OTP Code");
-        message.setText("Your OTP code is: " + otp + "\n\nThis code will expire in 5 minutes.");
-        mailSender.send(message);
+        enqueue(to, "Your Jewelry Shop Login OTP Code",
+                "Your OTP code is: " + otp + "\n\nThis code will expire in 5 minutes.");
+    }
+
+    @Transactional
+    public EmailOutbox enqueue(String to, String subject, String text) {
+        EmailOutbox email = emailOutboxRepository.save(new EmailOutbox(to, subject, text, LocalDateTime.now()));
+        eventPublisher.publishEvent(new EmailQueuedEvent(email.getId()));
+        return email;
     }
 }
@@ -1,84 +1,311 @@
 package com.jeweleryshop.backend.service;
 
-import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.jeweleryshop.backend.entity.Category;
-import com.jeweleryshop.backend.entity.Product;
+import com.jeweleryshop.backend.dto.CategoryDTO;
+import com.jeweleryshop.backend.dto.ImportReportDTO;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+import com.jeweleryshop.backend.exception.AppException;
 import com.jeweleryshop.backend.repository.CategoryRepository;
+import com.jeweleryshop.backend.repository.ProductBatchWriter;
+import com.jeweleryshop.backend.repository.ProductBatchWriter.ProductRow;
 import com.jeweleryshop.backend.repository.ProductRepository;
+import com.jeweleryshop.backend.repository.projection.IdLabelRow;
+import com.jeweleryshop.backend.repository.projection.ProductExportRow;
 import com.jeweleryshop.backend.utils.ExcelHelper;
+import com.jeweleryshop.backend.utils.ProductExcelReader;
+import com.jeweleryshop.backend.utils.ProductImportRow;
 
 @Service
 public class ExcelService {
 
-    @Autowired
-    private ProductRepository productRepository;
+    static final int EXPORT_PAGE_SIZE = 1000;
 
-    @Autowired
-    private CategoryRepository categoryRepository;
+    // Giới hạn cột products (độ dài / DECIMAL(10,2)) — kiểm tra trước để lỗi
+    // chỉ rơi vào dòng đó thay vì làm hỏng cả khúc
+    static final int MAX_NAME_LENGTH = 255;
+    static final int MAX_SKU_PREFIX_LENGTH = 50;
+    static final int MAX_IMAGE_URL_LENGTH = 500;
+    static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+    private static final Set<String> TRUE_VALUES = Set.of("true", "1", "yes", "active", "có");
 
-    public ByteArrayInputStream exportProductsToExcel() {
-        List<Product> products = productRepository.findAll();
-        List<Category> categories = categoryRepository.findAll();
-        return ExcelHelper.productsAndCategoriesToExcel(products, categories);
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductBatchWriter productBatchWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int importChunkSize;
+
+    public ExcelService(ProductRepository productRepository,
+            CategoryRepository categoryRepository,
+            ProductBatchWriter productBatchWriter,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.excel.import.chunk-size:1000}") int importChunkSize) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productBatchWriter = productBatchWriter;
+        this.eventPublisher = eventPublisher;
+        this.importChunkSize = importChunkSize;
     }
 
-    public void importProductsFromExcel(MultipartFile file) {
-        try {
-            List<Category> categories = categoryRepository.findAll();
-            List<Product> products = ExcelHelper.excelToProducts(file.getInputStream(), categories);
-
-            int successCount = 0;
-            int updateCount = 0;
-
-            // Save products
-            for (Product product : products) {
-                // Check if product exists (by name)
-                Product existingProduct = productRepository.findByName(product.getName())
-                        .orElse(null);
-
-                if (existingProduct != null) {
-                    // Update existing product
-                    existingProduct.setDescription(product.getDescription());
-                    existingProduct.setBasePrice(product.getBasePrice());
-                    existingProduct.setDiscountPrice(product.getDiscountPrice());
-                    existingProduct.setSkuPrefix(product.getSkuPrefix());
-                    existingProduct.setCategory(product.getCategory());
-                    existingProduct.setIsActive(product.getIsActive());
-                    existingProduct.setImageUrl(product.getImageUrl());
-                    productRepository.save(existingProduct);
-                    updateCount++;
-                } else {
-                    // Create new product
-                    productRepository.save(product);
-                    successCount++;
-                }
-            }
-
-            // Log kết quả import
-            System.out.println("Import thành công: " + successCount + " sản phẩm mới, " + updateCount + " sản phẩm được cập nhật");
+    /**
+     * Ghi file Excel (Products + Categories) thẳng vào {@code out}. Sản phẩm được
+     * đọc từng trang {@code EXPORT_PAGE_SIZE} dòng theo keyset → bộ nhớ không
+     * phụ thuộc số sản phẩm.
+     */
+    public void exportProductsToExcel(OutputStream out) {
+        exportProductsToExcel(out, written -> {
+        });
+    }
+
+    /**
+     * @param progress nhận số sản phẩm đã ghi sau mỗi trang
+     */
+    public void exportProductsToExcel(OutputStream out, IntConsumer progress) {
+        ExcelHelper.writeProductsAndCategories(out, consumer -> forEachProductRow(consumer, progress),
+                categoryRepository.findAllFlat());
+    }
 
+    private void forEachProductRow(Consumer<ProductExportRow> consumer, IntConsumer progress) {
+        long afterId = 0;
+        int written = 0;
+        List<ProductExportRow> page;
+        do {
+            page = productRepository.findExportRowsAfter(afterId, PageRequest.of(0, EXPORT_PAGE_SIZE));
+            page.forEach(consumer);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+                written += page.size();
+                progress.accept(written);
+            }
+        } while (page.size() == EXPORT_PAGE_SIZE);
+    }
+
+    // ==============================================================
+    // 📥 Import
+    // ==============================================================
+    public ImportReportDTO importProductsFromExcel(MultipartFile file) {
+        Path temp = null;
+        try {
+            // Event reader của POI đọc từ file (truy cập ngẫu nhiên vào zip)
+            temp = Files.createTempFile("product-import-", ".xlsx");
+            file.transferTo(temp);
+            return importProducts(temp.toFile(), processed -> {
+            });
         } catch (IOException e) {
-            throw new RuntimeException("Lỗi khi import file Excel: " + e.getMessage());
+            throw new AppException("Lỗi khi đọc file Excel: " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                temp.toFile().delete();
+            }
         }
     }
 
     /**
-     * Phương thức để lấy số lượng sản phẩm đã import (dùng cho controller)
+     * Đọc file một lượt (SAX) và ghi từng khúc {@code chunk-size} dòng, mỗi khúc
+     * một transaction. Sản phẩm trùng tên (không phân biệt hoa thường) được cập
+     * nhật, còn lại thêm mới; dòng không hợp lệ được bỏ qua và ghi vào báo cáo.
+     *
+     * @param progress nhận số dòng đã xử lý sau mỗi khúc
+     * @throws AppException file không đọc được hoặc một khúc ghi DB thất bại
+     *                      (các khúc trước đó vẫn giữ nguyên)
+     */
+    public ImportReportDTO importProducts(File file, IntConsumer progress) {
+        return importProductRows(rows -> ProductExcelReader.read(file, rows), progress);
+    }
+
+    /**
+     * Cùng đường ghi theo khúc cho nguồn dòng bất kỳ (Excel, CSV, NDJSON).
+     *
+     * @param source đẩy lần lượt từng dòng đọc được vào consumer nhận vào
      */
-    public int getImportedCount(MultipartFile file) {
+    public ImportReportDTO importProductRows(Consumer<Consumer<ProductImportRow>> source, IntConsumer progress) {
+        ImportRun run = new ImportRun(progress);
+        source.accept(run::accept);
+        run.flush();
+
+        ImportReportDTO report = run.report;
+        report.setMessage("Import xong " + report.getTotalRows() + " dòng: " + report.getInserted()
+                + " sản phẩm mới, " + report.getUpdated() + " cập nhật, " + report.getFailed() + " lỗi");
+        return report;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private final class ImportRun {
+
+        private final IntConsumer progress;
+        private final ImportReportDTO report = new ImportReportDTO();
+        private final Map<String, Long> categoryIds = new HashMap<>();
+        // Tên → id của mọi sản phẩm đã có, kể cả vừa thêm ở khúc trước
+        private final Map<String, Long> productIds = new HashMap<>();
+
+        // Khúc đang gom; tên lặp lại trong khúc → dòng sau thay dòng trước
+        private final Map<String, ProductRow> pendingInserts = new LinkedHashMap<>();
+        private final Map<Long, ProductRow> pendingUpdates = new LinkedHashMap<>();
+        private int pendingRows;
+        private int pendingUpdatedRows;
+        private int chunkFirstRow;
+
+        ImportRun(IntConsumer progress) {
+            this.progress = progress;
+            for (CategoryDTO category : categoryRepository.findAllFlat()) {
+                categoryIds.putIfAbsent(key(category.getName()), category.getId());
+            }
+            // Tên trùng sẵn trong DB → cập nhật sản phẩm cũ nhất
+            for (IdLabelRow row : productRepository.findAllNameIds()) {
+                productIds.putIfAbsent(key(row.getLabel()), row.getId());
+            }
+        }
+
+        void accept(ProductImportRow row) {
+            if (row.isBlank()) {
+                return;
+            }
+            report.setTotalRows(report.getTotalRows() + 1);
+            String error = validate(row);
+            if (error != null) {
+                report.addError(row.rowNumber(), error);
+                return;
+            }
+
+            if (pendingRows == 0) {
+                chunkFirstRow = row.rowNumber();
+            }
+            pendingRows++;
+            String key = key(row.name());
+            Long existingId = productIds.get(key);
+            ProductRow product = new ProductRow(existingId, row.name(), row.description(),
+                    new BigDecimal(row.basePrice()), discount(row.discountPrice()), row.skuPrefix(),
+                    categoryIds.get(key(row.category())), isActive(row.active()), row.imageUrl());
+            if (existingId != null) {
+                pendingUpdates.put(existingId, product);
+                pendingUpdatedRows++;
+            } else if (pendingInserts.put(key, product) != null) {
+                pendingUpdatedRows++;
+            }
+
+            if (pendingRows >= importChunkSize) {
+                flush();
+            }
+        }
+
+        private String validate(ProductImportRow row) {
+            if (row.name() == null) {
+                return "Thiếu tên sản phẩm";
+            }
+            if (row.name().length() > MAX_NAME_LENGTH) {
+                return "Tên sản phẩm dài quá " + MAX_NAME_LENGTH + " ký tự";
+            }
+            BigDecimal basePrice = parsePrice(row.basePrice());
+            if (basePrice == null) {
+                return row.basePrice() == null ? "Thiếu giá gốc" : "Giá gốc không hợp lệ: " + row.basePrice();
+            }
+            if (row.discountPrice() != null && parsePrice(row.discountPrice()) == null
+                    && !isZeroOrNegative(row.discountPrice())) {
+                return "Giá khuyến mãi không hợp lệ: " + row.discountPrice();
+            }
+            if (row.category() == null) {
+                return "Thiếu danh mục";
+            }
+            if (!categoryIds.containsKey(key(row.category()))) {
+                return "Không tìm thấy danh mục: " + row.category();
+            }
+            if (row.skuPrefix() != null && row.skuPrefix().length() > MAX_SKU_PREFIX_LENGTH) {
+                return "SKU prefix dài quá " + MAX_SKU_PREFIX_LENGTH + " ký tự";
+            }
+            if (row.imageUrl() != null && row.imageUrl().length() > MAX_IMAGE_URL_LENGTH) {
+                return "Image URL dài quá " + MAX_IMAGE_URL_LENGTH + " ký tự";
+            }
+            return null;
+        }
+
+        void flush() {
+            if (pendingRows == 0) {
+                return;
+            }
+            List<ProductRow> inserts = new ArrayList<>(pendingInserts.values());
+            List<Long> newIds;
+            try {
+                newIds = productBatchWriter.write(inserts, new ArrayList<>(pendingUpdates.values()));
+            } catch (DataAccessException e) {
+                throw new AppException("Lỗi ghi dữ liệu từ dòng " + chunkFirstRow + " (đã lưu "
+                        + (report.getInserted() + report.getUpdated()) + " dòng trước đó): "
+                        + e.getMostSpecificCause().getMessage());
+            }
+
+            Set<Long> changed = new HashSet<>(pendingUpdates.keySet());
+            for (int i = 0; i < newIds.size(); i++) {
+                productIds.put(key(inserts.get(i).name()), newIds.get(i));
+                changed.add(newIds.get(i));
+            }
+            report.setInserted(report.getInserted() + newIds.size());
+            report.setUpdated(report.getUpdated() + pendingUpdatedRows);
+            eventPublisher.publishEvent(new ProductChangedEvent(changed));
+
+            pendingInserts.clear();
+            pendingUpdates.clear();
+            pendingRows = 0;
+            pendingUpdatedRows = 0;
+            progress.accept(report.getTotalRows());
+        }
+    }
+
+    // ==============================================================
+    // 🔢 Chuyển giá trị ô
+    // ==============================================================
+    // null nếu trống, sai định dạng, âm hoặc vượt DECIMAL(10,2)
+    static BigDecimal parsePrice(String value) {
+        if (value == null) {
+            return null;
+        }
         try {
-            List<Category> categories = categoryRepository.findAll();
-            List<Product> products = ExcelHelper.excelToProducts(file.getInputStream(), categories);
-            return products.size();
-        } catch (IOException e) {
-            throw new RuntimeException("Lỗi khi đếm sản phẩm từ file Excel: " + e.getMessage());
+            BigDecimal price = new BigDecimal(value);
+            return price.signum() < 0 || price.compareTo(MAX_PRICE) > 0 ? null : price;
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
+
+    // Giá khuyến mãi ≤ 0 coi như không khuyến mãi
+    private static BigDecimal discount(String value) {
+        BigDecimal price = parsePrice(value);
+        return price != null && price.signum() > 0 ? price : null;
+    }
+
+    private static boolean isZeroOrNegative(String value) {
+        try {
+            return new BigDecimal(value).signum() <= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Ô trống → đang bán
+    static boolean isActive(String value) {
+        return value == null || TRUE_VALUES.contains(value.toLowerCase(Locale.ROOT));
+    }
 }
@@ -1,56 +1,166 @@
 package com.jeweleryshop.backend.service;
 
+import com.jeweleryshop.backend.entity.ImageRendition;
+import com.jeweleryshop.backend.exception.AppException;
 import com.jeweleryshop.backend.exception.FileStorageException;
+import com.jeweleryshop.backend.utils.ImageResizer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.Objects;
-import java.util.UUID;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
 
+/**
+ * 🗄️ Lưu ảnh upload theo nội dung: tên file là SHA-256 của ảnh
+ * ({@code <upload.dir>/media/<hash>.<ext>}) nên upload trùng chỉ lưu một bản
+ * và nội dung sau một URL không bao giờ đổi (cache lâu được). Các cỡ thu nhỏ
+ * nằm cạnh ảnh gốc ({@link ImageRendition}).
+ *
+ * File tạm (đang chép / đang ghi dở) nằm ở {@code app.upload.tmp-dir}, ngoài
+ * thư mục được phục vụ công khai; thư mục này phải cùng ổ đĩa với upload.dir
+ * để đổi tên sang media bằng ATOMIC_MOVE.
+ */
 @Service
 public class FileStorageService {
 
-    private final Path fileStorageLocation;
+    public static final String MEDIA_DIR = "media";
+    // Chặn "bom giải nén": file vài KB nhưng khai báo hàng trăm triệu điểm ảnh
+    static final long MAX_PIXELS = 60_000_000L;
+    private static final float JPEG_QUALITY = 0.85f;
 
-    public FileStorageService(@Value("${app.upload.dir}") String uploadDir) {
-        this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+    // Định dạng ImageIO đọc được và trình duyệt hiển thị được → đuôi file
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "jpeg", "jpg",
+            "png", "png",
+            "gif", "gif",
+            "bmp", "bmp");
+
+    /** Ảnh đã lưu: {@code fileName} = {@code <contentHash>.<ext>} trong thư mục media. */
+    public record StoredImage(String contentHash, String fileName) {
+    }
+
+    private final Path mediaLocation;
+    private final Path tempLocation;
+
+    public FileStorageService(@Value("${app.upload.dir}") String uploadDir,
+            @Value("${app.upload.tmp-dir}") String tmpDir) {
+        Path uploadLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.mediaLocation = uploadLocation.resolve(MEDIA_DIR);
+        this.tempLocation = Paths.get(tmpDir).toAbsolutePath().normalize();
+        // /images/** và /uploads/** phục vụ cả thư mục upload → file tạm không được nằm trong đó
+        if (tempLocation.startsWith(uploadLocation)) {
+            throw new FileStorageException("app.upload.tmp-dir must not be inside app.upload.dir.");
+        }
         try {
-            Files.createDirectories(this.fileStorageLocation);
+            Files.createDirectories(this.mediaLocation);
+            Files.createDirectories(this.tempLocation);
         } catch (Exception ex) {
             throw new FileStorageException("Could not create the directory where the uploaded files will be stored.", ex);
         }
     }
 
-    public String storeFile(MultipartFile file) {
-        String originalFileName = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
-
+    /**
+     * Băm nội dung trong lúc chép ra file tạm rồi đổi tên thành
+     * {@code <hash>.<ext>}; đuôi file lấy theo định dạng thật của ảnh, không
+     * theo tên file gửi lên.
+     *
+     * @throws AppException file không phải ảnh JPEG / PNG / GIF / BMP hoặc quá
+     *                      nhiều điểm ảnh
+     */
+    public StoredImage storeImage(MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new AppException("Vui lòng chọn file ảnh!");
+        }
+        Path temp = null;
         try {
-            if (originalFileName.contains("..")) {
-                throw new FileStorageException("Sorry! Filename contains invalid path sequence " + originalFileName);
+            temp = Files.createTempFile(tempLocation, "upload-", ".tmp");
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
             }
+            String hash = HexFormat.of().formatHex(digest.digest());
 
-            // Generate a unique file name
-            String fileExtension = "";
-            try {
-                fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
-            } catch (Exception e) {
-                // ignore
+            ImageResizer.Info info = ImageResizer.probe(temp);
+            String extension = info == null ? null : EXTENSIONS.get(info.format());
+            if (extension == null) {
+                throw new AppException("Chỉ hỗ trợ ảnh JPEG, PNG, GIF hoặc BMP!");
+            }
+            if ((long) info.width() * info.height() > MAX_PIXELS) {
+                throw new AppException("Ảnh quá lớn (" + info.width() + "x" + info.height() + " điểm ảnh)!");
             }
-            String newFileName = UUID.randomUUID().toString() + fileExtension;
-
-            Path targetLocation = this.fileStorageLocation.resolve(newFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
 
-            return newFileName;
+            String fileName = hash + "." + extension;
+            Path target = mediaLocation.resolve(fileName);
+            // 🔁 Đã có cùng nội dung → bỏ file tạm, dùng lại bản cũ
+            if (!Files.exists(target)) {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new StoredImage(hash, fileName);
         } catch (IOException ex) {
-            throw new FileStorageException("Could not store file " + originalFileName + ". Please try again!", ex);
+            throw new FileStorageException("Could not store file " + file.getOriginalFilename() + ". Please try again!", ex);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    public Path resolveMedia(String fileName) {
+        return mediaLocation.resolve(fileName);
+    }
+
+    public boolean hasRenditions(String contentHash) {
+        for (ImageRendition rendition : ImageRendition.values()) {
+            if (!Files.exists(mediaLocation.resolve(rendition.fileName(contentHash)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ghi một cỡ thu nhỏ qua file tạm rồi đổi tên — URL chỉ thấy file khi đã
+     * ghi trọn.
+     */
+    public void storeRendition(String contentHash, ImageRendition rendition, BufferedImage image) throws IOException {
+        Path temp = Files.createTempFile(tempLocation, "rendition-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                ImageResizer.writeJpeg(image, out, JPEG_QUALITY);
+            }
+            Files.move(temp, mediaLocation.resolve(rendition.fileName(contentHash)),
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // file tạm sót lại không ảnh hưởng dữ liệu
         }
     }
 }
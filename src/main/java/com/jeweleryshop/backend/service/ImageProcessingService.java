@@ -0,0 +1,125 @@
+package com.jeweleryshop.backend.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.jeweleryshop.backend.entity.ImageRendition;
+import com.jeweleryshop.backend.entity.ProductImage;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+import com.jeweleryshop.backend.event.ProductImageStoredEvent;
+import com.jeweleryshop.backend.repository.ProductImageRepository;
+import com.jeweleryshop.backend.utils.ImageResizer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 🖼️ Sinh các cỡ thu nhỏ ({@link ImageRendition}) cho ảnh sản phẩm trên luồng
+ * nền — request upload trả về ngay, trong lúc chờ các URL cỡ nhỏ trỏ về ảnh
+ * gốc.
+ *
+ * <ul>
+ * <li>Xử lý sau commit: job thấy được dòng ảnh vừa thêm và gắn URL cho mọi
+ * dòng dùng chung file gốc (cùng hash).</li>
+ * <li>{@code workers} luồng, hàng đợi tối đa {@code queue-capacity} ảnh; đầy
+ * thì luồng upload tự xử lý luôn (chậm lại thay vì bỏ ảnh).</li>
+ * <li>Lỗi giải mã chỉ được ghi log: ảnh vẫn hiển thị bằng bản gốc.</li>
+ * </ul>
+ */
+@Service
+public class ImageProcessingService {
+
+    private final FileStorageService fileStorageService;
+    private final ProductImageRepository productImageRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int workers;
+    private final int queueCapacity;
+    private ThreadPoolExecutor executor;
+
+    public ImageProcessingService(FileStorageService fileStorageService,
+            ProductImageRepository productImageRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.images.workers:2}") int workers,
+            @Value("${app.images.queue-capacity:50}") int queueCapacity) {
+        this.fileStorageService = fileStorageService;
+        this.productImageRepository = productImageRepository;
+        this.eventPublisher = eventPublisher;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("image-", 1).daemon(true).factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImageStored(ProductImageStoredEvent event) {
+        executor.execute(() -> process(event.getContentHash(), event.getFileName()));
+    }
+
+    /**
+     * Gắn URL các cỡ thu nhỏ (cùng thư mục với ảnh gốc) vào dòng ảnh; chỉ gọi
+     * khi file các cỡ đã có trên đĩa.
+     */
+    public void applyRenditions(ProductImage image) {
+        String url = image.getImageUrl();
+        String hash = image.getContentHash();
+        image.setLargeUrl(ImageRendition.LARGE.urlFrom(url, hash));
+        image.setMediumUrl(ImageRendition.MEDIUM.urlFrom(url, hash));
+        image.setThumbnailUrl(ImageRendition.THUMBNAIL.urlFrom(url, hash));
+    }
+
+    // ==============================================================
+    // ⚙️ Chạy trên luồng nền
+    // ==============================================================
+    void process(String contentHash, String fileName) {
+        try {
+            // Upload trùng nội dung xếp hàng cùng lúc → chỉ lần đầu phải sinh ảnh
+            if (!fileStorageService.hasRenditions(contentHash)) {
+                generate(contentHash, fileName);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("❌ Image renditions failed for " + fileName + ": " + e.getMessage());
+            return;
+        }
+
+        List<ProductImage> images = productImageRepository.findByContentHash(contentHash);
+        if (images.isEmpty()) {
+            return;
+        }
+        images.forEach(this::applyRenditions);
+        productImageRepository.saveAll(images);
+        eventPublisher.publishEvent(new ProductChangedEvent(
+                images.stream().map(image -> image.getProduct().getId()).toList()));
+    }
+
+    // Cỡ lớn thu từ ảnh gốc, mỗi cỡ sau thu từ cỡ vừa sinh — ít điểm ảnh phải xử lý hơn
+    private void generate(String contentHash, String fileName) throws IOException {
+        BufferedImage image = ImageResizer.read(fileStorageService.resolveMedia(fileName),
+                ImageRendition.LARGE.getMaxSize());
+        for (ImageRendition rendition : ImageRendition.values()) {
+            image = ImageResizer.fit(image, rendition.getMaxSize());
+            fileStorageService.storeRendition(contentHash, rendition, image);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.jeweleryshop.backend.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.repository.InventoryRepository;
+import com.jeweleryshop.backend.repository.ProductVariantRepository;
+
+/**
+ * 📦 Giữ / hoàn tồn kho cho đơn hàng.
+ *
+ * Thay cho việc khóa bi quan từng biến thể rồi sửa entity Inventory: mọi
+ * dòng được gom theo variant id, sắp xếp tăng dần rồi trừ bằng một batch
+ * UPDATE có điều kiện {@code quantity >= ?}. Không có bước đọc-rồi-ghi nên
+ * không thể bán quá số tồn, và thứ tự khóa cố định nên không deadlock.
+ *
+ * Phải chạy trong transaction của người gọi: khi thiếu hàng, exception ném
+ * ra sẽ rollback luôn các dòng đã trừ trước đó trong cùng batch.
+ */
+@Service
+public class InventoryReservationService {
+
+    private final InventoryRepository inventoryRepository;
+    private final ProductVariantRepository variantRepository;
+    private final StockHoldService stockHoldService;
+
+    public InventoryReservationService(InventoryRepository inventoryRepository,
+            ProductVariantRepository variantRepository, StockHoldService stockHoldService) {
+        this.inventoryRepository = inventoryRepository;
+        this.variantRepository = variantRepository;
+        this.stockHoldService = stockHoldService;
+    }
+
+    /**
+     * Trừ kho cho toàn bộ dòng hàng, hoặc ném AppException nếu có biến thể
+     * không đủ hàng. Phần đang được giỏ khác giữ (StockHoldService) không
+     * được đụng tới; phần giỏ này tự giữ thì được dùng.
+     *
+     * @param quantitiesByVariantId variant id → số lượng (trùng id được cộng dồn trước khi gọi)
+     * @param cartId giỏ đang đặt hàng (null nếu không đi qua giỏ)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Map<Long, Integer> quantitiesByVariantId, Long cartId) {
+        Map<Long, Integer> reservedByOthers = new HashMap<>();
+        for (Long variantId : quantitiesByVariantId.keySet()) {
+            int held = stockHoldService.heldByOthers(variantId, cartId);
+            if (held > 0) {
+                reservedByOthers.put(variantId, held);
+            }
+        }
+        Set<Long> unavailable = inventoryRepository.decrementIfAvailable(
+                sorted(quantitiesByVariantId), reservedByOthers);
+        if (!unavailable.isEmpty()) {
+            // Chỉ tra tên sản phẩm khi lỗi → đường thành công không tốn thêm query
+            String productNames = variantRepository.findAllById(unavailable).stream()
+                    .map(variant -> variant.getProduct().getName())
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            throw new AppException("Not enough stock for product: "
+                    + (productNames.isEmpty() ? unavailable : productNames));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Map<Long, Integer> quantitiesByVariantId) {
+        inventoryRepository.increment(sorted(quantitiesByVariantId));
+    }
+
+    // TreeMap theo khóa tự nhiên → batch luôn đi theo variant id tăng dần
+    private SortedMap<Long, Integer> sorted(Map<Long, Integer> quantitiesByVariantId) {
+        return new TreeMap<>(quantitiesByVariantId);
+    }
+}
@@ -11,8 +11,10 @@ import org.springframework.stereotype.Service;
 
 import com.jeweleryshop.backend.entity.User;
 import com.jeweleryshop.backend.entity.Role;
+import com.jeweleryshop.backend.security.VerifiedToken;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -21,14 +23,35 @@ import io.jsonwebtoken.security.Keys;
 @Service
 public class JwtService {
 
-    @Value("${app.jwt.secret}")
-    private String secretKey;
-
-    @Value("${app.jwt.expiration}")
-    private long jwtExpiration;
+    private final long jwtExpiration;
+    private final long refreshExpiration;
+
+    // Key HMAC và parser dựng một lần: cả hai bất biến, dùng chung an toàn giữa các thread
+    private final Key signingKey;
+    private final JwtParser parser;
+
+    public JwtService(
+            @Value("${app.jwt.secret}") String secretKey,
+            @Value("${app.jwt.expiration}") long jwtExpiration,
+            @Value("${app.jwt.refresh-token.expiration}") long refreshExpiration) {
+        this.jwtExpiration = jwtExpiration;
+        this.refreshExpiration = refreshExpiration;
+        // ✅ Key decode an toàn (Base64URL)
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64URL.decode(secretKey));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
 
-    @Value("${app.jwt.refresh-token.expiration}")
-    private long refreshExpiration;
+    /**
+     * ✅ Xác minh token (chữ ký + hạn dùng) với đúng một lần parse.
+     *
+     * @throws io.jsonwebtoken.ExpiredJwtException token đã hết hạn
+     * @throws io.jsonwebtoken.JwtException chữ ký sai / token hỏng
+     */
+    public VerifiedToken verify(String token) {
+        return VerifiedToken.from(extractAllClaims(token));
+    }
 
     // ✅ Trích xuất username từ token
     public String extractUsername(String token) {
@@ -77,36 +100,18 @@ public class JwtService {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    // ✅ Kiểm tra token hợp lệ
+    // ✅ Kiểm tra token hợp lệ — một lần parse cho cả username lẫn hạn dùng
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    // ✅ Kiểm tra token hết hạn
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        final Claims claims = extractAllClaims(token);
+        return claims.getSubject().equals(userDetails.getUsername())
+                && !claims.getExpiration().before(new Date());
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    // ✅ Key decode an toàn (Base64URL)
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64URL.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return parser.parseClaimsJws(token).getBody();
     }
 }
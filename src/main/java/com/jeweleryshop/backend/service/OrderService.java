@@ -1,23 +1,37 @@
 package com.jeweleryshop.backend.service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.jeweleryshop.backend.dto.AddressDTO;
 import com.jeweleryshop.backend.dto.CreateOrderRequestDTO;
+import com.jeweleryshop.backend.dto.OrderCursorPageDTO;
 import com.jeweleryshop.backend.dto.OrderDetailResponseDTO;
+import com.jeweleryshop.backend.dto.OrderSearchFilterDTO;
 import com.jeweleryshop.backend.entity.Address;
 import com.jeweleryshop.backend.entity.Cart;
 import com.jeweleryshop.backend.entity.CartItem;
-import com.jeweleryshop.backend.entity.Inventory;
 import com.jeweleryshop.backend.entity.Order;
 import com.jeweleryshop.backend.entity.OrderDetail;
 import com.jeweleryshop.backend.entity.OrderStatus;
@@ -26,37 +40,67 @@ import com.jeweleryshop.backend.entity.ProductImage;
 import com.jeweleryshop.backend.entity.ProductVariant;
 import com.jeweleryshop.backend.entity.Promotion;
 import com.jeweleryshop.backend.entity.User;
+import com.jeweleryshop.backend.event.CartChangedEvent;
+import com.jeweleryshop.backend.event.CartCheckedOutEvent;
+import com.jeweleryshop.backend.event.OrderStatusChangedEvent;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
 import com.jeweleryshop.backend.exception.AppException;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
+import com.jeweleryshop.backend.pricing.PromotionRuleSet.Line;
+import com.jeweleryshop.backend.pricing.PromotionRuleSet.Quote;
 import com.jeweleryshop.backend.repository.AddressRepository;
 import com.jeweleryshop.backend.repository.CartRepository;
+import com.jeweleryshop.backend.repository.OrderDetailRepository;
 import com.jeweleryshop.backend.repository.OrderRepository;
-import com.jeweleryshop.backend.repository.ProductVariantRepository;
+import com.jeweleryshop.backend.repository.OrderSpecification;
+import com.jeweleryshop.backend.repository.ProductImageRepository;
 import com.jeweleryshop.backend.repository.UserRepository;
+import com.jeweleryshop.backend.security.CurrentUserService;
+import com.jeweleryshop.backend.repository.projection.OrderItemRow;
+import com.jeweleryshop.backend.repository.projection.ProductThumbnailRow;
+import com.jeweleryshop.backend.repository.projection.UserSummaryRow;
 
 @Service
 public class OrderService {
 
+    // Giới hạn số đơn mỗi trang tìm kiếm admin
+    public static final int MAX_ADMIN_PAGE_SIZE = 100;
+
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
     private final AddressRepository addressRepository;
-    private final ProductVariantRepository variantRepository;
+    private final InventoryReservationService inventoryReservationService;
     private final PromotionService promotionService;
+    private final PricingService pricingService;
+    private final OrderDetailRepository orderDetailRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CurrentUserService currentUserService;
 
     public OrderService(
             OrderRepository orderRepository,
             UserRepository userRepository,
             CartRepository cartRepository,
             AddressRepository addressRepository,
-            ProductVariantRepository variantRepository,
-            PromotionService promotionService) {
+            InventoryReservationService inventoryReservationService,
+            PromotionService promotionService,
+            PricingService pricingService,
+            OrderDetailRepository orderDetailRepository,
+            ProductImageRepository productImageRepository,
+            ApplicationEventPublisher eventPublisher,
+            CurrentUserService currentUserService) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.cartRepository = cartRepository;
         this.addressRepository = addressRepository;
-        this.variantRepository = variantRepository;
+        this.inventoryReservationService = inventoryReservationService;
         this.promotionService = promotionService;
+        this.pricingService = pricingService;
+        this.orderDetailRepository = orderDetailRepository;
+        this.productImageRepository = productImageRepository;
+        this.eventPublisher = eventPublisher;
+        this.currentUserService = currentUserService;
     }
 
     // ============================
@@ -64,10 +108,10 @@ public class OrderService {
     // ============================
     @Transactional
     public OrderDetailResponseDTO createOrder(CreateOrderRequestDTO requestDTO) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
 
         Cart cart = cartRepository.findByUserId(currentUser.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user: " + currentUser.getUsername()));
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user: " + currentUserService.get().getUsername()));
 
         if (cart.getItems().isEmpty()) {
             throw new AppException("Cannot create an order with an empty cart.");
@@ -87,22 +131,21 @@ public class OrderService {
         order.setOrderNumber(UUID.randomUUID().toString().substring(0, 8).toUpperCase());
         order.setStatus(OrderStatus.PENDING);
 
-        BigDecimal totalPrice = BigDecimal.ZERO;
+        Set<Long> touchedProductIds = new HashSet<>();
+        List<Line> priceLines = new ArrayList<>(cart.getItems().size());
 
-        // ====== Tạo chi tiết đơn hàng từ giỏ hàng ======
+        // ====== Giữ tồn kho cho cả giỏ trong một batch ======
+        Map<Long, Integer> requestedQuantities = new TreeMap<>();
         for (CartItem cartItem : cart.getItems()) {
-            ProductVariant variant = variantRepository.findWithLockingById(cartItem.getVariant().getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product Variant not found."));
+            requestedQuantities.merge(cartItem.getVariant().getId(), cartItem.getQuantity(), Integer::sum);
+        }
+        inventoryReservationService.reserve(requestedQuantities, cart.getId());
 
+        // ====== Tạo chi tiết đơn hàng từ giỏ hàng ======
+        for (CartItem cartItem : cart.getItems()) {
+            ProductVariant variant = cartItem.getVariant();
             Product product = variant.getProduct();
-            Inventory inventory = variant.getInventory();
-
-            if (inventory == null || inventory.getQuantity() < cartItem.getQuantity()) {
-                throw new AppException("Not enough stock for product: " + product.getName());
-            }
-
-            // Cập nhật tồn kho
-            inventory.setQuantity(inventory.getQuantity() - cartItem.getQuantity());
+            touchedProductIds.add(product.getId());
 
             OrderDetail detail = new OrderDetail();
             detail.setVariant(variant);
@@ -119,40 +162,50 @@ public class OrderService {
             detail.setPriceAtPurchase(effectivePrice);
             order.addOrderDetail(detail);
 
-            totalPrice = totalPrice.add(effectivePrice.multiply(BigDecimal.valueOf(cartItem.getQuantity())));
+            priceLines.add(new Line(effectivePrice, cartItem.getQuantity()));
         }
 
         // ==========================
         // 💰 Tính tổng đơn hàng cuối cùng
         // ==========================
-        BigDecimal shippingFee = BigDecimal.valueOf(30000); // mặc định 30k
-        BigDecimal discountAmount = BigDecimal.ZERO;
-        String discountCode = requestDTO.getDiscountCode();
-
-        if (discountCode != null && discountCode.equalsIgnoreCase("SALE10")) {
-            discountAmount = totalPrice.multiply(BigDecimal.valueOf(0.1)); // giảm 10%
+        // Mã nhập lúc đặt hàng được ưu tiên; không có thì dùng mã đã gắn vào giỏ
+        String requestedCode = requestDTO.getDiscountCode();
+        Promotion cartPromotion = cart.getAppliedPromotion();
+        Quote quote = pricingService.quote(priceLines, requestedCode,
+                cartPromotion != null ? cartPromotion.getId() : null);
+        if (requestedCode != null && !requestedCode.isBlank() && quote.getRejectionReason() != null) {
+            throw new AppException(quote.getRejectionReason());
         }
 
-        BigDecimal finalTotal = totalPrice.subtract(discountAmount).add(shippingFee);
-
-        order.setTotalAmount(totalPrice);
-        order.setShippingFee(shippingFee);
-        order.setDiscountCode(discountCode);
-        order.setDiscountAmount(discountAmount);
-        order.setFinalTotal(finalTotal);
-
-        // Áp dụng khuyến mãi (nếu có)
-        Promotion appliedPromotion = cart.getAppliedPromotion();
-        if (appliedPromotion != null) {
-            promotionService.incrementUsage(appliedPromotion.getCode());
-        }
+        order.setTotalAmount(quote.getSubTotal());
+        order.setShippingFee(quote.getShippingFee());
+        order.setDiscountCode(quote.getAppliedCode());
+        order.setDiscountAmount(quote.getDiscountAmount());
+        order.setFinalTotal(quote.getFinalTotal());
 
         // Lưu đơn hàng
         Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderStatusChangedEvent.created(
+                savedOrder.getOrderDate(), savedOrder.getTotalAmount(), savedOrder.getStatus()));
 
-        // Xóa giỏ hàng sau khi đặt
+        // Xóa giỏ hàng sau khi đặt — mã khuyến mãi của giỏ đã dùng cho đơn này
         cart.getItems().clear();
+        cart.setAppliedPromotion(null);
         cartRepository.save(cart);
+        eventPublisher.publishEvent(new CartChangedEvent(currentUser.getId()));
+
+        // Áp dụng khuyến mãi (nếu có) — câu UPDATE cuối cùng trước commit để khóa
+        // dòng promotion (điểm nóng khi nhiều người dùng chung mã) giữ ngắn nhất
+        if (quote.getAppliedCode() != null) {
+            promotionService.incrementUsage(quote.getAppliedCode());
+        }
+
+        // Kho đã trừ thật → bỏ lượt giữ hàng của giỏ, nhưng chỉ sau commit: đơn
+        // rollback thì giỏ vẫn giữ hàng như trước
+        eventPublisher.publishEvent(new CartCheckedOutEvent(cart.getId()));
+
+        // Tồn kho đã đổi → làm mới cache/chỉ mục của các sản phẩm liên quan
+        eventPublisher.publishEvent(ProductChangedEvent.stockChanged(touchedProductIds));
 
         return convertToDetailDTO(savedOrder);
     }
@@ -162,16 +215,14 @@ public class OrderService {
     // ============================
     @Transactional(readOnly = true)
     public List<OrderDetailResponseDTO> getOrdersForCurrentUser() {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
         List<Order> orders = orderRepository.findByUserIdOrderByOrderDateDesc(currentUser.getId());
-        return orders.stream()
-                .map(this::convertToDetailDTO)
-                .collect(Collectors.toList());
+        return convertToDetailDTOs(orders);
     }
 
     @Transactional(readOnly = true)
     public OrderDetailResponseDTO getOrderDetails(Long orderId) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
         Order order = orderRepository.findByIdWithDetails(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
 
@@ -188,7 +239,53 @@ public class OrderService {
     @Transactional(readOnly = true)
     public Page<OrderDetailResponseDTO> getAllOrders(Pageable pageable) {
         Page<Order> orderPage = orderRepository.findAll(pageable);
-        return orderPage.map(this::convertToDetailDTO);
+        return new PageImpl<>(convertToDetailDTOs(orderPage.getContent()), pageable, orderPage.getTotalElements());
+    }
+
+    /**
+     * Tìm đơn hàng cho admin theo keyset (cursor) trên (order_date, id), mới
+     * nhất trước. Bước 1 chỉ lấy ID qua index ghép của bảng orders, bước 2 nạp
+     * đúng các đơn đó → trang sâu nhanh như trang đầu, không có COUNT(*).
+     */
+    @Transactional(readOnly = true)
+    public OrderCursorPageDTO searchOrders(OrderSearchFilterDTO filter) {
+        int pageSize = Math.max(1, Math.min(filter.getLimit(), MAX_ADMIN_PAGE_SIZE));
+        OrderCursor after = OrderCursor.decode(filter.getCursor());
+
+        Specification<Order> spec = Specification.where(OrderSpecification.hasStatus(filter.getStatus()))
+                .and(OrderSpecification.hasPaymentStatus(filter.getPaymentStatus()))
+                .and(OrderSpecification.hasUser(filter.getUserId()))
+                .and(OrderSpecification.placedFrom(filter.getFrom()))
+                .and(OrderSpecification.placedBefore(filter.getTo()))
+                .and(OrderSpecification.hasOrderNumberPrefix(filter.getOrderNumber()));
+
+        // Lấy dư 1 phần tử để biết còn trang sau hay không
+        List<Long> ids = orderRepository.findIdsBefore(spec,
+                after != null ? after.orderDate : null,
+                after != null ? after.id : null,
+                pageSize + 1);
+        boolean hasMore = ids.size() > pageSize;
+        if (hasMore) {
+            ids = ids.subList(0, pageSize);
+        }
+        if (ids.isEmpty()) {
+            return new OrderCursorPageDTO(List.of(), null, false);
+        }
+
+        // IN (...) không giữ thứ tự → sắp lại theo danh sách ID
+        Map<Long, Order> byId = orderRepository.findWithShippingAddressByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        List<Order> orders = ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore && !orders.isEmpty()) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+        return new OrderCursorPageDTO(convertToDetailDTOs(orders), nextCursor, hasMore);
     }
 
     @Transactional
@@ -198,58 +295,137 @@ public class OrderService {
 
         // Hoàn kho nếu hủy đơn
         if (newStatus == OrderStatus.CANCELLED && order.getStatus() != OrderStatus.CANCELLED) {
+            Set<Long> restockedProductIds = new HashSet<>();
+            Map<Long, Integer> restockQuantities = new TreeMap<>();
             for (OrderDetail detail : order.getOrderDetails()) {
                 ProductVariant variant = detail.getVariant();
-                Inventory inventory = variant.getInventory();
-                if (inventory != null) {
-                    inventory.setQuantity(inventory.getQuantity() + detail.getQuantity());
-                }
+                restockQuantities.merge(variant.getId(), detail.getQuantity(), Integer::sum);
+                restockedProductIds.add(variant.getProduct().getId());
             }
+            inventoryReservationService.release(restockQuantities);
+            eventPublisher.publishEvent(ProductChangedEvent.stockChanged(restockedProductIds));
         }
 
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(newStatus);
+        if (previousStatus != newStatus) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                    order.getOrderDate(), order.getTotalAmount(), previousStatus, newStatus));
+        }
         return convertToDetailDTO(orderRepository.save(order));
     }
 
     // ============================
     // 🔄 CHUYỂN ENTITY → DTO
     // ============================
-    private OrderDetailResponseDTO convertToDetailDTO(Order order) {
-        Address shippingAddress = order.getShippingAddress();
-        AddressDTO addressDTO = null;
-
-        if (shippingAddress != null) {
-            addressDTO = new AddressDTO(
-                    shippingAddress.getId(),
-                    shippingAddress.getFullName(),
-                    shippingAddress.getPhoneNumber(),
-                    shippingAddress.getStreetAddress(),
-                    shippingAddress.getCity(),
-                    shippingAddress.getDistrict(),
-                    shippingAddress.getWard()
-            );
+    // Danh sách đơn hàng: số query cố định cho cả trang, không phụ thuộc số đơn / số dòng
+    //   1) orders + địa chỉ (EntityGraph ở repository)
+    //   2) toàn bộ dòng sản phẩm của các đơn (projection)
+    //   3) ảnh đại diện của các sản phẩm xuất hiện trong trang (projection)
+    //   4) email / tên người đặt (projection)
+    private List<OrderDetailResponseDTO> convertToDetailDTOs(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
         }
+        List<Long> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        Map<Long, List<OrderItemRow>> rowsByOrder = orderDetailRepository.findItemRowsByOrderIdIn(orderIds)
+                .stream()
+                .collect(Collectors.groupingBy(OrderItemRow::getOrderId));
+
+        Set<Long> productIds = rowsByOrder.values().stream()
+                .flatMap(List::stream)
+                .map(OrderItemRow::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, String> thumbnails = productIds.isEmpty()
+                ? Map.of()
+                : productImageRepository.findThumbnailsByProductIdIn(productIds).stream()
+                        .collect(Collectors.toMap(ProductThumbnailRow::getProductId,
+                                ProductThumbnailRow::getImageUrl, (a, b) -> a));
+
+        // Chỉ lấy id từ proxy User (không khởi tạo) rồi nạp thông tin người đặt một lần
+        Set<Long> userIds = orders.stream()
+                .map(Order::getUser)
+                .filter(Objects::nonNull)
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        Map<Long, UserSummaryRow> users = userIds.isEmpty()
+                ? Map.of()
+                : userRepository.findSummariesByIdIn(userIds).stream()
+                        .collect(Collectors.toMap(UserSummaryRow::getId, Function.identity()));
+
+        return orders.stream()
+                .map(order -> {
+                    List<OrderDetailResponseDTO.OrderItemDTO> items = rowsByOrder
+                            .getOrDefault(order.getId(), List.of()).stream()
+                            .map(row -> new OrderDetailResponseDTO.OrderItemDTO(
+                                    row.getProductId(),
+                                    row.getVariantId(),
+                                    row.getProductName(),
+                                    formatVariantInfo(row.getSize(), row.getMaterial()),
+                                    thumbnails.get(row.getProductId()),
+                                    row.getQuantity(),
+                                    row.getPriceAtPurchase()))
+                            .collect(Collectors.toList());
+                    UserSummaryRow user = order.getUser() != null ? users.get(order.getUser().getId()) : null;
+                    return user != null
+                            ? toDetailDTO(order, items, user.getEmail(),
+                                    formatUserName(user.getFirstName(), user.getLastName()))
+                            : toDetailDTO(order, items, null, null);
+                })
+                .collect(Collectors.toList());
+    }
 
+    // Một đơn hàng (tạo / xem chi tiết / đổi trạng thái): đi theo quan hệ entity
+    private OrderDetailResponseDTO convertToDetailDTO(Order order) {
         List<OrderDetailResponseDTO.OrderItemDTO> itemDTOs = order.getOrderDetails().stream().map(detail -> {
             ProductVariant variant = detail.getVariant();
             Product product = variant.getProduct();
-            String variantInfo = String.format("Size: %s, Material: %s",
-                    variant.getSize() != null ? variant.getSize() : "N/A",
-                    variant.getMaterial() != null ? variant.getMaterial() : "N/A");
-
             String imageUrl = product.getImages().stream().findFirst().map(ProductImage::getImageUrl).orElse(null);
 
             return new OrderDetailResponseDTO.OrderItemDTO(
                     product.getId(),
                     variant.getId(),
                     product.getName(),
-                    variantInfo,
+                    formatVariantInfo(variant.getSize(), variant.getMaterial()),
                     imageUrl,
                     detail.getQuantity(),
                     detail.getPriceAtPurchase()
             );
         }).collect(Collectors.toList());
 
+        User user = order.getUser();
+        return user != null
+                ? toDetailDTO(order, itemDTOs, user.getEmail(), formatUserName(user.getFirstName(), user.getLastName()))
+                : toDetailDTO(order, itemDTOs, null, null);
+    }
+
+    private String formatVariantInfo(String size, String material) {
+        return String.format("Size: %s, Material: %s",
+                size != null ? size : "N/A",
+                material != null ? material : "N/A");
+    }
+
+    private String formatUserName(String firstName, String lastName) {
+        return (firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "");
+    }
+
+    private OrderDetailResponseDTO toDetailDTO(Order order, List<OrderDetailResponseDTO.OrderItemDTO> itemDTOs,
+            String userEmail, String userName) {
+        Address shippingAddress = order.getShippingAddress();
+        AddressDTO addressDTO = null;
+
+        if (shippingAddress != null) {
+            addressDTO = new AddressDTO(
+                    shippingAddress.getId(),
+                    shippingAddress.getFullName(),
+                    shippingAddress.getPhoneNumber(),
+                    shippingAddress.getStreetAddress(),
+                    shippingAddress.getCity(),
+                    shippingAddress.getDistrict(),
+                    shippingAddress.getWard()
+            );
+        }
+
         OrderDetailResponseDTO dto = new OrderDetailResponseDTO(
                 order.getId(),
                 order.getOrderDate(),
@@ -264,12 +440,9 @@ public class OrderService {
         dto.setShippingFee(order.getShippingFee());
         dto.setDiscountCode(order.getDiscountCode());
 
-        User user = order.getUser();
-        if (user != null) {
-            dto.setUserEmail(user.getEmail());
-            dto.setUserName((user.getFirstName() != null ? user.getFirstName() : "")
-                    + " "
-                    + (user.getLastName() != null ? user.getLastName() : ""));
+        if (userEmail != null || userName != null) {
+            dto.setUserEmail(userEmail);
+            dto.setUserName(userName);
         } else {
             dto.setUserEmail("Ẩn danh");
             dto.setUserName("Ẩn danh");
@@ -280,11 +453,36 @@ public class OrderService {
     }
 
     // ============================
-    // 🧍‍♂️ LẤY USER HIỆN TẠI
+    // 🔖 CURSOR TÌM KIẾM ADMIN
     // ============================
-    private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+    // Chuỗi Base64URL "mờ" của "orderDate|id" — FE chỉ gửi lại, không cần hiểu
+    static final class OrderCursor {
+
+        private final LocalDateTime orderDate;
+        private final Long id;
+
+        OrderCursor(LocalDateTime orderDate, Long id) {
+            this.orderDate = orderDate;
+            this.id = id;
+        }
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((orderDate + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static OrderCursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new OrderCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.valueOf(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new AppException("Invalid cursor: " + cursor);
+            }
+        }
     }
 }
@@ -1,64 +1,135 @@
 package com.jeweleryshop.backend.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.otp.OtpRecord;
+import com.jeweleryshop.backend.otp.OtpStore;
+import com.jeweleryshop.backend.utils.TokenHasher;
 
+/**
+ * 🔐 Cấp và xác minh OTP đăng nhập 2 bước.
+ *
+ * <ul>
+ * <li>Mã sinh bằng {@link SecureRandom}, chỉ lưu hash (SHA-256).</li>
+ * <li>Giới hạn gửi: chờ {@code resendCooldown} giữa hai lần gửi, tối đa
+ * {@code maxSendsPerWindow} lần trong {@code sendWindow}.</li>
+ * <li>Giới hạn xác minh: sai {@code maxVerifyAttempts} lần thì mã bị vô hiệu,
+ * phải yêu cầu mã mới (vẫn tính vào giới hạn gửi).</li>
+ * <li>Job định kỳ dọn bản ghi đã hết hạn và hết cửa sổ giới hạn.</li>
+ * </ul>
+ */
 @Service
 public class OtpService {
 
-    private final Map<String, OtpData> otpStore = new ConcurrentHashMap<>();
-    private static final int EXPIRATION_MINUTES = 5;
+    private static final SecureRandom RANDOM = new SecureRandom();
 
-    // ✅ Sinh mã OTP 6 số và lưu tạm trong bộ nhớ
+    private final OtpStore otpStore;
+    private final Duration ttl;
+    private final Duration resendCooldown;
+    private final Duration sendWindow;
+    private final int maxSendsPerWindow;
+    private final int maxVerifyAttempts;
+    private final Clock clock;
+
+    @Autowired
+    public OtpService(OtpStore otpStore,
+            @Value("${app.otp.ttl-seconds:300}") long ttlSeconds,
+            @Value("${app.otp.resend-cooldown-seconds:60}") long resendCooldownSeconds,
+            @Value("${app.otp.send-window-seconds:3600}") long sendWindowSeconds,
+            @Value("${app.otp.max-sends-per-window:5}") int maxSendsPerWindow,
+            @Value("${app.otp.max-verify-attempts:5}") int maxVerifyAttempts) {
+        this(otpStore, Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(resendCooldownSeconds),
+                Duration.ofSeconds(sendWindowSeconds), maxSendsPerWindow, maxVerifyAttempts,
+                Clock.systemDefaultZone());
+    }
+
+    // Cho phép test truyền đồng hồ giả
+    OtpService(OtpStore otpStore, Duration ttl, Duration resendCooldown, Duration sendWindow,
+            int maxSendsPerWindow, int maxVerifyAttempts, Clock clock) {
+        this.otpStore = otpStore;
+        this.ttl = ttl;
+        this.resendCooldown = resendCooldown;
+        this.sendWindow = sendWindow;
+        this.maxSendsPerWindow = maxSendsPerWindow;
+        this.maxVerifyAttempts = maxVerifyAttempts;
+        this.clock = clock;
+    }
+
+    // ✅ Sinh mã OTP 6 số và lưu hash vào store
     public String generateOtp(String username) {
-        String otp = String.format("%06d", new Random().nextInt(999999));
-        otpStore.put(username, new OtpData(otp, LocalDateTime.now().plusMinutes(EXPIRATION_MINUTES)));
+        LocalDateTime now = LocalDateTime.now(clock);
+        OtpRecord previous = otpStore.find(username).orElse(null);
+
+        int sendCount = 1;
+        LocalDateTime windowStart = now;
+        if (previous != null) {
+            if (previous.getIssuedAt().plus(resendCooldown).isAfter(now)) {
+                throw new AppException("Vui lòng chờ " + resendCooldown.toSeconds()
+                        + " giây trước khi yêu cầu mã OTP mới!");
+            }
+            if (previous.getWindowStart().plus(sendWindow).isAfter(now)) {
+                if (previous.getSendCount() >= maxSendsPerWindow) {
+                    throw new AppException("Bạn đã yêu cầu quá nhiều mã OTP, vui lòng thử lại sau!");
+                }
+                sendCount = previous.getSendCount() + 1;
+                windowStart = previous.getWindowStart();
+            }
+        }
+
+        String otp = String.format("%06d", RANDOM.nextInt(1_000_000));
+        otpStore.save(username, new OtpRecord(hash(username, otp), now, now.plus(ttl), 0, sendCount, windowStart));
         return otp;
     }
 
     // ✅ Xác minh mã OTP (so sánh và kiểm tra thời gian hết hạn)
     public void verifyOtp(String username, String inputOtp) {
-        OtpData data = otpStore.get(username);
-        if (data == null) {
+        OtpRecord record = otpStore.find(username).orElse(null);
+        if (record == null) {
             throw new AppException("OTP không tồn tại hoặc đã hết hạn!");
         }
 
-        if (data.getExpiryTime().isBefore(LocalDateTime.now())) {
-            otpStore.remove(username);
+        // Bản ghi hết hạn vẫn giữ lại để tính giới hạn gửi — job dọn sẽ xóa sau
+        if (record.isExpired(LocalDateTime.now(clock))) {
             throw new AppException("OTP đã hết hạn!");
         }
 
-        if (!data.getOtp().equals(inputOtp)) {
+        // Giữ lượt trước rồi mới so mã — lượt cuối chỉ một request lấy được
+        if (!otpStore.reserveAttempt(username, record.getCodeHash(), maxVerifyAttempts)) {
+            throw new AppException("Nhập sai OTP quá nhiều lần, vui lòng yêu cầu mã mới!");
+        }
+
+        if (inputOtp == null || !MessageDigest.isEqual(
+                record.getCodeHash().getBytes(StandardCharsets.US_ASCII),
+                hash(username, inputOtp).getBytes(StandardCharsets.US_ASCII))) {
             throw new AppException("Mã OTP không đúng!");
         }
 
         // ✅ Xác thực thành công → xóa khỏi store
-        otpStore.remove(username);
+        otpStore.delete(username);
     }
 
-    // ✅ Inner class để lưu dữ liệu OTP
-    private static class OtpData {
-
-        private final String otp;
-        private final LocalDateTime expiryTime;
-
-        public OtpData(String otp, LocalDateTime expiryTime) {
-            this.otp = otp;
-            this.expiryTime = expiryTime;
-        }
-
-        public String getOtp() {
-            return otp;
-        }
+    // ==============================================================
+    // 🧹 Dọn OTP hết hạn
+    // ==============================================================
+    // Giữ thêm một cửa sổ giới hạn sau khi hết hạn để không "quên" số lần đã gửi
+    @Scheduled(fixedDelayString = "${app.otp.sweep-interval-ms:60000}")
+    public int purgeExpired() {
+        return otpStore.purgeExpiredBefore(LocalDateTime.now(clock).minus(sendWindow));
+    }
 
-        public LocalDateTime getExpiryTime() {
-            return expiryTime;
-        }
+    // Gắn username để hai người dùng cùng mã không cho cùng một hash
+    private static String hash(String username, String otp) {
+        return TokenHasher.sha256Hex(username + ":" + otp);
     }
 }
@@ -0,0 +1,107 @@
+package com.jeweleryshop.backend.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.jeweleryshop.backend.event.PromotionChangedEvent;
+import com.jeweleryshop.backend.pricing.PromotionRuleSet;
+import com.jeweleryshop.backend.pricing.PromotionRuleSet.Line;
+import com.jeweleryshop.backend.pricing.PromotionRuleSet.Quote;
+import com.jeweleryshop.backend.pricing.PromotionRuleSet.Rule;
+import com.jeweleryshop.backend.repository.PromotionRepository;
+
+/**
+ * 💰 Tính tổng tiền giỏ hàng / đơn hàng theo tập luật khuyến mãi trong bộ nhớ.
+ *
+ * Cùng vòng đời với {@link CategoryTreeService}: tập luật là một tham chiếu
+ * volatile, dựng lại (một câu SELECT) sau khi admin sửa khuyến mãi và tự làm
+ * mới sau {@code max-age} — để bỏ các mã vừa hết lượt và nhận thay đổi từ
+ * instance khác. Tính giá không chạm DB.
+ */
+@Service
+public class PricingService {
+
+    private final PromotionRepository promotionRepository;
+    private final BigDecimal shippingFee;
+    private final long maxAgeNanos;
+
+    private volatile PromotionRuleSet rules;
+    private volatile long builtAtNanos;
+
+    public PricingService(PromotionRepository promotionRepository,
+            @Value("${app.pricing.shipping-fee:30000}") BigDecimal shippingFee,
+            @Value("${app.pricing.rules-max-age-seconds:60}") long maxAgeSeconds) {
+        this.promotionRepository = promotionRepository;
+        this.shippingFee = shippingFee;
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+    }
+
+    /**
+     * Tính giá cho các dòng hàng. Mã nhập tay ({@code promotionCode}) được ưu
+     * tiên hơn khuyến mãi đã gắn vào giỏ ({@code promotionId}).
+     */
+    public Quote quote(List<Line> lines, String promotionCode, Long promotionId) {
+        PromotionRuleSet current = current();
+        LocalDateTime now = LocalDateTime.now();
+        if (promotionCode != null && !promotionCode.isBlank()) {
+            Rule rule = current.findByCode(promotionCode);
+            if (rule == null) {
+                Quote quote = PromotionRuleSet.evaluate(lines, null, now, shippingFee);
+                return new Quote(quote.getSubTotal(), BigDecimal.ZERO, shippingFee, null, null,
+                        "Invalid promotion code.");
+            }
+            return PromotionRuleSet.evaluate(lines, rule, now, shippingFee);
+        }
+        return PromotionRuleSet.evaluate(lines, current.findById(promotionId), now, shippingFee);
+    }
+
+    public BigDecimal getShippingFee() {
+        return shippingFee;
+    }
+
+    public PromotionRuleSet current() {
+        PromotionRuleSet current = rules;
+        if (current == null || isExpired()) {
+            return refreshIfStale();
+        }
+        return current;
+    }
+
+    public synchronized PromotionRuleSet refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        PromotionRuleSet fresh = PromotionRuleSet.compile(promotionRepository.findByEndDateGreaterThanEqual(now), now);
+        builtAtNanos = System.nanoTime();
+        rules = fresh;
+        return fresh;
+    }
+
+    // ✅ Dựng lại sau commit để tập luật mới chắc chắn thấy dữ liệu đã lưu
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // Không làm hỏng request đã commit — lần tính giá kế tiếp sẽ dựng lại
+            rules = null;
+        }
+    }
+
+    // Nhiều thread cùng thấy tập luật cũ → chỉ thread đầu tiên truy vấn DB
+    private synchronized PromotionRuleSet refreshIfStale() {
+        PromotionRuleSet current = rules;
+        if (current != null && !isExpired()) {
+            return current;
+        }
+        return refresh();
+    }
+
+    private boolean isExpired() {
+        return System.nanoTime() - builtAtNanos > maxAgeNanos;
+    }
+}
@@ -0,0 +1,31 @@
+package com.jeweleryshop.backend.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
+import com.jeweleryshop.backend.dto.ProductResponseDTO;
+import com.jeweleryshop.backend.event.CategoryChangedEvent;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+
+@Component
+public class ProductCacheListener {
+
+    private final BoundedTtlCache<Long, ProductResponseDTO> productCache;
+
+    public ProductCacheListener(BoundedTtlCache<Long, ProductResponseDTO> productCache) {
+        this.productCache = productCache;
+    }
+
+    // ✅ Chỉ xóa sau khi commit → lần đọc kế tiếp chắc chắn thấy dữ liệu mới
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        event.getProductIds().forEach(productCache::invalidate);
+    }
+
+    // DTO sản phẩm chứa tên danh mục; xóa danh mục còn xóa cascade sản phẩm
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        productCache.invalidateAll();
+    }
+}
@@ -0,0 +1,83 @@
+package com.jeweleryshop.backend.service;
+
+import java.math.BigDecimal;
+
+import org.springframework.stereotype.Service;
+
+import com.jeweleryshop.backend.entity.Product;
+import com.jeweleryshop.backend.entity.ProductVariant;
+import com.jeweleryshop.backend.repository.ProductRepository;
+import com.jeweleryshop.backend.search.ProductFacetIndex;
+import com.jeweleryshop.backend.search.ProductFacetIndex.FacetDocument;
+import com.jeweleryshop.backend.search.ProductFacetIndex.FacetQuery;
+import com.jeweleryshop.backend.search.ProductFacetIndex.FacetResult;
+
+/**
+ * 🧮 Chỉ mục facet sản phẩm; vòng đời (dựng lại / cập nhật tăng dần) ở
+ * {@link ProductIndexLifecycle}.
+ */
+@Service
+public class ProductFacetService extends ProductIndexLifecycle<ProductFacetIndex> {
+
+    // ✅ Mốc khoảng giá (VND, theo basePrice giống bộ lọc minPrice/maxPrice)
+    static final long[] PRICE_BUCKET_BOUNDS = {1_000_000L, 5_000_000L, 10_000_000L, 20_000_000L};
+
+    public ProductFacetService(ProductRepository productRepository) {
+        super(productRepository);
+    }
+
+    public FacetResult query(FacetQuery query) {
+        ProductFacetIndex current = currentIndex();
+        if (current == null) {
+            current = rebuild();
+        }
+        return current.query(query);
+    }
+
+    @Override
+    protected ProductFacetIndex newIndex() {
+        return new ProductFacetIndex();
+    }
+
+    @Override
+    protected void put(ProductFacetIndex index, Product product) {
+        index.put(toDocument(product));
+    }
+
+    @Override
+    protected void remove(ProductFacetIndex index, Long productId) {
+        index.remove(productId);
+    }
+
+    private FacetDocument toDocument(Product product) {
+        FacetDocument document = new FacetDocument(product.getId(), product.getBasePrice())
+                .add(ProductFacetIndex.PRICE, priceBucket(product.getBasePrice()));
+        if (product.getCategory() != null) {
+            document.add(ProductFacetIndex.CATEGORY, String.valueOf(product.getCategory().getId()));
+        }
+        if (product.getVariants() != null) {
+            for (ProductVariant variant : product.getVariants()) {
+                document.add(ProductFacetIndex.MATERIAL, variant.getMaterial())
+                        .add(ProductFacetIndex.SIZE, variant.getSize())
+                        .add(ProductFacetIndex.GEMSTONE, variant.getGemstone())
+                        .add(ProductFacetIndex.COLOR, variant.getColor());
+            }
+        }
+        return document;
+    }
+
+    // Nhãn khoảng giá dạng "1000000-5000000", khoảng cuối "20000000+"
+    static String priceBucket(BigDecimal price) {
+        if (price == null) {
+            return null;
+        }
+        long lower = 0;
+        for (long bound : PRICE_BUCKET_BOUNDS) {
+            if (price.compareTo(BigDecimal.valueOf(bound)) < 0) {
+                return lower + "-" + bound;
+            }
+            lower = bound;
+        }
+        return lower + "+";
+    }
+}
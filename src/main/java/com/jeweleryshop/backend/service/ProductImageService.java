@@ -1,5 +1,6 @@
 package com.jeweleryshop.backend.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -8,9 +9,12 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.jeweleryshop.backend.dto.ProductImageDTO;
 import com.jeweleryshop.backend.entity.Product;
 import com.jeweleryshop.backend.entity.ProductImage;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+import com.jeweleryshop.backend.event.ProductImageStoredEvent;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.repository.ProductImageRepository;
 import com.jeweleryshop.backend.repository.ProductRepository;
+import com.jeweleryshop.backend.service.FileStorageService.StoredImage;
 
 @Service
 public class ProductImageService {
@@ -18,11 +22,17 @@ public class ProductImageService {
     private final ProductRepository productRepository;
     private final ProductImageRepository productImageRepository;
     private final FileStorageService fileStorageService;
+    private final ImageProcessingService imageProcessingService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ProductImageService(ProductRepository productRepository, ProductImageRepository productImageRepository, FileStorageService fileStorageService) {
+    public ProductImageService(ProductRepository productRepository, ProductImageRepository productImageRepository,
+            FileStorageService fileStorageService, ImageProcessingService imageProcessingService,
+            ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
         this.productImageRepository = productImageRepository;
         this.fileStorageService = fileStorageService;
+        this.imageProcessingService = imageProcessingService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -30,21 +40,32 @@ public class ProductImageService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
 
-        String fileName = fileStorageService.storeFile(file);
+        StoredImage stored = fileStorageService.storeImage(file);
 
         // Construct the file download URI
         String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
-                .path("/images/")
-                .path(fileName)
+                .path("/" + FileStorageService.MEDIA_DIR + "/")
+                .path(stored.fileName())
                 .toUriString();
 
         ProductImage productImage = new ProductImage();
         productImage.setProduct(product);
         productImage.setImageUrl(fileDownloadUri);
+        productImage.setContentHash(stored.contentHash());
+
+        boolean processed = fileStorageService.hasRenditions(stored.contentHash());
+        if (processed) {
+            // 🔁 Ảnh trùng nội dung đã có các cỡ thu nhỏ → dùng lại ngay
+            imageProcessingService.applyRenditions(productImage);
+        }
 
         ProductImage savedImage = productImageRepository.save(productImage);
+        eventPublisher.publishEvent(ProductChangedEvent.of(productId));
+        if (!processed) {
+            eventPublisher.publishEvent(new ProductImageStoredEvent(stored.contentHash(), stored.fileName()));
+        }
 
-        return new ProductImageDTO(savedImage.getId(), savedImage.getImageUrl());
+        return new ProductImageDTO(savedImage);
     }
 
     // You can add a method to delete an image here
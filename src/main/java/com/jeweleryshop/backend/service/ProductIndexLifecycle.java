@@ -0,0 +1,177 @@
+package com.jeweleryshop.backend.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.jeweleryshop.backend.entity.Product;
+import com.jeweleryshop.backend.event.CategoryChangedEvent;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+import com.jeweleryshop.backend.repository.ProductRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 🔄 Vòng đời chung của các chỉ mục sản phẩm trong bộ nhớ (tìm kiếm, facet):
+ * dựng lại toàn bộ khi khởi động và khi danh mục đổi, cập nhật từng sản phẩm
+ * sau mỗi ProductChangedEvent đã commit.
+ *
+ * Danh mục đổi → dựng lại trên một luồng nền (các yêu cầu dồn lại thành một
+ * lượt), request của admin không phải chờ; trong lúc dựng vẫn phục vụ chỉ mục
+ * cũ, sản phẩm đổi giữa chừng được áp lại vào chỉ mục mới trước khi đổi.
+ *
+ * Lớp con chỉ cần biết cách tạo chỉ mục rỗng và chuyển Product thành tài liệu.
+ */
+abstract class ProductIndexLifecycle<I> {
+
+    // Số sản phẩm nạp mỗi lượt khi dựng lại chỉ mục
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+
+    private volatile I index;
+    // Khác null khi đang dựng lại: id sản phẩm đổi trong lúc đó (khóa bằng this)
+    private Set<Long> changedDuringRebuild;
+    // Chỉ một lượt dựng lại chạy tại một thời điểm
+    private final Object rebuildLock = new Object();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private ExecutorService rebuildExecutor;
+
+    protected ProductIndexLifecycle(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    protected abstract I newIndex();
+
+    protected abstract void put(I index, Product product);
+
+    protected abstract void remove(I index, Long productId);
+
+    // null khi chưa dựng xong lần đầu
+    protected I currentIndex() {
+        return index;
+    }
+
+    @PostConstruct
+    public void startRebuildExecutor() {
+        rebuildExecutor = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("index-rebuild-" + getClass().getSimpleName()).daemon(true).factory());
+    }
+
+    @PreDestroy
+    public void stopRebuildExecutor() {
+        if (rebuildExecutor != null) {
+            rebuildExecutor.shutdownNow();
+        }
+    }
+
+    // ==============================================================
+    // 🔄 Dựng lại toàn bộ (khởi động / danh mục đổi)
+    // ==============================================================
+    @EventListener(ApplicationReadyEvent.class)
+    public I rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changedDuringRebuild = new HashSet<>();
+            }
+            try {
+                I fresh = newIndex();
+                Long afterId = null;
+                List<Long> ids;
+                do {
+                    ids = productRepository.findIdsAfter(null, afterId, REBUILD_BATCH_SIZE);
+                    if (!ids.isEmpty()) {
+                        productRepository.findWithVariantsByIdIn(ids)
+                                .forEach(product -> put(fresh, product));
+                        afterId = ids.get(ids.size() - 1);
+                    }
+                } while (ids.size() == REBUILD_BATCH_SIZE);
+
+                synchronized (this) {
+                    // Lô đã nạp có thể cũ hơn thay đổi vừa commit → nạp lại các sản phẩm đó
+                    apply(fresh, changedDuringRebuild);
+                    // Đổi tham chiếu một lần → truy vấn đang chạy vẫn dùng chỉ mục cũ trọn vẹn
+                    index = fresh;
+                    return fresh;
+                }
+            } finally {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Xếp một lượt dựng lại lên luồng nền. Yêu cầu đến khi lượt trước còn chờ
+     * chạy được gộp vào lượt đó; đến khi lượt trước đang chạy thì xếp thêm đúng
+     * một lượt để thấy thay đổi mới nhất.
+     */
+    void requestRebuild() {
+        if (!rebuildPending.compareAndSet(false, true)) {
+            return;
+        }
+        rebuildExecutor.execute(() -> {
+            rebuildPending.set(false);
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                // Giữ chỉ mục cũ — lần đổi danh mục kế tiếp sẽ thử lại
+                System.out.println("❌ Index rebuild failed: " + e.getMessage());
+            }
+        });
+    }
+
+    // ==============================================================
+    // ✏️ Cập nhật tăng dần sau khi transaction commit
+    // ==============================================================
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Tài liệu không chứa tồn kho → đặt đơn / đồng bộ tồn kho không cần nạp lại
+        if (!event.isStockOnly()) {
+            reindex(event.getProductIds());
+        }
+    }
+
+    // Tên / id danh mục nằm trong tài liệu; xóa danh mục còn xóa cascade sản
+    // phẩm mà không có ProductChangedEvent
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        requestRebuild();
+    }
+
+    synchronized void reindex(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.addAll(productIds);
+        }
+        I current = index;
+        if (current != null) {
+            apply(current, productIds);
+        }
+    }
+
+    private void apply(I target, Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new HashSet<>(productIds);
+        for (Product product : productRepository.findWithVariantsByIdIn(productIds)) {
+            put(target, product);
+            missing.remove(product.getId());
+        }
+        // Không còn trong DB → đã bị xóa
+        missing.forEach(id -> remove(target, id));
+    }
+}
@@ -0,0 +1,73 @@
+package com.jeweleryshop.backend.service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+
+import com.jeweleryshop.backend.entity.Product;
+import com.jeweleryshop.backend.repository.ProductRepository;
+import com.jeweleryshop.backend.search.ProductSearchIndex;
+import com.jeweleryshop.backend.search.ProductSearchIndex.SearchDocument;
+import com.jeweleryshop.backend.search.ProductSearchIndex.SearchHit;
+
+/**
+ * 🔎 Chỉ mục tìm kiếm sản phẩm; vòng đời (dựng lại / cập nhật tăng dần) ở
+ * {@link ProductIndexLifecycle}.
+ */
+@Service
+public class ProductSearchService extends ProductIndexLifecycle<ProductSearchIndex> {
+
+    // ✅ Trọng số theo trường: khớp tên quan trọng hơn khớp mô tả
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float SKU_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float VARIANT_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    public ProductSearchService(ProductRepository productRepository) {
+        super(productRepository);
+    }
+
+    public List<SearchHit> search(String query, int limit) {
+        ProductSearchIndex current = currentIndex();
+        return current != null ? current.search(query, limit) : List.of();
+    }
+
+    @Override
+    protected ProductSearchIndex newIndex() {
+        return new ProductSearchIndex();
+    }
+
+    @Override
+    protected void put(ProductSearchIndex index, Product product) {
+        index.put(toDocument(product));
+    }
+
+    @Override
+    protected void remove(ProductSearchIndex index, Long productId) {
+        index.remove(productId);
+    }
+
+    private SearchDocument toDocument(Product product) {
+        SearchDocument document = new SearchDocument(product.getId())
+                .add(product.getName(), NAME_WEIGHT)
+                .add(product.getSkuPrefix(), SKU_WEIGHT)
+                .add(product.getDescription(), DESCRIPTION_WEIGHT);
+        if (product.getCategory() != null) {
+            document.add(product.getCategory().getName(), CATEGORY_WEIGHT);
+        }
+        if (product.getVariants() != null) {
+            // Nhiều biến thể thường trùng chất liệu/màu → chỉ tính mỗi giá trị một lần
+            String variantText = product.getVariants().stream()
+                    .flatMap(v -> Stream.of(v.getMaterial(), v.getGemstone(), v.getColor()))
+                    .filter(value -> value != null && !value.isBlank())
+                    .map(String::trim)
+                    .distinct()
+                    .collect(Collectors.joining(" "));
+            document.add(variantText, VARIANT_WEIGHT);
+        }
+        return document;
+    }
+}
@@ -1,16 +1,28 @@
 package com.jeweleryshop.backend.service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
 import com.jeweleryshop.backend.dto.CategoryDTO;
+import com.jeweleryshop.backend.dto.FacetedProductPageDTO;
+import com.jeweleryshop.backend.dto.ProductCursorPageDTO;
+import com.jeweleryshop.backend.dto.ProductFacetFilterDTO;
 import com.jeweleryshop.backend.dto.ProductImageDTO;
 import com.jeweleryshop.backend.dto.ProductRequestDTO;
 import com.jeweleryshop.backend.dto.ProductResponseDTO;
@@ -18,25 +30,50 @@ import com.jeweleryshop.backend.dto.ProductVariantDTO;
 import com.jeweleryshop.backend.entity.Category;
 import com.jeweleryshop.backend.entity.Product;
 import com.jeweleryshop.backend.entity.ProductVariant;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+import com.jeweleryshop.backend.exception.AppException;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.repository.CategoryRepository;
 import com.jeweleryshop.backend.repository.ProductRepository;
 import com.jeweleryshop.backend.repository.ProductSpecification;
 import com.jeweleryshop.backend.repository.ProductVariantRepository;
+import com.jeweleryshop.backend.search.ProductFacetIndex;
+import com.jeweleryshop.backend.search.ProductFacetIndex.FacetQuery;
+import com.jeweleryshop.backend.search.ProductFacetIndex.FacetResult;
+import com.jeweleryshop.backend.search.ProductSearchIndex.SearchHit;
 
 @Service
 public class ProductService {
 
+    // ✅ Giới hạn cứng số sản phẩm trả về mỗi lần gọi API public
+    public static final int DEFAULT_PUBLIC_PAGE_SIZE = 24;
+    public static final int MAX_PUBLIC_PAGE_SIZE = 100;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ProductVariantRepository productVariantRepository;
+    private final BoundedTtlCache<Long, ProductResponseDTO> productCache;
+    private final CategoryTreeService categoryTreeService;
+    private final ProductSearchService productSearchService;
+    private final ProductFacetService productFacetService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ProductService(ProductRepository productRepository,
             CategoryRepository categoryRepository,
-            ProductVariantRepository productVariantRepository) {
+            ProductVariantRepository productVariantRepository,
+            BoundedTtlCache<Long, ProductResponseDTO> productCache,
+            CategoryTreeService categoryTreeService,
+            ProductSearchService productSearchService,
+            ProductFacetService productFacetService,
+            ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.productVariantRepository = productVariantRepository;
+        this.productCache = productCache;
+        this.categoryTreeService = categoryTreeService;
+        this.productSearchService = productSearchService;
+        this.productFacetService = productFacetService;
+        this.eventPublisher = eventPublisher;
     }
 
     // ==============================================================
@@ -74,6 +111,7 @@ public class ProductService {
             productVariantRepository.save(defaultVariant);
         }
 
+        eventPublisher.publishEvent(ProductChangedEvent.of(savedProduct.getId()));
         return convertToResponseDTO(savedProduct);
     }
 
@@ -83,17 +121,98 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<ProductResponseDTO> getAllProducts(Pageable pageable, Long categoryId,
             BigDecimal minPrice, BigDecimal maxPrice,
-            String name, String size, String material) {
+            String name, String size, String material, boolean includeSubcategories) {
 
-        Specification<Product> spec = Specification.where(ProductSpecification.hasCategory(categoryId))
-                .and(ProductSpecification.hasPriceGreaterThanOrEqual(minPrice))
-                .and(ProductSpecification.hasPriceLessThanOrEqual(maxPrice))
-                .and(ProductSpecification.hasNameLike(name))
-                .and(ProductSpecification.hasVariantWithSize(size))
-                .and(ProductSpecification.hasVariantWithMaterial(material));
+        Specification<Product> spec = buildSpecification(categoryId, includeSubcategories,
+                minPrice, maxPrice, name, size, material);
+
+        // Bước 1: phân trang trên ID (không fetch collection → không phân trang trong RAM)
+        Page<Long> idPage = productRepository.findIds(spec, pageable);
+        // Bước 2: nạp đúng các sản phẩm của trang này
+        List<ProductResponseDTO> content = loadInOrder(idPage.getContent());
+        return new PageImpl<>(content, pageable, idPage.getTotalElements());
+    }
+
+    // ==============================================================
+    // ✅ Lấy sản phẩm theo keyset (cursor) — API public, có giới hạn
+    // ==============================================================
+    /**
+     * Trả về tối đa {@code limit} sản phẩm (bị chặn bởi
+     * {@link #MAX_PUBLIC_PAGE_SIZE}) nằm sau {@code cursor}. Bước 1 chỉ lấy ID
+     * theo keyset, bước 2 nạp đầy đủ quan hệ cho đúng các ID đó, nên chi phí
+     * mỗi trang không phụ thuộc vào kích thước catalog.
+     * {@code includeSubcategories = true} → lọc theo danh mục và toàn bộ danh
+     * mục con (lấy từ cây danh mục trong bộ nhớ, không truy vấn đệ quy).
+     */
+    @Transactional(readOnly = true)
+    public ProductCursorPageDTO getProductsAfter(String cursor, int limit, Long categoryId,
+            BigDecimal minPrice, BigDecimal maxPrice,
+            String name, String size, String material, boolean includeSubcategories) {
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PUBLIC_PAGE_SIZE));
+        Long afterId = decodeCursor(cursor);
+        Specification<Product> spec = buildSpecification(categoryId, includeSubcategories,
+                minPrice, maxPrice, name, size, material);
+
+        // Lấy dư 1 phần tử để biết còn trang sau hay không
+        List<Long> ids = productRepository.findIdsAfter(spec, afterId, pageSize + 1);
+        boolean hasMore = ids.size() > pageSize;
+        if (hasMore) {
+            ids = ids.subList(0, pageSize);
+        }
 
-        Page<Product> productPage = productRepository.findAll(spec, pageable);
-        return productPage.map(this::convertToResponseDTO);
+        List<ProductResponseDTO> items = loadInOrder(ids);
+        String nextCursor = hasMore ? encodeCursor(ids.get(ids.size() - 1)) : null;
+        return new ProductCursorPageDTO(items, nextCursor, hasMore);
+    }
+
+    // ==============================================================
+    // 🔎 Tìm kiếm toàn văn — xếp hạng theo độ liên quan (BM25)
+    // ==============================================================
+    @Transactional(readOnly = true)
+    public List<ProductResponseDTO> searchProducts(String query, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PUBLIC_PAGE_SIZE));
+        List<Long> ids = productSearchService.search(query, size).stream()
+                .map(SearchHit::getProductId)
+                .collect(Collectors.toList());
+        return loadInOrder(ids);
+    }
+
+    // ==============================================================
+    // 🧮 Lọc theo facet + đếm số sản phẩm mỗi giá trị (trong bộ nhớ)
+    // ==============================================================
+    /**
+     * Bộ lọc và số đếm được tính hoàn toàn trên chỉ mục facet; DB chỉ được
+     * gọi để nạp đúng các sản phẩm của trang hiện tại.
+     */
+    @Transactional(readOnly = true)
+    public FacetedProductPageDTO getFacetedProducts(ProductFacetFilterDTO filter) {
+        int limit = Math.max(1, Math.min(filter.getLimit(), MAX_PUBLIC_PAGE_SIZE));
+        int page = Math.max(0, filter.getPage());
+
+        Set<String> categories = categoryFacetValues(filter);
+        // Danh mục không tồn tại → không sản phẩm nào (FacetQuery bỏ qua tập rỗng
+        // như "không lọc" nên phải dừng ở đây, giống hasCategoryIn của listing)
+        if (categories != null && categories.isEmpty()) {
+            return new FacetedProductPageDTO(List.of(), 0, page, limit, Map.of());
+        }
+
+        FacetQuery query = new FacetQuery()
+                .select(ProductFacetIndex.CATEGORY, categories)
+                .select(ProductFacetIndex.MATERIAL, filter.getMaterial())
+                .select(ProductFacetIndex.SIZE, filter.getSize())
+                .select(ProductFacetIndex.GEMSTONE, filter.getGemstone())
+                .select(ProductFacetIndex.COLOR, filter.getColor())
+                .select(ProductFacetIndex.PRICE, filter.getPriceRange())
+                .priceBetween(filter.getMinPrice(), filter.getMaxPrice());
+        FacetResult result = productFacetService.query(query);
+
+        List<Long> ids = result.getProductIds();
+        int from = (int) Math.min((long) page * limit, ids.size());
+        int to = Math.min(from + limit, ids.size());
+
+        return new FacetedProductPageDTO(loadInOrder(ids.subList(from, to)), ids.size(),
+                page, limit, result.getCounts());
     }
 
     // ==============================================================
@@ -108,13 +227,16 @@ public class ProductService {
     }
 
     // ==============================================================
-    // ✅ Lấy chi tiết sản phẩm theo ID
+    // ✅ Lấy chi tiết sản phẩm theo ID (read-through cache)
     // ==============================================================
-    @Transactional(readOnly = true)
+    // Không mở transaction ở đây: cache hit không cần chạm tới DB/connection pool.
+    // findById đã fetch đủ category/images/variants/inventory bằng EntityGraph.
     public ProductResponseDTO getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
-        return convertToResponseDTO(product);
+        return productCache.getOrLoad(id, () -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+            return convertToResponseDTO(product);
+        });
     }
 
     // ==============================================================
@@ -142,6 +264,7 @@ public class ProductService {
         product.setCategory(category);
 
         Product updatedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(id));
         return convertToResponseDTO(updatedProduct);
     }
 
@@ -154,6 +277,7 @@ public class ProductService {
             throw new ResourceNotFoundException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.of(id));
     }
 
     // ==============================================================
@@ -162,7 +286,7 @@ public class ProductService {
     public ProductResponseDTO convertToResponseDTO(Product product) {
         List<ProductImageDTO> imageDTOs = (product.getImages() != null)
                 ? product.getImages().stream()
-                        .map(img -> new ProductImageDTO(img.getId(), img.getImageUrl()))
+                        .map(ProductImageDTO::new)
                         .collect(Collectors.toList())
                 : List.of();
 
@@ -202,6 +326,75 @@ public class ProductService {
         return dto;
     }
 
+    // ==============================================================
+    // 🧩 Helpers
+    // ==============================================================
+    private Specification<Product> buildSpecification(Long categoryId, boolean includeSubcategories,
+            BigDecimal minPrice, BigDecimal maxPrice,
+            String name, String size, String material) {
+        Specification<Product> categorySpec = (includeSubcategories && categoryId != null)
+                ? ProductSpecification.hasCategoryIn(categoryTreeService.getDescendantIds(categoryId))
+                : ProductSpecification.hasCategory(categoryId);
+
+        return Specification.where(categorySpec)
+                .and(ProductSpecification.hasPriceGreaterThanOrEqual(minPrice))
+                .and(ProductSpecification.hasPriceLessThanOrEqual(maxPrice))
+                .and(ProductSpecification.hasNameLike(name))
+                .and(ProductSpecification.hasVariantWithSize(size))
+                .and(ProductSpecification.hasVariantWithMaterial(material));
+    }
+
+    private Set<String> categoryFacetValues(ProductFacetFilterDTO filter) {
+        Long categoryId = filter.getCategoryId();
+        if (categoryId == null) {
+            return null;
+        }
+        if (!filter.isIncludeSubcategories()) {
+            return Set.of(String.valueOf(categoryId));
+        }
+        return categoryTreeService.getDescendantIds(categoryId).stream()
+                .map(String::valueOf)
+                .collect(Collectors.toSet());
+    }
+
+    // Nạp sản phẩm theo danh sách ID và giữ nguyên thứ tự của danh sách đó
+    private List<ProductResponseDTO> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> byId = productRepository.findWithVariantsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        // Cùng persistence context → images được gắn vào chính các entity ở trên
+        productRepository.findWithImagesByIdIn(ids);
+
+        List<ProductResponseDTO> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                result.add(convertToResponseDTO(product));
+            }
+        }
+        return result;
+    }
+
+    // Cursor là chuỗi Base64URL "mờ" của id cuối cùng → FE không cần hiểu nội dung
+    static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.valueOf(raw);
+        } catch (IllegalArgumentException e) {
+            throw new AppException("Invalid cursor: " + cursor);
+        }
+    }
+
     private ProductVariantDTO convertVariantToDTO(ProductVariant variant) {
         int quantity = (variant.getInventory() != null)
                 ? variant.getInventory().getQuantity()
@@ -3,6 +3,7 @@ package com.jeweleryshop.backend.service;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -10,6 +11,7 @@ import com.jeweleryshop.backend.dto.ProductVariantDTO;
 import com.jeweleryshop.backend.entity.Inventory;
 import com.jeweleryshop.backend.entity.Product;
 import com.jeweleryshop.backend.entity.ProductVariant;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
 import com.jeweleryshop.backend.exception.DuplicateResourceException;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.repository.ProductRepository;
@@ -20,10 +22,13 @@ public class ProductVariantService {
 
     private final ProductVariantRepository variantRepository;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ProductVariantService(ProductVariantRepository variantRepository, ProductRepository productRepository) {
+    public ProductVariantService(ProductVariantRepository variantRepository, ProductRepository productRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.variantRepository = variantRepository;
         this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // ============================================================
@@ -68,6 +73,7 @@ public class ProductVariantService {
         variant.setInventory(inventory);
 
         ProductVariant savedVariant = variantRepository.save(variant);
+        eventPublisher.publishEvent(ProductChangedEvent.of(productId));
         return convertToDTO(savedVariant);
     }
 
@@ -97,7 +103,9 @@ public class ProductVariantService {
             variant.getInventory().setQuantity(variantDTO.getQuantity());
         }
 
-        return convertToDTO(variantRepository.save(variant));
+        ProductVariant savedVariant = variantRepository.save(variant);
+        eventPublisher.publishEvent(ProductChangedEvent.of(variant.getProduct().getId()));
+        return convertToDTO(savedVariant);
     }
 
     // ============================================================
@@ -105,10 +113,11 @@ public class ProductVariantService {
     // ============================================================
     @Transactional
     public void deleteVariant(Long variantId) {
-        if (!variantRepository.existsById(variantId)) {
-            throw new ResourceNotFoundException("Variant not found with id: " + variantId);
-        }
-        variantRepository.deleteById(variantId);
+        ProductVariant variant = variantRepository.findById(variantId)
+                .orElseThrow(() -> new ResourceNotFoundException("Variant not found with id: " + variantId));
+        Long productId = variant.getProduct().getId();
+        variantRepository.delete(variant);
+        eventPublisher.publishEvent(ProductChangedEvent.of(productId));
     }
 
     // ============================================================
@@ -0,0 +1,24 @@
+package com.jeweleryshop.backend.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
+import com.jeweleryshop.backend.dto.PromotionDTO;
+import com.jeweleryshop.backend.event.PromotionChangedEvent;
+
+@Component
+public class PromotionCacheListener {
+
+    private final BoundedTtlCache<String, PromotionDTO> promotionCache;
+
+    public PromotionCacheListener(BoundedTtlCache<String, PromotionDTO> promotionCache) {
+        this.promotionCache = promotionCache;
+    }
+
+    // ✅ Chỉ xóa sau khi commit → lần validate kế tiếp không nạp lại bản cũ vào cache
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        event.getCodes().forEach(promotionCache::invalidate);
+    }
+}
@@ -1,12 +1,15 @@
 package com.jeweleryshop.backend.service;
 
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
 import com.jeweleryshop.backend.dto.PromotionDTO;
 import com.jeweleryshop.backend.dto.PromotionRequestDTO;
 import com.jeweleryshop.backend.entity.Promotion;
+import com.jeweleryshop.backend.event.PromotionChangedEvent;
 import com.jeweleryshop.backend.exception.AppException;
 import com.jeweleryshop.backend.exception.DuplicateResourceException;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.repository.PromotionRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -19,15 +22,23 @@ import java.util.List;
 public class PromotionService {
 
     private final PromotionRepository promotionRepository;
+    private final BoundedTtlCache<String, PromotionDTO> promotionCache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public PromotionService(PromotionRepository promotionRepository) {
+    public PromotionService(PromotionRepository promotionRepository,
+            BoundedTtlCache<String, PromotionDTO> promotionCache,
+            ApplicationEventPublisher eventPublisher) {
         this.promotionRepository = promotionRepository;
+        this.promotionCache = promotionCache;
+        this.eventPublisher = eventPublisher;
     }
 
-    @Transactional(readOnly = true)
-    public Promotion validatePromotionCode(String code) {
-        Promotion promotion = promotionRepository.findByCode(code)
-                .orElseThrow(() -> new ResourceNotFoundException("Invalid promotion code."));
+    // ✅ Định nghĩa khuyến mãi đọc qua cache theo mã — currentUsage trong cache có
+    // thể cũ, giới hạn thật được kiểm tra lại khi đặt hàng (incrementUsage)
+    public PromotionDTO validatePromotionCode(String code) {
+        PromotionDTO promotion = promotionCache.getOrLoad(code, () -> promotionRepository.findByCode(code)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new ResourceNotFoundException("Invalid promotion code.")));
 
         if (promotion.getStartDate().isAfter(LocalDateTime.now())) {
             throw new AppException("This promotion has not started yet.");
@@ -56,7 +67,9 @@ public class PromotionService {
         Promotion promotion = new Promotion();
         mapDtoToEntity(requestDTO, promotion);
 
-        return convertToDTO(promotionRepository.save(promotion));
+        PromotionDTO created = convertToDTO(promotionRepository.save(promotion));
+        eventPublisher.publishEvent(new PromotionChangedEvent(created.getId(), created.getCode()));
+        return created;
     }
 
     @Transactional(readOnly = true)
@@ -75,26 +88,44 @@ public class PromotionService {
             }
         });
 
+        String previousCode = promotion.getCode();
         mapDtoToEntity(requestDTO, promotion);
-        return convertToDTO(promotionRepository.save(promotion));
+        PromotionDTO updated = convertToDTO(promotionRepository.save(promotion));
+
+        // Cache theo mã được xóa sau commit (PromotionCacheListener), cả mã cũ lẫn mã mới
+        eventPublisher.publishEvent(new PromotionChangedEvent(id, previousCode, updated.getCode()));
+        return updated;
     }
 
     @Transactional
     public void deletePromotion(Long id) {
-        if (!promotionRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Promotion not found with id: " + id);
-        }
+        Promotion promotion = promotionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Promotion not found with id: " + id));
         // Consider business logic: what if a promotion is active?
         // For now, we allow deletion.
         promotionRepository.deleteById(id);
+        eventPublisher.publishEvent(new PromotionChangedEvent(id, promotion.getCode()));
+    }
+
+    // Tham chiếu để gắn vào giỏ hàng mà không cần SELECT lại
+    public Promotion getReference(Long id) {
+        return promotionRepository.getReferenceById(id);
     }
 
+    /**
+     * Dùng một lượt khuyến mãi. Chạy trong transaction của đơn hàng: lượt dùng
+     * được "giữ" bởi khóa dòng của câu UPDATE và chỉ thành chính thức khi đơn
+     * commit — đơn lỗi thì rollback trả lại lượt.
+     *
+     * @throws AppException nếu khuyến mãi đã hết lượt, hết hạn hoặc chưa bắt đầu
+     */
     @Transactional
     public void incrementUsage(String code) {
-        Promotion promotion = promotionRepository.findByCode(code).orElse(null);
-        if (promotion != null) {
-            promotion.setCurrentUsage(promotion.getCurrentUsage() + 1);
-            promotionRepository.save(promotion);
+        int updated = promotionRepository.incrementUsageIfAvailable(code, LocalDateTime.now());
+        if (updated == 0) {
+            // Định nghĩa trong cache có thể vẫn báo còn lượt → bỏ để lần kiểm tra sau đọc lại DB
+            promotionCache.invalidate(code);
+            throw new AppException("This promotion has reached its usage limit or is no longer active.");
         }
     }
 
@@ -1,69 +1,119 @@
 package com.jeweleryshop.backend.service;
 
+import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Optional;
-import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.jeweleryshop.backend.entity.RefreshToken;
-import com.jeweleryshop.backend.entity.User;
 import com.jeweleryshop.backend.exception.AppException;
 import com.jeweleryshop.backend.repository.RefreshTokenRepository;
-import com.jeweleryshop.backend.repository.UserRepository;
+import com.jeweleryshop.backend.utils.TokenHasher;
 
+/**
+ * ♻️ Refresh token theo thiết bị.
+ *
+ * <ul>
+ * <li>Mỗi (user, thiết bị) giữ một token; đăng nhập lại trên cùng thiết bị
+ * xoay token bằng một câu upsert. Client không gửi thiết bị → dùng
+ * {@link #DEFAULT_DEVICE}.</li>
+ * <li>DB chỉ lưu hash SHA-256; tra cứu theo hash qua unique index.</li>
+ * <li>Token hết hạn bị từ chối ngay, còn việc xóa để job định kỳ làm theo lô.</li>
+ * </ul>
+ */
 @Service
 public class RefreshTokenService {
 
-    @Value("${app.jwt.refresh-token.expiration}")
-    private Long refreshTokenDurationMs;
+    public static final String DEFAULT_DEVICE = "default";
+    private static final int MAX_DEVICE_ID_LENGTH = 100;
+    private static final SecureRandom RANDOM = new SecureRandom();
 
     private final RefreshTokenRepository refreshTokenRepository;
-    private final UserRepository userRepository;
+    private final long refreshTokenDurationMs;
+    private final int maxDevices;
+    private final int purgeBatchSize;
 
-    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository) {
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+            @Value("${app.jwt.refresh-token.expiration}") long refreshTokenDurationMs,
+            @Value("${app.jwt.refresh-token.max-devices:10}") int maxDevices,
+            @Value("${app.jwt.refresh-token.purge-batch-size:1000}") int purgeBatchSize) {
         this.refreshTokenRepository = refreshTokenRepository;
-        this.userRepository = userRepository;
+        this.refreshTokenDurationMs = refreshTokenDurationMs;
+        this.maxDevices = maxDevices;
+        this.purgeBatchSize = purgeBatchSize;
     }
 
-    // ✅ Hàm tạo refresh token mới (đã fix lỗi duplicate)
+    // ✅ Cấp refresh token mới cho thiết bị (thay token cũ của chính thiết bị đó)
     @Transactional
-    public RefreshToken createRefreshToken(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new AppException("User not found"));
+    public RefreshToken createRefreshToken(Long userId, String deviceId) {
+        String device = normalizeDevice(deviceId);
+        String token = newToken();
+        Instant expiryDate = Instant.now().plusMillis(refreshTokenDurationMs);
 
-        // 🔹 Xóa token cũ nếu tồn tại (tránh lỗi trùng khóa)
-        refreshTokenRepository.deleteByUserId(user.getId());
+        refreshTokenRepository.upsert(userId, device, TokenHasher.sha256Hex(token), expiryDate);
+        // Quá nhiều thiết bị → bỏ các phiên cũ nhất
+        if (refreshTokenRepository.countByUserId(userId) > maxDevices) {
+            refreshTokenRepository.deleteOldestBeyond(userId, maxDevices);
+        }
 
-        // 🔹 Tạo token mới
         RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setUser(user);
-        refreshToken.setToken(UUID.randomUUID().toString());
-        refreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenDurationMs));
-
-        // 🔹 Lưu lại vào DB
-        return refreshTokenRepository.saveAndFlush(refreshToken);
+        refreshToken.setDeviceId(device);
+        refreshToken.setToken(token);
+        refreshToken.setExpiryDate(expiryDate);
+        return refreshToken;
     }
 
     // ✅ Kiểm tra token có còn hạn hay không
     public RefreshToken verifyExpiration(RefreshToken token) {
         if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
-            refreshTokenRepository.delete(token);
             throw new AppException("Refresh token was expired. Please make a new signin request");
         }
         return token;
     }
 
-    // ✅ Xóa token theo chuỗi token
+    // ✅ Xóa token theo chuỗi token (đăng xuất một thiết bị)
     @Transactional
     public void deleteByToken(String token) {
-        refreshTokenRepository.findByToken(token).ifPresent(refreshTokenRepository::delete);
+        refreshTokenRepository.deleteByTokenHash(TokenHasher.sha256Hex(token));
     }
 
     // ✅ Tìm theo token
     public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+        return refreshTokenRepository.findByTokenHash(TokenHasher.sha256Hex(token));
+    }
+
+    // ==============================================================
+    // 🧹 Dọn token hết hạn
+    // ==============================================================
+    @Scheduled(fixedDelayString = "${app.jwt.refresh-token.purge-interval-ms:3600000}")
+    public int purgeExpired() {
+        Instant now = Instant.now();
+        int purged = 0;
+        int batch;
+        do {
+            batch = refreshTokenRepository.deleteExpiredBatch(now, purgeBatchSize);
+            purged += batch;
+        } while (batch == purgeBatchSize);
+        return purged;
+    }
+
+    // 256 bit ngẫu nhiên, Base64URL
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String normalizeDevice(String deviceId) {
+        if (deviceId == null || deviceId.isBlank()) {
+            return DEFAULT_DEVICE;
+        }
+        String device = deviceId.trim();
+        return device.length() > MAX_DEVICE_ID_LENGTH ? device.substring(0, MAX_DEVICE_ID_LENGTH) : device;
     }
 }
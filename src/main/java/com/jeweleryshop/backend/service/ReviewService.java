@@ -9,8 +9,7 @@ import com.jeweleryshop.backend.repository.OrderRepository;
 import com.jeweleryshop.backend.repository.ProductVariantRepository;
 import com.jeweleryshop.backend.repository.ProductRepository;
 import com.jeweleryshop.backend.repository.ReviewRepository;
-import com.jeweleryshop.backend.repository.UserRepository;
-import org.springframework.security.core.context.SecurityContextHolder;
+import com.jeweleryshop.backend.security.CurrentUserService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,19 +21,20 @@ public class ReviewService {
 
     private final ReviewRepository reviewRepository;
     private final ProductVariantRepository variantRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
     private final OrderRepository orderRepository;
 
-    public ReviewService(ReviewRepository reviewRepository, ProductVariantRepository variantRepository, UserRepository userRepository, OrderRepository orderRepository) {
+    public ReviewService(ReviewRepository reviewRepository, ProductVariantRepository variantRepository, OrderRepository orderRepository,
+            CurrentUserService currentUserService) {
         this.reviewRepository = reviewRepository;
         this.variantRepository = variantRepository;
-        this.userRepository = userRepository;
         this.orderRepository = orderRepository;
+        this.currentUserService = currentUserService;
     }
 
     @Transactional
     public ReviewResponseDTO createReview(Long variantId, ReviewRequestDTO requestDTO) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
         ProductVariant variant = variantRepository.findById(variantId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product Variant not found with id: " + variantId));
 
@@ -83,12 +83,6 @@ public class ReviewService {
                 .collect(Collectors.toList());
     }
 
-    private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
-    }
-
     private ReviewResponseDTO convertToDTO(Review review) {
         return new ReviewResponseDTO(review.getId(), review.getRating(), review.getComment(),
                 review.getUser().getUsername(), review.getUser().getId(), review.getReviewDate());
@@ -0,0 +1,199 @@
+package com.jeweleryshop.backend.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.jeweleryshop.backend.dto.SalesAnalyticsDTO;
+import com.jeweleryshop.backend.dto.SalesAnalyticsDTO.PointDTO;
+import com.jeweleryshop.backend.dto.SalesAnalyticsDTO.SeriesDTO;
+import com.jeweleryshop.backend.dto.SalesAnalyticsQueryDTO;
+import com.jeweleryshop.backend.dto.SalesAnalyticsQueryDTO.Bucket;
+import com.jeweleryshop.backend.entity.RollupDimension;
+import com.jeweleryshop.backend.entity.RollupGranularity;
+import com.jeweleryshop.backend.entity.SalesRollup;
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.repository.CategoryRepository;
+import com.jeweleryshop.backend.repository.ProductVariantRepository;
+import com.jeweleryshop.backend.repository.SalesRollupRepository;
+import com.jeweleryshop.backend.repository.projection.IdLabelRow;
+
+/**
+ * 📈 Doanh số / số đơn / giá trị đơn trung bình / số lượng bán theo khung
+ * giờ, ngày, tuần (bắt đầu thứ Hai) hoặc tháng.
+ *
+ * Chỉ đọc bảng {@code sales_rollups}: khung giờ đọc dòng theo giờ, khung
+ * ngày / tuần / tháng đọc dòng theo ngày rồi gộp — một năm theo tháng chỉ là
+ * 365 dòng mỗi chuỗi, không quét bảng orders. Khoảng thời gian được nới ra
+ * cho trọn khung đầu và cuối.
+ */
+@Service
+public class SalesAnalyticsService {
+
+    public static final int MAX_SERIES = 50;
+    static final String TOTAL_LABEL = "Toàn shop";
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final SalesRollupService salesRollupService;
+    private final CategoryRepository categoryRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final int maxBuckets;
+
+    public SalesAnalyticsService(SalesRollupRepository salesRollupRepository,
+            SalesRollupService salesRollupService,
+            CategoryRepository categoryRepository,
+            ProductVariantRepository productVariantRepository,
+            @Value("${app.analytics.max-buckets:2000}") int maxBuckets) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.salesRollupService = salesRollupService;
+        this.categoryRepository = categoryRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.maxBuckets = maxBuckets;
+    }
+
+    @Transactional(readOnly = true)
+    public SalesAnalyticsDTO getSales(SalesAnalyticsQueryDTO query) {
+        if (query.getFrom() == null || query.getTo() == null || !query.getFrom().isBefore(query.getTo())) {
+            throw new AppException("Khoảng thời gian không hợp lệ: cần from < to");
+        }
+        Bucket bucket = query.getBucket() != null ? query.getBucket() : Bucket.DAY;
+        RollupDimension groupBy = query.getGroupBy() != null ? query.getGroupBy() : RollupDimension.TOTAL;
+        int top = Math.max(1, Math.min(query.getTop(), MAX_SERIES));
+
+        // --- Nới khoảng cho trọn khung ---
+        LocalDateTime from = bucketStart(query.getFrom(), bucket);
+        LocalDateTime to = bucketStart(query.getTo(), bucket);
+        if (to.isBefore(query.getTo())) {
+            to = next(to, bucket);
+        }
+        List<LocalDateTime> buckets = new ArrayList<>();
+        for (LocalDateTime start = from; start.isBefore(to); start = next(start, bucket)) {
+            if (buckets.size() == maxBuckets) {
+                throw new AppException("Quá nhiều khung thời gian (tối đa " + maxBuckets + "), hãy chọn khung lớn hơn");
+            }
+            buckets.add(start);
+        }
+
+        // --- Gộp dòng rollup vào khung ---
+        RollupGranularity granularity = bucket == Bucket.HOUR ? RollupGranularity.HOUR : RollupGranularity.DAY;
+        Map<Long, Map<LocalDateTime, Totals>> byDimension = new HashMap<>();
+        for (SalesRollup row : salesRollupRepository.findSeries(granularity, groupBy, from, to)) {
+            byDimension.computeIfAbsent(row.getDimensionId(), id -> new HashMap<>())
+                    .computeIfAbsent(bucketStart(row.getBucketStart(), bucket), start -> new Totals())
+                    .add(row);
+        }
+
+        // --- Chọn các chuỗi doanh thu cao nhất ---
+        Map<Long, Totals> grandTotals = new LinkedHashMap<>();
+        byDimension.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), Totals.sum(entry.getValue().values())))
+                .sorted(Comparator.comparing((Map.Entry<Long, Totals> entry) -> entry.getValue().revenue).reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .limit(groupBy == RollupDimension.TOTAL ? 1 : top)
+                .forEach(entry -> grandTotals.put(entry.getKey(), entry.getValue()));
+
+        List<SeriesDTO> series = new ArrayList<>(grandTotals.size());
+        if (groupBy == RollupDimension.TOTAL) {
+            Map<LocalDateTime, Totals> points = byDimension.getOrDefault(0L, Map.of());
+            Totals total = grandTotals.getOrDefault(0L, new Totals());
+            series.add(new SeriesDTO(null, TOTAL_LABEL, total.toPoint(from), toPoints(buckets, points)));
+        } else {
+            Map<Long, String> labels = labels(groupBy, grandTotals.keySet());
+            grandTotals.forEach((id, total) -> series.add(new SeriesDTO(id,
+                    labels.getOrDefault(id, "#" + id),
+                    total.toPoint(from),
+                    toPoints(buckets, byDimension.get(id)))));
+        }
+        return new SalesAnalyticsDTO(from, to, bucket, groupBy, salesRollupService.getRefreshedAt(), series);
+    }
+
+    private Map<Long, String> labels(RollupDimension groupBy, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        List<IdLabelRow> rows = groupBy == RollupDimension.CATEGORY
+                ? categoryRepository.findLabelsByIdIn(ids)
+                : productVariantRepository.findLabelsByIdIn(ids);
+        Map<Long, String> labels = new HashMap<>();
+        rows.forEach(row -> labels.put(row.getId(), row.getLabel()));
+        return labels;
+    }
+
+    // Đủ mọi khung, khung không có đơn = 0 → biểu đồ không bị đứt
+    private static List<PointDTO> toPoints(List<LocalDateTime> buckets, Map<LocalDateTime, Totals> values) {
+        List<PointDTO> points = new ArrayList<>(buckets.size());
+        for (LocalDateTime start : buckets) {
+            Totals totals = values.get(start);
+            points.add((totals != null ? totals : new Totals()).toPoint(start));
+        }
+        return points;
+    }
+
+    // ==============================================================
+    // 🗓️ Khung thời gian
+    // ==============================================================
+    static LocalDateTime bucketStart(LocalDateTime time, Bucket bucket) {
+        return switch (bucket) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.toLocalDate().atStartOfDay();
+            case WEEK -> time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            case MONTH -> time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        };
+    }
+
+    static LocalDateTime next(LocalDateTime bucketStart, Bucket bucket) {
+        return switch (bucket) {
+            case HOUR -> bucketStart.plusHours(1);
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+        };
+    }
+
+    // ==============================================================
+    // ➕ Cộng dồn
+    // ==============================================================
+    private static final class Totals {
+
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private long orders;
+        private long units;
+
+        void add(SalesRollup row) {
+            revenue = revenue.add(row.getRevenue());
+            orders += row.getOrderCount();
+            units += row.getUnitsSold();
+        }
+
+        static Totals sum(Collection<Totals> parts) {
+            Totals sum = new Totals();
+            for (Totals part : parts) {
+                sum.revenue = sum.revenue.add(part.revenue);
+                sum.orders += part.orders;
+                sum.units += part.units;
+            }
+            return sum;
+        }
+
+        PointDTO toPoint(LocalDateTime bucketStart) {
+            BigDecimal average = orders == 0
+                    ? BigDecimal.ZERO
+                    : revenue.divide(BigDecimal.valueOf(orders), 2, RoundingMode.HALF_UP);
+            return new PointDTO(bucketStart, revenue, orders, average, units);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.jeweleryshop.backend.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.jeweleryshop.backend.entity.OrderStatus;
+import com.jeweleryshop.backend.entity.RollupDimension;
+import com.jeweleryshop.backend.entity.RollupGranularity;
+import com.jeweleryshop.backend.entity.SalesRollup;
+import com.jeweleryshop.backend.event.OrderStatusChangedEvent;
+import com.jeweleryshop.backend.repository.OrderDetailRepository;
+import com.jeweleryshop.backend.repository.OrderRepository;
+import com.jeweleryshop.backend.repository.SalesRollupRepository;
+import com.jeweleryshop.backend.repository.projection.SalesBucketRow;
+
+/**
+ * 🧮 Job tổng hợp bảng {@code sales_rollups} (theo giờ và theo ngày; toàn
+ * shop / danh mục / biến thể) từ orders + order_details.
+ *
+ * <ul>
+ * <li>Mỗi lần chạy tính lại trọn các ngày bị ảnh hưởng: {@code recompute-days}
+ * ngày gần nhất và các ngày có đơn vào / rời DELIVERED kể từ lần trước.</li>
+ * <li>Lần chạy đầu (bảng rỗng) dựng toàn bộ lịch sử, từng khúc
+ * {@code BACKFILL_CHUNK_DAYS} ngày.</li>
+ * <li>Mỗi đêm tính lại {@code reconcile-days} ngày gần nhất — bắt thay đổi mà
+ * instance khác xử lý hoặc sửa tay DB.</li>
+ * </ul>
+ * Tính lại cả ngày (xóa rồi ghi) nên chạy lặp lại bao nhiêu lần cũng cho cùng
+ * kết quả.
+ */
+@Service
+public class SalesRollupService {
+
+    static final int BACKFILL_CHUNK_DAYS = 31;
+
+    private final OrderDetailRepository orderDetailRepository;
+    private final OrderRepository orderRepository;
+    private final SalesRollupRepository salesRollupRepository;
+    private final int recomputeDays;
+    private final int reconcileDays;
+
+    // Ngày đặt của các đơn vừa vào / rời DELIVERED, chờ lần chạy kế tiếp
+    private final Set<LocalDate> dirtyDays = ConcurrentHashMap.newKeySet();
+    private volatile LocalDateTime refreshedAt;
+
+    public SalesRollupService(OrderDetailRepository orderDetailRepository,
+            OrderRepository orderRepository,
+            SalesRollupRepository salesRollupRepository,
+            @Value("${app.analytics.recompute-days:2}") int recomputeDays,
+            @Value("${app.analytics.reconcile-days:90}") int reconcileDays) {
+        this.orderDetailRepository = orderDetailRepository;
+        this.orderRepository = orderRepository;
+        this.salesRollupRepository = salesRollupRepository;
+        this.recomputeDays = recomputeDays;
+        this.reconcileDays = reconcileDays;
+    }
+
+    // Mốc dữ liệu của lần tổng hợp gần nhất (null = chưa chạy lần nào)
+    public LocalDateTime getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    // ==============================================================
+    // 📣 Ghi nhận ngày cần tính lại
+    // ==============================================================
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getNewStatus() == OrderStatus.DELIVERED || event.getPreviousStatus() == OrderStatus.DELIVERED) {
+            dirtyDays.add(event.getOrderDay());
+        }
+    }
+
+    // ==============================================================
+    // 🔄 Chạy định kỳ
+    // ==============================================================
+    @Scheduled(initialDelayString = "${app.analytics.initial-delay-ms:60000}",
+            fixedDelayString = "${app.analytics.refresh-interval-ms:300000}")
+    @Transactional
+    public int refresh() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDate today = startedAt.toLocalDate();
+        if (salesRollupRepository.count() == 0) {
+            int rows = backfill(today);
+            refreshedAt = startedAt;
+            return rows;
+        }
+
+        Set<LocalDate> days = new TreeSet<>(dirtyDays);
+        dirtyDays.removeAll(days);
+        for (int i = 0; i < recomputeDays; i++) {
+            days.add(today.minusDays(i));
+        }
+        try {
+            int rows = 0;
+            for (LocalDate day : days) {
+                rows += recompute(day, day.plusDays(1));
+            }
+            refreshedAt = startedAt;
+            return rows;
+        } catch (RuntimeException e) {
+            // Để lần chạy sau thử lại các ngày này
+            dirtyDays.addAll(days);
+            throw e;
+        }
+    }
+
+    @Scheduled(cron = "${app.analytics.reconcile-cron:0 0 3 * * *}")
+    @Transactional
+    public int reconcile() {
+        LocalDate today = LocalDate.now();
+        return recomputeRange(today.minusDays(reconcileDays - 1L), today.plusDays(1));
+    }
+
+    private int backfill(LocalDate today) {
+        LocalDate first = orderRepository.findFirstOrderDate()
+                .map(LocalDateTime::toLocalDate)
+                .orElse(today);
+        return recomputeRange(first, today.plusDays(1));
+    }
+
+    private int recomputeRange(LocalDate from, LocalDate to) {
+        int rows = 0;
+        for (LocalDate start = from; start.isBefore(to); start = start.plusDays(BACKFILL_CHUNK_DAYS)) {
+            LocalDate end = start.plusDays(BACKFILL_CHUNK_DAYS);
+            rows += recompute(start, end.isBefore(to) ? end : to);
+        }
+        return rows;
+    }
+
+    // ==============================================================
+    // 🧮 Tính lại một khoảng ngày [from, to)
+    // ==============================================================
+    int recompute(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.atStartOfDay();
+        salesRollupRepository.deleteWindow(start, end);
+
+        List<SalesRollup> rollups = new ArrayList<>();
+        rollups.addAll(toRollups(RollupDimension.TOTAL, orderDetailRepository.sumSalesByHour(start, end)));
+        rollups.addAll(toRollups(RollupDimension.CATEGORY,
+                orderDetailRepository.sumSalesByHourAndCategory(start, end)));
+        rollups.addAll(toRollups(RollupDimension.VARIANT,
+                orderDetailRepository.sumSalesByHourAndVariant(start, end)));
+        salesRollupRepository.saveAll(rollups);
+        return rollups.size();
+    }
+
+    private record DayKey(LocalDate day, long dimensionId) {
+    }
+
+    // Mỗi dòng nguồn → một dòng theo giờ; cộng dồn thành dòng theo ngày.
+    // Một đơn chỉ thuộc một giờ nên cộng số đơn giữa các giờ không bị đếm trùng.
+    static List<SalesRollup> toRollups(RollupDimension dimension, List<SalesBucketRow> rows) {
+        List<SalesRollup> result = new ArrayList<>(rows.size());
+        Map<DayKey, SalesRollup> daily = new LinkedHashMap<>();
+        for (SalesBucketRow row : rows) {
+            long dimensionId = row.getDimensionId() != null ? row.getDimensionId() : 0L;
+            BigDecimal revenue = row.getRevenue() != null ? row.getRevenue() : BigDecimal.ZERO;
+            long orders = row.getOrders() != null ? row.getOrders() : 0L;
+            long units = row.getUnits() != null ? row.getUnits() : 0L;
+
+            SalesRollup hourly = new SalesRollup(RollupGranularity.HOUR, dimension,
+                    row.getDay().atTime(row.getHour(), 0), dimensionId);
+            hourly.add(revenue, orders, units);
+            result.add(hourly);
+
+            daily.computeIfAbsent(new DayKey(row.getDay(), dimensionId),
+                    key -> new SalesRollup(RollupGranularity.DAY, dimension, key.day().atStartOfDay(), key.dimensionId()))
+                    .add(revenue, orders, units);
+        }
+        result.addAll(daily.values());
+        return result;
+    }
+}
@@ -0,0 +1,176 @@
+package com.jeweleryshop.backend.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.jeweleryshop.backend.event.CartCheckedOutEvent;
+
+/**
+ * ⏳ Giữ hàng có thời hạn khi người dùng bắt đầu thanh toán.
+ *
+ * <ul>
+ * <li>Sổ giữ hàng nằm trong bộ nhớ: mỗi giỏ giữ một lượng cho từng biến thể,
+ * hết hạn sau {@code ttl}.</li>
+ * <li>Tổng đang giữ của mỗi biến thể là một bộ đếm → "còn bán được" = tồn kho
+ * trừ phần người khác đang giữ, tính mà không cần khóa hay truy vấn thêm.</li>
+ * <li>Job định kỳ trả lại các lượt giữ đã hết hạn theo từng lô.</li>
+ * </ul>
+ *
+ * Sổ chỉ có hiệu lực trong một instance — đủ cho triển khai hiện tại
+ * (một backend). Tồn kho thật vẫn chỉ bị trừ khi tạo đơn.
+ */
+@Service
+public class StockHoldService {
+
+    // Số lượt giữ hết hạn trả lại mỗi lô — giữa các lô nhả khóa cho request khác
+    static final int SWEEP_BATCH_SIZE = 500;
+
+    private final Map<Long, CartHold> holdsByCart = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> heldByVariant = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public StockHoldService(@Value("${app.stock-hold.ttl-seconds:600}") long ttlSeconds) {
+        this(Duration.ofSeconds(ttlSeconds), System::nanoTime);
+    }
+
+    // Cho phép test truyền đồng hồ giả
+    StockHoldService(Duration ttl, LongSupplier nanoClock) {
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    public Duration getTtl() {
+        return Duration.ofNanos(ttlNanos);
+    }
+
+    /**
+     * Giữ hàng cho cả giỏ (thay thế lượt giữ cũ của giỏ, nếu có). Không giữ
+     * phần nào nếu có biến thể không đủ.
+     *
+     * @param cartId giỏ hàng
+     * @param quantities variant id → số lượng cần giữ
+     * @param onHand variant id → tồn kho hiện tại (đọc thường, không khóa)
+     * @return variant id không đủ hàng — rỗng nếu giữ thành công
+     */
+    public synchronized Set<Long> hold(Long cartId, Map<Long, Integer> quantities, Map<Long, Integer> onHand) {
+        CartHold previous = holdsByCart.get(cartId);
+        Set<Long> unavailable = new HashSet<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            int own = previous != null ? previous.quantities.getOrDefault(line.getKey(), 0) : 0;
+            int heldByOthers = heldByVariant.getOrDefault(line.getKey(), 0) - own;
+            if (onHand.getOrDefault(line.getKey(), 0) - heldByOthers < line.getValue()) {
+                unavailable.add(line.getKey());
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            return unavailable;
+        }
+
+        if (previous != null) {
+            subtract(previous);
+        }
+        CartHold hold = new CartHold(Map.copyOf(quantities), nanoClock.getAsLong() + ttlNanos);
+        hold.quantities.forEach((variantId, quantity) -> heldByVariant.merge(variantId, quantity, Integer::sum));
+        holdsByCart.put(cartId, hold);
+        return Set.of();
+    }
+
+    // Đơn đã commit (kho đã trừ thật) → trả lượt giữ của giỏ
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartCheckedOut(CartCheckedOutEvent event) {
+        release(event.getCartId());
+    }
+
+    // Đặt hàng xong / rời trang thanh toán → trả lại ngay
+    public synchronized void release(Long cartId) {
+        CartHold hold = holdsByCart.remove(cartId);
+        if (hold != null) {
+            subtract(hold);
+        }
+    }
+
+    /**
+     * @return số lượng biến thể đang được các giỏ KHÁC giữ
+     */
+    public int heldByOthers(Long variantId, Long cartId) {
+        CartHold own = cartId != null ? holdsByCart.get(cartId) : null;
+        int ownQuantity = own != null ? own.quantities.getOrDefault(variantId, 0) : 0;
+        return Math.max(0, heldByVariant.getOrDefault(variantId, 0) - ownQuantity);
+    }
+
+    // Số lượng còn bán được cho giỏ này = tồn kho - phần người khác đang giữ
+    public int available(Long variantId, int onHand, Long cartId) {
+        return Math.max(0, onHand - heldByOthers(variantId, cartId));
+    }
+
+    public int activeHolds() {
+        return holdsByCart.size();
+    }
+
+    // ==============================================================
+    // 🧹 Dọn lượt giữ hết hạn
+    // ==============================================================
+    @Scheduled(fixedDelayString = "${app.stock-hold.sweep-interval-ms:15000}")
+    public int releaseExpired() {
+        int released = 0;
+        List<Long> batch;
+        do {
+            long now = nanoClock.getAsLong();
+            batch = new ArrayList<>(SWEEP_BATCH_SIZE);
+            for (Map.Entry<Long, CartHold> entry : holdsByCart.entrySet()) {
+                if (now - entry.getValue().expiresAtNanos >= 0) {
+                    batch.add(entry.getKey());
+                    if (batch.size() == SWEEP_BATCH_SIZE) {
+                        break;
+                    }
+                }
+            }
+            released += releaseIfExpired(batch, now);
+        } while (batch.size() == SWEEP_BATCH_SIZE);
+        return released;
+    }
+
+    // Kiểm tra lại trong khóa: giỏ có thể vừa giữ lại hàng (gia hạn) sau lúc quét
+    private synchronized int releaseIfExpired(List<Long> cartIds, long now) {
+        int released = 0;
+        for (Long cartId : cartIds) {
+            CartHold hold = holdsByCart.get(cartId);
+            if (hold != null && now - hold.expiresAtNanos >= 0) {
+                holdsByCart.remove(cartId);
+                subtract(hold);
+                released++;
+            }
+        }
+        return released;
+    }
+
+    private void subtract(CartHold hold) {
+        hold.quantities.forEach((variantId, quantity) -> heldByVariant.computeIfPresent(variantId,
+                (id, held) -> held - quantity > 0 ? held - quantity : null));
+    }
+
+    private static final class CartHold {
+
+        private final Map<Long, Integer> quantities;
+        private final long expiresAtNanos;
+
+        private CartHold(Map<Long, Integer> quantities, long expiresAtNanos) {
+            this.quantities = quantities;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,6 +16,8 @@ import com.jeweleryshop.backend.dto.UserResponse;
 import com.jeweleryshop.backend.dto.UserUpdateRequest;
 import com.jeweleryshop.backend.entity.Role;
 import com.jeweleryshop.backend.entity.User;
+import com.jeweleryshop.backend.event.UserChangedEvent;
+import com.jeweleryshop.backend.event.UserCountChangedEvent;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.exception.UserAlreadyExistsException;
 import com.jeweleryshop.backend.mapper.UserMapper;
@@ -27,15 +30,18 @@ public class UserService {
     private final RoleService roleService;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     public UserService(UserRepository userRepository,
             RoleService roleService,
             PasswordEncoder passwordEncoder,
-            UserMapper userMapper) {
+            UserMapper userMapper,
+            ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.roleService = roleService;
         this.passwordEncoder = passwordEncoder;
         this.userMapper = userMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     // ============================================================
@@ -76,6 +82,7 @@ public class UserService {
         user.setRoles(roles);
 
         User saved = userRepository.save(user);
+        eventPublisher.publishEvent(UserCountChangedEvent.registered(saved.getCreatedAt()));
         return userMapper.toUserResponse(saved);
     }
 
@@ -116,6 +123,7 @@ public class UserService {
     public UserResponse updateUser(Long id, UserUpdateRequest request) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy người dùng với ID: " + id));
+        String previousUsername = user.getUsername();
 
         // ✅ Kiểm tra username trùng
         if (request.getUsername() != null && !request.getUsername().equals(user.getUsername())) {
@@ -162,6 +170,7 @@ public class UserService {
 
         user.setUpdatedAt(LocalDateTime.now());
         User updated = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(List.of(previousUsername, updated.getUsername())));
         return userMapper.toUserResponse(updated);
     }
 
@@ -170,10 +179,11 @@ public class UserService {
     // ============================================================
     @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Không tìm thấy người dùng ID: " + id);
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy người dùng ID: " + id));
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(UserChangedEvent.of(user.getUsername()));
+        eventPublisher.publishEvent(UserCountChangedEvent.deleted(user.getCreatedAt()));
     }
 
     // ============================================================
@@ -186,6 +196,7 @@ public class UserService {
         user.setEnabled(enabled);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.of(user.getUsername()));
     }
 
     // ============================================================
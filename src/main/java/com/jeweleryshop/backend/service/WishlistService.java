@@ -6,10 +6,9 @@ import com.jeweleryshop.backend.entity.ProductVariant;
 import com.jeweleryshop.backend.exception.AppException;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.repository.ProductVariantRepository;
-import com.jeweleryshop.backend.repository.UserRepository;
+import com.jeweleryshop.backend.security.CurrentUserService;
 import com.jeweleryshop.backend.repository.WishlistRepository;
 import com.jeweleryshop.backend.dto.ProductResponseDTO;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,13 +18,14 @@ import java.util.stream.Collectors;
 @Service
 public class WishlistService {
 
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
     private final ProductVariantRepository variantRepository;
     private final WishlistRepository wishlistRepository;
     private final ProductService productService; // Reuse the conversion logic
 
-    public WishlistService(UserRepository userRepository, ProductVariantRepository variantRepository, WishlistRepository wishlistRepository, ProductService productService) {
-        this.userRepository = userRepository;
+    public WishlistService(ProductVariantRepository variantRepository, WishlistRepository wishlistRepository, ProductService productService,
+            CurrentUserService currentUserService) {
+        this.currentUserService = currentUserService;
         this.variantRepository = variantRepository;
         this.wishlistRepository = wishlistRepository;
         this.productService = productService;
@@ -33,7 +33,7 @@ public class WishlistService {
 
     @Transactional(readOnly = true)
     public List<ProductResponseDTO> getWishlist() {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
         List<Wishlist> wishlistItems = wishlistRepository.findByUserId(currentUser.getId());
         return wishlistItems.stream()
                 .map(item -> productService.convertToResponseDTO(item.getVariant().getProduct()))
@@ -42,7 +42,7 @@ public class WishlistService {
 
     @Transactional
     public void addProductToWishlist(Long variantId) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
         ProductVariant variant = variantRepository.findById(variantId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product variant not found with id: " + variantId));
 
@@ -58,16 +58,10 @@ public class WishlistService {
 
     @Transactional
     public void removeProductFromWishlist(Long variantId) {
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getReference();
         Wishlist wishlistItem = wishlistRepository.findByUserIdAndVariantId(currentUser.getId(), variantId)
                 .orElseThrow(() -> new ResourceNotFoundException("Item not found in wishlist."));
 
         wishlistRepository.delete(wishlistItem);
     }
-
-    private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
-    }
 }
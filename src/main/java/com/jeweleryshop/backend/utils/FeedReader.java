@@ -0,0 +1,298 @@
+package com.jeweleryshop.backend.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jeweleryshop.backend.entity.FeedFormat;
+import com.jeweleryshop.backend.exception.AppException;
+
+/**
+ * 📥 Đọc feed CSV / NDJSON theo luồng: mỗi dòng được đẩy ra ngay khi đọc
+ * xong, bộ nhớ chỉ giữ buffer đọc và dòng hiện tại.
+ *
+ * <ul>
+ * <li>Cột khớp theo tên, không phân biệt hoa thường và bỏ qua {@code _ - }
+ * dấu cách ({@code low_stock_threshold} = {@code lowStockThreshold}); cột
+ * lạ bị bỏ qua.</li>
+ * <li>Giá trị trả về dạng chuỗi thô đã trim, trống → null; dòng trống hẳn bị
+ * bỏ qua.</li>
+ * <li>CSV: dòng đầu là header, hỗ trợ ô bọc ngoặc kép (có xuống dòng bên
+ * trong) và BOM UTF-8.</li>
+ * </ul>
+ */
+public final class FeedReader {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    // Chặn file hỏng (ngoặc kép không đóng) nuốt hết bộ nhớ
+    static final int MAX_FIELD_LENGTH = 1 << 20;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /**
+     * Một dòng dữ liệu; {@code line} là số dòng trong file (CSV: header = 1),
+     * giá trị theo đúng thứ tự cột truyền vào {@link #read}.
+     */
+    public record Row(int line, String[] values) {
+
+        public String get(int column) {
+            return values[column];
+        }
+    }
+
+    private FeedReader() {
+    }
+
+    /**
+     * @param columns        tên cột cần lấy
+     * @param requiredColumn cột bắt buộc phải có trong header CSV
+     * @throws AppException file sai cú pháp hoặc không đọc được (các dòng đã
+     *                      đẩy ra trước đó vẫn giữ nguyên)
+     */
+    public static void read(FeedFormat format, InputStream in, String[] columns, String requiredColumn,
+            Consumer<Row> consumer) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            index.put(normalize(columns[i]), i);
+        }
+        try {
+            if (format == FeedFormat.CSV) {
+                readCsv(in, columns.length, index, requiredColumn, consumer);
+            } else {
+                readNdjson(in, columns.length, index, consumer);
+            }
+        } catch (JsonProcessingException e) {
+            throw new AppException("File NDJSON không hợp lệ ở dòng " + e.getLocation().getLineNr() + ": "
+                    + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new AppException("Lỗi khi đọc file " + format.getExtension() + ": " + e.getMessage());
+        }
+    }
+
+    private static String normalize(String name) {
+        StringBuilder normalized = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '_' && c != '-' && !Character.isWhitespace(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static String clean(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static boolean isBlank(String[] values) {
+        for (String value : values) {
+            if (value != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==============================================================
+    // 🧾 CSV
+    // ==============================================================
+    private static void readCsv(InputStream in, int width, Map<String, Integer> index, String requiredColumn,
+            Consumer<Row> consumer) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> fields = new ArrayList<>();
+        if (!tokenizer.next(fields)) {
+            throw new AppException("File CSV trống");
+        }
+
+        // Vị trí cột trong file → vị trí trong columns (-1: bỏ qua)
+        int[] mapping = new int[fields.size()];
+        boolean hasRequired = false;
+        for (int i = 0; i < fields.size(); i++) {
+            String name = normalize(fields.get(i));
+            mapping[i] = index.getOrDefault(name, -1);
+            hasRequired |= name.equals(normalize(requiredColumn));
+        }
+        if (!hasRequired) {
+            throw new AppException("File CSV thiếu cột " + requiredColumn);
+        }
+
+        while (tokenizer.next(fields)) {
+            String[] values = new String[width];
+            for (int i = 0; i < fields.size() && i < mapping.length; i++) {
+                if (mapping[i] >= 0) {
+                    values[mapping[i]] = clean(fields.get(i));
+                }
+            }
+            if (!isBlank(values)) {
+                consumer.accept(new Row(tokenizer.recordLine, values));
+            }
+        }
+    }
+
+    /**
+     * Tách bản ghi CSV trên buffer ký tự riêng: ô không bọc ngoặc được chép
+     * nguyên đoạn từ buffer, không đi qua từng ký tự.
+     */
+    private static final class CsvTokenizer {
+
+        private final Reader in;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private final StringBuilder field = new StringBuilder();
+        private int pos;
+        private int limit;
+        private int line = 1;
+        int recordLine;
+
+        CsvTokenizer(Reader in) throws IOException {
+            this.in = in;
+            if (fill() && buffer[pos] == '\uFEFF') {
+                pos++;
+            }
+        }
+
+        // false khi hết file
+        private boolean fill() throws IOException {
+            if (pos < limit) {
+                return true;
+            }
+            pos = 0;
+            limit = Math.max(in.read(buffer, 0, buffer.length), 0);
+            return limit > 0;
+        }
+
+        boolean next(List<String> fields) throws IOException {
+            fields.clear();
+            if (!fill()) {
+                return false;
+            }
+            recordLine = line;
+            while (true) {
+                field.setLength(0);
+                if (fill() && buffer[pos] == '"') {
+                    pos++;
+                    readQuoted();
+                }
+                readPlain();
+                fields.add(field.toString());
+
+                if (!fill()) {
+                    return true;
+                }
+                char c = buffer[pos++];
+                if (c == ',') {
+                    continue;
+                }
+                if (c == '\r' && fill() && buffer[pos] == '\n') {
+                    pos++;
+                }
+                line++;
+                return true;
+            }
+        }
+
+        // Đến dấu phẩy / xuống dòng / hết file
+        private void readPlain() throws IOException {
+            while (fill()) {
+                int start = pos;
+                while (pos < limit) {
+                    char c = buffer[pos];
+                    if (c == ',' || c == '\n' || c == '\r') {
+                        break;
+                    }
+                    pos++;
+                }
+                append(start);
+                if (pos < limit) {
+                    return;
+                }
+            }
+        }
+
+        // Sau dấu ngoặc mở, đến dấu ngoặc đóng; "" là một dấu ngoặc kép
+        private void readQuoted() throws IOException {
+            int startLine = line;
+            while (true) {
+                if (!fill()) {
+                    throw new AppException("File CSV không hợp lệ: ngoặc kép mở ở dòng " + startLine
+                            + " chưa được đóng");
+                }
+                int start = pos;
+                while (pos < limit && buffer[pos] != '"') {
+                    if (buffer[pos] == '\n') {
+                        line++;
+                    }
+                    pos++;
+                }
+                append(start);
+                if (pos < limit) {
+                    pos++;
+                    if (!fill() || buffer[pos] != '"') {
+                        return;
+                    }
+                    field.append('"');
+                    pos++;
+                }
+            }
+        }
+
+        private void append(int start) {
+            if (field.length() + pos - start > MAX_FIELD_LENGTH) {
+                throw new AppException("File CSV không hợp lệ: ô ở dòng " + recordLine + " dài quá "
+                        + MAX_FIELD_LENGTH + " ký tự");
+            }
+            field.append(buffer, start, pos - start);
+        }
+    }
+
+    // ==============================================================
+    // 🧾 NDJSON
+    // ==============================================================
+    private static void readNdjson(InputStream in, int width, Map<String, Integer> index, Consumer<Row> consumer)
+            throws IOException {
+        // Tên trường lặp lại ở mọi dòng → chỉ chuẩn hóa một lần mỗi tên
+        Map<String, Integer> fieldIndex = new HashMap<>();
+        try (JsonParser parser = JSON.createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                int line = parser.currentTokenLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    throw new AppException("File NDJSON không hợp lệ ở dòng " + line
+                            + ": mỗi dòng phải là một JSON object");
+                }
+                String[] values = new String[width];
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    int column = fieldIndex.computeIfAbsent(name, n -> index.getOrDefault(normalize(n), -1));
+                    JsonToken value = parser.nextToken();
+                    if (value.isStructStart()) {
+                        if (column >= 0) {
+                            throw new AppException("File NDJSON không hợp lệ ở dòng " + line + ": trường "
+                                    + name + " phải là giá trị đơn");
+                        }
+                        parser.skipChildren();
+                    } else if (column >= 0 && value != JsonToken.VALUE_NULL) {
+                        values[column] = clean(parser.getText());
+                    }
+                }
+                if (!isBlank(values)) {
+                    consumer.accept(new Row(line, values));
+                }
+            }
+        }
+    }
+}
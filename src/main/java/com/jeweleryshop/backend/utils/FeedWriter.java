@@ -0,0 +1,223 @@
+package com.jeweleryshop.backend.utils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.jeweleryshop.backend.entity.FeedFormat;
+
+/**
+ * 📤 Ghi feed CSV / NDJSON từng ô thẳng vào buffer của stream đích — không
+ * dựng chuỗi dòng, Map hay DTO trung gian nên chi phí mỗi dòng chỉ là mã hóa
+ * UTF-8.
+ *
+ * <pre>
+ * try (FeedWriter writer = FeedWriter.open(format, out, "sku", "quantity")) {
+ *     writer.startRow();
+ *     writer.value("RING-01");
+ *     writer.value(12);
+ *     writer.endRow();
+ * }
+ * </pre>
+ *
+ * Ô được ghi theo đúng thứ tự cột truyền vào {@link #open}. Đóng writer sẽ đóng
+ * luôn stream đích.
+ */
+public abstract class FeedWriter implements Closeable {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .enable(StreamWriteFeature.WRITE_BIGDECIMAL_AS_PLAIN)
+            .build();
+
+    public static FeedWriter open(FeedFormat format, OutputStream out, String... columns) throws IOException {
+        return format == FeedFormat.CSV ? new Csv(out, columns) : new Ndjson(out, columns);
+    }
+
+    public abstract void startRow() throws IOException;
+
+    public abstract void value(String value) throws IOException;
+
+    // BigDecimal ghi dạng plain (1500000.00, không phải 1.5E+6)
+    public abstract void value(Number value) throws IOException;
+
+    public abstract void value(Boolean value) throws IOException;
+
+    public abstract void endRow() throws IOException;
+
+    // ==============================================================
+    // 🧾 CSV (RFC 4180)
+    // ==============================================================
+    private static final class Csv extends FeedWriter {
+
+        private final Writer out;
+        private int column;
+
+        Csv(OutputStream out, String[] columns) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            startRow();
+            for (String name : columns) {
+                value(name);
+            }
+            endRow();
+        }
+
+        @Override
+        public void startRow() {
+            column = 0;
+        }
+
+        @Override
+        public void value(String value) throws IOException {
+            separator();
+            if (value == null) {
+                return;
+            }
+            if (!needsQuotes(value)) {
+                out.write(value);
+                return;
+            }
+            // Bọc ngoặc kép, nhân đôi ngoặc kép bên trong
+            out.write('"');
+            int start = 0;
+            for (int quote = value.indexOf('"'); quote >= 0; quote = value.indexOf('"', start)) {
+                out.write(value, start, quote + 1 - start);
+                out.write('"');
+                start = quote + 1;
+            }
+            out.write(value, start, value.length() - start);
+            out.write('"');
+        }
+
+        @Override
+        public void value(Number value) throws IOException {
+            separator();
+            if (value != null) {
+                out.write(value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString());
+            }
+        }
+
+        @Override
+        public void value(Boolean value) throws IOException {
+            separator();
+            if (value != null) {
+                out.write(value ? "true" : "false");
+            }
+        }
+
+        @Override
+        public void endRow() throws IOException {
+            out.write("\r\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void separator() throws IOException {
+            if (column++ > 0) {
+                out.write(',');
+            }
+        }
+
+        // Dấu cách đầu / cuối cũng bọc lại để bên đọc không trim mất
+        private static boolean needsQuotes(String value) {
+            if (value.isEmpty()) {
+                return false;
+            }
+            if (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ') {
+                return true;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // ==============================================================
+    // 🧾 NDJSON
+    // ==============================================================
+    private static final class Ndjson extends FeedWriter {
+
+        private final JsonGenerator generator;
+        // Tên trường mã hóa sẵn một lần, mỗi dòng chỉ chép byte
+        private final SerializedString[] names;
+        private int column;
+
+        Ndjson(OutputStream out, String[] columns) throws IOException {
+            this.generator = JSON.createGenerator(out, JsonEncoding.UTF8);
+            this.generator.setRootValueSeparator(null);
+            this.names = new SerializedString[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                names[i] = new SerializedString(columns[i]);
+            }
+        }
+
+        @Override
+        public void startRow() throws IOException {
+            generator.writeStartObject();
+            column = 0;
+        }
+
+        @Override
+        public void value(String value) throws IOException {
+            generator.writeFieldName(names[column++]);
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeString(value);
+            }
+        }
+
+        @Override
+        public void value(Number value) throws IOException {
+            generator.writeFieldName(names[column++]);
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof BigDecimal decimal) {
+                generator.writeNumber(decimal);
+            } else if (value instanceof Integer number) {
+                generator.writeNumber(number);
+            } else {
+                generator.writeNumber(value.longValue());
+            }
+        }
+
+        @Override
+        public void value(Boolean value) throws IOException {
+            generator.writeFieldName(names[column++]);
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeBoolean(value);
+            }
+        }
+
+        @Override
+        public void endRow() throws IOException {
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.jeweleryshop.backend.utils;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * 🖼️ Đọc / thu nhỏ / ghi ảnh bằng {@code javax.imageio}.
+ *
+ * <ul>
+ * <li>{@link #probe} chỉ đọc header — biết định dạng và kích thước mà không
+ * giải mã điểm ảnh.</li>
+ * <li>{@link #read} giải mã có lấy mẫu thưa: ảnh 6000px chỉ cần tới cỡ lớn
+ * nhất 1200px thì bỏ bớt điểm ảnh ngay lúc đọc, không giữ cả ảnh gốc trong
+ * bộ nhớ.</li>
+ * <li>{@link #fit} thu nhỏ nhiều bước, mỗi bước tối đa một nửa, nội suy song
+ * tuyến tính — một bước lớn sẽ bỏ sót điểm ảnh gây răng cưa.</li>
+ * </ul>
+ */
+public final class ImageResizer {
+
+    /** Định dạng (tên ImageIO, chữ thường) và kích thước ảnh. */
+    public record Info(String format, int width, int height) {
+    }
+
+    private ImageResizer() {
+    }
+
+    /**
+     * @return null nếu ImageIO không nhận ra file là ảnh
+     */
+    public static Info probe(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = reader(in);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                return new Info(reader.getFormatName().toLowerCase(Locale.ROOT),
+                        reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Giải mã ảnh (khung đầu tiên nếu là ảnh động), lấy mẫu thưa sao cho cạnh
+     * dài vẫn còn ít nhất {@code 2 * maxSize} để bước thu nhỏ sau đủ mịn.
+     */
+    public static BufferedImage read(Path file, int maxSize) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = reader(in);
+            if (reader == null) {
+                throw new IIOException("Không nhận ra định dạng ảnh: " + file.getFileName());
+            }
+            try {
+                int longSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longSide / (2 * maxSize));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Thu nhỏ giữ tỉ lệ để cạnh dài không vượt {@code maxSize} (không phóng to
+     * ảnh nhỏ hơn). Kết quả luôn là ảnh RGB mới, nền trong suốt được phủ trắng.
+     */
+    public static BufferedImage fit(BufferedImage source, int maxSize) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxSize / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    public static void writeJpeg(BufferedImage image, OutputStream out, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static ImageReader reader(ImageInputStream in) {
+        if (in == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(in, true, true);
+        return reader;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+}
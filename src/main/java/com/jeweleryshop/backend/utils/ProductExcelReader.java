@@ -0,0 +1,134 @@
+package com.jeweleryshop.backend.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import com.jeweleryshop.backend.exception.AppException;
+
+/**
+ * 📥 Đọc sheet sản phẩm theo kiểu SAX (event model của POI): mỗi dòng được
+ * đẩy ra ngay khi đọc xong, không dựng workbook trong bộ nhớ. Cột giống file
+ * export ({@link ExcelHelper#HEADERs}).
+ */
+public final class ProductExcelReader {
+
+    private static final int COLUMNS = ExcelHelper.HEADERs.length;
+
+    private ProductExcelReader() {
+    }
+
+    /**
+     * Đọc sheet "Products" (không có thì sheet đầu tiên), bỏ qua dòng header.
+     *
+     * @throws AppException file không phải .xlsx hợp lệ
+     */
+    public static void read(File file, Consumer<ProductImportRow> consumer) {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFSheetXMLHandler handler = new XSSFSheetXMLHandler(reader.getStylesTable(), null,
+                    new ReadOnlySharedStringsTable(pkg), new RowCollector(consumer), rawNumberFormatter(), false);
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(handler);
+            try (InputStream sheet = openProductSheet(reader)) {
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (IOException | OpenXML4JException | SAXException | ParserConfigurationException
+                | IllegalArgumentException e) {
+            throw new AppException("File Excel không hợp lệ: " + e.getMessage());
+        }
+    }
+
+    private static InputStream openProductSheet(XSSFReader reader) throws IOException, OpenXML4JException {
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        InputStream first = null;
+        while (sheets.hasNext()) {
+            InputStream sheet = sheets.next();
+            if (ExcelHelper.SHEET.equals(sheets.getSheetName())) {
+                if (first != null) {
+                    first.close();
+                }
+                return sheet;
+            }
+            if (first == null) {
+                first = sheet;
+            } else {
+                sheet.close();
+            }
+        }
+        if (first == null) {
+            throw new AppException("File Excel không có sheet nào");
+        }
+        return first;
+    }
+
+    // Số giữ nguyên giá trị (1500000 chứ không phải "1,500,000" theo định dạng ô)
+    private static DataFormatter rawNumberFormatter() {
+        return new DataFormatter() {
+            @Override
+            public String formatRawCellContents(double value, int formatIndex, String formatString) {
+                if (DateUtil.isADateFormat(formatIndex, formatString)) {
+                    return super.formatRawCellContents(value, formatIndex, formatString);
+                }
+                return NumberToTextConverter.toText(value);
+            }
+        };
+    }
+
+    // ==============================================================
+    // 🧩 Gom ô thành dòng
+    // ==============================================================
+    private static final class RowCollector implements SheetContentsHandler {
+
+        private final Consumer<ProductImportRow> consumer;
+        private final String[] cells = new String[COLUMNS];
+
+        RowCollector(Consumer<ProductImportRow> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(cells, null);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = new CellReference(cellReference).getCol();
+            if (col < COLUMNS && formattedValue != null && !formattedValue.isBlank()) {
+                cells[col] = formattedValue.trim();
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            // Dòng 0 là header; cột 0 (ID) chỉ để tham khảo khi import
+            if (rowNum == 0) {
+                return;
+            }
+            consumer.accept(new ProductImportRow(rowNum + 1, cells[1], cells[2], cells[3], cells[4], cells[5], cells[6],
+                    cells[7], cells[8]));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.jeweleryshop.backend.utils;
+
+/**
+ * 📥 Một dòng sản phẩm cần import, chung cho mọi định dạng (Excel, CSV,
+ * NDJSON). Giá trị là chuỗi thô đã trim, ô trống → null; việc kiểm tra /
+ * chuyển kiểu do nơi gọi quyết định.
+ *
+ * @param rowNumber số dòng trong file để báo lỗi (Excel: header = 1)
+ */
+public record ProductImportRow(int rowNumber, String name, String description, String basePrice,
+        String discountPrice, String skuPrefix, String category, String active, String imageUrl) {
+
+    public boolean isBlank() {
+        return name == null && description == null && basePrice == null && discountPrice == null
+                && skuPrefix == null && category == null && active == null && imageUrl == null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.jeweleryshop.backend.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * #️⃣ Hash SHA-256 (hex, 64 ký tự) cho mã bí mật lưu trong DB — OTP, refresh
+ * token. Chỉ lưu hash nên lộ bảng cũng không dùng được mã.
+ */
+public final class TokenHasher {
+
+    private TokenHasher() {
+    }
+
+    public static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.jeweleryshop.backend.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.jeweleryshop.backend.dto.CacheStatsDTO;
+
+class BoundedTtlCacheTest {
+
+    private AtomicLong clock;
+    private BoundedTtlCache<Long, String> cache;
+
+    @BeforeEach
+    void setup() {
+        clock = new AtomicLong();
+        cache = new BoundedTtlCache<>("test", 2, Duration.ofSeconds(10), clock::get);
+    }
+
+    // ✅ 1. Vượt quá maxSize → bỏ phần tử ít dùng nhất
+    @Test
+    void testPut_OverMaxSize_ShouldEvictLeastRecentlyUsed() {
+        cache.put(1L, "a");
+        cache.put(2L, "b");
+        cache.get(1L); // 1 vừa được dùng → 2 là LRU
+        cache.put(3L, "c");
+
+        assertEquals("a", cache.get(1L));
+        assertNull(cache.get(2L));
+        assertEquals("c", cache.get(3L));
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    // ✅ 2. Hết TTL → coi như miss và bị xóa
+    @Test
+    void testGet_AfterTtl_ShouldMissAndEvict() {
+        cache.put(1L, "a");
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+
+        assertNull(cache.get(1L));
+
+        CacheStatsDTO stats = cache.stats();
+        assertEquals(0, stats.getSize());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getEvictions());
+    }
+
+    // ✅ 3. Read-through: chỉ gọi loader khi miss
+    @Test
+    void testGetOrLoad_ShouldLoadOnce() {
+        AtomicLong loads = new AtomicLong();
+
+        cache.getOrLoad(1L, () -> "a" + loads.incrementAndGet());
+        String value = cache.getOrLoad(1L, () -> "a" + loads.incrementAndGet());
+
+        assertEquals("a1", value);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+        assertEquals(0.5, cache.stats().getHitRatio());
+    }
+
+    // ✅ 4. Invalidate trong lúc đang nạp → không lưu giá trị cũ
+    @Test
+    void testGetOrLoad_InvalidatedWhileLoading_ShouldNotCacheStaleValue() {
+        String value = cache.getOrLoad(1L, () -> {
+            cache.invalidate(1L);
+            return "stale";
+        });
+
+        assertEquals("stale", value);
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.stats().getInvalidations());
+    }
+}
@@ -6,6 +6,8 @@ import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
@@ -23,10 +25,12 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jeweleryshop.backend.dto.ProductCursorPageDTO;
 import com.jeweleryshop.backend.dto.ProductRequestDTO;
 import com.jeweleryshop.backend.dto.ProductResponseDTO;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
@@ -77,7 +81,7 @@ class ProductControllerTest {
     void getAllProducts_ShouldReturnProductsWithLinks() throws Exception {
         // Arrange
         Page<ProductResponseDTO> page = new PageImpl<>(List.of(productResponse));
-        when(productService.getAllProducts(any(Pageable.class), any(), any(), any(), any(), any(), any()))
+        when(productService.getAllProducts(any(Pageable.class), any(), any(), any(), any(), any(), any(), anyBoolean()))
                 .thenReturn(page);
 
         // Act & Assert
@@ -125,8 +129,8 @@ class ProductControllerTest {
     @Test
     void getPublicProducts_ShouldReturnProductList() throws Exception {
         // Arrange
-        Page<ProductResponseDTO> page = new PageImpl<>(List.of(productResponse));
-        when(productService.getAllProducts(any(Pageable.class), any(), any(), any(), any(), any(), any()))
+        ProductCursorPageDTO page = new ProductCursorPageDTO(List.of(productResponse), null, false);
+        when(productService.getProductsAfter(any(), anyInt(), any(), any(), any(), any(), any(), any(), anyBoolean()))
                 .thenReturn(page);
 
         // Act & Assert
@@ -134,7 +138,22 @@ class ProductControllerTest {
                 .andExpect(status().isOk())
                 // ✅ SỬA: API public có thể trả về array trực tiếp
                 .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].name").value("Diamond Ring"));
+                .andExpect(jsonPath("$[0].name").value("Diamond Ring"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void getPublicProducts_WhenMorePagesExist_ShouldReturnNextCursorHeader() throws Exception {
+        // Arrange
+        ProductCursorPageDTO page = new ProductCursorPageDTO(List.of(productResponse), "MQ", true);
+        when(productService.getProductsAfter(eq(null), eq(1), any(), any(), any(), any(), any(), any(), anyBoolean()))
+                .thenReturn(page);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/public/products").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(header().string("X-Next-Cursor", "MQ"));
     }
 
     // ============================================================
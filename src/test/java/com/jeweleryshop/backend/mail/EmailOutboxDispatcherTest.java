@@ -0,0 +1,179 @@
+package com.jeweleryshop.backend.mail;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.jeweleryshop.backend.dto.EmailStatsDTO;
+import com.jeweleryshop.backend.entity.EmailOutbox;
+import com.jeweleryshop.backend.entity.EmailStatus;
+import com.jeweleryshop.backend.event.EmailQueuedEvent;
+import com.jeweleryshop.backend.repository.EmailOutboxRepository;
+
+class EmailOutboxDispatcherTest {
+
+    // SMTP giả: ghi lại từng lần gửi, có thể làm lỗi một số thư hoặc cả lô
+    private static class FakeSmtp extends JavaMailSenderImpl {
+
+        private final List<List<SimpleMailMessage>> batches = new ArrayList<>();
+        private Predicate<SimpleMailMessage> rejects = message -> false;
+        private MailException outage;
+
+        @Override
+        public void send(SimpleMailMessage... messages) {
+            if (outage != null) {
+                throw outage;
+            }
+            batches.add(List.of(messages));
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            for (SimpleMailMessage message : messages) {
+                if (rejects.test(message)) {
+                    failed.put(message, new IllegalStateException("550 mailbox unavailable"));
+                }
+            }
+            if (!failed.isEmpty()) {
+                throw new MailSendException(failed);
+            }
+        }
+    }
+
+    private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+    private final FakeSmtp smtp = new FakeSmtp();
+    private final EmailOutboxDispatcher dispatcher =
+            new EmailOutboxDispatcher(repository, smtp, 2, 1, 20, 3, 30, 300, 30);
+
+    private EmailOutbox first;
+    private EmailOutbox second;
+
+    private static EmailOutbox email(long id, String to) {
+        EmailOutbox email = new EmailOutbox(to, "OTP", "Your OTP code is: 123456", LocalDateTime.now());
+        email.setId(id);
+        return email;
+    }
+
+    @BeforeEach
+    void setup() {
+        first = email(1L, "a@example.com");
+        second = email(2L, "b@example.com");
+        when(repository.claim(any(), any(), any())).thenReturn(1);
+        when(repository.findAllById(anyList())).thenReturn(List.of(first, second));
+    }
+
+    // ✅ 1. Cả lô đi qua một lần gửi, đánh dấu SENT
+    @Test
+    void testDispatch_SendsWholeBatchAtOnce() {
+        int delivered = dispatcher.dispatch(List.of(1L, 2L));
+
+        assertEquals(2, delivered);
+        assertEquals(1, smtp.batches.size());
+        assertEquals(2, smtp.batches.get(0).size());
+        assertEquals(EmailStatus.SENT, first.getStatus());
+        assertNotNull(second.getSentAt());
+        // Mã OTP không nằm lại trong outbox sau khi gửi
+        assertEquals(EmailOutboxDispatcher.REDACTED_BODY, first.getBody());
+        verify(repository).saveAll(List.of(first, second));
+        EmailStatsDTO stats = dispatcher.stats();
+        assertEquals(2, stats.getSent());
+        assertEquals(1, stats.getBatches());
+    }
+
+    // ✅ 2. Thư bị từ chối được hẹn thử lại, thư còn lại vẫn SENT
+    @Test
+    void testDispatch_PartialFailure_SchedulesRetry() {
+        smtp.rejects = message -> message.getTo()[0].equals("b@example.com");
+
+        int delivered = dispatcher.dispatch(List.of(1L, 2L));
+
+        assertEquals(1, delivered);
+        assertEquals(EmailStatus.SENT, first.getStatus());
+        assertEquals(EmailStatus.PENDING, second.getStatus());
+        assertEquals("Your OTP code is: 123456", second.getBody());
+        assertEquals(1, second.getAttempts());
+        assertEquals("550 mailbox unavailable", second.getLastError());
+        assertTrue(second.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(25)));
+        assertEquals(1, dispatcher.stats().getRetried());
+    }
+
+    // ❌ 3. Lỗi chung (sai mật khẩu SMTP) nhiều lần → FAILED sau maxAttempts
+    @Test
+    void testDispatch_OutageMarksFailedAfterMaxAttempts() {
+        smtp.outage = new MailAuthenticationException("535 authentication failed");
+        second.setAttempts(2);
+
+        int delivered = dispatcher.dispatch(List.of(1L, 2L));
+
+        assertEquals(0, delivered);
+        assertEquals(EmailStatus.PENDING, first.getStatus());
+        assertEquals(EmailStatus.FAILED, second.getStatus());
+        assertEquals(3, second.getAttempts());
+        assertEquals(EmailOutboxDispatcher.REDACTED_BODY, second.getBody());
+        assertEquals("Your OTP code is: 123456", first.getBody());
+        assertEquals(1, dispatcher.stats().getFailed());
+    }
+
+    // ✅ 4. Thư đã được worker khác nhận thì không gửi lại
+    @Test
+    void testDispatch_SkipsEmailsClaimedElsewhere() {
+        when(repository.claim(eq(1L), any(), any())).thenReturn(0);
+        when(repository.claim(eq(2L), any(), any())).thenReturn(0);
+
+        assertEquals(0, dispatcher.dispatch(List.of(1L, 2L)));
+        assertTrue(smtp.batches.isEmpty());
+    }
+
+    // ✅ 5. Hàng đợi có giới hạn: đầy thì để job quét nhặt lại, không nhận trùng
+    @Test
+    void testQueue_BoundedAndDeduplicated() {
+        dispatcher.onEmailQueued(new EmailQueuedEvent(1L));
+        dispatcher.onEmailQueued(new EmailQueuedEvent(1L));
+        dispatcher.onEmailQueued(new EmailQueuedEvent(2L));
+        dispatcher.onEmailQueued(new EmailQueuedEvent(3L));
+
+        EmailStatsDTO stats = dispatcher.stats();
+        assertEquals(2, stats.getQueueDepth());
+        assertEquals(1, stats.getOverflowed());
+        assertEquals(0, dispatcher.requeueDue());
+    }
+
+    // ✅ 6. Thời gian chờ tăng gấp đôi, có trần
+    @Test
+    void testBackoff() {
+        assertEquals(Duration.ofSeconds(30), dispatcher.backoff(1));
+        assertEquals(Duration.ofSeconds(120), dispatcher.backoff(3));
+        assertEquals(EmailOutboxDispatcher.MAX_BACKOFF, dispatcher.backoff(30));
+        when(repository.findDueIds(any(), any(Pageable.class))).thenReturn(List.of(7L));
+        assertEquals(1, dispatcher.requeueDue());
+    }
+
+    // ✅ 7. Job dọn xóa thư đã xong theo lô tới khi hết
+    @Test
+    void testPurgeExpired_Batches() {
+        when(repository.deleteFinishedBatch(any(LocalDateTime.class), eq(500))).thenReturn(500, 20);
+
+        assertEquals(520, dispatcher.purgeExpired());
+        verify(repository, times(2)).deleteFinishedBatch(any(LocalDateTime.class), eq(500));
+    }
+}
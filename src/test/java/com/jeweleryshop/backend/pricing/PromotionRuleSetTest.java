@@ -0,0 +1,86 @@
+package com.jeweleryshop.backend.pricing;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+import com.jeweleryshop.backend.entity.Promotion;
+import com.jeweleryshop.backend.entity.PromotionType;
+import com.jeweleryshop.backend.pricing.PromotionRuleSet.Line;
+import com.jeweleryshop.backend.pricing.PromotionRuleSet.Quote;
+
+class PromotionRuleSetTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+    private static final BigDecimal SHIPPING = BigDecimal.valueOf(30000);
+
+    private static Promotion promotion(long id, String code, PromotionType type, long value, Long minOrder,
+            LocalDateTime start, LocalDateTime end, int maxUsage, int currentUsage) {
+        return new Promotion(id, code, null, type, BigDecimal.valueOf(value), start, end,
+                minOrder != null ? BigDecimal.valueOf(minOrder) : null, maxUsage, currentUsage);
+    }
+
+    private final PromotionRuleSet rules = PromotionRuleSet.compile(List.of(
+            promotion(1, "SALE10", PromotionType.PERCENTAGE, 10, 1000L, NOW.minusDays(1), NOW.plusDays(1), 100, 0),
+            promotion(2, "GIAM500K", PromotionType.FIXED_AMOUNT, 500_000, null, NOW.minusDays(1), NOW.plusDays(1), 100, 0),
+            promotion(3, "SAPTOI", PromotionType.PERCENTAGE, 20, null, NOW.plusDays(1), NOW.plusDays(5), 100, 0),
+            promotion(4, "HETHAN", PromotionType.PERCENTAGE, 20, null, NOW.minusDays(5), NOW.minusDays(1), 100, 0),
+            promotion(5, "HETLUOT", PromotionType.PERCENTAGE, 20, null, NOW.minusDays(1), NOW.plusDays(1), 10, 10)),
+            NOW);
+
+    // ✅ 1. Bỏ mã đã hết hạn / hết lượt, giữ mã sắp bắt đầu
+    @Test
+    void testCompile_ShouldSkipExpiredAndExhausted() {
+        assertEquals(3, rules.size());
+        assertNotNull(rules.findByCode("SAPTOI"));
+        assertNull(rules.findByCode("HETHAN"));
+        assertNull(rules.findByCode("HETLUOT"));
+        assertEquals("SALE10", rules.findByCode(" sale10 ").getCode());
+        assertEquals("GIAM500K", rules.findById(2L).getCode());
+    }
+
+    // ✅ 2. Phần trăm tính trên tạm tính, cộng phí vận chuyển
+    @Test
+    void testEvaluate_Percentage() {
+        Quote quote = PromotionRuleSet.evaluate(List.of(new Line(BigDecimal.valueOf(1250), 3),
+                new Line(BigDecimal.valueOf(999), 1)), rules.findByCode("SALE10"), NOW, SHIPPING);
+
+        assertEquals(0, quote.getSubTotal().compareTo(BigDecimal.valueOf(4749)));
+        assertEquals(new BigDecimal("474.90"), quote.getDiscountAmount());
+        assertEquals(0, quote.getFinalTotal().compareTo(new BigDecimal("34274.10")));
+        assertEquals("SALE10", quote.getAppliedCode());
+        assertEquals(1L, quote.getAppliedPromotionId());
+    }
+
+    // ✅ 3. Giảm cố định không vượt quá tạm tính
+    @Test
+    void testEvaluate_FixedAmountCappedAtSubTotal() {
+        Quote quote = PromotionRuleSet.evaluate(List.of(new Line(BigDecimal.valueOf(200_000), 2)),
+                rules.findByCode("GIAM500K"), NOW, SHIPPING);
+
+        assertEquals(0, quote.getDiscountAmount().compareTo(BigDecimal.valueOf(400_000)));
+        assertEquals(0, quote.getTotalAfterDiscount().signum());
+        assertEquals(0, quote.getFinalTotal().compareTo(SHIPPING));
+    }
+
+    // ✅ 4. Không đủ điều kiện → không giảm, kèm lý do
+    @Test
+    void testEvaluate_Rejected() {
+        Quote belowMinimum = PromotionRuleSet.evaluate(List.of(new Line(BigDecimal.valueOf(999), 1)),
+                rules.findByCode("SALE10"), NOW, SHIPPING);
+        Quote notStarted = PromotionRuleSet.evaluate(List.of(new Line(BigDecimal.valueOf(999), 1)),
+                rules.findByCode("SAPTOI"), NOW, SHIPPING);
+
+        assertEquals(0, belowMinimum.getDiscountAmount().signum());
+        assertNull(belowMinimum.getAppliedCode());
+        assertEquals("Order amount must be at least 1000 to use this promotion.", belowMinimum.getRejectionReason());
+        assertEquals("This promotion has not started yet.", notStarted.getRejectionReason());
+        assertEquals("This promotion has expired.", rules.findByCode("SAPTOI")
+                .rejectionReason(BigDecimal.TEN, NOW.plusDays(6)));
+    }
+}
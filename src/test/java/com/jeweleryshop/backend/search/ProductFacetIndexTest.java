@@ -0,0 +1,67 @@
+package com.jeweleryshop.backend.search;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.jeweleryshop.backend.search.ProductFacetIndex.FacetDocument;
+import com.jeweleryshop.backend.search.ProductFacetIndex.FacetQuery;
+import com.jeweleryshop.backend.search.ProductFacetIndex.FacetResult;
+
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ProductFacetIndex();
+        index.put(new FacetDocument(1L, BigDecimal.valueOf(3_000_000))
+                .add(ProductFacetIndex.MATERIAL, "Gold").add(ProductFacetIndex.SIZE, "M"));
+        index.put(new FacetDocument(2L, BigDecimal.valueOf(8_000_000))
+                .add(ProductFacetIndex.MATERIAL, "Silver").add(ProductFacetIndex.SIZE, "M"));
+        index.put(new FacetDocument(3L, BigDecimal.valueOf(15_000_000))
+                .add(ProductFacetIndex.MATERIAL, "Gold").add(ProductFacetIndex.SIZE, "L"));
+    }
+
+    // ✅ 1. AND giữa các facet, OR trong cùng facet
+    @Test
+    void testQuery_ShouldCombineFacets() {
+        FacetResult result = index.query(new FacetQuery()
+                .select(ProductFacetIndex.MATERIAL, List.of("Gold", "Silver"))
+                .select(ProductFacetIndex.SIZE, List.of("M")));
+
+        assertEquals(List.of(1L, 2L), result.getProductIds());
+    }
+
+    // ✅ 2. Số đếm của một facet bỏ qua bộ lọc của chính facet đó
+    @Test
+    void testQuery_CountsShouldBeDisjunctive() {
+        FacetResult result = index.query(new FacetQuery()
+                .select(ProductFacetIndex.MATERIAL, List.of("Gold")));
+
+        assertEquals(List.of(1L, 3L), result.getProductIds());
+        assertEquals(Map.of("Gold", 2, "Silver", 1), result.getCounts().get(ProductFacetIndex.MATERIAL));
+        assertEquals(Map.of("M", 1, "L", 1), result.getCounts().get(ProductFacetIndex.SIZE));
+    }
+
+    // ✅ 3. Lọc khoảng giá + cập nhật / xóa sản phẩm
+    @Test
+    void testQuery_PriceRangeAndUpdates() {
+        FacetResult byPrice = index.query(new FacetQuery()
+                .priceBetween(BigDecimal.valueOf(5_000_000), null));
+        assertEquals(List.of(2L, 3L), byPrice.getProductIds());
+
+        index.put(new FacetDocument(2L, BigDecimal.valueOf(8_000_000)).add(ProductFacetIndex.MATERIAL, "Gold"));
+        index.remove(3L);
+
+        FacetResult result = index.query(new FacetQuery());
+        assertEquals(Map.of("Gold", 2), result.getCounts().get(ProductFacetIndex.MATERIAL));
+        assertFalse(result.getCounts().get(ProductFacetIndex.SIZE).containsKey("L"));
+        assertEquals(2, index.size());
+    }
+}
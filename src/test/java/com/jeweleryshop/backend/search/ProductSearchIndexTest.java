@@ -0,0 +1,63 @@
+package com.jeweleryshop.backend.search;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.jeweleryshop.backend.search.ProductSearchIndex.SearchDocument;
+import com.jeweleryshop.backend.search.ProductSearchIndex.SearchHit;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ProductSearchIndex();
+        index.put(new SearchDocument(1L).add("Nhẫn vàng 18K", 3).add("Nhẫn", 2));
+        index.put(new SearchDocument(2L).add("Dây chuyền bạc", 3).add("Đá ruby đỏ", 1.5f));
+        index.put(new SearchDocument(3L).add("Bông tai", 3).add("Kiểu dáng giống nhẫn cưới", 1));
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, 10).stream().map(SearchHit::getProductId).toList();
+    }
+
+    // ✅ 1. Bỏ dấu tiếng Việt (kể cả "đ")
+    @Test
+    void testFold_ShouldRemoveVietnameseDiacritics() {
+        assertEquals("nhan vang da do", TextNormalizer.fold("Nhẫn Vàng Đá Đỏ"));
+        assertEquals(List.of("ring", "001"), TextNormalizer.tokenize("RING-001"));
+    }
+
+    // ✅ 2. Truy vấn không dấu khớp văn bản có dấu, tên xếp trên mô tả
+    @Test
+    void testSearch_ShouldRankNameMatchAboveDescriptionMatch() {
+        List<SearchHit> hits = index.search("nhan", 10);
+
+        assertEquals(List.of(1L, 3L), hits.stream().map(SearchHit::getProductId).toList());
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    // ✅ 3. Khớp tiền tố + mọi từ phải khớp (AND)
+    @Test
+    void testSearch_PrefixAndAllTermsRequired() {
+        assertEquals(List.of(2L), ids("day chu"));
+        assertEquals(List.of(2L), ids("ruby"));
+        assertTrue(ids("nhan ruby").isEmpty());
+    }
+
+    // ✅ 4. Cập nhật / xóa tài liệu
+    @Test
+    void testPutAndRemove_ShouldUpdatePostings() {
+        index.put(new SearchDocument(1L).add("Lắc tay", 3));
+        assertEquals(List.of(3L), ids("nhan"));
+
+        index.remove(2L);
+        assertTrue(ids("ruby").isEmpty());
+        assertEquals(2, index.size());
+    }
+}
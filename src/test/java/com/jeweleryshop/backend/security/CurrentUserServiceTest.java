@@ -0,0 +1,114 @@
+package com.jeweleryshop.backend.security;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
+import com.jeweleryshop.backend.entity.Role;
+import com.jeweleryshop.backend.entity.User;
+import com.jeweleryshop.backend.event.UserChangedEvent;
+import com.jeweleryshop.backend.repository.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentUserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Spy
+    private BoundedTtlCache<String, AuthenticatedUser> principalCache =
+            new BoundedTtlCache<>("principals", 10, Duration.ofSeconds(30));
+
+    @InjectMocks
+    private CurrentUserService currentUserService;
+
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        Role role = new Role();
+        role.setName("ROLE_USER");
+        user = new User();
+        user.setId(7L);
+        user.setUsername("tuan");
+        user.setPassword("secret");
+        user.setEnabled(true);
+        user.setRoles(Set.of(role));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    // ✅ 1. Nhiều request cùng user → chỉ đọc DB một lần, không giữ mật khẩu
+    @Test
+    void testLoadByUsername_ShouldCachePrincipal() {
+        when(userRepository.findByUsername("tuan")).thenReturn(Optional.of(user));
+
+        currentUserService.loadByUsername("tuan");
+        AuthenticatedUser principal = currentUserService.loadByUsername("tuan");
+
+        assertEquals(7L, principal.getId());
+        assertEquals("ROLE_USER", principal.getAuthorities().iterator().next().getAuthority());
+        assertNull(principal.getPassword());
+        verify(userRepository, times(1)).findByUsername("tuan");
+    }
+
+    // ✅ 2. Principal do filter JWT gắn vào SecurityContext → đọc id không chạm DB
+    @Test
+    void testGetId_ShouldReadPrincipalFromSecurityContext() {
+        AuthenticatedUser principal = new AuthenticatedUser(7L, "tuan", true, List.of("ROLE_USER"));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        when(userRepository.getReferenceById(7L)).thenReturn(user);
+
+        assertEquals(7L, currentUserService.getId());
+        assertSame(principal, currentUserService.get());
+        assertSame(user, currentUserService.getReference());
+        verify(userRepository, never()).findByUsername("tuan");
+    }
+
+    // ✅ 3. Admin khóa tài khoản → lần nạp kế tiếp thấy trạng thái mới
+    @Test
+    void testOnUserChanged_ShouldReloadPrincipal() {
+        when(userRepository.findByUsername("tuan")).thenReturn(Optional.of(user));
+        currentUserService.loadByUsername("tuan");
+
+        user.setEnabled(false);
+        currentUserService.onUserChanged(UserChangedEvent.of("tuan"));
+
+        assertFalse(currentUserService.loadByUsername("tuan").isEnabled());
+        verify(userRepository, times(2)).findByUsername("tuan");
+    }
+
+    // ✅ 4. Không tìm thấy user
+    @Test
+    void testLoadByUsername_NotFound_ShouldThrow() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+        assertThrows(UsernameNotFoundException.class, () -> currentUserService.loadByUsername("ghost"));
+    }
+}
@@ -107,7 +107,7 @@ class AuthServiceTest {
 
         when(userService.findByUsername("tuan")).thenReturn(user);
         when(jwtService.generateToken(userDetails)).thenReturn("jwt123");
-        when(refreshTokenService.createRefreshToken("tuan")).thenReturn(refreshToken);
+        when(refreshTokenService.createRefreshToken(1L, null)).thenReturn(refreshToken);
 
         AuthResponse response = authService.login(request);
 
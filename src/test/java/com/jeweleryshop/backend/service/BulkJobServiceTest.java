@@ -0,0 +1,204 @@
+package com.jeweleryshop.backend.service;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jeweleryshop.backend.dto.BulkJobDTO;
+import com.jeweleryshop.backend.dto.ImportReportDTO;
+import com.jeweleryshop.backend.entity.BulkJob;
+import com.jeweleryshop.backend.entity.BulkJobStatus;
+import com.jeweleryshop.backend.entity.BulkJobType;
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.exception.ResourceNotFoundException;
+import com.jeweleryshop.backend.repository.BulkJobRepository;
+import com.jeweleryshop.backend.utils.ExcelHelper;
+
+class BulkJobServiceTest {
+
+    @TempDir
+    Path jobDir;
+
+    private BulkJobRepository bulkJobRepository;
+    private ExcelService excelService;
+    private CatalogFeedService catalogFeedService;
+    private BulkJobService bulkJobService;
+    // Trạng thái job tại mỗi lần save
+    private final List<BulkJobStatus> savedStatuses = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        bulkJobRepository = mock(BulkJobRepository.class);
+        excelService = mock(ExcelService.class);
+        catalogFeedService = mock(CatalogFeedService.class);
+        when(bulkJobRepository.save(any(BulkJob.class))).thenAnswer(invocation -> {
+            BulkJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(1L);
+            }
+            synchronized (savedStatuses) {
+                savedStatuses.add(job.getStatus());
+            }
+            return job;
+        });
+        bulkJobService = new BulkJobService(bulkJobRepository, excelService, catalogFeedService, new ObjectMapper(),
+                jobDir.toString(), 1, 1, 7);
+        bulkJobService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkJobService.stop();
+    }
+
+    // ✅ Import: lưu file, chạy nền, ghi báo cáo JSON, xóa file đầu vào
+    @Test
+    void testSubmitProductImport_RunsInBackground() throws Exception {
+        ImportReportDTO report = new ImportReportDTO();
+        report.setMessage("Import xong 2 dòng");
+        report.setInserted(2);
+        doAnswer(invocation -> {
+            IntConsumer progress = invocation.getArgument(1);
+            progress.accept(2);
+            return report;
+        }).when(excelService).importProducts(any(), any());
+        MockMultipartFile file = new MockMultipartFile("file", "products.xlsx", ExcelHelper.TYPE, new byte[] {1, 2});
+
+        BulkJobDTO queued = bulkJobService.submitProductImport(file, "admin");
+
+        assertEquals(1L, queued.getId());
+        assertEquals(BulkJobStatus.QUEUED, queued.getStatus());
+        assertEquals(BulkJobType.PRODUCT_IMPORT, queued.getType());
+        verify(bulkJobRepository, timeout(2000).times(3)).save(any(BulkJob.class));
+        assertEquals(List.of(BulkJobStatus.QUEUED, BulkJobStatus.RUNNING, BulkJobStatus.SUCCEEDED), savedStatuses);
+        verify(bulkJobRepository).updateProgress(1L, 2);
+
+        // Job đã xong: file đầu vào bị xóa
+        try (var files = Files.list(jobDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    // ❌ Không phải file Excel → từ chối, không tạo job
+    @Test
+    void testSubmitProductImport_RejectsNonExcel() {
+        MockMultipartFile file = new MockMultipartFile("file", "a.csv", "text/csv", new byte[] {1});
+
+        assertThrows(AppException.class, () -> bulkJobService.submitProductImport(file, "admin"));
+        assertTrue(savedStatuses.isEmpty());
+    }
+
+    // ✅ Export: file kết quả nằm trong thư mục job, có link tải
+    @Test
+    void testRun_ExportWritesResultFile() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write(new byte[] {42});
+            IntConsumer progress = invocation.getArgument(1);
+            progress.accept(1000);
+            progress.accept(1500);
+            return null;
+        }).when(excelService).exportProductsToExcel(any(), any());
+        BulkJob job = new BulkJob(BulkJobType.PRODUCT_EXPORT, "admin");
+        job.setId(5L);
+
+        bulkJobService.run(job, (j, progress) -> {
+            j.setResultFile("result.xlsx");
+            try (OutputStream out = Files.newOutputStream(jobDir.resolve("result.xlsx"))) {
+                excelService.exportProductsToExcel(out, progress);
+            }
+        });
+
+        assertEquals(BulkJobStatus.SUCCEEDED, job.getStatus());
+        assertEquals(1500, job.getProcessed());
+        assertTrue(job.getFinishedAt() != null && job.getStartedAt() != null);
+        verify(bulkJobRepository).updateProgress(5L, 1000);
+
+        when(bulkJobRepository.findById(5L)).thenReturn(Optional.of(job));
+        assertEquals("/api/admin/jobs/5/download", bulkJobService.getJob(5L).getDownloadUrl());
+        assertEquals(jobDir.resolve("result.xlsx"), bulkJobService.getResultFile(5L));
+    }
+
+    // ❌ Job lỗi: FAILED kèm lý do, bỏ file kết quả dở dang
+    @Test
+    void testRun_FailureMarksJobFailed() throws Exception {
+        Files.write(jobDir.resolve("input.xlsx"), new byte[] {1});
+        BulkJob job = new BulkJob(BulkJobType.PRODUCT_IMPORT, "admin");
+        job.setId(6L);
+        job.setInputFile("input.xlsx");
+
+        bulkJobService.run(job, (j, progress) -> {
+            j.setResultFile("partial.xlsx");
+            Files.write(jobDir.resolve("partial.xlsx"), new byte[] {1});
+            throw new AppException("File Excel không hợp lệ");
+        });
+
+        assertEquals(BulkJobStatus.FAILED, job.getStatus());
+        assertEquals("File Excel không hợp lệ", job.getMessage());
+        assertNull(job.getResultFile());
+        assertFalse(Files.exists(jobDir.resolve("partial.xlsx")));
+        assertFalse(Files.exists(jobDir.resolve("input.xlsx")));
+
+        when(bulkJobRepository.findById(6L)).thenReturn(Optional.of(job));
+        assertNull(bulkJobService.getJob(6L).getDownloadUrl());
+        assertThrows(ResourceNotFoundException.class, () -> bulkJobService.getResultFile(6L));
+    }
+
+    // ❌ 1 worker bận + hàng đợi 1 chỗ đã đầy → job thứ ba bị từ chối ngay
+    @Test
+    void testSubmit_RejectsWhenQueueFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        BulkJobService.JobWork blocking = (job, progress) -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        bulkJobService.submit(new BulkJob(BulkJobType.PRODUCT_EXPORT, "admin"), blocking);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        bulkJobService.submit(new BulkJob(BulkJobType.PRODUCT_EXPORT, "admin"), blocking);
+
+        BulkJob rejected = new BulkJob(BulkJobType.PRODUCT_EXPORT, "admin");
+        assertThrows(AppException.class, () -> bulkJobService.submit(rejected, blocking));
+        assertEquals(BulkJobStatus.FAILED, rejected.getStatus());
+        release.countDown();
+    }
+
+    // ✅ Khởi động lại → job dở dang từ lần chạy trước bị đánh dấu FAILED
+    @Test
+    void testFailInterrupted() {
+        when(bulkJobRepository.failUnfinished(any(), any(), any())).thenReturn(2);
+
+        assertEquals(2, bulkJobService.failInterrupted());
+        verify(bulkJobRepository, times(1)).failUnfinished(any(), eq("Bị gián đoạn do ứng dụng khởi động lại"), any());
+    }
+}
@@ -1,9 +1,12 @@
 package com.jeweleryshop.backend.service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -13,6 +16,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -20,25 +24,37 @@ import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
 import com.jeweleryshop.backend.dto.AddItemToCartRequest;
 import com.jeweleryshop.backend.dto.CartResponseDTO;
+import com.jeweleryshop.backend.dto.PromotionDTO;
+import com.jeweleryshop.backend.dto.StockHoldDTO;
 import com.jeweleryshop.backend.entity.Cart;
 import com.jeweleryshop.backend.entity.CartItem;
 import com.jeweleryshop.backend.entity.Inventory;
 import com.jeweleryshop.backend.entity.Product;
 import com.jeweleryshop.backend.entity.ProductImage;
 import com.jeweleryshop.backend.entity.ProductVariant;
+import com.jeweleryshop.backend.entity.Promotion;
+import com.jeweleryshop.backend.entity.PromotionType;
 import com.jeweleryshop.backend.entity.User;
+import com.jeweleryshop.backend.event.CartChangedEvent;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
 import com.jeweleryshop.backend.exception.AppException;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.repository.CartItemRepository;
 import com.jeweleryshop.backend.repository.CartRepository;
 import com.jeweleryshop.backend.repository.ProductVariantRepository;
+import com.jeweleryshop.backend.repository.PromotionRepository;
 import com.jeweleryshop.backend.repository.UserRepository;
+import com.jeweleryshop.backend.security.AuthenticatedUser;
+import com.jeweleryshop.backend.security.CurrentUserService;
+import com.jeweleryshop.backend.repository.projection.CartLineRow;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -54,6 +70,18 @@ class CartServiceTest {
     private UserRepository userRepository;
     @Mock
     private PromotionService promotionService;
+    @Spy
+    private StockHoldService stockHoldService = new StockHoldService(600);
+    private final PromotionRepository pricingPromotionRepository = mock(PromotionRepository.class);
+    @Spy
+    private PricingService pricingService = new PricingService(pricingPromotionRepository, BigDecimal.valueOf(30000), 60);
+    @Spy
+    private BoundedTtlCache<Long, CartResponseDTO> cartCache = new BoundedTtlCache<>("carts", 10, Duration.ofMinutes(5));
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CurrentUserService currentUserService;
 
     @InjectMocks
     private CartService cartService;
@@ -63,6 +91,7 @@ class CartServiceTest {
     private ProductVariant variant;
     private CartItem item;
     private Cart cart;
+    private Promotion sale10;
 
     @BeforeEach
     void setup() {
@@ -114,8 +143,22 @@ class CartServiceTest {
         SecurityContextHolder.setContext(ctx);
 
         // Default mock user
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(currentUserService.getId()).thenReturn(1L);
+        when(currentUserService.get()).thenReturn(new AuthenticatedUser(1L, "testuser", true, List.of("ROLE_USER")));
+        when(currentUserService.getReference()).thenReturn(user);
         when(cartRepository.findByUserId(user.getId())).thenReturn(Optional.of(cart));
+        when(cartRepository.findLinesByUserId(user.getId())).thenAnswer(inv -> linesOf(cart));
+
+        // Khuyến mãi SALE10: giảm 10%, đơn tối thiểu 1000
+        sale10 = new Promotion(900L, "SALE10", "Giảm 10%", PromotionType.PERCENTAGE,
+                BigDecimal.valueOf(10), LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1),
+                BigDecimal.valueOf(1000), 100, 0);
+        when(pricingPromotionRepository.findByEndDateGreaterThanEqual(any())).thenReturn(List.of(sale10));
+        pricingService.refresh();
+        when(promotionService.validatePromotionCode("SALE10")).thenReturn(new PromotionDTO(900L, "SALE10",
+                sale10.getDescription(), sale10.getDiscountType(), sale10.getDiscountValue(), sale10.getStartDate(),
+                sale10.getEndDate(), sale10.getMinOrderAmount(), 100, 0));
+        when(promotionService.getReference(900L)).thenReturn(sale10);
     }
 
     // ✅ getOrCreateCartByUserId (có giỏ)
@@ -129,7 +172,7 @@ class CartServiceTest {
     // ✅ getOrCreateCartByUserId (tạo mới)
     @Test
     void testGetOrCreateCartByUserId_CreateNewIfNotExists() {
-        when(cartRepository.findByUserId(1L)).thenReturn(Optional.empty());
+        when(cartRepository.findLinesByUserId(1L)).thenReturn(List.of());
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(cartRepository.save(any(Cart.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -293,4 +336,149 @@ class CartServiceTest {
         assert dto != null;
         assert dto.getTotalItems() == 1;
     }
+
+    // ✅ Hàng đang được giỏ khác giữ không tính vào tồn kho còn bán
+    @Test
+    void testUpdateCartItemQuantity_ShouldExcludeStockHeldByOtherCarts() {
+        stockHoldService.hold(99L, Map.of(1L, 7), Map.of(1L, 10));
+        try {
+            cartService.updateCartItemQuantity(10L, 4);
+            assert false;
+        } catch (AppException e) {
+            assert e.getMessage().contains("Gold Ring");
+        }
+    }
+
+    // ✅ startCheckout giữ hàng cho giỏ hiện tại
+    @Test
+    void testStartCheckout_ShouldHoldCartItems() {
+        StockHoldDTO hold = cartService.startCheckout();
+
+        assert hold.getCartId().equals(5L);
+        assert hold.getExpiresAt() != null;
+        assert stockHoldService.heldByOthers(1L, 99L) == 2;
+        assert stockHoldService.heldByOthers(1L, 5L) == 0;
+    }
+
+    // ✅ startCheckout thất bại khi giỏ khác đã giữ hết
+    @Test
+    void testStartCheckout_NotEnoughUnheldStock_ShouldThrow() {
+        stockHoldService.hold(99L, Map.of(1L, 9), Map.of(1L, 10));
+        try {
+            cartService.startCheckout();
+            assert false;
+        } catch (AppException e) {
+            assert e.getMessage().contains("Gold Ring");
+        }
+        assert stockHoldService.activeHolds() == 1;
+    }
+
+    // ✅ Gắn mã khuyến mãi → giỏ hiển thị giảm giá theo tập luật
+    @Test
+    void testApplyPromotion_ShouldDiscountCartTotals() {
+        CartResponseDTO dto = cartService.applyPromotion(" SALE10 ");
+
+        // (800 + 50) x 2 = 1700, giảm 10% = 170
+        assert cart.getAppliedPromotion() == sale10;
+        assert dto.getSubTotal().compareTo(BigDecimal.valueOf(1700)) == 0;
+        assert dto.getDiscountAmount().compareTo(BigDecimal.valueOf(170)) == 0;
+        assert dto.getFinalTotal().compareTo(BigDecimal.valueOf(1530)) == 0;
+        assert "SALE10".equals(dto.getAppliedPromotionCode());
+        verify(cartRepository, times(1)).save(cart);
+    }
+
+    // ✅ Chưa đủ giá trị tối thiểu → không gắn mã
+    @Test
+    void testApplyPromotion_BelowMinOrderAmount_ShouldThrow() {
+        item.setQuantity(1);
+        product.setDiscountPrice(BigDecimal.valueOf(500));
+        try {
+            cartService.applyPromotion("SALE10");
+            assert false;
+        } catch (AppException e) {
+            assert e.getMessage().contains("at least 1000");
+        }
+        assert cart.getAppliedPromotion() == null;
+    }
+
+    // ✅ Bỏ mã → không còn giảm giá
+    @Test
+    void testRemovePromotion_ShouldClearDiscount() {
+        cart.setAppliedPromotion(sale10);
+        assert cartService.getCart().getDiscountAmount().compareTo(BigDecimal.valueOf(170)) == 0;
+
+        CartResponseDTO dto = cartService.removePromotion();
+
+        assert cart.getAppliedPromotion() == null;
+        assert dto.getDiscountAmount().signum() == 0;
+        assert dto.getAppliedPromotionCode() == null;
+    }
+
+    // ✅ Đọc giỏ lần hai lấy từ cache, không truy vấn lại
+    @Test
+    void testGetCart_ShouldServeRepeatedReadsFromCache() {
+        CartResponseDTO first = cartService.getCart();
+        CartResponseDTO second = cartService.getCart();
+
+        assert first == second;
+        assert first.getItems().get(0).getImageUrl().equals("img.jpg");
+        assert first.getSubTotal().compareTo(BigDecimal.valueOf(1700)) == 0;
+        verify(cartRepository, times(1)).findLinesByUserId(1L);
+    }
+
+    // ✅ Sửa giỏ → phát CartChangedEvent; sau commit bỏ DTO trong cache
+    @Test
+    void testUpdateCartItemQuantity_ShouldInvalidateCachedCart() {
+        cartService.getCart();
+
+        cartService.updateCartItemQuantity(10L, 3);
+        verify(eventPublisher).publishEvent(any(CartChangedEvent.class));
+        cartService.onCartChanged(new CartChangedEvent(1L));
+
+        assert cartService.getCart().getItems().get(0).getQuantity() == 3;
+        verify(cartRepository, times(2)).findLinesByUserId(1L);
+    }
+
+    // ✅ Đặt hàng chỉ đổi tồn kho → giữ cache; admin sửa sản phẩm → bỏ hết
+    @Test
+    void testOnProductChanged_ShouldIgnoreStockOnlyChanges() {
+        cartService.getCart();
+
+        cartService.onProductChanged(ProductChangedEvent.stockChanged(List.of(1L)));
+        cartService.getCart();
+        verify(cartRepository, times(1)).findLinesByUserId(1L);
+
+        cartService.onProductChanged(ProductChangedEvent.of(1L));
+        cartService.getCart();
+        verify(cartRepository, times(2)).findLinesByUserId(1L);
+    }
+
+    // Dựng các dòng phẳng giống câu truy vấn findLinesByUserId từ giỏ trong test
+    private static List<CartLineRow> linesOf(Cart cart) {
+        List<CartLineRow> rows = new ArrayList<>();
+        if (cart.getItems().isEmpty()) {
+            rows.add(line(cart, null));
+        }
+        cart.getItems().forEach(item -> rows.add(line(cart, item)));
+        return rows;
+    }
+
+    private static CartLineRow line(Cart cart, CartItem item) {
+        ProductVariant variant = item != null ? item.getVariant() : null;
+        Product product = variant != null ? variant.getProduct() : null;
+        return new CartLineRow() {
+            public Long getCartId() { return cart.getId(); }
+            public Long getPromotionId() { return cart.getAppliedPromotion() != null ? cart.getAppliedPromotion().getId() : null; }
+            public Long getCartItemId() { return item != null ? item.getId() : null; }
+            public Long getVariantId() { return variant != null ? variant.getId() : null; }
+            public String getProductName() { return product != null ? product.getName() : null; }
+            public BigDecimal getBasePrice() { return product != null ? product.getBasePrice() : null; }
+            public BigDecimal getDiscountPrice() { return product != null ? product.getDiscountPrice() : null; }
+            public BigDecimal getPriceModifier() { return variant != null ? variant.getPriceModifier() : null; }
+            public Integer getQuantity() { return item != null ? item.getQuantity() : null; }
+            public String getImageUrl() {
+                return product != null ? product.getImages().iterator().next().getImageUrl() : null;
+            }
+        };
+    }
 }
@@ -0,0 +1,311 @@
+package com.jeweleryshop.backend.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+
+import com.jeweleryshop.backend.dto.CategoryDTO;
+import com.jeweleryshop.backend.dto.ImportReportDTO;
+import com.jeweleryshop.backend.entity.CatalogFeed;
+import com.jeweleryshop.backend.entity.FeedFormat;
+import com.jeweleryshop.backend.event.CategoryChangedEvent;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.repository.CatalogBatchWriter;
+import com.jeweleryshop.backend.repository.CatalogBatchWriter.CategoryRow;
+import com.jeweleryshop.backend.repository.CatalogBatchWriter.InventoryRow;
+import com.jeweleryshop.backend.repository.CatalogBatchWriter.VariantRow;
+import com.jeweleryshop.backend.repository.CategoryRepository;
+import com.jeweleryshop.backend.repository.ProductRepository;
+import com.jeweleryshop.backend.repository.ProductVariantRepository;
+import com.jeweleryshop.backend.repository.projection.IdLabelRow;
+import com.jeweleryshop.backend.repository.projection.InventoryExportRow;
+import com.jeweleryshop.backend.repository.projection.VariantExportRow;
+import com.jeweleryshop.backend.repository.projection.VariantKeyRow;
+import com.jeweleryshop.backend.utils.ProductImportRow;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogFeedServiceTest {
+
+    private record VariantRowView(Long getId, String getSku, String getProductName, String getName,
+            String getMaterial, String getGemstone, String getSize, String getColor, BigDecimal getWeight,
+            BigDecimal getPriceModifier, String getImageUrl) implements VariantExportRow {
+    }
+
+    private record StockRow(Long getId, String getSku, Integer getQuantity, Integer getLowStockThreshold)
+            implements InventoryExportRow {
+    }
+
+    private record Key(Long getId, String getSku, Long getProductId, Long getInventoryId) implements VariantKeyRow {
+    }
+
+    private record NameId(Long getId, String getLabel) implements IdLabelRow {
+    }
+
+    @Mock
+    private ExcelService excelService;
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private ProductVariantRepository productVariantRepository;
+    @Mock
+    private CategoryRepository categoryRepository;
+    @Mock
+    private CatalogBatchWriter catalogBatchWriter;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CatalogFeedService catalogFeedService;
+
+    @BeforeEach
+    void setUp() {
+        catalogFeedService = new CatalogFeedService(excelService, productRepository, productVariantRepository,
+                categoryRepository, catalogBatchWriter, eventPublisher, 2);
+    }
+
+    private static InputStream feed(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ==============================================================
+    // 📤 Export
+    // ==============================================================
+    // ✅ CSV: ô có dấu phẩy / ngoặc kép / xuống dòng được bọc, số ghi dạng plain
+    @Test
+    void testExport_CsvQuotesOnlyWhenNeeded() throws Exception {
+        List<VariantExportRow> page = List.of(
+                new VariantRowView(1L, "R-1", "Gold Ring", "Size 6, \"classic\"", "Gold", null, "6", null,
+                        new BigDecimal("3.50"), new BigDecimal("1E+2"), null),
+                new VariantRowView(2L, "R-2", "Gold Ring", "Line 1\nLine 2", null, null, null, null, null,
+                        null, null));
+        when(productVariantRepository.findExportRowsAfter(0L, PageRequest.of(0, CatalogFeedService.EXPORT_PAGE_SIZE)))
+                .thenReturn(page);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        catalogFeedService.export(CatalogFeed.VARIANTS, FeedFormat.CSV, out, written -> {
+        });
+
+        assertEquals("sku,product,name,material,gemstone,size,color,weight,priceModifier,imageUrl\r\n"
+                + "R-1,Gold Ring,\"Size 6, \"\"classic\"\"\",Gold,,6,,3.50,100,\r\n"
+                + "R-2,Gold Ring,\"Line 1\nLine 2\",,,,,,,\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    // ✅ NDJSON: mỗi dòng một object, đọc tiếp trang sau theo keyset
+    @Test
+    void testExport_NdjsonPagesByKeyset() throws Exception {
+        int pageSize = CatalogFeedService.EXPORT_PAGE_SIZE;
+        List<InventoryExportRow> first = new ArrayList<>();
+        for (long id = 1; id <= pageSize; id++) {
+            first.add(new StockRow(id, "S-" + id, 5, null));
+        }
+        List<InventoryExportRow> second = List.of(new StockRow(2000L, "S-2000", 0, 2));
+        when(productVariantRepository.findInventoryRowsAfter(0L, PageRequest.of(0, pageSize))).thenReturn(first);
+        when(productVariantRepository.findInventoryRowsAfter((long) pageSize, PageRequest.of(0, pageSize)))
+                .thenReturn(second);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Integer> progress = new ArrayList<>();
+
+        catalogFeedService.export(CatalogFeed.INVENTORY, FeedFormat.NDJSON, out, progress::add);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(pageSize + 2, lines.length);
+        assertEquals("{\"sku\":\"S-1\",\"quantity\":5,\"lowStockThreshold\":null}", lines[0]);
+        assertEquals("{\"sku\":\"S-2000\",\"quantity\":0,\"lowStockThreshold\":2}", lines[pageSize]);
+        assertEquals("", lines[pageSize + 1]);
+        assertEquals(List.of(pageSize, pageSize + 1), progress);
+    }
+
+    // ==============================================================
+    // 📥 Import
+    // ==============================================================
+    // ✅ Biến thể: cột theo header (thứ tự / hoa thường tùy ý), upsert theo SKU từng khúc
+    @Test
+    void testImportVariants_UpsertsBySkuInChunks() {
+        List<IdLabelRow> products = List.of(new NameId(7L, "Gold Ring"));
+        when(productRepository.findAllNameIds()).thenReturn(products);
+        List<VariantKeyRow> firstChunk = List.of(new Key(50L, "R-1", 8L, 60L));
+        when(productVariantRepository.findKeysBySkuIn(anyCollection()))
+                .thenReturn(firstChunk)
+                .thenReturn(List.of());
+        when(catalogBatchWriter.writeVariants(anyList(), anyList())).thenReturn(List.of(100L));
+        String csv = "\uFEFFSKU,Product,Weight,Name,warehouse\n"
+                + "R-1,gold ring,3.5,\"Size 6, \"\"classic\"\"\n2024\",A\n"
+                + "R-2,Gold Ring,,,\n"
+                + "R-3,Unknown,,,\n"
+                + "r-2,Gold Ring,abc,,\n"
+                + "\n"
+                + "R-4,Gold Ring,1,Plain\n";
+        List<Integer> progress = new ArrayList<>();
+
+        ImportReportDTO report = catalogFeedService.importFeed(CatalogFeed.VARIANTS, FeedFormat.CSV, feed(csv),
+                progress::add);
+
+        assertEquals(5, report.getTotalRows());
+        assertEquals(2, report.getInserted());
+        assertEquals(1, report.getUpdated());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of(5, 6), report.getErrors().stream().map(e -> e.getRow()).toList());
+        assertEquals("Không tìm thấy sản phẩm: Unknown", report.getErrors().get(0).getMessage());
+        assertEquals(List.of(2, 5), progress);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<VariantRow>> inserts = ArgumentCaptor.forClass(List.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<VariantRow>> updates = ArgumentCaptor.forClass(List.class);
+        verify(catalogBatchWriter, times(2)).writeVariants(inserts.capture(), updates.capture());
+
+        // R-1 đã có (sản phẩm 8) → chuyển sang sản phẩm 7, ô nhiều dòng giữ nguyên
+        VariantRow moved = updates.getAllValues().get(0).get(0);
+        assertEquals(50L, moved.id());
+        assertEquals(7L, moved.productId());
+        assertEquals("Size 6, \"classic\"\n2024", moved.name());
+        assertEquals(new BigDecimal("3.5"), moved.weight());
+        assertEquals(List.of("R-2"), inserts.getAllValues().get(0).stream().map(VariantRow::sku).toList());
+        assertEquals(List.of("R-4"), inserts.getAllValues().get(1).stream().map(VariantRow::sku).toList());
+
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof ProductChangedEvent event
+                && event.getProductIds().equals(Set.of(7L, 8L))));
+    }
+
+    // ✅ Tồn kho NDJSON: số lượng tuyệt đối, SKU lạ báo lỗi khi ghi khúc
+    @Test
+    void testImportInventory_NdjsonSetsAbsoluteQuantities() {
+        List<VariantKeyRow> firstChunk = List.of(new Key(10L, "R-1", 7L, 20L), new Key(11L, "R-2", 7L, null));
+        List<VariantKeyRow> secondChunk = List.of(new Key(10L, "R-1", 7L, 20L));
+        when(productVariantRepository.findKeysBySkuIn(anyCollection()))
+                .thenReturn(firstChunk)
+                .thenReturn(secondChunk);
+        String ndjson = "{\"sku\":\"R-1\",\"quantity\":12,\"low_stock_threshold\":3,\"warehouse\":{\"id\":1}}\n"
+                + "{\"sku\":\"R-2\",\"quantity\":\"0\"}\n"
+                + "{\"sku\":\"NOPE\",\"quantity\":1}\n"
+                + "{\"sku\":\"R-1\",\"quantity\":-1}\n"
+                + "\n"
+                + "{\"sku\":\"R-1\",\"quantity\":7.0}\n";
+
+        ImportReportDTO report = catalogFeedService.importFeed(CatalogFeed.INVENTORY, FeedFormat.NDJSON,
+                feed(ndjson), processed -> {
+                });
+
+        assertEquals(5, report.getTotalRows());
+        assertEquals(1, report.getInserted());
+        assertEquals(2, report.getUpdated());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of(4, 3), report.getErrors().stream().map(e -> e.getRow()).toList());
+        assertEquals("Không tìm thấy SKU: NOPE", report.getErrors().get(1).getMessage());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventoryRow>> rows = ArgumentCaptor.forClass(List.class);
+        verify(catalogBatchWriter, times(2)).writeInventory(rows.capture());
+        assertEquals(List.of(new InventoryRow(10L, true, 12, 3), new InventoryRow(11L, false, 0, null)),
+                rows.getAllValues().get(0));
+        assertEquals(List.of(new InventoryRow(10L, true, 7, null)), rows.getAllValues().get(1));
+        verify(eventPublisher, times(2)).publishEvent(argThat((Object e) -> e instanceof ProductChangedEvent event
+                && event.isStockOnly() && event.getProductIds().equals(Set.of(7L))));
+    }
+
+    // ✅ Danh mục: cha có thể là dòng khác trong file, cha không tồn tại → lỗi dòng
+    @Test
+    void testImportCategories_ResolvesParentsWithinFile() {
+        when(categoryRepository.findAllFlat())
+                .thenReturn(List.of(new CategoryDTO(1L, "Rings", "Nhẫn", null, null, null)));
+        when(catalogBatchWriter.writeCategories(anyList())).thenReturn(List.of(2L, 1L, 3L));
+        String csv = "name,parent,description\n"
+                + "Gold Rings,rings,Nhẫn vàng\n"
+                + "Rings,Jewelry,Nhẫn\n"
+                + "Jewelry,,Trang sức\n"
+                + "Orphan,Missing,\n";
+
+        ImportReportDTO report = catalogFeedService.importFeed(CatalogFeed.CATEGORIES, FeedFormat.CSV, feed(csv),
+                processed -> {
+                });
+
+        assertEquals(2, report.getInserted());
+        assertEquals(1, report.getUpdated());
+        assertEquals(1, report.getFailed());
+        assertEquals("Không tìm thấy danh mục cha: Missing", report.getErrors().get(0).getMessage());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CategoryRow>> writes = ArgumentCaptor.forClass(List.class);
+        verify(catalogBatchWriter).writeCategories(writes.capture());
+        assertEquals(List.of(
+                new CategoryRow(null, "gold rings", "Gold Rings", "Nhẫn vàng", null, "rings"),
+                new CategoryRow(1L, "rings", "Rings", "Nhẫn", null, "jewelry"),
+                new CategoryRow(null, "jewelry", "Jewelry", "Trang sức", null, null)), writes.getValue());
+        verify(eventPublisher).publishEvent(any(CategoryChangedEvent.class));
+    }
+
+    // ❌ Đổi cha tạo vòng lặp → từ chối cả file
+    @Test
+    void testImportCategories_RejectsCycle() {
+        when(categoryRepository.findAllFlat()).thenReturn(List.of(
+                new CategoryDTO(1L, "Jewelry", null, null, null, null),
+                new CategoryDTO(2L, "Rings", null, 1L, null, null)));
+        String csv = "name,parent\nJewelry,Rings\n";
+
+        AppException ex = assertThrows(AppException.class, () -> catalogFeedService.importFeed(
+                CatalogFeed.CATEGORIES, FeedFormat.CSV, feed(csv), processed -> {
+                }));
+
+        assertTrue(ex.getMessage().contains("vòng lặp"));
+        verify(catalogBatchWriter, never()).writeCategories(anyList());
+    }
+
+    // ✅ Sản phẩm đi chung đường upsert với import Excel
+    @Test
+    void testImportProducts_DelegatesToExcelUpsert() {
+        List<ProductImportRow> received = new ArrayList<>();
+        doAnswer(invocation -> {
+            Consumer<Consumer<ProductImportRow>> source = invocation.getArgument(0);
+            source.accept(received::add);
+            return new ImportReportDTO();
+        }).when(excelService).importProductRows(any(), any());
+        String ndjson = "{\"id\":5,\"name\":\"Gold Ring\",\"basePrice\":1500000.00,\"category\":\"Rings\",\"active\":false}\n";
+
+        catalogFeedService.importFeed(CatalogFeed.PRODUCTS, FeedFormat.NDJSON, feed(ndjson), processed -> {
+        });
+
+        assertEquals(List.of(new ProductImportRow(1, "Gold Ring", null, "1500000.00", null, null, "Rings", "false",
+                null)), received);
+    }
+
+    // ❌ CSV thiếu cột khóa / NDJSON sai cú pháp
+    @Test
+    void testImportFeed_InvalidFile() {
+        AppException missingKey = assertThrows(AppException.class, () -> catalogFeedService.importFeed(
+                CatalogFeed.INVENTORY, FeedFormat.CSV, feed("code,quantity\nR-1,5\n"), processed -> {
+                }));
+        assertEquals("File CSV thiếu cột sku", missingKey.getMessage());
+
+        AppException malformed = assertThrows(AppException.class, () -> catalogFeedService.importFeed(
+                CatalogFeed.INVENTORY, FeedFormat.NDJSON, feed("{\"sku\":\"R-1\"}\n{\"sku\" \"R-2\"}\n"), processed -> {
+                }));
+        assertTrue(malformed.getMessage().startsWith("File NDJSON không hợp lệ ở dòng 2"));
+    }
+}
@@ -2,6 +2,7 @@ package com.jeweleryshop.backend.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,12 +10,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.jeweleryshop.backend.cache.CategoryTreeSnapshot;
 import com.jeweleryshop.backend.dto.CategoryDTO;
 import com.jeweleryshop.backend.entity.Category;
+import com.jeweleryshop.backend.event.CategoryChangedEvent;
 import com.jeweleryshop.backend.exception.DuplicateResourceException;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.repository.CategoryRepository;
@@ -24,6 +28,10 @@ class CategoryServiceTest {
 
     @Mock
     private CategoryRepository categoryRepository;
+    @Mock
+    private CategoryTreeService categoryTreeService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private CategoryService categoryService;
@@ -45,17 +53,18 @@ class CategoryServiceTest {
     }
 
     // =======================================================
-    // ✅ 1. Lấy tất cả danh mục
+    // ✅ 1. Lấy tất cả danh mục (từ snapshot, không chạm DB)
     // =======================================================
     @Test
     void testGetAllCategories() {
-        when(categoryRepository.findAll()).thenReturn(List.of(category));
+        when(categoryTreeService.current()).thenReturn(CategoryTreeSnapshot.build(List.of(
+                new CategoryDTO(1L, "Rings", "Luxury rings", null))));
 
         List<CategoryDTO> result = categoryService.getAllCategories();
 
         assertEquals(1, result.size());
         assertEquals("Rings", result.get(0).getName());
-        verify(categoryRepository, times(1)).findAll();
+        verifyNoInteractions(categoryRepository);
     }
 
     // =======================================================
@@ -63,15 +72,13 @@ class CategoryServiceTest {
     // =======================================================
     @Test
     void testGetPublicCategories() {
-        Category parent = new Category();
-        parent.setId(99L);
-        category.setParent(parent);
-
-        when(categoryRepository.findAll()).thenReturn(List.of(category));
+        when(categoryTreeService.current()).thenReturn(CategoryTreeSnapshot.build(List.of(
+                new CategoryDTO(99L, "Jewelry", null, null),
+                new CategoryDTO(1L, "Rings", "Luxury rings", 99L))));
 
         List<CategoryDTO> result = categoryService.getPublicCategories();
 
-        assertEquals(1, result.size());
+        assertEquals(2, result.size());
         assertEquals("Rings", result.get(0).getName());
         assertEquals(99L, result.get(0).getParent_id());
     }
@@ -81,20 +88,36 @@ class CategoryServiceTest {
     // =======================================================
     @Test
     void testGetCategoryById_Success() {
-        when(categoryRepository.findById(1L)).thenReturn(Optional.of(category));
+        when(categoryTreeService.current()).thenReturn(CategoryTreeSnapshot.build(List.of(
+                new CategoryDTO(1L, "Rings", "Luxury rings", null))));
 
         CategoryDTO result = categoryService.getCategoryById(1L);
 
         assertEquals("Rings", result.getName());
-        verify(categoryRepository, times(1)).findById(1L);
+        verifyNoInteractions(categoryRepository);
     }
 
     @Test
     void testGetCategoryById_NotFound() {
-        when(categoryRepository.findById(1L)).thenReturn(Optional.empty());
+        when(categoryTreeService.current()).thenReturn(CategoryTreeSnapshot.empty());
         assertThrows(ResourceNotFoundException.class, () -> categoryService.getCategoryById(1L));
     }
 
+    @Test
+    void testCategoryTreeSnapshot_DescendantIds() {
+        CategoryTreeSnapshot tree = CategoryTreeSnapshot.build(List.of(
+                new CategoryDTO(1L, "Jewelry", null, null),
+                new CategoryDTO(2L, "Rings", null, 1L),
+                new CategoryDTO(3L, "Wedding Rings", null, 2L),
+                new CategoryDTO(4L, "Necklaces", null, 1L)));
+
+        assertEquals(Set.of(1L, 2L, 3L, 4L), tree.getDescendantIds(1L));
+        assertEquals(Set.of(2L, 3L), tree.getDescendantIds(2L));
+        assertEquals(List.of(2L, 4L), tree.getChildIds(1L));
+        assertEquals(List.of(1L), tree.getRootIds());
+        assertTrue(tree.getDescendantIds(42L).isEmpty());
+    }
+
     // =======================================================
     // ✅ 4. Tạo danh mục mới
     // =======================================================
@@ -213,6 +236,7 @@ class CategoryServiceTest {
         categoryService.deleteCategory(1L);
 
         verify(categoryRepository).delete(category);
+        verify(eventPublisher).publishEvent(any(CategoryChangedEvent.class));
     }
 
     @Test
@@ -0,0 +1,125 @@
+package com.jeweleryshop.backend.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.ArgumentCaptor;
+
+import com.jeweleryshop.backend.entity.DailyStats;
+import com.jeweleryshop.backend.entity.OrderStatus;
+import com.jeweleryshop.backend.event.OrderStatusChangedEvent;
+import com.jeweleryshop.backend.event.UserCountChangedEvent;
+import com.jeweleryshop.backend.repository.DailyStatsRepository;
+import com.jeweleryshop.backend.repository.OrderRepository;
+import com.jeweleryshop.backend.repository.UserRepository;
+import com.jeweleryshop.backend.repository.projection.DailyCountRow;
+
+class DashboardAggregateServiceTest {
+
+    private static final LocalDateTime ORDER_DATE = LocalDateTime.of(2024, 5, 10, 14, 30);
+    private static final LocalDate DAY = ORDER_DATE.toLocalDate();
+    private static final BigDecimal TOTAL = new BigDecimal("1500000");
+
+    private final DailyStatsRepository dailyStatsRepository = mock(DailyStatsRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private final DashboardAggregateService aggregateService =
+            new DashboardAggregateService(dailyStatsRepository, orderRepository, userRepository);
+
+    private static DailyCountRow row(LocalDate day, long count, BigDecimal revenue) {
+        DailyCountRow row = mock(DailyCountRow.class);
+        when(row.getDay()).thenReturn(day);
+        when(row.getCount()).thenReturn(count);
+        when(row.getRevenue()).thenReturn(revenue);
+        return row;
+    }
+
+    // ✅ 1. Đơn mới: +1 đơn, chưa có doanh thu
+    @Test
+    void testOrderCreated_CountsOrder() {
+        aggregateService.onOrderStatusChanged(OrderStatusChangedEvent.created(ORDER_DATE, TOTAL, OrderStatus.PENDING));
+
+        verify(dailyStatsRepository).add(DAY, BigDecimal.ZERO, 1, 0);
+    }
+
+    // ✅ 2. Vào DELIVERED cộng doanh thu, rời DELIVERED trừ lại
+    @Test
+    void testDeliveredTransitions_AdjustRevenue() {
+        aggregateService.onOrderStatusChanged(
+                new OrderStatusChangedEvent(ORDER_DATE, TOTAL, OrderStatus.SHIPPED, OrderStatus.DELIVERED));
+        aggregateService.onOrderStatusChanged(
+                new OrderStatusChangedEvent(ORDER_DATE, TOTAL, OrderStatus.DELIVERED, OrderStatus.CANCELLED));
+
+        verify(dailyStatsRepository).add(DAY, TOTAL, 0, 0);
+        verify(dailyStatsRepository).add(DAY, TOTAL.negate(), 0, 0);
+    }
+
+    // ✅ 3. Đổi trạng thái không liên quan doanh thu → không ghi DB
+    @Test
+    void testOtherTransitions_NoWrite() {
+        aggregateService.onOrderStatusChanged(
+                new OrderStatusChangedEvent(ORDER_DATE, TOTAL, OrderStatus.PENDING, OrderStatus.SHIPPED));
+
+        verify(dailyStatsRepository, never()).add(any(), any(), anyLong(), anyLong());
+    }
+
+    // ✅ 4. Đăng ký / xóa người dùng cộng trừ theo ngày đăng ký
+    @Test
+    void testUserCountChanged() {
+        aggregateService.onUserCountChanged(UserCountChangedEvent.registered(ORDER_DATE));
+        aggregateService.onUserCountChanged(UserCountChangedEvent.deleted(ORDER_DATE));
+
+        verify(dailyStatsRepository).add(DAY, BigDecimal.ZERO, 0, 1);
+        verify(dailyStatsRepository).add(DAY, BigDecimal.ZERO, 0, -1);
+    }
+
+    // ✅ 5. Đối soát gộp đơn + người dùng theo ngày rồi ghi đè toàn bộ bảng
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReconcile_RebuildsFromSourceTables() {
+        LocalDate nextDay = DAY.plusDays(1);
+        List<DailyCountRow> orders = List.of(row(DAY, 3, TOTAL));
+        List<DailyCountRow> users = List.of(row(DAY, 2, null), row(nextDay, 1, null));
+        when(orderRepository.countDaily()).thenReturn(orders);
+        when(userRepository.countDaily()).thenReturn(users);
+
+        assertEquals(2, aggregateService.reconcile());
+
+        ArgumentCaptor<List<DailyStats>> saved = ArgumentCaptor.forClass(List.class);
+        verify(dailyStatsRepository).deleteAllInBatch();
+        verify(dailyStatsRepository).saveAll(saved.capture());
+        DailyStats first = saved.getValue().get(0);
+        assertEquals(DAY, first.getStatDate());
+        assertEquals(TOTAL, first.getRevenue());
+        assertEquals(3, first.getOrderCount());
+        assertEquals(2, first.getNewUserCount());
+        DailyStats second = saved.getValue().get(1);
+        assertEquals(nextDay, second.getStatDate());
+        assertEquals(BigDecimal.ZERO, second.getRevenue());
+        assertEquals(1, second.getNewUserCount());
+    }
+
+    // ✅ 6. Khởi động: chỉ dựng khi bảng còn rỗng
+    @Test
+    void testInitializeIfEmpty() {
+        when(dailyStatsRepository.count()).thenReturn(5L);
+        aggregateService.initializeIfEmpty();
+        verify(orderRepository, never()).countDaily();
+
+        when(dailyStatsRepository.count()).thenReturn(0L);
+        aggregateService.initializeIfEmpty();
+        verify(dailyStatsRepository).saveAll(eq(List.of()));
+    }
+}
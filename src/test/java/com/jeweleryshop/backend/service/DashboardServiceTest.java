@@ -1,53 +1,72 @@
 package com.jeweleryshop.backend.service;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 
 import com.jeweleryshop.backend.dto.DashboardStatsDTO;
 import com.jeweleryshop.backend.dto.DashboardStatsDTO.TopSellingProductDTO;
+import com.jeweleryshop.backend.event.CategoryChangedEvent;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+import com.jeweleryshop.backend.repository.CategoryRepository;
+import com.jeweleryshop.backend.repository.DailyStatsRepository;
 import com.jeweleryshop.backend.repository.OrderDetailRepository;
-import com.jeweleryshop.backend.repository.OrderRepository;
-import com.jeweleryshop.backend.repository.UserRepository;
+import com.jeweleryshop.backend.repository.projection.CategoryProductCountRow;
+import com.jeweleryshop.backend.repository.projection.DashboardTotalsRow;
 
-@ExtendWith(MockitoExtension.class)
 class DashboardServiceTest {
 
-    @Mock
-    private OrderRepository orderRepository;
-    @Mock
-    private UserRepository userRepository;
-    @Mock
-    private OrderDetailRepository orderDetailRepository;
+    private final DailyStatsRepository dailyStatsRepository = mock(DailyStatsRepository.class);
+    private final OrderDetailRepository orderDetailRepository = mock(OrderDetailRepository.class);
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
 
-    @InjectMocks
-    private DashboardService dashboardService;
+    private final DashboardService dashboardService =
+            new DashboardService(dailyStatsRepository, orderDetailRepository, categoryRepository, 300);
 
     private List<TopSellingProductDTO> mockTopProducts;
 
+    private static CategoryProductCountRow categoryRow(String name, long products, long active) {
+        CategoryProductCountRow row = mock(CategoryProductCountRow.class);
+        when(row.getCategoryName()).thenReturn(name);
+        when(row.getProductCount()).thenReturn(products);
+        when(row.getActiveCount()).thenReturn(active);
+        return row;
+    }
+
     @BeforeEach
     void setup() {
         // ✅ Tạo danh sách top sản phẩm đúng cấu trúc DTO thật
         TopSellingProductDTO p1 = new TopSellingProductDTO(1L, "Gold Ring", "Size 7", 10L);
         TopSellingProductDTO p2 = new TopSellingProductDTO(2L, "Silver Necklace", "Default", 8L);
         mockTopProducts = Arrays.asList(p1, p2);
+
+        DashboardTotalsRow totals = mock(DashboardTotalsRow.class);
+        when(totals.getTotalRevenue()).thenReturn(new BigDecimal("10000000"));
+        when(totals.getRevenueThisMonth()).thenReturn(new BigDecimal("3000000"));
+        when(totals.getRevenueLast7Days()).thenReturn(new BigDecimal("1000000"));
+        when(totals.getTotalOrders()).thenReturn(50L);
+        when(totals.getOrdersThisMonth()).thenReturn(20L);
+        when(totals.getOrdersLastMonth()).thenReturn(10L);
+        when(totals.getUsersThisMonth()).thenReturn(10L);
+        when(totals.getUsersLastMonth()).thenReturn(5L);
+        when(dailyStatsRepository.findTotals(any(), any(), any())).thenReturn(totals);
+        when(orderDetailRepository.findTopSellingProducts(PageRequest.of(0, 5))).thenReturn(mockTopProducts);
+
+        List<CategoryProductCountRow> rows = List.of(categoryRow("Rings", 3, 2), categoryRow("Empty", 0, 0));
+        when(categoryRepository.countProductsByCategory()).thenReturn(rows);
     }
 
     // =====================================================
@@ -55,28 +74,39 @@ class DashboardServiceTest {
     // =====================================================
     @Test
     void testGetDashboardStats_Success() {
-        when(orderRepository.findTotalRevenue()).thenReturn(Optional.of(new BigDecimal("10000000")));
-        when(orderRepository.count()).thenReturn(50L);
-        when(orderRepository.findTotalRevenueSince(any(LocalDateTime.class)))
-                .thenReturn(Optional.of(new BigDecimal("3000000")));
-        when(userRepository.countByCreatedAtBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(10L)
-                .thenReturn(5L); // Tháng trước
-        when(orderRepository.countByOrderDateBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(20L)
-                .thenReturn(10L);
-        when(orderDetailRepository.findTopSellingProducts(PageRequest.of(0, 5))).thenReturn(mockTopProducts);
-
         DashboardStatsDTO dto = dashboardService.getDashboardStats();
 
         assertNotNull(dto);
         assertEquals(new BigDecimal("10000000"), dto.getTotalRevenue());
-        assertTrue(dto.getUserGrowthPercentage() >= 0);
-        assertTrue(dto.getOrderGrowthPercentage() >= 0);
+        assertEquals(new BigDecimal("1000000"), dto.getRevenueLast7Days());
+        assertEquals(50L, dto.getTotalOrders());
+        assertEquals(100.0, dto.getUserGrowthPercentage());
+        assertEquals(100.0, dto.getOrderGrowthPercentage());
         assertEquals(2, dto.getTopSellingProducts().size());
+        assertEquals(3L, dto.getTotalProducts());
+        assertEquals(2L, dto.getActiveProducts());
+        assertEquals(Map.of("Rings", 3L, "Empty", 0L), dto.getProductsByCategory());
+    }
 
-        verify(orderRepository, atLeastOnce()).findTotalRevenue();
-        verify(orderDetailRepository).findTopSellingProducts(PageRequest.of(0, 5));
+    // ✅ Số sản phẩm và top bán chạy không truy vấn lại ở mỗi lần gọi
+    @Test
+    void testGetDashboardStats_ReusesCountsUntilProductsChange() {
+        dashboardService.getDashboardStats();
+        dashboardService.getDashboardStats();
+        // Đặt / hủy đơn chỉ đổi tồn kho → giữ nguyên số đếm
+        dashboardService.onProductChanged(ProductChangedEvent.stockChanged(Set.of(1L)));
+        dashboardService.getDashboardStats();
+
+        verify(categoryRepository, times(1)).countProductsByCategory();
+        verify(orderDetailRepository, times(1)).findTopSellingProducts(PageRequest.of(0, 5));
+        verify(dailyStatsRepository, times(3)).findTotals(any(), any(), any());
+
+        dashboardService.onProductChanged(ProductChangedEvent.of(1L));
+        dashboardService.getDashboardStats();
+        dashboardService.onCategoryChanged(new CategoryChangedEvent(1L));
+        dashboardService.getDashboardStats();
+
+        verify(categoryRepository, times(3)).countProductsByCategory();
     }
 
     // =====================================================
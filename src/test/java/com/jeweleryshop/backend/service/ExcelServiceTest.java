@@ -0,0 +1,230 @@
+package com.jeweleryshop.backend.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+
+import com.jeweleryshop.backend.dto.CategoryDTO;
+import com.jeweleryshop.backend.dto.ImportReportDTO;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.repository.CategoryRepository;
+import com.jeweleryshop.backend.repository.ProductBatchWriter;
+import com.jeweleryshop.backend.repository.ProductBatchWriter.ProductRow;
+import com.jeweleryshop.backend.repository.ProductRepository;
+import com.jeweleryshop.backend.repository.projection.IdLabelRow;
+import com.jeweleryshop.backend.repository.projection.ProductExportRow;
+
+@ExtendWith(MockitoExtension.class)
+class ExcelServiceTest {
+
+    private record Row(Long getId, String getName, String getDescription, BigDecimal getBasePrice,
+            BigDecimal getDiscountPrice, String getSkuPrefix, String getCategoryName, Boolean getIsActive,
+            String getImageUrl) implements ProductExportRow {
+    }
+
+    private record NameId(Long getId, String getLabel) implements IdLabelRow {
+    }
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private CategoryRepository categoryRepository;
+    @Mock
+    private ProductBatchWriter productBatchWriter;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    Path tempDir;
+
+    private ExcelService excelService;
+
+    @BeforeEach
+    void setUp() {
+        excelService = new ExcelService(productRepository, categoryRepository, productBatchWriter, eventPublisher, 2);
+    }
+
+    private static List<ProductExportRow> rows(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId)
+                .<ProductExportRow>mapToObj(id -> new Row(id, "Ring " + id, null, BigDecimal.valueOf(100),
+                        null, "R", "Rings", id % 2 == 0, null))
+                .toList();
+    }
+
+    // ✅ Đọc sản phẩm theo từng trang keyset, ghi đủ 2 sheet
+    @Test
+    void testExportProductsToExcel_StreamsAllPages() throws Exception {
+        int pageSize = ExcelService.EXPORT_PAGE_SIZE;
+        when(productRepository.findExportRowsAfter(0L, PageRequest.of(0, pageSize)))
+                .thenReturn(rows(1, pageSize));
+        when(productRepository.findExportRowsAfter((long) pageSize, PageRequest.of(0, pageSize)))
+                .thenReturn(rows(pageSize + 1, pageSize + 5));
+        when(categoryRepository.findAllFlat())
+                .thenReturn(List.of(new CategoryDTO(1L, "Rings", "Nhẫn", null, null, null)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        excelService.exportProductsToExcel(out);
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet products = workbook.getSheet("Products");
+            assertEquals(pageSize + 5, products.getLastRowNum());
+            assertEquals("Name", products.getRow(0).getCell(1).getStringCellValue());
+            assertEquals("Ring 1005", products.getRow(pageSize + 5).getCell(1).getStringCellValue());
+            assertEquals("Rings", products.getRow(1).getCell(6).getStringCellValue());
+            assertTrue(products.getRow(2).getCell(7).getBooleanCellValue());
+            assertEquals(40 * 256, products.getColumnWidth(1));
+
+            Sheet categories = workbook.getSheet("Categories");
+            assertEquals(1, categories.getLastRowNum());
+            assertEquals("Rings", categories.getRow(1).getCell(1).getStringCellValue());
+        }
+    }
+
+    // ==============================================================
+    // 📥 Import
+    // ==============================================================
+    private File excel(Object[]... rows) throws Exception {
+        File file = tempDir.resolve("import.xlsx").toFile();
+        try (Workbook workbook = new XSSFWorkbook(); OutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Products");
+            sheet.createRow(0).createCell(1).setCellValue("Name");
+            for (int i = 0; i < rows.length; i++) {
+                org.apache.poi.ss.usermodel.Row row = sheet.createRow(i + 1);
+                for (int col = 0; col < rows[i].length; col++) {
+                    Object value = rows[i][col];
+                    if (value instanceof Number number) {
+                        row.createCell(col).setCellValue(number.doubleValue());
+                    } else if (value instanceof Boolean bool) {
+                        row.createCell(col).setCellValue(bool);
+                    } else if (value != null) {
+                        row.createCell(col).setCellValue(value.toString());
+                    }
+                }
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+
+    private void givenCatalog() {
+        when(categoryRepository.findAllFlat())
+                .thenReturn(List.of(new CategoryDTO(1L, "Rings", "Nhẫn", null, null, null)));
+        List<IdLabelRow> existing = List.of(new NameId(7L, "Gold Ring"));
+        when(productRepository.findAllNameIds()).thenReturn(existing);
+    }
+
+    // ✅ Cập nhật theo tên, thêm mới phần còn lại, ghi theo khúc, báo lỗi từng dòng
+    @Test
+    void testImportProducts_UpsertsInChunksAndReportsRowErrors() throws Exception {
+        givenCatalog();
+        when(productBatchWriter.write(anyList(), anyList()))
+                .thenReturn(List.of(100L))
+                .thenReturn(List.of(101L));
+        File file = excel(
+                new Object[] {null, "gold ring", "Vàng 18K", 1500000, 0, "GR", "rings", "có", null},
+                new Object[] {null, "Silver Ring", null, 250000.5, 200000, "SR", "Rings", null, "http://img"},
+                new Object[] {null, null, null, 100, null, null, "Rings"},
+                new Object[] {},
+                new Object[] {null, "Bad Price", null, "abc", null, null, "Rings"},
+                new Object[] {null, "No Category", null, 100, null, null, "Necklaces"},
+                new Object[] {null, "Pearl Ring", null, 300000, null, null, "Rings", false},
+                new Object[] {null, "silver ring", null, 260000, null, null, "Rings", true});
+        List<Integer> progress = new ArrayList<>();
+
+        ImportReportDTO report = excelService.importProducts(file, progress::add);
+
+        assertEquals(7, report.getTotalRows());
+        assertEquals(2, report.getInserted());
+        assertEquals(2, report.getUpdated());
+        assertEquals(3, report.getFailed());
+        assertEquals(List.of(4, 6, 7), report.getErrors().stream().map(e -> e.getRow()).toList());
+        assertEquals("Giá gốc không hợp lệ: abc", report.getErrors().get(1).getMessage());
+        assertFalse(report.isErrorsTruncated());
+        assertEquals(List.of(2, 7), progress);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProductRow>> inserts = ArgumentCaptor.forClass(List.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProductRow>> updates = ArgumentCaptor.forClass(List.class);
+        verify(productBatchWriter, times(2)).write(inserts.capture(), updates.capture());
+
+        // Khúc 1: "gold ring" → sản phẩm 7; "Silver Ring" thêm mới
+        ProductRow gold = updates.getAllValues().get(0).get(0);
+        assertEquals(7L, gold.id());
+        assertEquals(0, new BigDecimal("1500000").compareTo(gold.basePrice()));
+        assertNull(gold.discountPrice());
+        assertTrue(gold.active());
+        ProductRow silver = inserts.getAllValues().get(0).get(0);
+        assertNull(silver.id());
+        assertEquals(new BigDecimal("250000.5"), silver.basePrice());
+        assertEquals(1L, silver.categoryId());
+
+        // Khúc 2: "silver ring" đã thêm ở khúc 1 → cập nhật id 100
+        assertEquals(List.of("Pearl Ring"), inserts.getAllValues().get(1).stream().map(ProductRow::name).toList());
+        assertFalse(inserts.getAllValues().get(1).get(0).active());
+        assertEquals(100L, updates.getAllValues().get(1).get(0).id());
+
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof ProductChangedEvent event
+                && event.getProductIds().equals(Set.of(7L, 100L))));
+    }
+
+    // ✅ Không có dòng hợp lệ → không ghi DB
+    @Test
+    void testImportProducts_NoValidRows() throws Exception {
+        givenCatalog();
+        File file = excel(new Object[] {null, "Ring", null, -5, null, null, "Rings"});
+
+        ImportReportDTO report = excelService.importProducts(file, processed -> {
+        });
+
+        assertEquals(1, report.getFailed());
+        verify(productBatchWriter, never()).write(anyList(), anyList());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    // ❌ File không phải xlsx
+    @Test
+    void testImportProducts_InvalidFile() throws Exception {
+        givenCatalog();
+        File file = tempDir.resolve("broken.xlsx").toFile();
+        Files.writeString(file.toPath(), "not a zip");
+
+        assertThrows(AppException.class, () -> excelService.importProducts(file, processed -> {
+        }));
+    }
+}
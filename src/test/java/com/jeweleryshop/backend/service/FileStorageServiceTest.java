@@ -0,0 +1,119 @@
+package com.jeweleryshop.backend.service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.jeweleryshop.backend.entity.ImageRendition;
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.exception.FileStorageException;
+import com.jeweleryshop.backend.service.FileStorageService.StoredImage;
+
+class FileStorageServiceTest {
+
+    @TempDir
+    Path uploadDir;
+    @TempDir
+    Path tmpDir;
+
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService(uploadDir.toString(), tmpDir.toString());
+    }
+
+    static byte[] image(String format, int width, int height) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+
+    private List<String> mediaFiles() throws Exception {
+        try (var files = Files.list(uploadDir.resolve(FileStorageService.MEDIA_DIR))) {
+            return files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    // ✅ Tên file = SHA-256 nội dung, đuôi theo định dạng thật (không theo tên gửi lên)
+    @Test
+    void testStoreImage_NamesFileByContentHash() throws Exception {
+        byte[] png = image("png", 40, 20);
+
+        StoredImage stored = fileStorageService.storeImage(
+                new MockMultipartFile("file", "ring.jpeg", "image/jpeg", png));
+
+        assertEquals(64, stored.contentHash().length());
+        assertEquals(stored.contentHash() + ".png", stored.fileName());
+        assertEquals(List.of(stored.fileName()), mediaFiles());
+    }
+
+    // ✅ Upload trùng nội dung → cùng file, chỉ lưu một bản
+    @Test
+    void testStoreImage_DeduplicatesIdenticalUploads() throws Exception {
+        byte[] jpeg = image("jpeg", 40, 20);
+
+        StoredImage first = fileStorageService.storeImage(new MockMultipartFile("file", "a.jpg", "image/jpeg", jpeg));
+        StoredImage second = fileStorageService.storeImage(new MockMultipartFile("file", "b.jpg", "image/jpeg", jpeg));
+        StoredImage other = fileStorageService.storeImage(
+                new MockMultipartFile("file", "c.jpg", "image/jpeg", image("jpeg", 41, 20)));
+
+        assertEquals(first, second);
+        assertTrue(first.fileName().endsWith(".jpg"));
+        assertEquals(Stream.of(first.fileName(), other.fileName()).sorted().toList(), mediaFiles());
+    }
+
+    // ❌ File không phải ảnh bị từ chối, không để lại file tạm
+    @Test
+    void testStoreImage_RejectsNonImage() throws Exception {
+        MockMultipartFile html = new MockMultipartFile("file", "x.png", "image/png", "<script></script>".getBytes());
+
+        assertThrows(AppException.class, () -> fileStorageService.storeImage(html));
+        assertThrows(AppException.class, () -> fileStorageService.storeImage(
+                new MockMultipartFile("file", "empty.png", "image/png", new byte[0])));
+        assertEquals(List.of(), mediaFiles());
+    }
+
+    // ✅ File tạm nằm ngoài thư mục upload (được phục vụ công khai) và được dọn
+    @Test
+    void testTempFiles_StayOutsidePublicDirectory() throws Exception {
+        String hash = fileStorageService.storeImage(
+                new MockMultipartFile("file", "a.png", "image/png", image("png", 10, 10))).contentHash();
+        fileStorageService.storeRendition(hash, ImageRendition.THUMBNAIL,
+                new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
+
+        try (var files = Files.list(tmpDir)) {
+            assertEquals(0, files.count());
+        }
+        assertThrows(FileStorageException.class,
+                () -> new FileStorageService(uploadDir.toString(), uploadDir.resolve("tmp").toString()));
+    }
+
+    // ✅ Chỉ coi là đã xử lý khi đủ mọi cỡ thu nhỏ
+    @Test
+    void testHasRenditions() throws Exception {
+        String hash = fileStorageService.storeImage(
+                new MockMultipartFile("file", "a.png", "image/png", image("png", 10, 10))).contentHash();
+        assertFalse(fileStorageService.hasRenditions(hash));
+
+        BufferedImage small = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        for (ImageRendition rendition : ImageRendition.values()) {
+            fileStorageService.storeRendition(hash, rendition, small);
+        }
+        assertTrue(fileStorageService.hasRenditions(hash));
+    }
+}
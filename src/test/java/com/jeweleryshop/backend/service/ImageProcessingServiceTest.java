@@ -0,0 +1,135 @@
+package com.jeweleryshop.backend.service;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.jeweleryshop.backend.dto.ProductImageDTO;
+import com.jeweleryshop.backend.entity.ImageRendition;
+import com.jeweleryshop.backend.entity.Product;
+import com.jeweleryshop.backend.entity.ProductImage;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+import com.jeweleryshop.backend.repository.ProductImageRepository;
+import com.jeweleryshop.backend.service.FileStorageService.StoredImage;
+
+class ImageProcessingServiceTest {
+
+    private static final String BASE_URL = "http://localhost:8080/media/";
+
+    @TempDir
+    Path uploadDir;
+    @TempDir
+    Path tmpDir;
+
+    private FileStorageService fileStorageService;
+    private ProductImageRepository productImageRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private ImageProcessingService imageProcessingService;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService(uploadDir.toString(), tmpDir.toString());
+        productImageRepository = mock(ProductImageRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        imageProcessingService = new ImageProcessingService(fileStorageService, productImageRepository,
+                eventPublisher, 1, 1);
+    }
+
+    private StoredImage store(int width, int height) throws Exception {
+        return fileStorageService.storeImage(new MockMultipartFile("file", "a.png", "image/png",
+                FileStorageServiceTest.image("png", width, height)));
+    }
+
+    private ProductImage imageRow(Long productId, StoredImage stored) {
+        Product product = new Product();
+        product.setId(productId);
+        ProductImage image = new ProductImage();
+        image.setProduct(product);
+        image.setImageUrl(BASE_URL + stored.fileName());
+        image.setContentHash(stored.contentHash());
+        return image;
+    }
+
+    private BufferedImage rendition(StoredImage stored, ImageRendition rendition) throws Exception {
+        return ImageIO.read(fileStorageService.resolveMedia(rendition.fileName(stored.contentHash())).toFile());
+    }
+
+    // ✅ Sinh đủ cỡ giữ tỉ lệ, gắn URL cho mọi dòng cùng hash, báo sản phẩm đổi
+    @Test
+    void testProcess_GeneratesRenditionsAndUpdatesRows() throws Exception {
+        StoredImage stored = store(2400, 1200);
+        ProductImage first = imageRow(1L, stored);
+        ProductImage duplicate = imageRow(2L, stored);
+        when(productImageRepository.findByContentHash(stored.contentHash())).thenReturn(List.of(first, duplicate));
+
+        imageProcessingService.process(stored.contentHash(), stored.fileName());
+
+        assertEquals(1200, rendition(stored, ImageRendition.LARGE).getWidth());
+        assertEquals(600, rendition(stored, ImageRendition.LARGE).getHeight());
+        assertEquals(600, rendition(stored, ImageRendition.MEDIUM).getWidth());
+        assertEquals(200, rendition(stored, ImageRendition.THUMBNAIL).getWidth());
+        assertEquals(100, rendition(stored, ImageRendition.THUMBNAIL).getHeight());
+
+        assertEquals(BASE_URL + stored.contentHash() + "-thumb.jpg", first.getThumbnailUrl());
+        assertEquals(BASE_URL + stored.contentHash() + "-medium.jpg", duplicate.getMediumUrl());
+        assertEquals(BASE_URL + stored.contentHash() + "-large.jpg", duplicate.getLargeUrl());
+        verify(productImageRepository).saveAll(List.of(first, duplicate));
+
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Set.of(1L, 2L), event.getValue().getProductIds());
+    }
+
+    // ✅ Ảnh nhỏ hơn cỡ đích không bị phóng to
+    @Test
+    void testProcess_DoesNotUpscaleSmallImages() throws Exception {
+        StoredImage stored = store(300, 150);
+        when(productImageRepository.findByContentHash(stored.contentHash())).thenReturn(List.of());
+
+        imageProcessingService.process(stored.contentHash(), stored.fileName());
+
+        assertEquals(300, rendition(stored, ImageRendition.LARGE).getWidth());
+        assertEquals(300, rendition(stored, ImageRendition.MEDIUM).getWidth());
+        assertEquals(200, rendition(stored, ImageRendition.THUMBNAIL).getWidth());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    // ❌ Ảnh hỏng: không gắn URL, ảnh vẫn hiển thị bằng bản gốc
+    @Test
+    void testProcess_CorruptImageKeepsOriginal() throws Exception {
+        StoredImage stored = store(100, 100);
+        Path original = fileStorageService.resolveMedia(stored.fileName());
+        byte[] bytes = Files.readAllBytes(original);
+        Files.write(original, Arrays.copyOf(bytes, 40));
+        ProductImage row = imageRow(1L, stored);
+
+        imageProcessingService.process(stored.contentHash(), stored.fileName());
+
+        assertFalse(fileStorageService.hasRenditions(stored.contentHash()));
+        verify(productImageRepository, never()).findByContentHash(any());
+        assertNull(row.getThumbnailUrl());
+        ProductImageDTO dto = new ProductImageDTO(row);
+        assertEquals(row.getImageUrl(), dto.getThumbnailUrl());
+        assertEquals(row.getImageUrl(), dto.getLargeUrl());
+    }
+}
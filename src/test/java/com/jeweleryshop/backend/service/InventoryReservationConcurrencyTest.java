@@ -0,0 +1,120 @@
+package com.jeweleryshop.backend.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.repository.InventoryRepository;
+import com.jeweleryshop.backend.repository.ProductVariantRepository;
+
+/**
+ * 🧪 Nhiều checkout tranh nhau hai SKU cùng lúc (nửa số đơn đặt hai SKU theo
+ * thứ tự ngược lại): không bán vượt tồn kho, không deadlock. Chạy trên H2
+ * nhúng — mỗi lượt reserve là một transaction riêng, giống một đơn hàng thật.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryReservationConcurrencyTest {
+
+    private static final int CHECKOUTS = 400;
+    private static final int STOCK = 100;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private ProductVariantRepository variantRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM inventories");
+        jdbcTemplate.update("DELETE FROM product_variants");
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM categories");
+
+        jdbcTemplate.update("INSERT INTO categories (id, name, created_at, updated_at) "
+                + "VALUES (1, 'Rings', NOW(), NOW())");
+        jdbcTemplate.update("INSERT INTO products (id, name, base_price, is_active, category_id, "
+                + "created_at, updated_at) VALUES (1, 'Ring', 100, TRUE, 1, NOW(), NOW())");
+        for (long variantId = 1; variantId <= 2; variantId++) {
+            jdbcTemplate.update("INSERT INTO product_variants (id, product_id, sku) VALUES (?, 1, ?)",
+                    variantId, "SKU-" + variantId);
+            jdbcTemplate.update("INSERT INTO inventories (variant_id, quantity) VALUES (?, ?)", variantId, STOCK);
+        }
+    }
+
+    @Test
+    void reserve_ParallelCheckouts_ShouldNeverOversell() throws Exception {
+        InventoryReservationService reservationService = new InventoryReservationService(
+                inventoryRepository, variantRepository, mock(StockHoldService.class));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CHECKOUTS; i++) {
+                Map<Long, Integer> lines = new LinkedHashMap<>();
+                if (i % 2 == 0) {
+                    lines.put(1L, 1);
+                    lines.put(2L, 1);
+                } else {
+                    lines.put(2L, 1);
+                    lines.put(1L, 1);
+                }
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        transaction.executeWithoutResult(status -> reservationService.reserve(lines, null));
+                        reserved.incrementAndGet();
+                    } catch (AppException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                // Deadlock / lock timeout → exception khác AppException làm fail test ở đây
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(STOCK, reserved.get());
+        assertEquals(CHECKOUTS - STOCK, rejected.get());
+        assertEquals(List.of(0, 0), jdbcTemplate.queryForList(
+                "SELECT quantity FROM inventories ORDER BY variant_id", Integer.class));
+    }
+}
@@ -0,0 +1,95 @@
+package com.jeweleryshop.backend.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.jeweleryshop.backend.entity.Product;
+import com.jeweleryshop.backend.entity.ProductVariant;
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.repository.InventoryRepository;
+import com.jeweleryshop.backend.repository.ProductVariantRepository;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryReservationServiceTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+    @Mock
+    private ProductVariantRepository variantRepository;
+    @Mock
+    private StockHoldService stockHoldService;
+
+    @InjectMocks
+    private InventoryReservationService inventoryReservationService;
+
+    // ✅ 1. Batch luôn đi theo variant id tăng dần (thứ tự khóa cố định)
+    @Test
+    void testReserve_ShouldSendLinesSortedByVariantId() {
+        Map<Long, Integer> quantities = new HashMap<>();
+        quantities.put(30L, 1);
+        quantities.put(10L, 2);
+        quantities.put(20L, 3);
+        when(inventoryRepository.decrementIfAvailable(any(), any())).thenReturn(Set.of());
+
+        inventoryReservationService.reserve(quantities, 1L);
+
+        verify(inventoryRepository).decrementIfAvailable(argThat((SortedMap<Long, Integer> lines) ->
+                List.copyOf(lines.keySet()).equals(List.of(10L, 20L, 30L))), eq(Map.of()));
+        verify(variantRepository, never()).findAllById(any());
+    }
+
+    // ✅ 2. Thiếu hàng → AppException kèm tên sản phẩm (transaction người gọi rollback)
+    @Test
+    void testReserve_NotEnoughStock_ShouldThrowWithProductName() {
+        Product product = new Product();
+        product.setName("Diamond Ring");
+        ProductVariant variant = new ProductVariant();
+        variant.setId(10L);
+        variant.setProduct(product);
+        when(inventoryRepository.decrementIfAvailable(any(), any())).thenReturn(Set.of(10L));
+        when(variantRepository.findAllById(Set.of(10L))).thenReturn(List.of(variant));
+
+        AppException ex = assertThrows(AppException.class,
+                () -> inventoryReservationService.reserve(Map.of(10L, 5, 20L, 1), 1L));
+        assertTrue(ex.getMessage().contains("Diamond Ring"));
+    }
+
+    // ✅ 3. Phần giỏ khác đang giữ phải còn lại sau khi trừ
+    @Test
+    void testReserve_ShouldKeepQuantityHeldByOtherCarts() {
+        when(stockHoldService.heldByOthers(anyLong(), eq(1L)))
+                .thenAnswer(inv -> inv.<Long>getArgument(0) == 10L ? 4 : 0);
+        when(inventoryRepository.decrementIfAvailable(any(), any())).thenReturn(Set.of());
+
+        inventoryReservationService.reserve(Map.of(10L, 2, 20L, 1), 1L);
+
+        verify(inventoryRepository).decrementIfAvailable(any(), eq(Map.of(10L, 4)));
+    }
+
+    // ✅ 4. Hoàn kho cũng gửi theo thứ tự variant id
+    @Test
+    void testRelease_ShouldIncrementSorted() {
+        inventoryReservationService.release(Map.of(2L, 1, 1L, 4));
+
+        verify(inventoryRepository).increment(argThat((SortedMap<Long, Integer> lines) ->
+                List.copyOf(lines.keySet()).equals(List.of(1L, 2L)) && lines.get(1L) == 4));
+    }
+}
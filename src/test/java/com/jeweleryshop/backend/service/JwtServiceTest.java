@@ -0,0 +1,75 @@
+package com.jeweleryshop.backend.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.jeweleryshop.backend.security.VerifiedToken;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+
+class JwtServiceTest {
+
+    // 32 byte, Base64URL
+    private static final String SECRET = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY";
+
+    private final JwtService jwtService = new JwtService(SECRET, 60_000, 600_000);
+
+    private final UserDetails userDetails = new User("alice", "secret", List.of(
+            new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+    // ✅ 1. Một lần xác minh trả đủ username, vai trò và hạn dùng
+    @Test
+    void testVerify_ShouldExposeClaims() {
+        String token = jwtService.generateToken(userDetails);
+
+        VerifiedToken verified = jwtService.verify(token);
+
+        assertEquals("alice", verified.getUsername());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), verified.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+        assertTrue(verified.getExpiresAt().after(verified.getIssuedAt()));
+        assertTrue(jwtService.isTokenValid(token, userDetails));
+        assertFalse(jwtService.isTokenValid(token, new User("bob", "x", List.of())));
+    }
+
+    // ✅ 2. Refresh token không có claim roles → không có quyền nào
+    @Test
+    void testVerify_RefreshTokenHasNoAuthorities() {
+        VerifiedToken verified = jwtService.verify(jwtService.generateRefreshToken(userDetails));
+
+        assertEquals("alice", verified.getUsername());
+        assertTrue(verified.getAuthorities().isEmpty());
+    }
+
+    // ❌ 3. Token hết hạn
+    @Test
+    void testVerify_Expired() {
+        String token = new JwtService(SECRET, -1_000, 600_000).generateToken(userDetails);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+    }
+
+    // ❌ 4. Ký bằng key khác hoặc bị sửa nội dung
+    @Test
+    void testVerify_InvalidSignature() {
+        String foreign = new JwtService("ZmVkY2JhOTg3NjU0MzIxMGZlZGNiYTk4NzY1NDMyMTA", 60_000, 600_000)
+                .generateToken(userDetails);
+        String token = jwtService.generateToken(userDetails);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.verify(foreign));
+        assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+    }
+}
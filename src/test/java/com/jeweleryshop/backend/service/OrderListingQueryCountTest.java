@@ -0,0 +1,133 @@
+package com.jeweleryshop.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jeweleryshop.backend.dto.OrderDetailResponseDTO;
+import com.jeweleryshop.backend.repository.AddressRepository;
+import com.jeweleryshop.backend.repository.CartRepository;
+import com.jeweleryshop.backend.repository.OrderDetailRepository;
+import com.jeweleryshop.backend.repository.OrderRepository;
+import com.jeweleryshop.backend.repository.ProductImageRepository;
+import com.jeweleryshop.backend.repository.UserRepository;
+import com.jeweleryshop.backend.security.CurrentUserService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * 🧪 Danh sách đơn hàng admin: số câu SQL cố định cho cả trang — trang 1 đơn
+ * và trang nhiều đơn (nhiều người đặt, nhiều sản phẩm) chạy cùng số câu.
+ * Chạy trên H2 nhúng, đếm bằng Hibernate Statistics.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderListingQueryCountTest {
+
+    private static final int ORDERS = 12;
+
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+    @Autowired
+    private ProductImageRepository productImageRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private OrderService orderService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService(orderRepository, userRepository, mock(CartRepository.class),
+                mock(AddressRepository.class), mock(InventoryReservationService.class),
+                mock(PromotionService.class), mock(PricingService.class),
+                orderDetailRepository, productImageRepository, mock(ApplicationEventPublisher.class),
+                mock(CurrentUserService.class));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        jdbcTemplate.update("DELETE FROM order_details");
+        jdbcTemplate.update("DELETE FROM orders");
+        jdbcTemplate.update("DELETE FROM addresses");
+        jdbcTemplate.update("DELETE FROM product_images");
+        jdbcTemplate.update("DELETE FROM product_variants");
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM categories");
+        jdbcTemplate.update("DELETE FROM users");
+
+        jdbcTemplate.update("INSERT INTO categories (id, name, created_at, updated_at) "
+                + "VALUES (1, 'Rings', NOW(), NOW())");
+        // Mỗi đơn một người đặt, một địa chỉ và hai sản phẩm riêng → trang lớn
+        // chạm nhiều user / sản phẩm / ảnh khác nhau
+        for (int i = 1; i <= ORDERS; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, username, password, email, first_name, last_name, "
+                    + "created_at, updated_at, enabled, two_factor_enabled) "
+                    + "VALUES (?, ?, 'x', ?, 'First', 'Last', NOW(), NOW(), TRUE, FALSE)",
+                    i, "user" + i, "user" + i + "@mail.com");
+            jdbcTemplate.update("INSERT INTO addresses (id, user_id, full_name, phone_number, street_address, "
+                    + "city, district) VALUES (?, ?, 'Name', '0900', 'Street', 'City', 'District')", i, i);
+            jdbcTemplate.update("INSERT INTO orders (id, user_id, order_number, order_date, total_amount, "
+                    + "shipping_address_id, status) VALUES (?, ?, ?, NOW(), 300, ?, 'PENDING')",
+                    i, i, "ORD" + i, i);
+            for (int j = 0; j < 2; j++) {
+                long productId = i * 10L + j;
+                jdbcTemplate.update("INSERT INTO products (id, name, base_price, is_active, category_id, "
+                        + "created_at, updated_at) VALUES (?, ?, 100, TRUE, 1, NOW(), NOW())",
+                        productId, "Product " + productId);
+                jdbcTemplate.update("INSERT INTO product_variants (id, product_id, sku) VALUES (?, ?, ?)",
+                        productId, productId, "SKU-" + productId);
+                jdbcTemplate.update("INSERT INTO product_images (product_id, image_url) VALUES (?, ?)",
+                        productId, "/images/" + productId + ".jpg");
+                jdbcTemplate.update("INSERT INTO order_details (order_id, variant_id, quantity, price_at_purchase) "
+                        + "VALUES (?, ?, 1, 150)", i, productId);
+            }
+        }
+    }
+
+    private long statementsFor(int pageSize) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        statistics.clear();
+        Page<OrderDetailResponseDTO> page = transaction.execute(
+                status -> orderService.getAllOrders(PageRequest.of(0, pageSize)));
+        assertEquals(pageSize, page.getContent().size());
+        page.getContent().forEach(order -> assertEquals(2, order.getOrderItems().size()));
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void getAllOrders_StatementCountDoesNotGrowWithPageSize() {
+        long single = statementsFor(1);
+        long many = statementsFor(ORDERS - 2);
+
+        // trang đơn + đếm + dòng sản phẩm + ảnh đại diện + người đặt
+        assertEquals(5, single);
+        assertEquals(single, many);
+    }
+}
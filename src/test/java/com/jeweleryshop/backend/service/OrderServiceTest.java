@@ -1,29 +1,39 @@
 package com.jeweleryshop.backend.service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -32,7 +42,9 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import com.jeweleryshop.backend.dto.CreateOrderRequestDTO;
+import com.jeweleryshop.backend.dto.OrderCursorPageDTO;
 import com.jeweleryshop.backend.dto.OrderDetailResponseDTO;
+import com.jeweleryshop.backend.dto.OrderSearchFilterDTO;
 import com.jeweleryshop.backend.entity.Address;
 import com.jeweleryshop.backend.entity.Cart;
 import com.jeweleryshop.backend.entity.CartItem;
@@ -43,14 +55,25 @@ import com.jeweleryshop.backend.entity.OrderStatus;
 import com.jeweleryshop.backend.entity.Product;
 import com.jeweleryshop.backend.entity.ProductVariant;
 import com.jeweleryshop.backend.entity.Promotion;
+import com.jeweleryshop.backend.entity.PromotionType;
 import com.jeweleryshop.backend.entity.User;
+import com.jeweleryshop.backend.event.CartCheckedOutEvent;
+import com.jeweleryshop.backend.event.OrderStatusChangedEvent;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
 import com.jeweleryshop.backend.exception.AppException;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.repository.AddressRepository;
 import com.jeweleryshop.backend.repository.CartRepository;
+import com.jeweleryshop.backend.repository.OrderDetailRepository;
 import com.jeweleryshop.backend.repository.OrderRepository;
-import com.jeweleryshop.backend.repository.ProductVariantRepository;
+import com.jeweleryshop.backend.repository.ProductImageRepository;
+import com.jeweleryshop.backend.repository.PromotionRepository;
 import com.jeweleryshop.backend.repository.UserRepository;
+import com.jeweleryshop.backend.security.AuthenticatedUser;
+import com.jeweleryshop.backend.security.CurrentUserService;
+import com.jeweleryshop.backend.repository.projection.OrderItemRow;
+import com.jeweleryshop.backend.repository.projection.ProductThumbnailRow;
+import com.jeweleryshop.backend.repository.projection.UserSummaryRow;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -65,9 +88,21 @@ class OrderServiceTest {
     @Mock
     private AddressRepository addressRepository;
     @Mock
-    private ProductVariantRepository variantRepository;
+    private InventoryReservationService inventoryReservationService;
     @Mock
     private PromotionService promotionService;
+    private final PromotionRepository pricingPromotionRepository = mock(PromotionRepository.class);
+    @Spy
+    private PricingService pricingService = new PricingService(pricingPromotionRepository, BigDecimal.valueOf(30000), 60);
+    @Mock
+    private OrderDetailRepository orderDetailRepository;
+    @Mock
+    private ProductImageRepository productImageRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CurrentUserService currentUserService;
 
     @InjectMocks
     private OrderService orderService;
@@ -123,7 +158,16 @@ class OrderServiceTest {
         cart.setUser(user);
         cart.setItems(new ArrayList<>(List.of(cartItem)));
 
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(currentUserService.getId()).thenReturn(1L);
+        when(currentUserService.get()).thenReturn(new AuthenticatedUser(1L, "testuser", true, List.of("ROLE_USER")));
+        when(currentUserService.getReference()).thenReturn(user);
+
+        // Khuyến mãi SALE10: giảm 10%, đơn tối thiểu 1000
+        Promotion sale10 = new Promotion(900L, "SALE10", "Giảm 10%", PromotionType.PERCENTAGE,
+                BigDecimal.valueOf(10), LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1),
+                BigDecimal.valueOf(1000), 100, 0);
+        when(pricingPromotionRepository.findByEndDateGreaterThanEqual(any())).thenReturn(List.of(sale10));
+        pricingService.refresh();
     }
 
     // ✅ 1. Tạo đơn hàng thành công
@@ -135,14 +179,21 @@ class OrderServiceTest {
 
         when(cartRepository.findByUserId(1L)).thenReturn(Optional.of(cart));
         when(addressRepository.findById(10L)).thenReturn(Optional.of(address));
-        when(variantRepository.findWithLockingById(anyLong())).thenReturn(Optional.of(variant));
         when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArgument(0));
 
         OrderDetailResponseDTO dto = orderService.createOrder(req);
         assertNotNull(dto);
-        assertTrue(dto.getFinalTotal().compareTo(BigDecimal.ZERO) > 0);
+        verify(inventoryReservationService).reserve(Map.of(200L, 2), 400L);
+        // Lượt giữ hàng chỉ được trả sau commit (qua sự kiện)
+        verify(eventPublisher).publishEvent(argThat(
+                (Object event) -> event instanceof CartCheckedOutEvent checkedOut && checkedOut.getCartId().equals(400L)));
+        // 2 x 800 = 1600, giảm 10% = 160, cộng phí vận chuyển 30000
+        assertEquals(0, dto.getFinalTotal().compareTo(BigDecimal.valueOf(31440)));
+        verify(promotionService).incrementUsage("SALE10");
         verify(orderRepository, times(1)).save(any(Order.class));
         verify(cartRepository, times(1)).save(any(Cart.class));
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+        verify(eventPublisher).publishEvent(any(OrderStatusChangedEvent.class));
     }
 
     // ✅ 2. Giỏ hàng trống
@@ -183,39 +234,57 @@ class OrderServiceTest {
         assertThrows(AppException.class, () -> orderService.createOrder(req));
     }
 
-    // ✅ 5. ProductVariant không tồn tại
+    // ✅ 5. Nhiều dòng cùng biến thể → gộp lại, giữ kho một lần theo variant id tăng dần
     @Test
-    void testCreateOrder_VariantNotFound_ShouldThrow() {
+    void testCreateOrder_ShouldReserveMergedQuantitiesSortedByVariant() {
+        ProductVariant other = new ProductVariant();
+        other.setId(150L);
+        other.setProduct(product);
+        CartItem otherItem = new CartItem();
+        otherItem.setVariant(other);
+        otherItem.setQuantity(1);
+        CartItem sameVariant = new CartItem();
+        sameVariant.setVariant(variant);
+        sameVariant.setQuantity(3);
+        cart.getItems().add(otherItem);
+        cart.getItems().add(sameVariant);
+
         when(cartRepository.findByUserId(1L)).thenReturn(Optional.of(cart));
         when(addressRepository.findById(10L)).thenReturn(Optional.of(address));
-        when(variantRepository.findWithLockingById(anyLong())).thenReturn(Optional.empty());
+        when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArgument(0));
         CreateOrderRequestDTO req = new CreateOrderRequestDTO();
         req.setShippingAddressId(10L);
-        assertThrows(ResourceNotFoundException.class, () -> orderService.createOrder(req));
+
+        orderService.createOrder(req);
+
+        verify(inventoryReservationService).reserve(argThat((Map<Long, Integer> quantities) ->
+                List.copyOf(quantities.keySet()).equals(List.of(150L, 200L))
+                        && quantities.get(200L) == 5
+                        && quantities.get(150L) == 1), eq(400L));
     }
 
     // ✅ 6. Tồn kho không đủ
     @Test
     void testCreateOrder_NotEnoughStock_ShouldThrow() {
-        inventory.setQuantity(1);
         when(cartRepository.findByUserId(1L)).thenReturn(Optional.of(cart));
         when(addressRepository.findById(10L)).thenReturn(Optional.of(address));
-        when(variantRepository.findWithLockingById(anyLong())).thenReturn(Optional.of(variant));
+        doThrow(new AppException("Not enough stock for product: Diamond Ring"))
+                .when(inventoryReservationService).reserve(any(), any());
         CreateOrderRequestDTO req = new CreateOrderRequestDTO();
         req.setShippingAddressId(10L);
         assertThrows(AppException.class, () -> orderService.createOrder(req));
+        verify(orderRepository, never()).save(any(Order.class));
     }
 
     // ✅ 7. Tạo đơn hàng có promotion trong cart
     @Test
     void testCreateOrder_WithPromotionInCart_ShouldCallIncrementUsage() {
         Promotion promo = new Promotion();
-        promo.setCode("SALE10");
+        promo.setId(900L);
         cart.setAppliedPromotion(promo);
 
         when(cartRepository.findByUserId(1L)).thenReturn(Optional.of(cart));
         when(addressRepository.findById(10L)).thenReturn(Optional.of(address));
-        when(variantRepository.findWithLockingById(anyLong())).thenReturn(Optional.of(variant));
         when(orderRepository.save(any(Order.class))).thenReturn(new Order());
 
         CreateOrderRequestDTO req = new CreateOrderRequestDTO();
@@ -223,6 +292,43 @@ class OrderServiceTest {
         orderService.createOrder(req);
 
         verify(promotionService, times(1)).incrementUsage("SALE10");
+        assertNull(cart.getAppliedPromotion());
+    }
+
+    // ✅ 7b. Mã nhập tay không hợp lệ / chưa đủ điều kiện → không tạo đơn
+    @Test
+    void testCreateOrder_InvalidDiscountCode_ShouldThrow() {
+        when(cartRepository.findByUserId(1L)).thenReturn(Optional.of(cart));
+        when(addressRepository.findById(10L)).thenReturn(Optional.of(address));
+
+        CreateOrderRequestDTO req = new CreateOrderRequestDTO();
+        req.setShippingAddressId(10L);
+        req.setDiscountCode("NOPE");
+        AppException ex = assertThrows(AppException.class, () -> orderService.createOrder(req));
+        assertEquals("Invalid promotion code.", ex.getMessage());
+
+        cartItem.setQuantity(1);
+        product.setDiscountPrice(BigDecimal.valueOf(500));
+        req.setDiscountCode("sale10");
+        assertThrows(AppException.class, () -> orderService.createOrder(req));
+
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(promotionService, never()).incrementUsage(any());
+    }
+
+    // ✅ 7c. Không có mã → chỉ cộng phí vận chuyển
+    @Test
+    void testCreateOrder_WithoutPromotion_ShouldOnlyAddShippingFee() {
+        when(cartRepository.findByUserId(1L)).thenReturn(Optional.of(cart));
+        when(addressRepository.findById(10L)).thenReturn(Optional.of(address));
+        when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArgument(0));
+
+        CreateOrderRequestDTO req = new CreateOrderRequestDTO();
+        req.setShippingAddressId(10L);
+        OrderDetailResponseDTO dto = orderService.createOrder(req);
+
+        assertEquals(0, dto.getFinalTotal().compareTo(BigDecimal.valueOf(31600)));
+        verify(promotionService, never()).incrementUsage(any());
     }
 
     // ✅ 8. Lấy danh sách đơn hàng cho current user
@@ -287,6 +393,89 @@ class OrderServiceTest {
         assertEquals(1, result.getContent().size());
     }
 
+    // ✅ 12b. Danh sách đơn hàng dựng từ projection — không đi qua quan hệ lazy
+    @Test
+    void testGetAllOrders_ShouldAssembleItemsFromBatchQueries() {
+        Order o = new Order();
+        o.setId(1L);
+        o.setUser(user);
+        when(orderRepository.findAll(any(PageRequest.class))).thenReturn(new PageImpl<>(List.of(o)));
+
+        OrderItemRow row = mock(OrderItemRow.class);
+        when(row.getOrderId()).thenReturn(1L);
+        when(row.getProductId()).thenReturn(7L);
+        when(row.getVariantId()).thenReturn(70L);
+        when(row.getProductName()).thenReturn("Gold Ring");
+        when(row.getSize()).thenReturn("M");
+        when(row.getQuantity()).thenReturn(2);
+        when(row.getPriceAtPurchase()).thenReturn(BigDecimal.TEN);
+        when(orderDetailRepository.findItemRowsByOrderIdIn(List.of(1L))).thenReturn(List.of(row));
+
+        ProductThumbnailRow thumbnail = mock(ProductThumbnailRow.class);
+        when(thumbnail.getProductId()).thenReturn(7L);
+        when(thumbnail.getImageUrl()).thenReturn("/images/ring.png");
+        when(productImageRepository.findThumbnailsByProductIdIn(Set.of(7L))).thenReturn(List.of(thumbnail));
+
+        UserSummaryRow summary = mock(UserSummaryRow.class);
+        when(summary.getId()).thenReturn(user.getId());
+        when(summary.getEmail()).thenReturn("buyer@example.com");
+        when(summary.getFirstName()).thenReturn("Lan");
+        when(summary.getLastName()).thenReturn("Nguyen");
+        when(userRepository.findSummariesByIdIn(Set.of(user.getId()))).thenReturn(List.of(summary));
+
+        OrderDetailResponseDTO dto = orderService.getAllOrders(PageRequest.of(0, 10)).getContent().get(0);
+
+        assertEquals("buyer@example.com", dto.getUserEmail());
+        assertEquals("Lan Nguyen", dto.getUserName());
+        assertEquals(1, dto.getOrderItems().size());
+        OrderDetailResponseDTO.OrderItemDTO item = dto.getOrderItems().get(0);
+        assertEquals("Gold Ring", item.getProductName());
+        assertEquals("Size: M, Material: N/A", item.getVariantInfo());
+        assertEquals("/images/ring.png", item.getImageUrl());
+        assertEquals(2, item.getQuantity());
+    }
+
+    // ✅ 12c. Tìm kiếm admin theo keyset — giữ thứ tự ID, trả cursor trang sau
+    @Test
+    void testSearchOrders_ShouldKeepKeysetOrderAndReturnNextCursor() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 0);
+        Order newest = new Order();
+        newest.setId(3L);
+        newest.setOrderDate(now);
+        Order older = new Order();
+        older.setId(2L);
+        older.setOrderDate(now.minusDays(1));
+
+        OrderSearchFilterDTO filter = new OrderSearchFilterDTO();
+        filter.setStatus(OrderStatus.PENDING);
+        filter.setLimit(2);
+
+        when(orderRepository.findIdsBefore(any(), isNull(), isNull(), eq(3))).thenReturn(List.of(3L, 2L, 1L));
+        // Repository trả theo thứ tự bất kỳ
+        when(orderRepository.findWithShippingAddressByIdIn(List.of(3L, 2L))).thenReturn(List.of(older, newest));
+
+        OrderCursorPageDTO page = orderService.searchOrders(filter);
+
+        assertEquals(List.of(3L, 2L), page.getItems().stream().map(OrderDetailResponseDTO::getId).toList());
+        assertTrue(page.isHasMore());
+        assertNotNull(page.getNextCursor());
+
+        // Cursor trang sau trỏ đúng (order_date, id) của đơn cuối
+        filter.setCursor(page.getNextCursor());
+        when(orderRepository.findIdsBefore(any(), eq(now.minusDays(1)), eq(2L), eq(3))).thenReturn(List.of());
+        OrderCursorPageDTO next = orderService.searchOrders(filter);
+        assertTrue(next.getItems().isEmpty());
+        assertFalse(next.isHasMore());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void testSearchOrders_InvalidCursor_ShouldThrow() {
+        OrderSearchFilterDTO filter = new OrderSearchFilterDTO();
+        filter.setCursor("not-a-cursor");
+        assertThrows(AppException.class, () -> orderService.searchOrders(filter));
+    }
+
     // ✅ 13. Cập nhật trạng thái đơn hàng → CANCELLED hoàn kho
     @Test
     void testUpdateOrderStatus_Cancelled_ShouldRestock() {
@@ -304,6 +493,9 @@ class OrderServiceTest {
 
         OrderDetailResponseDTO dto = orderService.updateOrderStatus(1L, OrderStatus.CANCELLED);
         assertEquals(OrderStatus.CANCELLED, dto.getStatus());
+        verify(inventoryReservationService).release(Map.of(200L, 2));
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+        verify(eventPublisher).publishEvent(any(OrderStatusChangedEvent.class));
     }
 
     // ✅ 14. Cập nhật trạng thái đơn hàng không tồn tại
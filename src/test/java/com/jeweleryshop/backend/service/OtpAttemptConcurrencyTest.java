@@ -0,0 +1,131 @@
+package com.jeweleryshop.backend.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.otp.InMemoryOtpStore;
+import com.jeweleryshop.backend.otp.JpaOtpStore;
+import com.jeweleryshop.backend.otp.OtpStore;
+import com.jeweleryshop.backend.repository.OtpTokenRepository;
+
+/**
+ * 🧪 Nhiều request đoán OTP cùng lúc: số lần được so mã không bao giờ vượt
+ * maxVerifyAttempts, với cả store trong bộ nhớ lẫn bảng otp_tokens (H2 nhúng).
+ * Lượt đã dùng phải được ghi lại kể cả khi transaction gọi tới bị rollback.
+ */
+@DataJpaTest
+@Import(JpaOtpStore.class)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "app.otp.store=database"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OtpAttemptConcurrencyTest {
+
+    private static final int GUESSES = 200;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private OtpStore jpaOtpStore;
+    @Autowired
+    private OtpTokenRepository otpTokenRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanup() {
+        otpTokenRepository.deleteAll();
+    }
+
+    @Test
+    void verifyOtp_ParallelGuesses_Database_ShouldStopAtMaxAttempts() throws Exception {
+        assertOnlyMaxAttemptsCompared(jpaOtpStore);
+        assertEquals(MAX_ATTEMPTS, otpTokenRepository.findByUsername("alice").orElseThrow().getFailedAttempts());
+    }
+
+    // Giống AuthService.verifyOtp: mã sai ném AppException làm transaction ngoài rollback
+    @Test
+    void verifyOtp_WrongGuessInRolledBackTransaction_ShouldKeepAttempt() {
+        OtpService otpService = new OtpService(jpaOtpStore, Duration.ofMinutes(5), Duration.ofSeconds(60),
+                Duration.ofHours(1), 5, MAX_ATTEMPTS, Clock.systemDefaultZone());
+        String otp = otpService.generateOtp("alice");
+        String wrong = otp.equals("000000") ? "000001" : "000000";
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(AppException.class, () -> transaction.executeWithoutResult(
+                    status -> otpService.verifyOtp("alice", wrong)));
+        }
+
+        assertEquals(2, otpTokenRepository.findByUsername("alice").orElseThrow().getFailedAttempts());
+    }
+
+    @Test
+    void verifyOtp_ParallelGuesses_Memory_ShouldStopAtMaxAttempts() throws Exception {
+        InMemoryOtpStore store = new InMemoryOtpStore(10);
+        assertOnlyMaxAttemptsCompared(store);
+        assertEquals(MAX_ATTEMPTS, store.find("alice").orElseThrow().getFailedAttempts());
+    }
+
+    private void assertOnlyMaxAttemptsCompared(OtpStore store) throws Exception {
+        OtpService otpService = new OtpService(store, Duration.ofMinutes(5), Duration.ofSeconds(60),
+                Duration.ofHours(1), 5, MAX_ATTEMPTS, Clock.systemDefaultZone());
+        String otp = otpService.generateOtp("alice");
+        String wrong = otp.equals("000000") ? "000001" : "000000";
+
+        AtomicInteger compared = new AtomicInteger();
+        AtomicInteger locked = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < GUESSES; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        otpService.verifyOtp("alice", wrong);
+                    } catch (AppException e) {
+                        if (e.getMessage().equals("Mã OTP không đúng!")) {
+                            compared.incrementAndGet();
+                        } else {
+                            locked.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(MAX_ATTEMPTS, compared.get());
+        assertEquals(GUESSES - MAX_ATTEMPTS, locked.get());
+    }
+}
@@ -0,0 +1,131 @@
+package com.jeweleryshop.backend.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.otp.InMemoryOtpStore;
+
+class OtpServiceTest {
+
+    // Đồng hồ giả, tua được
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-06-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final MutableClock clock = new MutableClock();
+    private final InMemoryOtpStore store = new InMemoryOtpStore(2);
+    private final OtpService otpService = new OtpService(store, Duration.ofMinutes(5), Duration.ofSeconds(60),
+            Duration.ofHours(1), 3, 3, clock);
+
+    private static String wrong(String otp) {
+        return otp.equals("000000") ? "000001" : "000000";
+    }
+
+    // ✅ 1. Mã đúng xác minh được một lần, sau đó bị xóa
+    @Test
+    void testVerifyOtp_Success() {
+        String otp = otpService.generateOtp("alice");
+
+        assertTrue(otp.matches("\\d{6}"));
+        assertDoesNotThrow(() -> otpService.verifyOtp("alice", otp));
+        assertFalse(store.find("alice").isPresent());
+        assertThrows(AppException.class, () -> otpService.verifyOtp("alice", otp));
+    }
+
+    // ✅ 2. Store chỉ giữ hash, không giữ mã gốc
+    @Test
+    void testGenerateOtp_StoresHashOnly() {
+        String otp = otpService.generateOtp("alice");
+
+        String hash = store.find("alice").orElseThrow().getCodeHash();
+        assertEquals(64, hash.length());
+        assertNotEquals(otp, hash);
+    }
+
+    // ❌ 3. Nhập sai quá số lần → mã bị vô hiệu kể cả khi nhập đúng
+    @Test
+    void testVerifyOtp_LockedAfterMaxAttempts() {
+        String otp = otpService.generateOtp("alice");
+        for (int i = 0; i < 3; i++) {
+            AppException ex = assertThrows(AppException.class, () -> otpService.verifyOtp("alice", wrong(otp)));
+            assertEquals("Mã OTP không đúng!", ex.getMessage());
+        }
+
+        AppException ex = assertThrows(AppException.class, () -> otpService.verifyOtp("alice", otp));
+        assertEquals("Nhập sai OTP quá nhiều lần, vui lòng yêu cầu mã mới!", ex.getMessage());
+    }
+
+    // ❌ 4. Hết hạn
+    @Test
+    void testVerifyOtp_Expired() {
+        String otp = otpService.generateOtp("alice");
+        clock.advance(Duration.ofMinutes(6));
+
+        AppException ex = assertThrows(AppException.class, () -> otpService.verifyOtp("alice", otp));
+        assertEquals("OTP đã hết hạn!", ex.getMessage());
+    }
+
+    // ❌ 5. Giới hạn gửi: thời gian chờ giữa hai lần và số lần mỗi cửa sổ
+    @Test
+    void testGenerateOtp_RateLimited() {
+        otpService.generateOtp("alice");
+        assertThrows(AppException.class, () -> otpService.generateOtp("alice"));
+
+        clock.advance(Duration.ofSeconds(61));
+        otpService.generateOtp("alice");
+        clock.advance(Duration.ofSeconds(61));
+        otpService.generateOtp("alice");
+        clock.advance(Duration.ofSeconds(61));
+        AppException ex = assertThrows(AppException.class, () -> otpService.generateOtp("alice"));
+        assertEquals("Bạn đã yêu cầu quá nhiều mã OTP, vui lòng thử lại sau!", ex.getMessage());
+
+        // Hết cửa sổ → gửi lại được, đếm lại từ đầu
+        clock.advance(Duration.ofHours(1));
+        assertDoesNotThrow(() -> otpService.generateOtp("alice"));
+        assertEquals(1, store.find("alice").orElseThrow().getSendCount());
+    }
+
+    // ✅ 6. Dọn bản ghi cũ; store đầy thì từ chối thay vì tăng bộ nhớ
+    @Test
+    void testStore_PurgeAndBoundedMemory() {
+        otpService.generateOtp("alice");
+        otpService.generateOtp("bob");
+        assertThrows(AppException.class, () -> otpService.generateOtp("carol"));
+
+        clock.advance(Duration.ofMinutes(5).plusHours(1).plusSeconds(1));
+        assertEquals(2, otpService.purgeExpired());
+        assertEquals(0, store.size());
+    }
+}
@@ -0,0 +1,133 @@
+package com.jeweleryshop.backend.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jeweleryshop.backend.entity.Product;
+import com.jeweleryshop.backend.event.CategoryChangedEvent;
+import com.jeweleryshop.backend.repository.ProductRepository;
+
+class ProductIndexLifecycleTest {
+
+    // Chỉ mục giả: id → tên sản phẩm
+    private static class NameIndex extends ProductIndexLifecycle<Map<Long, String>> {
+
+        NameIndex(ProductRepository productRepository) {
+            super(productRepository);
+        }
+
+        @Override
+        protected Map<Long, String> newIndex() {
+            return new ConcurrentHashMap<>();
+        }
+
+        @Override
+        protected void put(Map<Long, String> index, Product product) {
+            index.put(product.getId(), product.getName());
+        }
+
+        @Override
+        protected void remove(Map<Long, String> index, Long productId) {
+            index.remove(productId);
+        }
+    }
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    // "DB": id → tên
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private final NameIndex lifecycle = new NameIndex(productRepository);
+
+    // Luồng dựng lại dừng sau khi đã nạp lô sản phẩm, chờ test mở cổng
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+
+    @BeforeEach
+    void setup() {
+        when(productRepository.findIdsAfter(isNull(), any(), anyInt()))
+                .thenAnswer(invocation -> names.keySet().stream().sorted().toList());
+        when(productRepository.findWithVariantsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            List<Product> products = ids.stream().filter(names::containsKey)
+                    .map(id -> product(id, names.get(id))).toList();
+            if (Thread.currentThread().getName().startsWith("index-rebuild-")) {
+                loaded.countDown();
+                gate.await(5, TimeUnit.SECONDS);
+            }
+            return products;
+        });
+        names.put(1L, "Nhẫn");
+        lifecycle.rebuild();
+        lifecycle.startRebuildExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        lifecycle.stopRebuildExecutor();
+    }
+
+    // ✅ 1. Danh mục đổi → dựng lại trên luồng nền, vẫn phục vụ chỉ mục cũ; sản
+    // phẩm đổi giữa chừng không phải chờ và không bị lô cũ ghi đè
+    @Test
+    void testOnCategoryChanged_RebuildsInBackground() throws Exception {
+        Map<Long, String> old = lifecycle.currentIndex();
+        names.put(1L, "Nhẫn vàng");
+
+        lifecycle.onCategoryChanged(new CategoryChangedEvent(1L));
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        assertSame(old, lifecycle.currentIndex());
+
+        names.put(1L, "Nhẫn bạc");
+        lifecycle.reindex(List.of(1L));
+        assertEquals("Nhẫn bạc", lifecycle.currentIndex().get(1L));
+
+        gate.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (lifecycle.currentIndex() == old && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotSame(old, lifecycle.currentIndex());
+        assertEquals("Nhẫn bạc", lifecycle.currentIndex().get(1L));
+    }
+
+    // ✅ 2. Nhiều lần đổi danh mục trong lúc đang dựng → chỉ thêm đúng một lượt
+    @Test
+    void testOnCategoryChanged_CoalescesRequests() throws Exception {
+        lifecycle.onCategoryChanged(new CategoryChangedEvent(1L));
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            lifecycle.onCategoryChanged(new CategoryChangedEvent(1L));
+        }
+
+        gate.countDown();
+        // Khởi động + lượt đang chạy + một lượt gộp
+        verify(productRepository, after(1000).times(3)).findIdsAfter(isNull(), any(), anyInt());
+    }
+}
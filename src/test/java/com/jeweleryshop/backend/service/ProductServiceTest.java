@@ -1,11 +1,14 @@
 package com.jeweleryshop.backend.service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -14,31 +17,46 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
+import com.jeweleryshop.backend.dto.FacetedProductPageDTO;
+import com.jeweleryshop.backend.dto.ProductCursorPageDTO;
+import com.jeweleryshop.backend.dto.ProductFacetFilterDTO;
 import com.jeweleryshop.backend.dto.ProductRequestDTO;
 import com.jeweleryshop.backend.dto.ProductResponseDTO;
 import com.jeweleryshop.backend.entity.Category;
 import com.jeweleryshop.backend.entity.Product;
 import com.jeweleryshop.backend.entity.ProductImage;
 import com.jeweleryshop.backend.entity.ProductVariant;
+import com.jeweleryshop.backend.event.ProductChangedEvent;
+import com.jeweleryshop.backend.exception.AppException;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.repository.CategoryRepository;
 import com.jeweleryshop.backend.repository.ProductRepository;
 import com.jeweleryshop.backend.repository.ProductVariantRepository;
+import com.jeweleryshop.backend.search.ProductFacetIndex.FacetResult;
+import com.jeweleryshop.backend.search.ProductSearchIndex.SearchHit;
 
 @ExtendWith(MockitoExtension.class)
 class ProductServiceTest {
@@ -49,6 +67,17 @@ class ProductServiceTest {
     private CategoryRepository categoryRepository;
     @Mock
     private ProductVariantRepository productVariantRepository;
+    @Mock
+    private CategoryTreeService categoryTreeService;
+    @Mock
+    private ProductSearchService productSearchService;
+    @Mock
+    private ProductFacetService productFacetService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private BoundedTtlCache<Long, ProductResponseDTO> productCache
+            = new BoundedTtlCache<>("products", 10, Duration.ofMinutes(5));
 
     @InjectMocks
     private ProductService productService;
@@ -253,6 +282,7 @@ class ProductServiceTest {
 
         verify(productRepository).deleteById(1L);
         verify(productRepository).existsById(1L);
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
     }
 
     // ==============================================================
@@ -291,20 +321,21 @@ class ProductServiceTest {
     // ==============================================================
     @Test
     void testGetAllProducts_Filtered() {
-        Page<Product> mockPage = new PageImpl<>(List.of(product));
-
-        when(productRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(mockPage);
+        Pageable pageable = PageRequest.of(0, 10);
+        when(productRepository.findIds(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(1L), pageable, 1));
+        when(productRepository.findWithVariantsByIdIn(List.of(1L))).thenReturn(List.of(product));
 
         Page<ProductResponseDTO> result = productService.getAllProducts(
-                PageRequest.of(0, 10),
-                1L, BigDecimal.ZERO, BigDecimal.TEN, "Ring", "M", "Gold"
+                pageable,
+                1L, BigDecimal.ZERO, BigDecimal.TEN, "Ring", "M", "Gold", false
         );
 
         assertEquals(1, result.getTotalElements());
         assertEquals("Gold Ring", result.getContent().get(0).getName());
         verify(productRepository, times(1))
-                .findAll(any(Specification.class), any(Pageable.class));
+                .findIds(any(Specification.class), any(Pageable.class));
+        verify(productRepository).findWithImagesByIdIn(List.of(1L));
     }
 
     // ==============================================================
@@ -312,18 +343,36 @@ class ProductServiceTest {
     // ==============================================================
     @Test
     void testGetAllProducts_WithAllFiltersNull() {
-        Page<Product> mockPage = new PageImpl<>(List.of(product));
-
-        when(productRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(mockPage);
+        Pageable pageable = PageRequest.of(0, 10);
+        when(productRepository.findIds(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(1L), pageable, 1));
+        when(productRepository.findWithVariantsByIdIn(List.of(1L))).thenReturn(List.of(product));
 
         Page<ProductResponseDTO> result = productService.getAllProducts(
-                PageRequest.of(0, 10),
-                null, null, null, null, null, null
+                pageable,
+                null, null, null, null, null, null, false
         );
 
         assertEquals(1, result.getTotalElements());
-        verify(productRepository).findAll(any(Specification.class), any(Pageable.class));
+        verify(productRepository).findIds(any(Specification.class), any(Pageable.class));
+    }
+
+    // ==============================================================
+    // ✅ 14b. Trang ID rỗng → không chạy query nạp chi tiết
+    // ==============================================================
+    @Test
+    void testGetAllProducts_EmptyIdPage_ShouldSkipHydration() {
+        Pageable pageable = PageRequest.of(5, 10);
+        when(productRepository.findIds(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(), pageable, 12));
+
+        Page<ProductResponseDTO> result = productService.getAllProducts(
+                pageable, null, null, null, null, null, null, false);
+
+        assertTrue(result.getContent().isEmpty());
+        assertEquals(12, result.getTotalElements());
+        verify(productRepository, never()).findWithVariantsByIdIn(any());
+        verify(productRepository, never()).findWithImagesByIdIn(any());
     }
 
     // ==============================================================
@@ -412,4 +461,179 @@ class ProductServiceTest {
         assertEquals(1, dto.getVariants().size());
         assertEquals(0, dto.getVariants().get(0).getQuantity()); // Should default to 0
     }
+
+    // ==============================================================
+    // ✅ 19. Keyset — trang đầu, còn dữ liệu → trả cursor trang sau
+    // ==============================================================
+    @Test
+    void testGetProductsAfter_FirstPage_ShouldReturnNextCursor() {
+        Product second = new Product();
+        second.setId(2L);
+        second.setName("Silver Ring");
+        second.setCategory(category);
+
+        when(productRepository.findIdsAfter(any(), isNull(), eq(3)))
+                .thenReturn(List.of(1L, 2L, 3L));
+        when(productRepository.findWithVariantsByIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(second, product)); // DB trả về không theo thứ tự
+
+        ProductCursorPageDTO page = productService.getProductsAfter(
+                null, 2, null, null, null, null, null, null, false);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(1L, page.getItems().get(0).getId());
+        assertEquals(2L, page.getItems().get(1).getId());
+        assertTrue(page.isHasMore());
+        assertEquals(2L, ProductService.decodeCursor(page.getNextCursor()));
+    }
+
+    // ==============================================================
+    // ✅ 20. Keyset — trang cuối, limit bị chặn bởi MAX_PUBLIC_PAGE_SIZE
+    // ==============================================================
+    @Test
+    void testGetProductsAfter_LastPage_ShouldCapLimitAndReturnNoCursor() {
+        String cursor = ProductService.encodeCursor(0L);
+        when(productRepository.findIdsAfter(any(), eq(0L), eq(ProductService.MAX_PUBLIC_PAGE_SIZE + 1)))
+                .thenReturn(List.of(1L));
+        when(productRepository.findWithVariantsByIdIn(List.of(1L))).thenReturn(List.of(product));
+
+        ProductCursorPageDTO page = productService.getProductsAfter(
+                cursor, 10_000, null, null, null, null, null, null, false);
+
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    // ==============================================================
+    // ✅ 21. Keyset — cursor không hợp lệ
+    // ==============================================================
+    @Test
+    void testGetProductsAfter_InvalidCursor_ShouldThrow() {
+        assertThrows(AppException.class, () -> productService.getProductsAfter(
+                "not-a-cursor!", 10, null, null, null, null, null, null, false));
+        verify(productRepository, never()).findIdsAfter(any(), any(), anyInt());
+    }
+
+    // ==============================================================
+    // ✅ 22. Chi tiết sản phẩm — lần đọc thứ 2 lấy từ cache
+    // ==============================================================
+    @Test
+    void testGetProductById_SecondCall_ShouldHitCache() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        ProductResponseDTO first = productService.getProductById(1L);
+        ProductResponseDTO second = productService.getProductById(1L);
+
+        assertEquals(first, second);
+        verify(productRepository, times(1)).findById(1L);
+        assertEquals(1, productCache.stats().getHits());
+        assertEquals(1, productCache.stats().getMisses());
+    }
+
+    // ==============================================================
+    // ✅ 23. Cập nhật sản phẩm — phát ProductChangedEvent
+    // ==============================================================
+    @Test
+    void testUpdateProduct_ShouldPublishProductChangedEvent() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(categoryRepository.findById(1L)).thenReturn(Optional.of(category));
+        when(productRepository.save(any(Product.class))).thenReturn(product);
+
+        productService.updateProduct(1L, requestDTO);
+
+        verify(eventPublisher).publishEvent(argThat(
+                (ProductChangedEvent event) -> event.getProductIds().equals(Set.of(1L))));
+    }
+
+    // ==============================================================
+    // ✅ 24. Lọc theo danh mục + danh mục con — dùng cây trong bộ nhớ
+    // ==============================================================
+    @Test
+    void testGetProductsAfter_IncludeSubcategories_ShouldUseCategoryTree() {
+        when(categoryTreeService.getDescendantIds(1L)).thenReturn(Set.of(1L, 2L, 3L));
+        when(productRepository.findIdsAfter(any(), isNull(), eq(11))).thenReturn(List.of());
+
+        ProductCursorPageDTO page = productService.getProductsAfter(
+                null, 10, 1L, null, null, null, null, null, true);
+
+        assertTrue(page.getItems().isEmpty());
+        verify(categoryTreeService).getDescendantIds(1L);
+    }
+
+    // ==============================================================
+    // ✅ 25. Tìm kiếm toàn văn — giữ thứ tự xếp hạng của chỉ mục
+    // ==============================================================
+    @Test
+    void testSearchProducts_ShouldKeepRankingOrder() {
+        Product second = new Product();
+        second.setId(2L);
+        second.setName("Silver Ring");
+        second.setCategory(category);
+
+        when(productSearchService.search("ring", 10))
+                .thenReturn(List.of(new SearchHit(2L, 3.0), new SearchHit(1L, 1.5)));
+        when(productRepository.findWithVariantsByIdIn(List.of(2L, 1L))).thenReturn(List.of(product, second));
+
+        List<ProductResponseDTO> result = productService.searchProducts("ring", 10);
+
+        assertEquals(List.of(2L, 1L), result.stream().map(ProductResponseDTO::getId).toList());
+    }
+
+    // ==============================================================
+    // ✅ 26. Lọc theo tên chỉ so khớp tên (LIKE), không đi qua chỉ mục toàn văn
+    // ==============================================================
+    @Test
+    void testGetAllProducts_NameFilter_ShouldMatchNameOnly() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(productRepository.findIds(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(1L), pageable, 1));
+        when(productRepository.findWithVariantsByIdIn(List.of(1L))).thenReturn(List.of(product));
+
+        Page<ProductResponseDTO> result = productService.getAllProducts(
+                pageable, null, null, null, "nhan", null, null, false);
+
+        assertEquals(1, result.getTotalElements());
+        verifyNoInteractions(productSearchService);
+    }
+
+    // ==============================================================
+    // ✅ 27. Lọc facet — phân trang trên danh sách ID, trả kèm số đếm
+    // ==============================================================
+    @Test
+    void testGetFacetedProducts_ShouldPageIdsAndReturnCounts() {
+        ProductFacetFilterDTO filter = new ProductFacetFilterDTO();
+        filter.setMaterial(List.of("Gold"));
+        filter.setPage(1);
+        filter.setLimit(1);
+
+        when(productFacetService.query(any())).thenReturn(new FacetResult(
+                List.of(5L, 1L), Map.of("material", Map.of("Gold", 2))));
+        when(productRepository.findWithVariantsByIdIn(List.of(1L))).thenReturn(List.of(product));
+
+        FacetedProductPageDTO result = productService.getFacetedProducts(filter);
+
+        assertEquals(2, result.getTotalElements());
+        assertEquals(1, result.getItems().size());
+        assertEquals(1L, result.getItems().get(0).getId());
+        assertEquals(2, result.getFacets().get("material").get("Gold"));
+    }
+
+    // ==============================================================
+    // ✅ 28. Lọc facet theo danh mục không tồn tại → rỗng, không phải cả catalog
+    // ==============================================================
+    @Test
+    void testGetFacetedProducts_UnknownCategoryWithSubcategories_ShouldReturnEmpty() {
+        ProductFacetFilterDTO filter = new ProductFacetFilterDTO();
+        filter.setCategoryId(999L);
+        filter.setIncludeSubcategories(true);
+
+        when(categoryTreeService.getDescendantIds(999L)).thenReturn(Set.of());
+
+        FacetedProductPageDTO result = productService.getFacetedProducts(filter);
+
+        assertEquals(0, result.getTotalElements());
+        assertTrue(result.getItems().isEmpty());
+        verifyNoInteractions(productFacetService);
+    }
 }
@@ -0,0 +1,105 @@
+package com.jeweleryshop.backend.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
+import com.jeweleryshop.backend.dto.PromotionDTO;
+import com.jeweleryshop.backend.dto.PromotionRequestDTO;
+import com.jeweleryshop.backend.entity.Promotion;
+import com.jeweleryshop.backend.entity.PromotionType;
+import com.jeweleryshop.backend.event.PromotionChangedEvent;
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.repository.PromotionRepository;
+
+@ExtendWith(MockitoExtension.class)
+class PromotionServiceTest {
+
+    @Mock
+    private PromotionRepository promotionRepository;
+    @Spy
+    private BoundedTtlCache<String, PromotionDTO> promotionCache =
+            new BoundedTtlCache<>("promotions", 10, Duration.ofMinutes(1));
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private PromotionService promotionService;
+
+    private Promotion promotion;
+
+    @BeforeEach
+    void setup() {
+        promotion = new Promotion(1L, "SALE10", "Giảm 10%", PromotionType.PERCENTAGE, BigDecimal.TEN,
+                LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1), null, 100, 5);
+    }
+
+    // ✅ 1. Định nghĩa khuyến mãi được cache theo mã
+    @Test
+    void testValidatePromotionCode_ShouldReadDatabaseOnce() {
+        when(promotionRepository.findByCode("SALE10")).thenReturn(Optional.of(promotion));
+
+        promotionService.validatePromotionCode("SALE10");
+        PromotionDTO dto = promotionService.validatePromotionCode("SALE10");
+
+        assertEquals("SALE10", dto.getCode());
+        verify(promotionRepository, times(1)).findByCode("SALE10");
+    }
+
+    // ✅ 2. Hết lượt khi đặt hàng → lỗi + bỏ định nghĩa cũ trong cache
+    @Test
+    void testIncrementUsage_LimitReached_ShouldThrowAndInvalidate() {
+        when(promotionRepository.incrementUsageIfAvailable(eq("SALE10"), any())).thenReturn(0);
+
+        assertThrows(AppException.class, () -> promotionService.incrementUsage("SALE10"));
+        verify(promotionCache).invalidate("SALE10");
+    }
+
+    // ✅ 3. Sửa mã khuyến mãi → sự kiện mang cả mã cũ lẫn mã mới, cache chỉ bị
+    // xóa sau commit (PromotionCacheListener), không xóa trong transaction
+    @Test
+    void testUpdatePromotion_ShouldInvalidateOldAndNewCode() {
+        PromotionRequestDTO request = new PromotionRequestDTO();
+        request.setCode("SALE20");
+        request.setDiscountType(PromotionType.PERCENTAGE);
+        request.setDiscountValue(BigDecimal.valueOf(20));
+        request.setStartDate(promotion.getStartDate());
+        request.setEndDate(promotion.getEndDate());
+        request.setMaxUsage(100);
+        when(promotionRepository.findById(1L)).thenReturn(Optional.of(promotion));
+        when(promotionRepository.findByCode("SALE20")).thenReturn(Optional.empty());
+        when(promotionRepository.save(any(Promotion.class))).thenAnswer(i -> i.getArgument(0));
+
+        promotionService.updatePromotion(1L, request);
+
+        ArgumentCaptor<PromotionChangedEvent> event = ArgumentCaptor.forClass(PromotionChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Set.of("SALE10", "SALE20"), event.getValue().getCodes());
+        verify(promotionCache, never()).invalidate(any());
+
+        new PromotionCacheListener(promotionCache).onPromotionChanged(event.getValue());
+        verify(promotionCache).invalidate("SALE10");
+        verify(promotionCache).invalidate("SALE20");
+    }
+}
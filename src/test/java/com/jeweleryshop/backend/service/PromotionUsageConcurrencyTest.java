@@ -0,0 +1,103 @@
+package com.jeweleryshop.backend.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jeweleryshop.backend.cache.BoundedTtlCache;
+import com.jeweleryshop.backend.entity.Promotion;
+import com.jeweleryshop.backend.entity.PromotionType;
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.repository.PromotionRepository;
+
+/**
+ * 🧪 Nhiều checkout dùng chung một mã cùng lúc: số lượt dùng không bao giờ
+ * vượt maxUsage và không lượt nào bị mất. Chạy trên H2 nhúng — mỗi lượt
+ * redeem là một transaction riêng, giống một đơn hàng thật.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PromotionUsageConcurrencyTest {
+
+    private static final int REDEMPTIONS = 1000;
+    private static final int MAX_USAGE = 100;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanup() {
+        promotionRepository.deleteAll();
+    }
+
+    @Test
+    void incrementUsage_ParallelRedemptions_ShouldStopExactlyAtMaxUsage() throws Exception {
+        Promotion promotion = new Promotion();
+        promotion.setCode("FLASH");
+        promotion.setDiscountType(PromotionType.PERCENTAGE);
+        promotion.setDiscountValue(BigDecimal.TEN);
+        promotion.setStartDate(LocalDateTime.now().minusDays(1));
+        promotion.setEndDate(LocalDateTime.now().plusDays(1));
+        promotion.setMaxUsage(MAX_USAGE);
+        promotionRepository.save(promotion);
+
+        PromotionService promotionService = new PromotionService(promotionRepository,
+                new BoundedTtlCache<>("promotions", 10, Duration.ofMinutes(1)), event -> { });
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        AtomicInteger redeemed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < REDEMPTIONS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        transaction.executeWithoutResult(status -> promotionService.incrementUsage("FLASH"));
+                        redeemed.incrementAndGet();
+                    } catch (AppException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(MAX_USAGE, redeemed.get());
+        assertEquals(REDEMPTIONS - MAX_USAGE, rejected.get());
+        assertEquals(MAX_USAGE, promotionRepository.findByCode("FLASH").orElseThrow().getCurrentUsage());
+    }
+}
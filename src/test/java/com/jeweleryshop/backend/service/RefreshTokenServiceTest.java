@@ -0,0 +1,96 @@
+package com.jeweleryshop.backend.service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.jeweleryshop.backend.entity.RefreshToken;
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.repository.RefreshTokenRepository;
+import com.jeweleryshop.backend.utils.TokenHasher;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenService service() {
+        return new RefreshTokenService(refreshTokenRepository, 60_000, 3, 2);
+    }
+
+    // ✅ 1. Cấp token bằng một câu upsert, DB chỉ nhận hash
+    @Test
+    void testCreateRefreshToken_UpsertsHash() {
+        when(refreshTokenRepository.countByUserId(1L)).thenReturn(2L);
+
+        RefreshToken token = service().createRefreshToken(1L, " phone-1 ");
+
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(refreshTokenRepository).upsert(eq(1L), eq("phone-1"), hash.capture(), any(Instant.class));
+        assertEquals(TokenHasher.sha256Hex(token.getToken()), hash.getValue());
+        assertNotEquals(token.getToken(), hash.getValue());
+        assertEquals("phone-1", token.getDeviceId());
+        verify(refreshTokenRepository, never()).deleteOldestBeyond(anyLong(), anyInt());
+    }
+
+    // ✅ 2. Không gửi thiết bị → thiết bị mặc định; vượt số thiết bị → bỏ phiên cũ nhất
+    @Test
+    void testCreateRefreshToken_DefaultDeviceAndCap() {
+        when(refreshTokenRepository.countByUserId(1L)).thenReturn(4L);
+
+        RefreshToken token = service().createRefreshToken(1L, null);
+
+        assertEquals(RefreshTokenService.DEFAULT_DEVICE, token.getDeviceId());
+        verify(refreshTokenRepository).deleteOldestBeyond(1L, 3);
+    }
+
+    // ✅ 3. Tra cứu và đăng xuất theo hash của token
+    @Test
+    void testFindAndDeleteByTokenHash() {
+        RefreshToken stored = new RefreshToken();
+        when(refreshTokenRepository.findByTokenHash(TokenHasher.sha256Hex("abc"))).thenReturn(Optional.of(stored));
+
+        assertSame(stored, service().findByToken("abc").orElseThrow());
+        service().deleteByToken("abc");
+        verify(refreshTokenRepository).deleteByTokenHash(TokenHasher.sha256Hex("abc"));
+    }
+
+    // ❌ 4. Token hết hạn bị từ chối nhưng không xóa ngay
+    @Test
+    void testVerifyExpiration_ExpiredNotDeletedInline() {
+        RefreshToken expired = new RefreshToken();
+        expired.setExpiryDate(Instant.now().minusSeconds(1));
+
+        assertThrows(AppException.class, () -> service().verifyExpiration(expired));
+        verify(refreshTokenRepository, never()).delete(any());
+        verify(refreshTokenRepository, never()).deleteByTokenHash(anyString());
+    }
+
+    // ✅ 5. Job dọn xóa theo lô tới khi hết
+    @Test
+    void testPurgeExpired_Batches() {
+        when(refreshTokenRepository.deleteExpiredBatch(any(Instant.class), eq(2))).thenReturn(2, 2, 1);
+
+        assertEquals(5, service().purgeExpired());
+        verify(refreshTokenRepository, times(3)).deleteExpiredBatch(any(Instant.class), eq(2));
+    }
+}
@@ -0,0 +1,123 @@
+package com.jeweleryshop.backend.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.jeweleryshop.backend.dto.SalesAnalyticsDTO;
+import com.jeweleryshop.backend.dto.SalesAnalyticsDTO.PointDTO;
+import com.jeweleryshop.backend.dto.SalesAnalyticsDTO.SeriesDTO;
+import com.jeweleryshop.backend.dto.SalesAnalyticsQueryDTO;
+import com.jeweleryshop.backend.dto.SalesAnalyticsQueryDTO.Bucket;
+import com.jeweleryshop.backend.entity.RollupDimension;
+import com.jeweleryshop.backend.entity.RollupGranularity;
+import com.jeweleryshop.backend.entity.SalesRollup;
+import com.jeweleryshop.backend.exception.AppException;
+import com.jeweleryshop.backend.repository.CategoryRepository;
+import com.jeweleryshop.backend.repository.ProductVariantRepository;
+import com.jeweleryshop.backend.repository.SalesRollupRepository;
+import com.jeweleryshop.backend.repository.projection.IdLabelRow;
+
+class SalesAnalyticsServiceTest {
+
+    private final SalesRollupRepository salesRollupRepository = mock(SalesRollupRepository.class);
+    private final SalesRollupService salesRollupService = mock(SalesRollupService.class);
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+    private final ProductVariantRepository productVariantRepository = mock(ProductVariantRepository.class);
+
+    private final SalesAnalyticsService analyticsService = new SalesAnalyticsService(salesRollupRepository,
+            salesRollupService, categoryRepository, productVariantRepository, 100);
+
+    private static SalesRollup daily(RollupDimension dimension, long dimensionId, LocalDateTime day,
+            String revenue, long orders, long units) {
+        SalesRollup rollup = new SalesRollup(RollupGranularity.DAY, dimension, day, dimensionId);
+        rollup.add(new BigDecimal(revenue), orders, units);
+        return rollup;
+    }
+
+    private static SalesAnalyticsQueryDTO query(LocalDateTime from, LocalDateTime to, Bucket bucket,
+            RollupDimension groupBy) {
+        SalesAnalyticsQueryDTO query = new SalesAnalyticsQueryDTO();
+        query.setFrom(from);
+        query.setTo(to);
+        query.setBucket(bucket);
+        query.setGroupBy(groupBy);
+        return query;
+    }
+
+    private static IdLabelRow label(long id, String label) {
+        IdLabelRow row = mock(IdLabelRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getLabel()).thenReturn(label);
+        return row;
+    }
+
+    // ✅ 1. Tuần (từ thứ Hai): gộp dòng theo ngày, khung trống = 0, tính AOV
+    @Test
+    void testWeeklyTotals_FoldsDaysAndFillsGaps() {
+        // 2024-05-06 là thứ Hai
+        LocalDateTime monday = LocalDateTime.of(2024, 5, 6, 0, 0);
+        when(salesRollupRepository.findSeries(eq(RollupGranularity.DAY), eq(RollupDimension.TOTAL), any(), any()))
+                .thenReturn(List.of(
+                        daily(RollupDimension.TOTAL, 0, monday.plusDays(1), "300", 2, 3),
+                        daily(RollupDimension.TOTAL, 0, monday.plusDays(4), "100", 1, 1)));
+
+        SalesAnalyticsDTO result = analyticsService.getSales(
+                query(monday.plusDays(2).plusHours(5), monday.plusDays(15), Bucket.WEEK, RollupDimension.TOTAL));
+
+        assertEquals(monday, result.getFrom());
+        assertEquals(monday.plusWeeks(3), result.getTo());
+        SeriesDTO series = result.getSeries().get(0);
+        assertNull(series.getDimensionId());
+        assertEquals(3, series.getPoints().size());
+        PointDTO first = series.getPoints().get(0);
+        assertEquals(new BigDecimal("400"), first.getRevenue());
+        assertEquals(3, first.getOrders());
+        assertEquals(new BigDecimal("133.33"), first.getAverageOrderValue());
+        assertEquals(4, first.getUnitsSold());
+        assertEquals(0, series.getPoints().get(1).getOrders());
+        assertEquals(BigDecimal.ZERO, series.getPoints().get(2).getAverageOrderValue());
+    }
+
+    // ✅ 2. Tách theo danh mục: giữ top N theo doanh thu, kèm tên
+    @Test
+    void testGroupByCategory_KeepsTopSeries() {
+        LocalDateTime day = LocalDateTime.of(2024, 5, 1, 0, 0);
+        when(salesRollupRepository.findSeries(eq(RollupGranularity.DAY), eq(RollupDimension.CATEGORY), any(), any()))
+                .thenReturn(List.of(
+                        daily(RollupDimension.CATEGORY, 1, day, "100", 1, 1),
+                        daily(RollupDimension.CATEGORY, 2, day, "500", 2, 2),
+                        daily(RollupDimension.CATEGORY, 3, day.plusDays(1), "300", 1, 1)));
+        List<IdLabelRow> labels = List.of(label(2, "Rings"), label(3, "Necklaces"));
+        when(categoryRepository.findLabelsByIdIn(any())).thenReturn(labels);
+        SalesAnalyticsQueryDTO query = query(day, day.plusMonths(1), Bucket.MONTH, RollupDimension.CATEGORY);
+        query.setTop(2);
+
+        SalesAnalyticsDTO result = analyticsService.getSales(query);
+
+        assertEquals(2, result.getSeries().size());
+        assertEquals(2L, result.getSeries().get(0).getDimensionId());
+        assertEquals("Rings", result.getSeries().get(0).getLabel());
+        assertEquals("Necklaces", result.getSeries().get(1).getLabel());
+        assertEquals(new BigDecimal("300"), result.getSeries().get(1).getTotal().getRevenue());
+    }
+
+    // ❌ 3. Khoảng sai hoặc quá nhiều khung
+    @Test
+    void testInvalidRanges() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 0, 0);
+        assertThrows(AppException.class,
+                () -> analyticsService.getSales(query(now, now, Bucket.DAY, RollupDimension.TOTAL)));
+        assertThrows(AppException.class,
+                () -> analyticsService.getSales(query(now, now.plusDays(5), Bucket.HOUR, RollupDimension.TOTAL)));
+    }
+}
@@ -0,0 +1,109 @@
+package com.jeweleryshop.backend.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jeweleryshop.backend.entity.OrderStatus;
+import com.jeweleryshop.backend.entity.RollupDimension;
+import com.jeweleryshop.backend.entity.RollupGranularity;
+import com.jeweleryshop.backend.entity.SalesRollup;
+import com.jeweleryshop.backend.event.OrderStatusChangedEvent;
+import com.jeweleryshop.backend.repository.OrderDetailRepository;
+import com.jeweleryshop.backend.repository.OrderRepository;
+import com.jeweleryshop.backend.repository.SalesRollupRepository;
+import com.jeweleryshop.backend.repository.projection.SalesBucketRow;
+
+class SalesRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 10);
+
+    private final OrderDetailRepository orderDetailRepository = mock(OrderDetailRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final SalesRollupRepository salesRollupRepository = mock(SalesRollupRepository.class);
+
+    private final SalesRollupService rollupService =
+            new SalesRollupService(orderDetailRepository, orderRepository, salesRollupRepository, 2, 90);
+
+    private static SalesBucketRow row(int hour, long dimensionId, String revenue, long orders, long units) {
+        SalesBucketRow row = mock(SalesBucketRow.class);
+        when(row.getDay()).thenReturn(DAY);
+        when(row.getHour()).thenReturn(hour);
+        when(row.getDimensionId()).thenReturn(dimensionId);
+        when(row.getRevenue()).thenReturn(new BigDecimal(revenue));
+        when(row.getOrders()).thenReturn(orders);
+        when(row.getUnits()).thenReturn(units);
+        return row;
+    }
+
+    // ✅ 1. Mỗi giờ một dòng, cộng dồn thành một dòng theo ngày cho từng chiều
+    @Test
+    void testToRollups_FoldsHoursIntoDays() {
+        List<SalesBucketRow> rows = List.of(row(9, 1L, "300", 2, 3), row(14, 1L, "100", 1, 1), row(9, 2L, "50", 1, 1));
+
+        List<SalesRollup> rollups = SalesRollupService.toRollups(RollupDimension.CATEGORY, rows);
+
+        assertEquals(5, rollups.size());
+        SalesRollup firstHour = rollups.get(0);
+        assertEquals(RollupGranularity.HOUR, firstHour.getGranularity());
+        assertEquals(DAY.atTime(9, 0), firstHour.getBucketStart());
+        SalesRollup day = rollups.get(3);
+        assertEquals(RollupGranularity.DAY, day.getGranularity());
+        assertEquals(DAY.atStartOfDay(), day.getBucketStart());
+        assertEquals(1L, day.getDimensionId());
+        assertEquals(new BigDecimal("400"), day.getRevenue());
+        assertEquals(3, day.getOrderCount());
+        assertEquals(4, day.getUnitsSold());
+    }
+
+    // ✅ 2. Bảng rỗng → dựng từ đơn đầu tiên, từng khúc tối đa BACKFILL_CHUNK_DAYS ngày
+    @Test
+    void testRefresh_BackfillsHistoryWhenEmpty() {
+        LocalDate today = LocalDate.now();
+        when(salesRollupRepository.count()).thenReturn(0L);
+        when(orderRepository.findFirstOrderDate()).thenReturn(Optional.of(today.minusDays(40).atTime(8, 0)));
+        List<SalesBucketRow> rows = List.of(row(9, 0L, "10", 1, 1));
+        when(orderDetailRepository.sumSalesByHour(any(), any())).thenReturn(rows);
+
+        assertEquals(4, rollupService.refresh());
+
+        verify(salesRollupRepository).deleteWindow(today.minusDays(40).atStartOfDay(), today.minusDays(9).atStartOfDay());
+        verify(salesRollupRepository).deleteWindow(today.minusDays(9).atStartOfDay(), today.plusDays(1).atStartOfDay());
+        assertNotNull(rollupService.getRefreshedAt());
+    }
+
+    // ✅ 3. Chạy thường: các ngày gần nhất + ngày có đơn vào / rời DELIVERED
+    @Test
+    void testRefresh_RecomputesRecentAndDirtyDays() {
+        LocalDate today = LocalDate.now();
+        when(salesRollupRepository.count()).thenReturn(100L);
+        LocalDateTime oldOrder = today.minusDays(20).atTime(10, 0);
+        rollupService.onOrderStatusChanged(
+                new OrderStatusChangedEvent(oldOrder, BigDecimal.TEN, OrderStatus.SHIPPED, OrderStatus.DELIVERED));
+        // Không liên quan doanh số → không đánh dấu
+        rollupService.onOrderStatusChanged(
+                new OrderStatusChangedEvent(oldOrder.minusDays(5), BigDecimal.TEN, OrderStatus.PENDING, OrderStatus.SHIPPED));
+
+        rollupService.refresh();
+
+        verify(salesRollupRepository, times(3)).deleteWindow(any(), any());
+        verify(salesRollupRepository).deleteWindow(today.minusDays(20).atStartOfDay(), today.minusDays(19).atStartOfDay());
+        verify(salesRollupRepository).deleteWindow(today.minusDays(1).atStartOfDay(), today.atStartOfDay());
+        verify(salesRollupRepository).deleteWindow(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+
+        // Ngày bẩn đã xử lý thì lần sau không tính lại
+        rollupService.refresh();
+        verify(salesRollupRepository, times(5)).deleteWindow(any(), any());
+    }
+}
@@ -0,0 +1,89 @@
+package com.jeweleryshop.backend.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.jeweleryshop.backend.event.CartCheckedOutEvent;
+
+class StockHoldServiceTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private StockHoldService stockHoldService;
+
+    @BeforeEach
+    void setup() {
+        stockHoldService = new StockHoldService(Duration.ofMinutes(10), now::get);
+    }
+
+    @Test
+    void hold_ShouldReduceAvailableForOtherCartsOnly() {
+        assertTrue(stockHoldService.hold(1L, Map.of(100L, 3), Map.of(100L, 5)).isEmpty());
+
+        assertEquals(2, stockHoldService.available(100L, 5, 2L));
+        assertEquals(5, stockHoldService.available(100L, 5, 1L));
+        assertEquals(0, stockHoldService.heldByOthers(100L, 1L));
+    }
+
+    @Test
+    void hold_NotEnough_ShouldRejectWholeCart() {
+        stockHoldService.hold(1L, Map.of(100L, 4), Map.of(100L, 5));
+
+        Set<Long> unavailable = stockHoldService.hold(2L, Map.of(100L, 2, 200L, 1), Map.of(100L, 5, 200L, 9));
+
+        assertEquals(Set.of(100L), unavailable);
+        // Không giữ một phần: biến thể 200 cũng không bị giữ
+        assertEquals(0, stockHoldService.heldByOthers(200L, 1L));
+    }
+
+    @Test
+    void onCartCheckedOut_ShouldReleaseHoldOfThatCart() {
+        stockHoldService.hold(1L, Map.of(100L, 3), Map.of(100L, 5));
+        stockHoldService.hold(2L, Map.of(100L, 1), Map.of(100L, 5));
+
+        stockHoldService.onCartCheckedOut(new CartCheckedOutEvent(1L));
+
+        assertEquals(1, stockHoldService.heldByOthers(100L, 3L));
+        assertEquals(1, stockHoldService.activeHolds());
+    }
+
+    @Test
+    void hold_AgainForSameCart_ShouldReplacePreviousHold() {
+        stockHoldService.hold(1L, Map.of(100L, 4), Map.of(100L, 5));
+        assertTrue(stockHoldService.hold(1L, Map.of(100L, 5), Map.of(100L, 5)).isEmpty());
+
+        assertEquals(5, stockHoldService.heldByOthers(100L, 2L));
+    }
+
+    @Test
+    void releaseExpired_ShouldReturnStockOfExpiredHoldsOnly() {
+        stockHoldService.hold(1L, Map.of(100L, 2), Map.of(100L, 10));
+        now.addAndGet(TimeUnit.MINUTES.toNanos(6));
+        stockHoldService.hold(2L, Map.of(100L, 3), Map.of(100L, 10));
+        now.addAndGet(TimeUnit.MINUTES.toNanos(5));
+
+        assertEquals(1, stockHoldService.releaseExpired());
+        assertEquals(1, stockHoldService.activeHolds());
+        assertEquals(3, stockHoldService.heldByOthers(100L, 1L));
+    }
+
+    @Test
+    void releaseExpired_ShouldSweepMoreThanOneBatch() {
+        int carts = StockHoldService.SWEEP_BATCH_SIZE * 2 + 7;
+        for (long cartId = 0; cartId < carts; cartId++) {
+            stockHoldService.hold(cartId, Map.of(100L, 1), Map.of(100L, carts));
+        }
+        now.addAndGet(TimeUnit.MINUTES.toNanos(11));
+
+        assertEquals(carts, stockHoldService.releaseExpired());
+        assertEquals(0, stockHoldService.activeHolds());
+        assertEquals(0, stockHoldService.heldByOthers(100L, null));
+    }
+}
@@ -13,11 +13,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.jeweleryshop.backend.dto.UserRegistrationRequest;
@@ -25,6 +27,8 @@ import com.jeweleryshop.backend.dto.UserResponse;
 import com.jeweleryshop.backend.dto.UserUpdateRequest;
 import com.jeweleryshop.backend.entity.Role;
 import com.jeweleryshop.backend.entity.User;
+import com.jeweleryshop.backend.event.UserChangedEvent;
+import com.jeweleryshop.backend.event.UserCountChangedEvent;
 import com.jeweleryshop.backend.exception.ResourceNotFoundException;
 import com.jeweleryshop.backend.exception.UserAlreadyExistsException;
 import com.jeweleryshop.backend.mapper.UserMapper;
@@ -41,6 +45,8 @@ class UserServiceTest {
     private PasswordEncoder passwordEncoder;
     @Mock
     private UserMapper userMapper;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private UserService userService;
@@ -168,6 +174,7 @@ class UserServiceTest {
         UserResponse res = userService.updateUser(1L, updateRequest);
         assertNotNull(res);
         verify(userRepository).save(any(User.class));
+        verify(eventPublisher).publishEvent(argThat((UserChangedEvent e) -> e.getUsernames().equals(Set.of("tuan", "newtuan"))));
     }
 
     @Test
@@ -198,14 +205,17 @@ class UserServiceTest {
     // =====================================================
     @Test
     void testDeleteUser_Success() {
-        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         userService.deleteUser(1L);
         verify(userRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof UserChangedEvent changed
+                && changed.getUsernames().equals(Set.of("tuan"))));
+        verify(eventPublisher).publishEvent(any(UserCountChangedEvent.class));
     }
 
     @Test
     void testDeleteUser_NotFound_ShouldThrow() {
-        when(userRepository.existsById(1L)).thenReturn(false);
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> userService.deleteUser(1L));
     }
 
@@ -218,6 +228,8 @@ class UserServiceTest {
         userService.updateUserStatus(1L, false);
         verify(userRepository).save(any(User.class));
         assertFalse(user.getEnabled());
+        // Principal trong cache phải bỏ để tài khoản bị khóa không còn dùng được token cũ
+        verify(eventPublisher).publishEvent(argThat((UserChangedEvent e) -> e.getUsernames().equals(Set.of("tuan"))));
     }
 
     @Test